@@ -0,0 +1,68 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.benchmarks;
+
+import org.etsi.uri.ts102204.v1_1.MSSSignatureReqType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import ch.swisscom.mid.client.config.ClientConfiguration;
+import ch.swisscom.mid.client.model.SignatureRequest;
+import ch.swisscom.mid.client.rest.SignatureRequestModelUtils;
+import ch.swisscom.mid.client.rest.model.signreq.MSSSignatureRequest;
+import ch.swisscom.mid.client.soap.adapter.MssRequestBuilder;
+
+/**
+ * Building the MSS signature request model from a client signature request, for REST and for SOAP.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestBuildingBenchmark {
+
+    private ClientConfiguration config;
+    private SignatureRequest request;
+
+    @Setup
+    public void setUp() {
+        config = Samples.buildConfig();
+        request = Samples.buildSignatureRequest();
+    }
+
+    @Benchmark
+    public MSSSignatureRequest restCreateSignatureRequest() {
+        return SignatureRequestModelUtils.createSignatureRequest(config, request, false);
+    }
+
+    @Benchmark
+    public MSSSignatureReqType soapCreateSignatureReq() {
+        return MssRequestBuilder.createSignatureReq(config, request, false);
+    }
+
+}
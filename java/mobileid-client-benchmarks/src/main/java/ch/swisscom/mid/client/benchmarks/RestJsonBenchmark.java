@@ -0,0 +1,127 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import ch.swisscom.mid.client.rest.model.fault.MSSFault;
+import ch.swisscom.mid.client.rest.model.profqreq.MSSProfileQueryRequest;
+import ch.swisscom.mid.client.rest.model.profqresp.MSSProfileQueryResponse;
+import ch.swisscom.mid.client.rest.model.receiptreq.MSSReceiptRequest;
+import ch.swisscom.mid.client.rest.model.receiptresp.MSSReceiptResponse;
+import ch.swisscom.mid.client.rest.model.signreq.MSSSignatureRequest;
+import ch.swisscom.mid.client.rest.model.signresp.MSSSignatureResponse;
+import ch.swisscom.mid.client.rest.model.statusreq.MSSStatusRequest;
+import ch.swisscom.mid.client.rest.model.statusresp.MSSStatusResponse;
+
+/**
+ * Jackson serialization and deserialization of the REST model types, on the sample messages of the schema generation
+ * (gen-material) and of the REST tests. The object mapper is configured like the one of the REST protocol handler.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RestJsonBenchmark {
+
+    private static final Map<String, Class<?>> MODEL_TYPES = new HashMap<>();
+
+    static {
+        MODEL_TYPES.put("MSS_Signature_Request.json", MSSSignatureRequest.class);
+        MODEL_TYPES.put("MSS_Signature_Response.json", MSSSignatureResponse.class);
+        MODEL_TYPES.put("MSS_Status_Request.json", MSSStatusRequest.class);
+        MODEL_TYPES.put("MSS_Status_Response.json", MSSStatusResponse.class);
+        MODEL_TYPES.put("MSS_Receipt_Request.json", MSSReceiptRequest.class);
+        MODEL_TYPES.put("MSS_Receipt_Response.json", MSSReceiptResponse.class);
+        MODEL_TYPES.put("MSS_ProfileQuery_Request.json", MSSProfileQueryRequest.class);
+        MODEL_TYPES.put("MSS_ProfileQuery_Response.json", MSSProfileQueryResponse.class);
+        MODEL_TYPES.put("MSS_Fault.json", MSSFault.class);
+        MODEL_TYPES.put("rest-response-async-signature.json", MSSSignatureResponse.class);
+        MODEL_TYPES.put("rest-response-signature.json", MSSSignatureResponse.class);
+        MODEL_TYPES.put("rest-response-status-outstanding.json", MSSStatusResponse.class);
+        MODEL_TYPES.put("rest-response-status-signature.json", MSSStatusResponse.class);
+        MODEL_TYPES.put("rest-response-profile-query.json", MSSProfileQueryResponse.class);
+        MODEL_TYPES.put("rest-response-profile-query-pin-blocked.json", MSSProfileQueryResponse.class);
+        MODEL_TYPES.put("rest-response-fault-unknown-client.json", MSSFault.class);
+        MODEL_TYPES.put("rest-response-fault-user-cancel.json", MSSFault.class);
+    }
+
+    @Param({
+        "MSS_Signature_Request.json",
+        "MSS_Signature_Response.json",
+        "MSS_Status_Request.json",
+        "MSS_Status_Response.json",
+        "MSS_Receipt_Request.json",
+        "MSS_Receipt_Response.json",
+        "MSS_ProfileQuery_Request.json",
+        "MSS_ProfileQuery_Response.json",
+        "MSS_Fault.json",
+        "rest-response-async-signature.json",
+        "rest-response-signature.json",
+        "rest-response-status-outstanding.json",
+        "rest-response-status-signature.json",
+        "rest-response-profile-query.json",
+        "rest-response-profile-query-pin-blocked.json",
+        "rest-response-fault-unknown-client.json",
+        "rest-response-fault-user-cancel.json"
+    })
+    private String sample;
+
+    private ObjectMapper jacksonMapper;
+    private Class<?> modelType;
+    private String json;
+    private Object model;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        jacksonMapper = new ObjectMapper();
+        jacksonMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        modelType = MODEL_TYPES.get(sample);
+        json = Samples.load("rest/" + sample);
+        model = jacksonMapper.readValue(json, modelType);
+    }
+
+    @Benchmark
+    public String serialize() throws JsonProcessingException {
+        return jacksonMapper.writeValueAsString(model);
+    }
+
+    @Benchmark
+    public Object deserialize() throws JsonProcessingException {
+        return jacksonMapper.readValue(json, modelType);
+    }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+import ch.swisscom.mid.client.config.ClientConfiguration;
+import ch.swisscom.mid.client.model.SignatureProfiles;
+import ch.swisscom.mid.client.model.SignatureRequest;
+import ch.swisscom.mid.client.model.SubscriberInfoAdditionalService;
+import ch.swisscom.mid.client.model.TrialNumbers;
+import ch.swisscom.mid.client.model.UserLanguage;
+
+/**
+ * Sample messages and client objects shared by the benchmarks.
+ */
+final class Samples {
+
+    private Samples() {
+    }
+
+    /**
+     * Loads one of the sample messages copied into the benchmarks jar (see the resources section of the POM).
+     */
+    static String load(String resourceName) {
+        try (InputStream in = Samples.class.getResourceAsStream("/samples/" + resourceName)) {
+            if (in == null) {
+                throw new IllegalArgumentException("Sample not found: " + resourceName);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                out.write(buffer, 0, count);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load sample " + resourceName, e);
+        }
+    }
+
+    static ClientConfiguration buildConfig() {
+        ClientConfiguration config = new ClientConfiguration();
+        config.setApId("mid://benchmark.swisscom.ch");
+        config.setApPassword("disabled");
+        return config;
+    }
+
+    static SignatureRequest buildSignatureRequest() {
+        SignatureRequest request = new SignatureRequest();
+        request.setUserLanguage(UserLanguage.ENGLISH);
+        request.getDataToBeSigned().setData("bank.com: Please confirm the payment of CHF 100.00 to John Doe");
+        request.getDataToBeSigned().setEncodingToUtf8();
+        request.getDataToBeSigned().setMimeTypeToTextPlain();
+        request.getMobileUser().setMsisdn(TrialNumbers.ONE_THAT_GIVES_MISSING_PARAM);
+        request.setSignatureProfile(SignatureProfiles.DEFAULT_PROFILE);
+        request.addAdditionalService(new SubscriberInfoAdditionalService());
+        return request;
+    }
+
+}
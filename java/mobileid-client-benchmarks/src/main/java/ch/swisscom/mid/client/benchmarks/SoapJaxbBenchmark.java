@@ -0,0 +1,187 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.benchmarks;
+
+import org.etsi.uri.ts102204.v1_1.MSSProfileReqType;
+import org.etsi.uri.ts102204.v1_1.MSSProfileRespType;
+import org.etsi.uri.ts102204.v1_1.MSSReceiptReqType;
+import org.etsi.uri.ts102204.v1_1.MSSSignatureReqType;
+import org.etsi.uri.ts102204.v1_1.MSSSignatureRespType;
+import org.etsi.uri.ts102204.v1_1.MSSStatusReqType;
+import org.etsi.uri.ts102204.v1_1.MSSStatusRespType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import ch.swisscom.mid.client.config.ClientConfiguration;
+import ch.swisscom.mid.client.model.ProfileRequest;
+import ch.swisscom.mid.client.model.ReceiptRequest;
+import ch.swisscom.mid.client.model.SignatureTracking;
+import ch.swisscom.mid.client.model.StatusCode;
+import ch.swisscom.mid.client.soap.adapter.MssRequestBuilder;
+
+/**
+ * JAXB marshalling of the SOAP request types and unmarshalling of the SOAP response types (from the body of the sample
+ * SOAP responses of the SOAP tests). The JAXB context is created once, as it is by JAX-WS.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SoapJaxbBenchmark {
+
+    /**
+     * All the packages generated from the WSDL, as the MSS types refer to elements declared in several of them.
+     */
+    private static final String JAXB_CONTEXT_PATH = String.join(":",
+                                                                "org.etsi.uri.ts102204.v1_1",
+                                                                "fi.ficom.mss.ts102204.v1_0",
+                                                                "fi.methics.ts102204.ext.v1_0",
+                                                                "fi.methics.msspregistration.v1_0",
+                                                                "fi.methics.kiuru_wssecurity.v1_0",
+                                                                "ch.swisscom.ts102204.ext.v1_0",
+                                                                "ch.swisscom.mid.ts102204.as.v1",
+                                                                "oasis.names.tc.saml._2_0.assertion",
+                                                                "oasis.names.tc.saml._2_0.protocol",
+                                                                "org.oasis_open.docs.wss._2004._01.oasis_200401_wss_wssecurity_secext_1_0",
+                                                                "org.oasis_open.docs.wss._2004._01.oasis_200401_wss_wssecurity_utility_1_0",
+                                                                "org.w3._2000._09.xmldsig_",
+                                                                "org.w3._2001._04.xmlenc_",
+                                                                "org.w3._2003._05.soap_envelope");
+
+    private JAXBContext jaxbContext;
+    private XMLInputFactory xmlInputFactory;
+
+    private MSSSignatureReqType signatureReq;
+    private MSSStatusReqType statusReq;
+    private MSSReceiptReqType receiptReq;
+    private MSSProfileReqType profileReq;
+
+    private String signatureResponseXml;
+    private String statusResponseXml;
+    private String profileResponseXml;
+
+    @Setup
+    public void setUp() throws JAXBException {
+        jaxbContext = JAXBContext.newInstance(JAXB_CONTEXT_PATH);
+        xmlInputFactory = XMLInputFactory.newInstance();
+
+        ClientConfiguration config = Samples.buildConfig();
+        SignatureTracking tracking = new SignatureTracking();
+        tracking.setTransactionId("h29ah1");
+        tracking.setMobileUserMsisdn(Samples.buildSignatureRequest().getMobileUser().getMsisdn());
+        ReceiptRequest receiptRequest = new ReceiptRequest();
+        receiptRequest.getMessageToBeDisplayed().setData("bank.com: Thank you for your payment");
+        receiptRequest.getMessageToBeDisplayed().setEncodingToUtf8();
+        receiptRequest.getMessageToBeDisplayed().setMimeTypeToTextPlain();
+        receiptRequest.setStatusCode(StatusCode.REQUEST_OK);
+        ProfileRequest profileRequest = new ProfileRequest();
+        profileRequest.getMobileUser().setMsisdn(tracking.getMobileUserMsisdn());
+        profileRequest.setExtensionParamsToAllValues();
+
+        signatureReq = MssRequestBuilder.createSignatureReq(config, Samples.buildSignatureRequest(), false);
+        statusReq = MssRequestBuilder.createStatusQueryReq(config, tracking);
+        receiptReq = MssRequestBuilder.createReceiptReq(config, tracking, receiptRequest);
+        profileReq = MssRequestBuilder.createProfileReq(config, profileRequest);
+
+        signatureResponseXml = Samples.load("soap/soap-response-async-signature.xml");
+        statusResponseXml = Samples.load("soap/soap-response-status-signature.xml");
+        profileResponseXml = Samples.load("soap/soap-response-profile-query.xml");
+    }
+
+    @Benchmark
+    public String marshalSignatureReq() throws JAXBException {
+        return marshal("MSS_SignatureReq", MSSSignatureReqType.class, signatureReq);
+    }
+
+    @Benchmark
+    public String marshalStatusReq() throws JAXBException {
+        return marshal("MSS_StatusReq", MSSStatusReqType.class, statusReq);
+    }
+
+    @Benchmark
+    public String marshalReceiptReq() throws JAXBException {
+        return marshal("MSS_ReceiptReq", MSSReceiptReqType.class, receiptReq);
+    }
+
+    @Benchmark
+    public String marshalProfileReq() throws JAXBException {
+        return marshal("MSS_ProfileReq", MSSProfileReqType.class, profileReq);
+    }
+
+    @Benchmark
+    public MSSSignatureRespType unmarshalSignatureResp() throws JAXBException, XMLStreamException {
+        return unmarshal(signatureResponseXml, "MSS_SignatureResp", MSSSignatureRespType.class);
+    }
+
+    @Benchmark
+    public MSSStatusRespType unmarshalStatusResp() throws JAXBException, XMLStreamException {
+        return unmarshal(statusResponseXml, "MSS_StatusResp", MSSStatusRespType.class);
+    }
+
+    @Benchmark
+    public MSSProfileRespType unmarshalProfileResp() throws JAXBException, XMLStreamException {
+        return unmarshal(profileResponseXml, "MSS_ProfileResp", MSSProfileRespType.class);
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private <T> String marshal(String elementName, Class<T> type, T value) throws JAXBException {
+        StringWriter writer = new StringWriter();
+        jaxbContext.createMarshaller().marshal(new JAXBElement<>(new QName("", elementName), type, value), writer);
+        return writer.toString();
+    }
+
+    /**
+     * Unmarshals the (first) element with the given name from the given SOAP message, like JAX-WS does for the body of
+     * a SOAP response.
+     */
+    private <T> T unmarshal(String xml, String elementName, Class<T> type) throws JAXBException, XMLStreamException {
+        XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(new StringReader(xml));
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT && elementName.equals(reader.getLocalName())) {
+                    return jaxbContext.createUnmarshaller().unmarshal(reader, type).getValue();
+                }
+            }
+            throw new IllegalStateException("Element " + elementName + " not found in the SOAP message");
+        } finally {
+            reader.close();
+        }
+    }
+
+}
@@ -18,6 +18,8 @@ package ch.swisscom.mid.client;
 import ch.swisscom.mid.client.config.ConfigurationException;
 import ch.swisscom.mid.client.model.*;
 
+import static ch.swisscom.mid.client.utils.Utils.dataNotNull;
+
 /**
  * Main interface for the Mobile ID client library. This provides access to the main Mobile ID services, as documented
  * in the Mobile ID Reference Guide (go to <a href="https://www.mobileid.ch/en/documents">Mobile ID documentation</a>, then
@@ -110,6 +112,25 @@ public interface MIDClient extends AutoCloseable {
      */
     ProfileResponse requestProfile(ProfileRequest request);
 
+    /**
+     * Fetches the certificates of the mobile user of a previous (typically projected) profile request. This is the
+     * companion of {@link ProfileRequest#setProjection(ProfileField...)}: the latency sensitive path asks only for the
+     * fields it needs and the certificates are fetched later, only when they are actually needed.
+     *
+     * @param request the profile request whose mobile user (and protocol version) is used; it is not modified
+     * @return a response object that contains only the devices of the mobile user, with their certificates
+     */
+    default ProfileResponse requestProfileCertificates(ProfileRequest request) {
+        dataNotNull(request, "The given profile request object is NULL");
+        ProfileRequest certificatesRequest = new ProfileRequest();
+        certificatesRequest.setMajorVersion(request.getMajorVersion());
+        certificatesRequest.setMinorVersion(request.getMinorVersion());
+        certificatesRequest.setMobileUser(request.getMobileUser());
+        certificatesRequest.setTrafficObserver(request.getTrafficObserver());
+        certificatesRequest.setProjection(ProfileField.CERTIFICATES);
+        return requestProfile(certificatesRequest);
+    }
+
     /**
      * Disposes any internal resources allocated by this instance of the MID Client. This method should be used ONLY when the
      * MID Client cannot be used anymore (e.g. it is really not needed and needs to go away). The implementation of MID Client
@@ -0,0 +1,400 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ch.swisscom.mid.client.model.SignatureTracking;
+
+/**
+ * Compact in-memory table of outstanding signature trackings, keyed by MSSP transaction ID. Instead of one
+ * {@link SignatureTracking} object (with its four strings) per signature, the table keeps parallel primitive arrays:
+ * <ul>
+ *     <li>the transaction IDs are packed as UTF-8 bytes into one shared byte slab, found through an open-addressing
+ *     (linear probing) hash table of entry indexes;</li>
+ *     <li>the MSISDNs (digits only, as they are for Mobile ID) are encoded into a long;</li>
+ *     <li>the (major, minor) version pairs, which are the same for almost all the signatures, are interned and
+ *     referenced by a short;</li>
+ *     <li>the rarely used values (correlation key, trace parent, MSISDNs that are not only digits) go into a sparse
+ *     side map.</li>
+ * </ul>
+ * The {@link SignatureTracking} objects are only created when handed back to the caller. The traffic observer of a
+ * tracking is not kept. The slab is compacted when more than half of it belongs to removed entries.
+ * <p>
+ * This class is not thread-safe; callers synchronize (as {@link InMemoryTrackingStore} does).
+ */
+public class CompactTrackingTable {
+
+    private static final int EMPTY_SLOT = 0;
+    private static final int REMOVED_SLOT = -1;
+    private static final int MINIMUM_CAPACITY = 16;
+    private static final int MINIMUM_SLAB_SIZE = 1024;
+
+    private static final long NO_MSISDN = 0;
+    private static final long MSISDN_IN_EXTRAS = -1;
+    private static final int MAXIMUM_ENCODED_MSISDN_DIGITS = 17;
+    private static final int MSISDN_LENGTH_SHIFT = 57;
+    private static final long MSISDN_VALUE_MASK = (1L << MSISDN_LENGTH_SHIFT) - 1;
+
+    /**
+     * Open-addressing table: entry index + 1, {@link #EMPTY_SLOT} or {@link #REMOVED_SLOT}. The length is a power of
+     * two.
+     */
+    private int[] slots;
+    private int usedSlotCount;
+
+    private int[] idOffsets;
+    private short[] idLengths;
+    private long[] msisdns;
+    private short[] versionPairIds;
+    private long[] deadlines;
+    private int entryCount;
+    private int[] freeEntries;
+    private int freeEntryCount;
+    private int size;
+
+    private byte[] idSlab = new byte[MINIMUM_SLAB_SIZE];
+    private int idSlabUsed;
+    private int idSlabGarbage;
+
+    private final List<String[]> versionPairs = new ArrayList<>();
+    private final Map<String, Short> versionPairIdsByKey = new HashMap<>();
+    private final Map<Integer, Extras> extras = new HashMap<>();
+
+    public CompactTrackingTable() {
+        this(MINIMUM_CAPACITY);
+    }
+
+    public CompactTrackingTable(int initialCapacity) {
+        int capacity = Math.max(MINIMUM_CAPACITY, initialCapacity);
+        slots = new int[tableSizeFor(capacity)];
+        idOffsets = new int[capacity];
+        idLengths = new short[capacity];
+        msisdns = new long[capacity];
+        versionPairIds = new short[capacity];
+        deadlines = new long[capacity];
+        freeEntries = new int[capacity];
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds the given tracking, or replaces the one with the same transaction ID.
+     */
+    public void put(SignatureTracking tracking) {
+        byte[] id = tracking.getTransactionId().getBytes(StandardCharsets.UTF_8);
+        if (id.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Transaction ID too long: " + id.length + " bytes");
+        }
+        int slot = findSlot(id);
+        int entry;
+        if (slot >= 0) {
+            entry = slots[slot] - 1;
+        } else {
+            // rehash (if needed) before allocating the entry, as rehashing re-inserts all the allocated entries
+            ensureFreeSlot();
+            entry = allocateEntry(id);
+            insertIntoSlots(entry, hashOf(id, 0, id.length));
+            size++;
+        }
+        msisdns[entry] = encodeMsisdn(tracking.getMobileUserMsisdn());
+        versionPairIds[entry] = internVersionPair(tracking.getMajorVersion(), tracking.getMinorVersion());
+        deadlines[entry] = tracking.getDeadlineInMillis();
+        if (msisdns[entry] == MSISDN_IN_EXTRAS ||
+            tracking.getCorrelationKey() != null ||
+            tracking.getTraceParent() != null) {
+            extras.put(entry, new Extras(msisdns[entry] == MSISDN_IN_EXTRAS ? tracking.getMobileUserMsisdn() : null,
+                                         tracking.getCorrelationKey(),
+                                         tracking.getTraceParent()));
+        } else {
+            extras.remove(entry);
+        }
+    }
+
+    /**
+     * Returns a new tracking object for the given transaction ID or NULL if there is none.
+     */
+    public SignatureTracking get(String transactionId) {
+        int slot = findSlot(transactionId.getBytes(StandardCharsets.UTF_8));
+        return slot < 0 ? null : toTracking(slots[slot] - 1);
+    }
+
+    public boolean contains(String transactionId) {
+        return findSlot(transactionId.getBytes(StandardCharsets.UTF_8)) >= 0;
+    }
+
+    /**
+     * Removes the tracking of the given transaction ID. Returns true if there was one.
+     */
+    public boolean remove(String transactionId) {
+        int slot = findSlot(transactionId.getBytes(StandardCharsets.UTF_8));
+        if (slot < 0) {
+            return false;
+        }
+        int entry = slots[slot] - 1;
+        slots[slot] = REMOVED_SLOT;
+        idSlabGarbage += idLengths[entry];
+        idLengths[entry] = -1;
+        extras.remove(entry);
+        freeEntries[freeEntryCount++] = entry;
+        size--;
+        if (idSlabGarbage > MINIMUM_SLAB_SIZE && idSlabGarbage > idSlabUsed / 2) {
+            compactSlab();
+        }
+        return true;
+    }
+
+    /**
+     * Returns new tracking objects for all the entries of this table.
+     */
+    public List<SignatureTracking> toList() {
+        List<SignatureTracking> result = new ArrayList<>(size);
+        for (int entry = 0; entry < entryCount; entry++) {
+            if (idLengths[entry] >= 0) {
+                result.add(toTracking(entry));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the approximate number of bytes retained by this table (arrays and side maps), for capacity planning.
+     */
+    public long estimateSizeInBytes() {
+        long arrays = 4L * slots.length +
+                      (long) idOffsets.length * (4 + 2 + 8 + 2 + 8 + 4) +
+                      idSlab.length;
+        return arrays + 96L * extras.size() + 64L * versionPairs.size();
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private SignatureTracking toTracking(int entry) {
+        SignatureTracking tracking = new SignatureTracking();
+        tracking.setTransactionId(new String(idSlab, idOffsets[entry], idLengths[entry], StandardCharsets.UTF_8));
+        String[] versionPair = versionPairs.get(versionPairIds[entry]);
+        tracking.setMajorVersion(versionPair[0]);
+        tracking.setMinorVersion(versionPair[1]);
+        tracking.setDeadlineInMillis(deadlines[entry]);
+        Extras entryExtras = extras.get(entry);
+        if (entryExtras != null) {
+            tracking.setCorrelationKey(entryExtras.correlationKey);
+            tracking.setTraceParent(entryExtras.traceParent);
+        }
+        tracking.setMobileUserMsisdn(msisdns[entry] == MSISDN_IN_EXTRAS
+                                     ? entryExtras.msisdn : decodeMsisdn(msisdns[entry]));
+        return tracking;
+    }
+
+    /**
+     * Returns the slot of the given transaction ID or -1 if it is not in the table.
+     */
+    private int findSlot(byte[] id) {
+        int mask = slots.length - 1;
+        int slot = hashOf(id, 0, id.length) & mask;
+        while (slots[slot] != EMPTY_SLOT) {
+            int entry = slots[slot] - 1;
+            if (slots[slot] != REMOVED_SLOT && idEquals(entry, id)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private boolean idEquals(int entry, byte[] id) {
+        if (idLengths[entry] != id.length) {
+            return false;
+        }
+        int offset = idOffsets[entry];
+        for (int index = 0; index < id.length; index++) {
+            if (idSlab[offset + index] != id[index]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void ensureFreeSlot() {
+        if ((usedSlotCount + 1) * 4L > slots.length * 3L) {
+            rehash();
+        }
+    }
+
+    private void insertIntoSlots(int entry, int hash) {
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        while (slots[slot] != EMPTY_SLOT) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = entry + 1;
+        usedSlotCount++;
+    }
+
+    /**
+     * Rebuilds the slots without the removed ones, doubling their number if the table is more than half full.
+     */
+    private void rehash() {
+        int newLength = size * 2 >= slots.length ? slots.length * 2 : slots.length;
+        slots = new int[newLength];
+        usedSlotCount = 0;
+        int mask = newLength - 1;
+        for (int entry = 0; entry < entryCount; entry++) {
+            if (idLengths[entry] >= 0) {
+                int slot = hashOf(idSlab, idOffsets[entry], idLengths[entry]) & mask;
+                while (slots[slot] != EMPTY_SLOT) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = entry + 1;
+                usedSlotCount++;
+            }
+        }
+    }
+
+    private int allocateEntry(byte[] id) {
+        int entry;
+        if (freeEntryCount > 0) {
+            entry = freeEntries[--freeEntryCount];
+        } else {
+            if (entryCount == idOffsets.length) {
+                growEntries();
+            }
+            entry = entryCount++;
+        }
+        if (idSlabUsed + id.length > idSlab.length) {
+            idSlab = Arrays.copyOf(idSlab, Math.max(idSlab.length * 2, idSlabUsed + id.length));
+        }
+        System.arraycopy(id, 0, idSlab, idSlabUsed, id.length);
+        idOffsets[entry] = idSlabUsed;
+        idLengths[entry] = (short) id.length;
+        idSlabUsed += id.length;
+        return entry;
+    }
+
+    private void growEntries() {
+        int newCapacity = idOffsets.length * 2;
+        idOffsets = Arrays.copyOf(idOffsets, newCapacity);
+        idLengths = Arrays.copyOf(idLengths, newCapacity);
+        msisdns = Arrays.copyOf(msisdns, newCapacity);
+        versionPairIds = Arrays.copyOf(versionPairIds, newCapacity);
+        deadlines = Arrays.copyOf(deadlines, newCapacity);
+        freeEntries = Arrays.copyOf(freeEntries, newCapacity);
+    }
+
+    private void compactSlab() {
+        int liveBytes = idSlabUsed - idSlabGarbage;
+        byte[] newSlab = new byte[Math.max(MINIMUM_SLAB_SIZE, Integer.highestOneBit(Math.max(1, liveBytes)) * 2)];
+        int used = 0;
+        for (int entry = 0; entry < entryCount; entry++) {
+            if (idLengths[entry] >= 0) {
+                System.arraycopy(idSlab, idOffsets[entry], newSlab, used, idLengths[entry]);
+                idOffsets[entry] = used;
+                used += idLengths[entry];
+            }
+        }
+        idSlab = newSlab;
+        idSlabUsed = used;
+        idSlabGarbage = 0;
+    }
+
+    private short internVersionPair(String majorVersion, String minorVersion) {
+        String key = majorVersion + '\u0000' + minorVersion;
+        Short id = versionPairIdsByKey.get(key);
+        if (id == null) {
+            if (versionPairs.size() > Short.MAX_VALUE) {
+                throw new IllegalStateException("Too many distinct version pairs in the tracking table");
+            }
+            id = (short) versionPairs.size();
+            versionPairs.add(new String[]{majorVersion, minorVersion});
+            versionPairIdsByKey.put(key, id);
+        }
+        return id;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    /**
+     * Encodes an MSISDN made of 1 to 17 digits as its number of digits (so that leading zeros are kept) and its value.
+     */
+    static long encodeMsisdn(String msisdn) {
+        if (msisdn == null) {
+            return NO_MSISDN;
+        }
+        int length = msisdn.length();
+        if (length == 0 || length > MAXIMUM_ENCODED_MSISDN_DIGITS) {
+            return MSISDN_IN_EXTRAS;
+        }
+        long value = 0;
+        for (int index = 0; index < length; index++) {
+            char digit = msisdn.charAt(index);
+            if (digit < '0' || digit > '9') {
+                return MSISDN_IN_EXTRAS;
+            }
+            value = value * 10 + (digit - '0');
+        }
+        return ((long) length << MSISDN_LENGTH_SHIFT) | value;
+    }
+
+    static String decodeMsisdn(long encoded) {
+        if (encoded == NO_MSISDN) {
+            return null;
+        }
+        int length = (int) (encoded >>> MSISDN_LENGTH_SHIFT);
+        String digits = Long.toString(encoded & MSISDN_VALUE_MASK);
+        StringBuilder result = new StringBuilder(length);
+        for (int index = digits.length(); index < length; index++) {
+            result.append('0');
+        }
+        return result.append(digits).toString();
+    }
+
+    private static int hashOf(byte[] bytes, int offset, int length) {
+        int hash = 1;
+        for (int index = offset; index < offset + length; index++) {
+            hash = 31 * hash + bytes[index];
+        }
+        // spread the bits, as the slots are selected by the low bits
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int tableSizeFor(int capacity) {
+        return Integer.highestOneBit(Math.max(MINIMUM_CAPACITY, capacity * 2) - 1) << 1;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private static class Extras {
+        private final String msisdn;
+        private final String correlationKey;
+        private final String traceParent;
+
+        private Extras(String msisdn, String correlationKey, String traceParent) {
+            this.msisdn = msisdn;
+            this.correlationKey = correlationKey;
+            this.traceParent = traceParent;
+        }
+    }
+
+}
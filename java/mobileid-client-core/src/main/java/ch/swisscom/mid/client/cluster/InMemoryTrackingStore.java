@@ -0,0 +1,111 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.cluster;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import ch.swisscom.mid.client.model.SignatureTracking;
+
+/**
+ * {@link TrackingStore} that keeps everything in memory. Shared by several {@link PartitionedPoller} instances of the
+ * same JVM, it behaves like a cluster of nodes; it is meant for tests and for single machine setups. The trackings are
+ * kept in {@link CompactTrackingTable}s, so the traffic observers of the tracked signatures are not kept.
+ */
+public class InMemoryTrackingStore implements TrackingStore {
+
+    private final Map<Integer, CompactTrackingTable> trackings = new HashMap<>();
+    private final Map<Integer, Lease> leases = new HashMap<>();
+    private final Map<String, Long> nodeExpirations = new HashMap<>();
+
+    @Override
+    public synchronized void saveTracking(int partition, SignatureTracking tracking) {
+        trackings.computeIfAbsent(partition, ignored -> new CompactTrackingTable()).put(tracking);
+    }
+
+    @Override
+    public synchronized void removeTracking(int partition, String transactionId) {
+        CompactTrackingTable partitionTrackings = trackings.get(partition);
+        if (partitionTrackings != null) {
+            partitionTrackings.remove(transactionId);
+        }
+    }
+
+    @Override
+    public synchronized List<SignatureTracking> getTrackings(int partition) {
+        CompactTrackingTable partitionTrackings = trackings.get(partition);
+        return partitionTrackings == null ? new ArrayList<>() : partitionTrackings.toList();
+    }
+
+    @Override
+    public synchronized boolean tryAcquireLease(int partition, String nodeId, long leaseDurationInMs) {
+        long nowInMillis = System.currentTimeMillis();
+        Lease lease = leases.get(partition);
+        if (lease != null && !lease.nodeId.equals(nodeId) && lease.expiresAtInMillis > nowInMillis) {
+            return false;
+        }
+        leases.put(partition, new Lease(nodeId, nowInMillis + leaseDurationInMs));
+        return true;
+    }
+
+    @Override
+    public synchronized void releaseLease(int partition, String nodeId) {
+        Lease lease = leases.get(partition);
+        if (lease != null && lease.nodeId.equals(nodeId)) {
+            leases.remove(partition);
+        }
+    }
+
+    @Override
+    public synchronized String getLeaseOwner(int partition) {
+        Lease lease = leases.get(partition);
+        return lease == null || lease.expiresAtInMillis <= System.currentTimeMillis() ? null : lease.nodeId;
+    }
+
+    @Override
+    public synchronized void heartbeat(String nodeId, long timeToLiveInMs) {
+        nodeExpirations.put(nodeId, System.currentTimeMillis() + timeToLiveInMs);
+    }
+
+    @Override
+    public synchronized void removeNode(String nodeId) {
+        nodeExpirations.remove(nodeId);
+    }
+
+    @Override
+    public synchronized Set<String> getLiveNodes() {
+        long nowInMillis = System.currentTimeMillis();
+        nodeExpirations.values().removeIf(expiresAtInMillis -> expiresAtInMillis <= nowInMillis);
+        return new TreeSet<>(nodeExpirations.keySet());
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private static class Lease {
+        private final String nodeId;
+        private final long expiresAtInMillis;
+
+        private Lease(String nodeId, long expiresAtInMillis) {
+            this.nodeId = nodeId;
+            this.expiresAtInMillis = expiresAtInMillis;
+        }
+    }
+
+}
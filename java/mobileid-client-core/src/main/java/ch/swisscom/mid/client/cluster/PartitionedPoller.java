@@ -0,0 +1,329 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.cluster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ch.swisscom.mid.client.MIDClient;
+import ch.swisscom.mid.client.MIDFlowException;
+import ch.swisscom.mid.client.config.ClusterConfiguration;
+import ch.swisscom.mid.client.impl.Loggers;
+import ch.swisscom.mid.client.model.SignatureResponse;
+import ch.swisscom.mid.client.model.SignatureTracking;
+import ch.swisscom.mid.client.model.StatusCode;
+
+/**
+ * Polls the outstanding async signatures of a cluster of client nodes, each signature by exactly one node.
+ * <p>
+ * Each MSSP transaction ID hashes to one of a fixed number of partitions. The partitions are spread over the live nodes
+ * by rendezvous hashing, so that each node computes the same assignment from the same set of live nodes and that a
+ * node joining or leaving moves only its share of the partitions. A node polls a partition only while it holds the
+ * partition's lease in the shared {@link TrackingStore}: the leases are renewed at a third of their duration, released
+ * when the assignment moves the partition to another node and, when a node dies, they expire and the partitions are
+ * taken over by the remaining nodes. A node stops polling a partition as soon as its own view of the lease expires,
+ * without waiting for the store, so that a paused node never polls in parallel with the partition's new owner. The
+ * heartbeat and the lease renewals run on their own thread, so that a slow round of polls never delays them.
+ * <p>
+ * Any node can {@link #track(SignatureTracking) track} a signature; the final outcome goes to the
+ * {@link SignatureStatusListener} of the node that polled it.
+ */
+public class PartitionedPoller implements Closeable {
+
+    private static final Logger logClient = LoggerFactory.getLogger(Loggers.LOGGER_CLIENT);
+
+    /**
+     * Time after the deadline of a signature after which it is dropped, if its final status could still not be polled
+     * (e.g. because the MSSP was not reachable).
+     */
+    private static final long EXPIRED_SIGNATURE_GRACE_IN_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private final MIDClient client;
+    private final TrackingStore store;
+    private final SignatureStatusListener listener;
+    private final String nodeId;
+    private final int partitionCount;
+    private final long leaseDurationInMs;
+    private final long pollIntervalInMs;
+    private final int pollThreads;
+
+    /**
+     * The partitions whose lease this node holds, with the moment until which the lease is held (as seen by this node).
+     */
+    private final Map<Integer, Long> ownedPartitions = new ConcurrentHashMap<>();
+    private final AtomicLong polls = new AtomicLong();
+    private ScheduledExecutorService rebalanceScheduler;
+    private ScheduledExecutorService pollScheduler;
+    private ExecutorService pollExecutor;
+
+    public PartitionedPoller(MIDClient client,
+                             TrackingStore store,
+                             SignatureStatusListener listener,
+                             ClusterConfiguration config) {
+        config.validateYourself();
+        this.client = client;
+        this.store = store;
+        this.listener = listener;
+        this.nodeId = config.getNodeId();
+        this.partitionCount = config.getPartitionCount();
+        this.leaseDurationInMs = config.getLeaseDurationInMs();
+        this.pollIntervalInMs = config.getPollIntervalInMs();
+        this.pollThreads = config.getPollThreads();
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public static int partitionOf(String transactionId, int partitionCount) {
+        return Math.floorMod(mix(transactionId.hashCode()), partitionCount);
+    }
+
+    /**
+     * Joins the cluster and starts the background rebalancing and polling of this node.
+     */
+    public synchronized void start() {
+        if (rebalanceScheduler != null) {
+            return;
+        }
+        AtomicInteger threadCounter = new AtomicInteger();
+        rebalanceScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mid-client-cluster-" + nodeId + "-rebalance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        pollScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mid-client-cluster-" + nodeId);
+            thread.setDaemon(true);
+            return thread;
+        });
+        pollExecutor = Executors.newFixedThreadPool(pollThreads, runnable -> {
+            Thread thread = new Thread(runnable,
+                                       "mid-client-cluster-" + nodeId + "-poll-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        rebalanceScheduler.scheduleWithFixedDelay(this::rebalanceSafely, 0, leaseDurationInMs / 3, TimeUnit.MILLISECONDS);
+        pollScheduler.scheduleWithFixedDelay(this::pollSafely, pollIntervalInMs, pollIntervalInMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Records the given async signature (e.g. as returned by {@link MIDClient#requestAsyncSignature}) for polling by
+     * the node that owns its partition.
+     */
+    public void track(SignatureTracking tracking) {
+        tracking.validateYourself();
+        store.saveTracking(partitionOf(tracking.getTransactionId(), partitionCount), tracking);
+    }
+
+    /**
+     * Sends the heartbeat of this node, then acquires or renews the leases of the partitions assigned to this node and
+     * releases the leases of the partitions that are now assigned to other nodes. Called periodically once the poller is
+     * {@link #start() started}.
+     */
+    public void rebalance() {
+        store.heartbeat(nodeId, leaseDurationInMs);
+        Set<String> liveNodes = new TreeSet<>(store.getLiveNodes());
+        liveNodes.add(nodeId);
+        for (int partition = 0; partition < partitionCount; partition++) {
+            if (nodeId.equals(assignedNodeOf(partition, liveNodes))) {
+                long validUntil = System.currentTimeMillis() + leaseDurationInMs;
+                if (store.tryAcquireLease(partition, nodeId, leaseDurationInMs)) {
+                    if (ownedPartitions.put(partition, validUntil) == null) {
+                        logClient.debug("Cluster node {} acquired partition {}", nodeId, partition);
+                    }
+                } else {
+                    ownedPartitions.remove(partition);
+                }
+            } else if (ownedPartitions.remove(partition) != null) {
+                store.releaseLease(partition, nodeId);
+                logClient.debug("Cluster node {} released partition {}", nodeId, partition);
+            }
+        }
+    }
+
+    /**
+     * Polls once all the signatures of the partitions owned by this node and returns when done. Called periodically once
+     * the poller is {@link #start() started}.
+     */
+    public void pollOnce() {
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (Integer partition : getOwnedPartitions()) {
+            tasks.add(() -> {
+                pollPartition(partition);
+                return null;
+            });
+        }
+        if (pollExecutor == null) {
+            for (Callable<Void> task : tasks) {
+                try {
+                    task.call();
+                } catch (Exception e) {
+                    logClient.warn("Cluster node {} failed to poll a partition", nodeId, e);
+                }
+            }
+            return;
+        }
+        try {
+            pollExecutor.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the partitions that this node currently owns (and may poll).
+     */
+    public Set<Integer> getOwnedPartitions() {
+        long nowInMillis = System.currentTimeMillis();
+        Set<Integer> result = new TreeSet<>();
+        for (Map.Entry<Integer, Long> entry : ownedPartitions.entrySet()) {
+            if (entry.getValue() > nowInMillis) {
+                result.add(entry.getKey());
+            }
+        }
+        return result;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public long getPollCount() {
+        return polls.get();
+    }
+
+    /**
+     * Leaves the cluster: stops polling, releases the leases of this node and removes it from the live nodes, so that
+     * the other nodes take over its partitions right away instead of waiting for the leases to expire.
+     */
+    @Override
+    public synchronized void close() {
+        if (rebalanceScheduler != null) {
+            rebalanceScheduler.shutdownNow();
+            pollScheduler.shutdownNow();
+            pollExecutor.shutdownNow();
+            rebalanceScheduler = null;
+            pollScheduler = null;
+            pollExecutor = null;
+        }
+        store.removeNode(nodeId);
+        for (Integer partition : ownedPartitions.keySet()) {
+            store.releaseLease(partition, nodeId);
+        }
+        ownedPartitions.clear();
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private void pollPartition(int partition) {
+        for (SignatureTracking tracking : store.getTrackings(partition)) {
+            Long validUntil = ownedPartitions.get(partition);
+            if (validUntil == null || validUntil <= System.currentTimeMillis()) {
+                // the lease went away or expired while polling; the new owner continues
+                return;
+            }
+            pollSignature(partition, tracking);
+        }
+    }
+
+    private void pollSignature(int partition, SignatureTracking tracking) {
+        long deadlineInMillis = tracking.getDeadlineInMillis();
+        if (deadlineInMillis > 0 && deadlineInMillis + EXPIRED_SIGNATURE_GRACE_IN_MILLIS < System.currentTimeMillis()) {
+            logClient.info("Cluster node {} dropped signature {}, its final status could not be polled before its deadline",
+                           nodeId, tracking.getTransactionId());
+            store.removeTracking(partition, tracking.getTransactionId());
+            return;
+        }
+        polls.incrementAndGet();
+        SignatureResponse response;
+        try {
+            response = client.pollForSignatureStatus(tracking);
+        } catch (MIDFlowException e) {
+            if (e.getFault() != null && e.getFault().getStatusCode() != null) {
+                store.removeTracking(partition, tracking.getTransactionId());
+                listener.signatureFailed(tracking, e);
+            } else {
+                logClient.debug("Cluster node {} failed to poll signature {}, retrying in the next round: {}",
+                                nodeId, tracking.getTransactionId(), e.getMessage());
+            }
+            return;
+        }
+        if (response == null || response.getStatus() == null ||
+            response.getStatus().getStatusCode() != StatusCode.OUTSTANDING_TRANSACTION) {
+            store.removeTracking(partition, tracking.getTransactionId());
+            listener.signatureFinished(tracking, response);
+        }
+    }
+
+    private void rebalanceSafely() {
+        try {
+            rebalance();
+        } catch (RuntimeException e) {
+            logClient.warn("Cluster node {} failed to rebalance its partitions", nodeId, e);
+        }
+    }
+
+    private void pollSafely() {
+        try {
+            pollOnce();
+        } catch (RuntimeException e) {
+            logClient.warn("Cluster node {} failed to poll its partitions", nodeId, e);
+        }
+    }
+
+    /**
+     * Returns the node with the highest score for the given partition (rendezvous hashing).
+     */
+    private static String assignedNodeOf(int partition, Set<String> liveNodes) {
+        String result = null;
+        int bestScore = 0;
+        for (String node : liveNodes) {
+            int score = mix(node.hashCode() * 31 + partition);
+            if (result == null || score > bestScore) {
+                result = node;
+                bestScore = score;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finalization step of MurmurHash3, for spreading the (weak) string hash codes over all the bits.
+     */
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.cluster;
+
+import ch.swisscom.mid.client.MIDFlowException;
+import ch.swisscom.mid.client.model.SignatureResponse;
+import ch.swisscom.mid.client.model.SignatureTracking;
+
+/**
+ * Gets the final outcome of the async signatures polled by a {@link PartitionedPoller}. The methods are called from the
+ * poller's threads, once per signature, on the node that polled the final status.
+ */
+public interface SignatureStatusListener {
+
+    /**
+     * Called when the final status of a signature was polled (successful signature or final MSSP status, such as an
+     * expired transaction or a user cancel).
+     */
+    void signatureFinished(SignatureTracking tracking, SignatureResponse response);
+
+    /**
+     * Called when the polling of a signature failed with a fault that has a status code (so polling again would not
+     * help).
+     */
+    void signatureFailed(SignatureTracking tracking, MIDFlowException exception);
+
+}
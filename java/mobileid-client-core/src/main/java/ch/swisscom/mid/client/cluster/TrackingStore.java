@@ -0,0 +1,68 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.cluster;
+
+import java.util.List;
+import java.util.Set;
+
+import ch.swisscom.mid.client.model.SignatureTracking;
+
+/**
+ * Storage shared by the nodes of a cluster, for the outstanding async signatures (grouped by partition), for the
+ * partition leases and for the node heartbeats. Implementations must make each method atomic with respect to all the
+ * nodes of the cluster; {@link #tryAcquireLease(int, String, long)} in particular is the compare-and-set that ensures
+ * that a partition has at most one owner at any time.
+ * <p>
+ * {@link InMemoryTrackingStore} is the reference implementation, for running several nodes in one JVM (e.g. in tests).
+ * Production clusters plug in an implementation backed by their shared database or cache.
+ */
+public interface TrackingStore {
+
+    void saveTracking(int partition, SignatureTracking tracking);
+
+    void removeTracking(int partition, String transactionId);
+
+    List<SignatureTracking> getTrackings(int partition);
+
+    /**
+     * Acquires the lease of the given partition for the given node, if the lease is free, expired or already held by
+     * that node (in which case it is renewed). Returns true if the node holds the lease for the given duration.
+     */
+    boolean tryAcquireLease(int partition, String nodeId, long leaseDurationInMs);
+
+    /**
+     * Releases the lease of the given partition, if it is held by the given node.
+     */
+    void releaseLease(int partition, String nodeId);
+
+    /**
+     * Returns the node that holds the (non expired) lease of the given partition or NULL if the lease is free.
+     */
+    String getLeaseOwner(int partition);
+
+    /**
+     * Records that the given node is alive, for the given time.
+     */
+    void heartbeat(String nodeId, long timeToLiveInMs);
+
+    /**
+     * Removes the given node from the live nodes (on a graceful shutdown).
+     */
+    void removeNode(String nodeId);
+
+    Set<String> getLiveNodes();
+
+}
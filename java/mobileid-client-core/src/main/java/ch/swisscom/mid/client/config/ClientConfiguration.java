@@ -15,7 +15,11 @@
  */
 package ch.swisscom.mid.client.config;
 
+import ch.swisscom.mid.client.tracing.NoopTracer;
+import ch.swisscom.mid.client.tracing.Tracer;
+
 import static ch.swisscom.mid.client.utils.Utils.configNotNull;
+import static ch.swisscom.mid.client.utils.Utils.configTrue;
 
 public class ClientConfiguration {
 
@@ -23,9 +27,20 @@ public class ClientConfiguration {
     private HttpConfiguration http;
     private ComProtocol protocol;
     private UrlsConfiguration urls;
+    private DispatcherConfiguration dispatcher;
+    private HedgingConfiguration hedging;
+    private ProfileCacheConfiguration profileCache;
+    private PreflightConfiguration preflight;
+    private JournalConfiguration journal;
+    private OutstandingSignaturesConfiguration outstandingSignatures;
+    private TrafficDispatcherConfiguration trafficDispatcher;
+    private TrafficRecorderConfiguration trafficRecorder;
+    private JmxConfiguration jmx;
+    private Tracer tracer;
     private String apId;
     private String apPassword;
     private String msspId = DefaultConfiguration.DEFAULT_MSSP_ID;
+    private boolean coalesceDuplicateRequests = false;
 
     // ----------------------------------------------------------------------------------------------------
 
@@ -69,6 +84,19 @@ public class ClientConfiguration {
         this.protocol = protocol;
     }
 
+    public boolean isCoalesceDuplicateRequests() {
+        return coalesceDuplicateRequests;
+    }
+
+    /**
+     * Whether to merge concurrent identical status polls (same MSSP transaction ID) and identical profile queries (same
+     * MSISDN and extension params) into one single request to the Mobile ID service, whose result is shared by all the
+     * callers. Only the traffic observer of the request that is actually sent gets notified.
+     */
+    public void setCoalesceDuplicateRequests(boolean coalesceDuplicateRequests) {
+        this.coalesceDuplicateRequests = coalesceDuplicateRequests;
+    }
+
     public TlsConfiguration getTls() {
         if (tls == null) {
             tls = new TlsConfiguration();
@@ -98,6 +126,124 @@ public class ClientConfiguration {
         return urls;
     }
 
+    public void setUrls(UrlsConfiguration urls) {
+        this.urls = urls;
+    }
+
+    public DispatcherConfiguration getDispatcher() {
+        if (dispatcher == null) {
+            dispatcher = new DispatcherConfiguration();
+        }
+        return dispatcher;
+    }
+
+    public void setDispatcher(DispatcherConfiguration dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    public HedgingConfiguration getHedging() {
+        if (hedging == null) {
+            hedging = new HedgingConfiguration();
+        }
+        return hedging;
+    }
+
+    public void setHedging(HedgingConfiguration hedging) {
+        this.hedging = hedging;
+    }
+
+    public ProfileCacheConfiguration getProfileCache() {
+        if (profileCache == null) {
+            profileCache = new ProfileCacheConfiguration();
+        }
+        return profileCache;
+    }
+
+    public void setProfileCache(ProfileCacheConfiguration profileCache) {
+        this.profileCache = profileCache;
+    }
+
+    public PreflightConfiguration getPreflight() {
+        if (preflight == null) {
+            preflight = new PreflightConfiguration();
+        }
+        return preflight;
+    }
+
+    public void setPreflight(PreflightConfiguration preflight) {
+        this.preflight = preflight;
+    }
+
+    public JournalConfiguration getJournal() {
+        if (journal == null) {
+            journal = new JournalConfiguration();
+        }
+        return journal;
+    }
+
+    public void setJournal(JournalConfiguration journal) {
+        this.journal = journal;
+    }
+
+    public OutstandingSignaturesConfiguration getOutstandingSignatures() {
+        if (outstandingSignatures == null) {
+            outstandingSignatures = new OutstandingSignaturesConfiguration();
+        }
+        return outstandingSignatures;
+    }
+
+    public void setOutstandingSignatures(OutstandingSignaturesConfiguration outstandingSignatures) {
+        this.outstandingSignatures = outstandingSignatures;
+    }
+
+    public TrafficDispatcherConfiguration getTrafficDispatcher() {
+        if (trafficDispatcher == null) {
+            trafficDispatcher = new TrafficDispatcherConfiguration();
+        }
+        return trafficDispatcher;
+    }
+
+    public void setTrafficDispatcher(TrafficDispatcherConfiguration trafficDispatcher) {
+        this.trafficDispatcher = trafficDispatcher;
+    }
+
+    public TrafficRecorderConfiguration getTrafficRecorder() {
+        if (trafficRecorder == null) {
+            trafficRecorder = new TrafficRecorderConfiguration();
+        }
+        return trafficRecorder;
+    }
+
+    public void setTrafficRecorder(TrafficRecorderConfiguration trafficRecorder) {
+        this.trafficRecorder = trafficRecorder;
+    }
+
+    public JmxConfiguration getJmx() {
+        if (jmx == null) {
+            jmx = new JmxConfiguration();
+        }
+        return jmx;
+    }
+
+    public void setJmx(JmxConfiguration jmx) {
+        this.jmx = jmx;
+    }
+
+    public Tracer getTracer() {
+        if (tracer == null) {
+            tracer = NoopTracer.INSTANCE;
+        }
+        return tracer;
+    }
+
+    /**
+     * Sets the tracer that gets one span for each call made through the client, with one child span (and its phases)
+     * for each MSS exchange. The default {@link NoopTracer} records nothing.
+     */
+    public void setTracer(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
     // ----------------------------------------------------------------------------------------------------
 
     @Override
@@ -108,7 +254,18 @@ public class ClientConfiguration {
                ", protocol=" + protocol +
                ", apId='" + apId + '\'' +
                ", msspId='" + msspId + '\'' +
+               ", coalesceDuplicateRequests=" + coalesceDuplicateRequests +
                ", urls='" + urls + '\'' +
+               ", dispatcher=" + dispatcher +
+               ", hedging=" + hedging +
+               ", profileCache=" + profileCache +
+               ", preflight=" + preflight +
+               ", journal=" + journal +
+               ", outstandingSignatures=" + outstandingSignatures +
+               ", trafficDispatcher=" + trafficDispatcher +
+               ", trafficRecorder=" + trafficRecorder +
+               ", jmx=" + jmx +
+               ", tracer=" + tracer +
                '}';
     }
 
@@ -126,5 +283,34 @@ public class ClientConfiguration {
         http.validateYourself();
         configNotNull(urls, "The URLs configuration cannot be NULL");
         urls.validateYourself();
+        if (dispatcher != null) {
+            dispatcher.validateYourself();
+        }
+        if (hedging != null) {
+            hedging.validateYourself();
+        }
+        if (profileCache != null) {
+            profileCache.validateYourself();
+        }
+        if (preflight != null) {
+            preflight.validateYourself();
+            configTrue(!preflight.isEnabled() || (profileCache != null && profileCache.isEnabled()),
+                       "The signature pre-flight check requires the profile cache to be enabled");
+        }
+        if (journal != null) {
+            journal.validateYourself();
+        }
+        if (outstandingSignatures != null) {
+            outstandingSignatures.validateYourself();
+        }
+        if (trafficDispatcher != null) {
+            trafficDispatcher.validateYourself();
+        }
+        if (trafficRecorder != null) {
+            trafficRecorder.validateYourself();
+        }
+        if (jmx != null) {
+            jmx.validateYourself();
+        }
     }
 }
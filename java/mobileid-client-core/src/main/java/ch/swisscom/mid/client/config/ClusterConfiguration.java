@@ -0,0 +1,111 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.config;
+
+import static ch.swisscom.mid.client.utils.Utils.configNotNull;
+import static ch.swisscom.mid.client.utils.Utils.configTrue;
+
+/**
+ * Configuration for the polling of the outstanding async signatures across a cluster of client nodes (see
+ * {@link ch.swisscom.mid.client.cluster.PartitionedPoller}). The MSSP transaction IDs are hashed into
+ * {@link #getPartitionCount()} partitions; each partition is polled only by the node that holds its lease. A lease
+ * that is not renewed within {@link #getLeaseDurationInMs()} (e.g. because its node died) expires and the partition is
+ * taken over by another node.
+ */
+public class ClusterConfiguration {
+
+    private String nodeId;
+    private int partitionCount = DefaultConfiguration.CLUSTER_DEFAULT_PARTITION_COUNT;
+    private int leaseDurationInMs = DefaultConfiguration.CLUSTER_DEFAULT_LEASE_DURATION_IN_MS;
+    private int pollIntervalInMs = DefaultConfiguration.CLUSTER_DEFAULT_POLL_INTERVAL_IN_MS;
+    private int pollThreads = DefaultConfiguration.CLUSTER_DEFAULT_POLL_THREADS;
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Sets the ID of this node, unique in the cluster (e.g. the host name).
+     */
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public int getPartitionCount() {
+        return partitionCount;
+    }
+
+    /**
+     * Sets the number of partitions. All the nodes of a cluster must use the same value.
+     */
+    public void setPartitionCount(int partitionCount) {
+        this.partitionCount = partitionCount;
+    }
+
+    public int getLeaseDurationInMs() {
+        return leaseDurationInMs;
+    }
+
+    public void setLeaseDurationInMs(int leaseDurationInMs) {
+        this.leaseDurationInMs = leaseDurationInMs;
+    }
+
+    public int getPollIntervalInMs() {
+        return pollIntervalInMs;
+    }
+
+    public void setPollIntervalInMs(int pollIntervalInMs) {
+        this.pollIntervalInMs = pollIntervalInMs;
+    }
+
+    public int getPollThreads() {
+        return pollThreads;
+    }
+
+    public void setPollThreads(int pollThreads) {
+        this.pollThreads = pollThreads;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public void validateYourself() {
+        configNotNull(nodeId, "The cluster nodeId cannot be NULL");
+        configTrue(partitionCount > 0,
+                   "The cluster partitionCount must be higher than zero");
+        configTrue(leaseDurationInMs >= 100,
+                   "The cluster leaseDurationInMs must be at least 100");
+        configTrue(pollIntervalInMs > 0,
+                   "The cluster pollIntervalInMs must be higher than zero");
+        configTrue(pollThreads > 0,
+                   "The cluster pollThreads must be higher than zero");
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    @Override
+    public String toString() {
+        return "ClusterConfiguration{" +
+               "nodeId='" + nodeId + '\'' +
+               ", partitionCount=" + partitionCount +
+               ", leaseDurationInMs=" + leaseDurationInMs +
+               ", pollIntervalInMs=" + pollIntervalInMs +
+               ", pollThreads=" + pollThreads +
+               '}';
+    }
+
+}
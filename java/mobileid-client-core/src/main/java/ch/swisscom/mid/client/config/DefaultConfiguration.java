@@ -59,4 +59,41 @@ public class DefaultConfiguration {
     public static final int HTTP_CLIENT_DEFAULT_CONNECTION_TIMEOUT_IN_MS = 15 * 1000;
     public static final int HTTP_CLIENT_DEFAULT_SOCKET_READ_TIMEOUT_IN_MS = 120 * 1000;
 
+    public static final int DISPATCHER_DEFAULT_MAX_CONCURRENT_REQUESTS = HTTP_CLIENT_MAX_TOTAL_CONNECTIONS;
+    public static final int DISPATCHER_DEFAULT_STARVATION_THRESHOLD_IN_MS = 5 * 1000;
+    public static final int DISPATCHER_DEFAULT_FINAL_POLL_WINDOW_IN_SECONDS = 10;
+
+    public static final int HEDGING_DEFAULT_DELAY_PERCENTILE = 95;
+    public static final int HEDGING_DEFAULT_MIN_DELAY_IN_MS = 50;
+    public static final int HEDGING_DEFAULT_INITIAL_DELAY_IN_MS = 1000;
+    public static final int HEDGING_DEFAULT_MAX_HEDGE_RATE_PERCENT = 10;
+    public static final int HEDGING_DEFAULT_MAX_CONCURRENT_HEDGES = 10;
+
+    public static final int PROFILE_CACHE_DEFAULT_MAXIMUM_SIZE = 10000;
+    public static final int PROFILE_CACHE_DEFAULT_TIME_TO_LIVE_IN_SECONDS = 5 * 60;
+    public static final int PROFILE_CACHE_DEFAULT_NEGATIVE_TIME_TO_LIVE_IN_SECONDS = 60;
+
+    public static final int CERTIFICATE_PATH_CACHE_DEFAULT_MAXIMUM_SIZE = 1000;
+    public static final int CERTIFICATE_PATH_CACHE_DEFAULT_TIME_TO_LIVE_IN_SECONDS = 60 * 60;
+    public static final int REVOCATION_DATA_DEFAULT_REFRESH_INTERVAL_IN_SECONDS = 5 * 60;
+
+    public static final int JOURNAL_DEFAULT_INITIAL_SIZE_IN_BYTES = 1024 * 1024;
+
+    public static final int TRAFFIC_DISPATCHER_DEFAULT_BUFFER_SIZE = 4096;
+    public static final int TRAFFIC_DISPATCHER_DEFAULT_CONSUMER_THREADS = 1;
+    public static final int TRAFFIC_DISPATCHER_DEFAULT_SAMPLE_RATE = 10;
+
+    public static final int TRAFFIC_RECORDER_DEFAULT_RECORD_COUNT = 256;
+    public static final int TRAFFIC_RECORDER_DEFAULT_RECORD_SIZE_IN_BYTES = 8 * 1024;
+
+    public static final int OUTSTANDING_SIGNATURES_DEFAULT_EXPIRY_GRACE_IN_SECONDS = 10;
+    public static final int OUTSTANDING_SIGNATURES_DEFAULT_TICK_IN_MS = 1000;
+
+    public static final int CLUSTER_DEFAULT_PARTITION_COUNT = 64;
+    public static final int CLUSTER_DEFAULT_LEASE_DURATION_IN_MS = 15 * 1000;
+    public static final int CLUSTER_DEFAULT_POLL_INTERVAL_IN_MS = 1000;
+    public static final int CLUSTER_DEFAULT_POLL_THREADS = 4;
+
+    public static final String JMX_DEFAULT_DOMAIN = "ch.swisscom.mid.client";
+
 }
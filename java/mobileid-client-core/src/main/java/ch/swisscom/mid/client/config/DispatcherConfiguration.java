@@ -0,0 +1,93 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.config;
+
+import static ch.swisscom.mid.client.utils.Utils.configTrue;
+
+/**
+ * Configuration for the priority dispatcher that sits in front of the communication protocol implementation (REST or SOAP).
+ * When enabled, at most {@link #getMaxConcurrentRequests()} MSS requests are in flight at any given time and the waiting
+ * requests are served in the order of their priority class (see {@link ch.swisscom.mid.client.impl.RequestPriority}).
+ * A request that waits for longer than {@link #getStarvationThresholdInMs()} is served next, regardless of its class.
+ */
+public class DispatcherConfiguration {
+
+    private boolean enabled = false;
+    private int maxConcurrentRequests = DefaultConfiguration.DISPATCHER_DEFAULT_MAX_CONCURRENT_REQUESTS;
+    private int starvationThresholdInMs = DefaultConfiguration.DISPATCHER_DEFAULT_STARVATION_THRESHOLD_IN_MS;
+    private int finalPollWindowInSeconds = DefaultConfiguration.DISPATCHER_DEFAULT_FINAL_POLL_WINDOW_IN_SECONDS;
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    public int getStarvationThresholdInMs() {
+        return starvationThresholdInMs;
+    }
+
+    public void setStarvationThresholdInMs(int starvationThresholdInMs) {
+        this.starvationThresholdInMs = starvationThresholdInMs;
+    }
+
+    public int getFinalPollWindowInSeconds() {
+        return finalPollWindowInSeconds;
+    }
+
+    public void setFinalPollWindowInSeconds(int finalPollWindowInSeconds) {
+        this.finalPollWindowInSeconds = finalPollWindowInSeconds;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public void validateYourself() {
+        if (!enabled) {
+            return;
+        }
+        configTrue(maxConcurrentRequests > 0,
+                   "The dispatcher maxConcurrentRequests must be higher than zero");
+        configTrue(starvationThresholdInMs > 0,
+                   "The dispatcher starvationThresholdInMs must be higher than zero");
+        configTrue(finalPollWindowInSeconds >= 0,
+                   "The dispatcher finalPollWindowInSeconds cannot be negative");
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    @Override
+    public String toString() {
+        return "DispatcherConfiguration{" +
+               "enabled=" + enabled +
+               ", maxConcurrentRequests=" + maxConcurrentRequests +
+               ", starvationThresholdInMs=" + starvationThresholdInMs +
+               ", finalPollWindowInSeconds=" + finalPollWindowInSeconds +
+               '}';
+    }
+
+}
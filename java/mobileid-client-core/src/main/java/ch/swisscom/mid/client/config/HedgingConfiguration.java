@@ -0,0 +1,138 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.config;
+
+import static ch.swisscom.mid.client.utils.Utils.configNotNull;
+import static ch.swisscom.mid.client.utils.Utils.configTrue;
+
+/**
+ * Configuration for hedging the read-only MSS requests (profile queries and status polls). When enabled, a request that
+ * is not answered by the primary endpoints (see {@link ClientConfiguration#getUrls()}) within an adaptive delay is sent
+ * a second time to the alternate endpoints configured here, and the first answer wins. The alternate endpoints must
+ * belong to the same Mobile ID service (e.g. the Internet and the LAN-I entry points).
+ */
+public class HedgingConfiguration {
+
+    private boolean enabled = false;
+    private UrlsConfiguration alternateUrls;
+    private int delayPercentile = DefaultConfiguration.HEDGING_DEFAULT_DELAY_PERCENTILE;
+    private int minDelayInMs = DefaultConfiguration.HEDGING_DEFAULT_MIN_DELAY_IN_MS;
+    private int initialDelayInMs = DefaultConfiguration.HEDGING_DEFAULT_INITIAL_DELAY_IN_MS;
+    private int maxHedgeRatePercent = DefaultConfiguration.HEDGING_DEFAULT_MAX_HEDGE_RATE_PERCENT;
+    private int maxConcurrentHedges = DefaultConfiguration.HEDGING_DEFAULT_MAX_CONCURRENT_HEDGES;
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public UrlsConfiguration getAlternateUrls() {
+        if (alternateUrls == null) {
+            alternateUrls = new UrlsConfiguration();
+        }
+        return alternateUrls;
+    }
+
+    public void setAlternateUrls(UrlsConfiguration alternateUrls) {
+        this.alternateUrls = alternateUrls;
+    }
+
+    public int getDelayPercentile() {
+        return delayPercentile;
+    }
+
+    public void setDelayPercentile(int delayPercentile) {
+        this.delayPercentile = delayPercentile;
+    }
+
+    public int getMinDelayInMs() {
+        return minDelayInMs;
+    }
+
+    public void setMinDelayInMs(int minDelayInMs) {
+        this.minDelayInMs = minDelayInMs;
+    }
+
+    public int getInitialDelayInMs() {
+        return initialDelayInMs;
+    }
+
+    public void setInitialDelayInMs(int initialDelayInMs) {
+        this.initialDelayInMs = initialDelayInMs;
+    }
+
+    public int getMaxHedgeRatePercent() {
+        return maxHedgeRatePercent;
+    }
+
+    public void setMaxHedgeRatePercent(int maxHedgeRatePercent) {
+        this.maxHedgeRatePercent = maxHedgeRatePercent;
+    }
+
+    public int getMaxConcurrentHedges() {
+        return maxConcurrentHedges;
+    }
+
+    /**
+     * Sets the maximum number of hedges that can be in flight at the same time, which is also the maximum number of
+     * threads that run them. A hedge that is due while this many hedges are still running is skipped. Size it to the
+     * expected hedge rate times the latency of the alternate endpoints.
+     */
+    public void setMaxConcurrentHedges(int maxConcurrentHedges) {
+        this.maxConcurrentHedges = maxConcurrentHedges;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public void validateYourself() {
+        if (!enabled) {
+            return;
+        }
+        configNotNull(alternateUrls, "The hedging alternate URLs configuration cannot be NULL");
+        alternateUrls.validateYourself();
+        configTrue(delayPercentile > 0 && delayPercentile < 100,
+                   "The hedging delayPercentile must be between 1 and 99");
+        configTrue(minDelayInMs >= 0,
+                   "The hedging minDelayInMs cannot be negative");
+        configTrue(initialDelayInMs >= minDelayInMs,
+                   "The hedging initialDelayInMs cannot be lower than minDelayInMs");
+        configTrue(maxHedgeRatePercent > 0 && maxHedgeRatePercent <= 100,
+                   "The hedging maxHedgeRatePercent must be between 1 and 100");
+        configTrue(maxConcurrentHedges > 0,
+                   "The hedging maxConcurrentHedges must be greater than 0");
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    @Override
+    public String toString() {
+        return "HedgingConfiguration{" +
+               "enabled=" + enabled +
+               ", alternateUrls=" + alternateUrls +
+               ", delayPercentile=" + delayPercentile +
+               ", minDelayInMs=" + minDelayInMs +
+               ", initialDelayInMs=" + initialDelayInMs +
+               ", maxHedgeRatePercent=" + maxHedgeRatePercent +
+               ", maxConcurrentHedges=" + maxConcurrentHedges +
+               '}';
+    }
+
+}
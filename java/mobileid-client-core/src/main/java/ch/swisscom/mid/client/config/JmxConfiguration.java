@@ -0,0 +1,77 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.config;
+
+import static ch.swisscom.mid.client.utils.Utils.configNotNull;
+
+/**
+ * Configuration for the JMX management interface of a MID client. When enabled, each client instance registers one
+ * MXBean in the platform MBean server, under the name <code>[domain]:type=MIDClient,name=[clientName]</code>. When no
+ * client name is configured, a name unique within the JVM is generated (client-1, client-2, etc).
+ */
+public class JmxConfiguration {
+
+    private boolean enabled = false;
+    private String domain = DefaultConfiguration.JMX_DEFAULT_DOMAIN;
+    private String clientName;
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getDomain() {
+        return domain;
+    }
+
+    public void setDomain(String domain) {
+        this.domain = domain;
+    }
+
+    public String getClientName() {
+        return clientName;
+    }
+
+    public void setClientName(String clientName) {
+        this.clientName = clientName;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public void validateYourself() {
+        if (!enabled) {
+            return;
+        }
+        configNotNull(domain, "The JMX domain cannot be NULL");
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    @Override
+    public String toString() {
+        return "JmxConfiguration{" +
+               "enabled=" + enabled +
+               ", domain='" + domain + '\'' +
+               ", clientName='" + clientName + '\'' +
+               '}';
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.config;
+
+import static ch.swisscom.mid.client.utils.Utils.configNotNull;
+import static ch.swisscom.mid.client.utils.Utils.configTrue;
+
+/**
+ * Configuration for the journal of the outstanding async signatures. When enabled, each async signature is recorded in
+ * a memory-mapped, append-only file until its final status is polled, so that a restarted client can resume polling
+ * the signatures that were outstanding when it stopped (see
+ * {@link ch.swisscom.mid.client.impl.MIDClientImpl#recoverOutstandingSignatures()}).
+ * <p>
+ * The journal starts with {@link #getInitialSizeInBytes()} and is compacted (and grown, if needed) when it gets full.
+ * The writes land in the OS page cache, so they survive a crash of the JVM; set {@link #setForceOnWrite(boolean)} to
+ * also survive a crash of the OS, at the cost of one disk flush per write.
+ */
+public class JournalConfiguration {
+
+    private boolean enabled = false;
+    private String file;
+    private int initialSizeInBytes = DefaultConfiguration.JOURNAL_DEFAULT_INITIAL_SIZE_IN_BYTES;
+    private boolean forceOnWrite = false;
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    /**
+     * Sets the path of the journal file. The file is created if it does not exist; its directory must exist.
+     */
+    public void setFile(String file) {
+        this.file = file;
+    }
+
+    public int getInitialSizeInBytes() {
+        return initialSizeInBytes;
+    }
+
+    public void setInitialSizeInBytes(int initialSizeInBytes) {
+        this.initialSizeInBytes = initialSizeInBytes;
+    }
+
+    public boolean isForceOnWrite() {
+        return forceOnWrite;
+    }
+
+    public void setForceOnWrite(boolean forceOnWrite) {
+        this.forceOnWrite = forceOnWrite;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public void validateYourself() {
+        if (!enabled) {
+            return;
+        }
+        configNotNull(file, "The journal file cannot be NULL");
+        configTrue(initialSizeInBytes >= 4096,
+                   "The journal initialSizeInBytes must be at least 4096");
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    @Override
+    public String toString() {
+        return "JournalConfiguration{" +
+               "enabled=" + enabled +
+               ", file='" + file + '\'' +
+               ", initialSizeInBytes=" + initialSizeInBytes +
+               ", forceOnWrite=" + forceOnWrite +
+               '}';
+    }
+
+}
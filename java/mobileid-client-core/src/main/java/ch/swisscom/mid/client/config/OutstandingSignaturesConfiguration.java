@@ -0,0 +1,94 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.config;
+
+import static ch.swisscom.mid.client.utils.Utils.configTrue;
+
+/**
+ * Configuration for the registry of the outstanding async signatures. When enabled, the client keeps its outstanding
+ * signatures in a registry that counts them per signature profile and checks their deadlines on a daemon thread (when
+ * not enabled, the client only counts them). When the local expiry is enabled as well, a signature whose final status
+ * has not been polled by its deadline (the user response timeout of its request) plus
+ * {@link #getExpiryGraceInSeconds()} is marked as expired by the client itself: the listeners are notified and the
+ * further polls fail right away with an {@link ch.swisscom.mid.client.model.StatusCode#EXPIRED_TRANSACTION} fault,
+ * without calling the MSSP. The deadlines are checked by a timing wheel that ticks every {@link #getTickInMs()}.
+ */
+public class OutstandingSignaturesConfiguration {
+
+    private boolean enabled = false;
+    private boolean localExpiryEnabled = true;
+    private int expiryGraceInSeconds = DefaultConfiguration.OUTSTANDING_SIGNATURES_DEFAULT_EXPIRY_GRACE_IN_SECONDS;
+    private int tickInMs = DefaultConfiguration.OUTSTANDING_SIGNATURES_DEFAULT_TICK_IN_MS;
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isLocalExpiryEnabled() {
+        return localExpiryEnabled;
+    }
+
+    public void setLocalExpiryEnabled(boolean localExpiryEnabled) {
+        this.localExpiryEnabled = localExpiryEnabled;
+    }
+
+    public int getExpiryGraceInSeconds() {
+        return expiryGraceInSeconds;
+    }
+
+    public void setExpiryGraceInSeconds(int expiryGraceInSeconds) {
+        this.expiryGraceInSeconds = expiryGraceInSeconds;
+    }
+
+    public int getTickInMs() {
+        return tickInMs;
+    }
+
+    public void setTickInMs(int tickInMs) {
+        this.tickInMs = tickInMs;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public void validateYourself() {
+        if (!enabled) {
+            return;
+        }
+        configTrue(expiryGraceInSeconds >= 0,
+                   "The outstanding signatures expiryGraceInSeconds cannot be negative");
+        configTrue(tickInMs > 0,
+                   "The outstanding signatures tickInMs must be higher than zero");
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    @Override
+    public String toString() {
+        return "OutstandingSignaturesConfiguration{" +
+               "enabled=" + enabled +
+               ", localExpiryEnabled=" + localExpiryEnabled +
+               ", expiryGraceInSeconds=" + expiryGraceInSeconds +
+               ", tickInMs=" + tickInMs +
+               '}';
+    }
+
+}
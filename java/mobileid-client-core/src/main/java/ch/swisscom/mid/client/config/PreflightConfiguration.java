@@ -0,0 +1,103 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static ch.swisscom.mid.client.utils.Utils.configTrue;
+
+/**
+ * Configuration for the pre-flight check of the signature requests. When enabled, the cached profile of the target
+ * user (see {@link ProfileCacheConfiguration}) is inspected before each signature request and the request is rejected
+ * locally if the profile shows that it cannot succeed (PIN blocked, no active device, no active certificate, unsupported
+ * signature profile). Optionally, a supported signature profile can be chosen automatically.
+ */
+public class PreflightConfiguration {
+
+    private boolean enabled = false;
+    private boolean fetchProfileOnCacheMiss = false;
+    private boolean autoSelectSignatureProfile = false;
+    private List<String> preferredSignatureProfiles;
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isFetchProfileOnCacheMiss() {
+        return fetchProfileOnCacheMiss;
+    }
+
+    /**
+     * Sets whether to query the user's profile when it is not found in the profile cache. When this is false (default)
+     * and no profile is cached, the signature request is sent without any pre-flight check.
+     */
+    public void setFetchProfileOnCacheMiss(boolean fetchProfileOnCacheMiss) {
+        this.fetchProfileOnCacheMiss = fetchProfileOnCacheMiss;
+    }
+
+    public boolean isAutoSelectSignatureProfile() {
+        return autoSelectSignatureProfile;
+    }
+
+    /**
+     * Sets whether to replace a signature profile that the user does not support with the first one from the
+     * {@link #getPreferredSignatureProfiles() preferred list} that the user supports (instead of rejecting the request).
+     */
+    public void setAutoSelectSignatureProfile(boolean autoSelectSignatureProfile) {
+        this.autoSelectSignatureProfile = autoSelectSignatureProfile;
+    }
+
+    public List<String> getPreferredSignatureProfiles() {
+        if (preferredSignatureProfiles == null) {
+            preferredSignatureProfiles = new ArrayList<>();
+        }
+        return preferredSignatureProfiles;
+    }
+
+    public void setPreferredSignatureProfiles(List<String> preferredSignatureProfiles) {
+        this.preferredSignatureProfiles = preferredSignatureProfiles;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public void validateYourself() {
+        if (!enabled) {
+            return;
+        }
+        configTrue(!autoSelectSignatureProfile || !getPreferredSignatureProfiles().isEmpty(),
+                   "The pre-flight preferredSignatureProfiles cannot be empty when autoSelectSignatureProfile is enabled");
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    @Override
+    public String toString() {
+        return "PreflightConfiguration{" +
+               "enabled=" + enabled +
+               ", fetchProfileOnCacheMiss=" + fetchProfileOnCacheMiss +
+               ", autoSelectSignatureProfile=" + autoSelectSignatureProfile +
+               ", preferredSignatureProfiles=" + preferredSignatureProfiles +
+               '}';
+    }
+
+}
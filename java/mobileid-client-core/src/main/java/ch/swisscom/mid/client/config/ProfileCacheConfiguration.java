@@ -0,0 +1,97 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.config;
+
+import static ch.swisscom.mid.client.utils.Utils.configTrue;
+
+/**
+ * Configuration for the in-process cache of profile query results. Successful results are kept for
+ * {@link #getTimeToLiveInSeconds()}; the "unknown client" and "no certificate found" failures are kept for the (usually
+ * shorter) {@link #getNegativeTimeToLiveInSeconds()}. When the cache is full, the entries are evicted based on how often
+ * and how recently they were used (W-TinyLFU).
+ */
+public class ProfileCacheConfiguration {
+
+    private boolean enabled = false;
+    private int maximumSize = DefaultConfiguration.PROFILE_CACHE_DEFAULT_MAXIMUM_SIZE;
+    private int timeToLiveInSeconds = DefaultConfiguration.PROFILE_CACHE_DEFAULT_TIME_TO_LIVE_IN_SECONDS;
+    private int negativeTimeToLiveInSeconds = DefaultConfiguration.PROFILE_CACHE_DEFAULT_NEGATIVE_TIME_TO_LIVE_IN_SECONDS;
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(int maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    public int getTimeToLiveInSeconds() {
+        return timeToLiveInSeconds;
+    }
+
+    public void setTimeToLiveInSeconds(int timeToLiveInSeconds) {
+        this.timeToLiveInSeconds = timeToLiveInSeconds;
+    }
+
+    public int getNegativeTimeToLiveInSeconds() {
+        return negativeTimeToLiveInSeconds;
+    }
+
+    /**
+     * Sets for how long the "unknown client" and "no certificate found" failures are cached. Set to zero to disable the
+     * caching of these failures.
+     */
+    public void setNegativeTimeToLiveInSeconds(int negativeTimeToLiveInSeconds) {
+        this.negativeTimeToLiveInSeconds = negativeTimeToLiveInSeconds;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public void validateYourself() {
+        if (!enabled) {
+            return;
+        }
+        configTrue(maximumSize > 0,
+                   "The profile cache maximumSize must be higher than zero");
+        configTrue(timeToLiveInSeconds > 0,
+                   "The profile cache timeToLiveInSeconds must be higher than zero");
+        configTrue(negativeTimeToLiveInSeconds >= 0,
+                   "The profile cache negativeTimeToLiveInSeconds cannot be negative");
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    @Override
+    public String toString() {
+        return "ProfileCacheConfiguration{" +
+               "enabled=" + enabled +
+               ", maximumSize=" + maximumSize +
+               ", timeToLiveInSeconds=" + timeToLiveInSeconds +
+               ", negativeTimeToLiveInSeconds=" + negativeTimeToLiveInSeconds +
+               '}';
+    }
+
+}
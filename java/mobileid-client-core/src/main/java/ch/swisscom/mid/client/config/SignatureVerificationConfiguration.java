@@ -0,0 +1,183 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.config;
+
+import static ch.swisscom.mid.client.utils.Utils.configNotNull;
+import static ch.swisscom.mid.client.utils.Utils.configTrue;
+
+/**
+ * Configuration for the local verification of the signatures returned by the Mobile ID service (see
+ * {@link ch.swisscom.mid.client.verification.SignatureVerifier}). The trust anchors are the CA certificates that the
+ * signer certificates must chain up to (e.g. the Mobile ID signature CA, provided as <i>mobileid-ca-signature.crt</i>).
+ * They can be given as a file, a classpath resource or as raw bytes, each containing one or more X.509 certificates,
+ * either PEM or DER encoded.
+ * <p>
+ * The validated certificate paths are cached, so that the same chain is not built and validated again for each
+ * signature. Optionally, the revocation status of the certificates is checked against revocation data (CRLs and stored
+ * OCSP responses) loaded from a local directory, which is reloaded in the background. The revocation check never goes
+ * to the network.
+ */
+public class SignatureVerificationConfiguration {
+
+    private String trustAnchorsFile;
+    private String trustAnchorsClasspathFile;
+    private byte[] trustAnchorsBytes;
+
+    private boolean certificatePathCacheEnabled = true;
+    private int certificatePathCacheMaximumSize = DefaultConfiguration.CERTIFICATE_PATH_CACHE_DEFAULT_MAXIMUM_SIZE;
+    private int certificatePathCacheTimeToLiveInSeconds =
+        DefaultConfiguration.CERTIFICATE_PATH_CACHE_DEFAULT_TIME_TO_LIVE_IN_SECONDS;
+
+    private boolean revocationCheckEnabled = false;
+    private String revocationDataDirectory;
+    private int revocationDataRefreshIntervalInSeconds =
+        DefaultConfiguration.REVOCATION_DATA_DEFAULT_REFRESH_INTERVAL_IN_SECONDS;
+    private boolean revocationSoftFail = false;
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public String getTrustAnchorsFile() {
+        return trustAnchorsFile;
+    }
+
+    public void setTrustAnchorsFile(String trustAnchorsFile) {
+        this.trustAnchorsFile = trustAnchorsFile;
+    }
+
+    public String getTrustAnchorsClasspathFile() {
+        return trustAnchorsClasspathFile;
+    }
+
+    public void setTrustAnchorsClasspathFile(String trustAnchorsClasspathFile) {
+        this.trustAnchorsClasspathFile = trustAnchorsClasspathFile;
+    }
+
+    public byte[] getTrustAnchorsBytes() {
+        return trustAnchorsBytes;
+    }
+
+    public void setTrustAnchorsBytes(byte[] trustAnchorsBytes) {
+        this.trustAnchorsBytes = trustAnchorsBytes;
+    }
+
+    public boolean isCertificatePathCacheEnabled() {
+        return certificatePathCacheEnabled;
+    }
+
+    public void setCertificatePathCacheEnabled(boolean certificatePathCacheEnabled) {
+        this.certificatePathCacheEnabled = certificatePathCacheEnabled;
+    }
+
+    public int getCertificatePathCacheMaximumSize() {
+        return certificatePathCacheMaximumSize;
+    }
+
+    public void setCertificatePathCacheMaximumSize(int certificatePathCacheMaximumSize) {
+        this.certificatePathCacheMaximumSize = certificatePathCacheMaximumSize;
+    }
+
+    public int getCertificatePathCacheTimeToLiveInSeconds() {
+        return certificatePathCacheTimeToLiveInSeconds;
+    }
+
+    /**
+     * Sets for how long a validated certificate path is cached. A path is never cached beyond the expiry of any of its
+     * certificates.
+     */
+    public void setCertificatePathCacheTimeToLiveInSeconds(int certificatePathCacheTimeToLiveInSeconds) {
+        this.certificatePathCacheTimeToLiveInSeconds = certificatePathCacheTimeToLiveInSeconds;
+    }
+
+    public boolean isRevocationCheckEnabled() {
+        return revocationCheckEnabled;
+    }
+
+    public void setRevocationCheckEnabled(boolean revocationCheckEnabled) {
+        this.revocationCheckEnabled = revocationCheckEnabled;
+    }
+
+    public String getRevocationDataDirectory() {
+        return revocationDataDirectory;
+    }
+
+    /**
+     * Sets the directory with the revocation data: CRLs in files ending with <i>.crl</i> (PEM or DER) and stored OCSP
+     * responses in files ending with <i>.ocsp</i> (DER). Keeping the files up to date (e.g. with a cron job that
+     * downloads them) is up to the application; the client only reloads them when they change.
+     */
+    public void setRevocationDataDirectory(String revocationDataDirectory) {
+        this.revocationDataDirectory = revocationDataDirectory;
+    }
+
+    public int getRevocationDataRefreshIntervalInSeconds() {
+        return revocationDataRefreshIntervalInSeconds;
+    }
+
+    public void setRevocationDataRefreshIntervalInSeconds(int revocationDataRefreshIntervalInSeconds) {
+        this.revocationDataRefreshIntervalInSeconds = revocationDataRefreshIntervalInSeconds;
+    }
+
+    public boolean isRevocationSoftFail() {
+        return revocationSoftFail;
+    }
+
+    /**
+     * Sets whether a certificate for which no current revocation data is available is accepted (soft fail) or rejected
+     * (default). A certificate that is known to be revoked is always rejected.
+     */
+    public void setRevocationSoftFail(boolean revocationSoftFail) {
+        this.revocationSoftFail = revocationSoftFail;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public void validateYourself() {
+        configTrue(trustAnchorsFile != null || trustAnchorsClasspathFile != null || trustAnchorsBytes != null,
+                   "At least a trust anchors source (one of trustAnchorsFile, trustAnchorsClasspathFile or "
+                   + "trustAnchorsBytes) must be provided for the signature verification");
+        if (certificatePathCacheEnabled) {
+            configTrue(certificatePathCacheMaximumSize > 0,
+                       "The certificatePathCacheMaximumSize must be higher than zero");
+            configTrue(certificatePathCacheTimeToLiveInSeconds > 0,
+                       "The certificatePathCacheTimeToLiveInSeconds must be higher than zero");
+        }
+        if (revocationCheckEnabled) {
+            configNotNull(revocationDataDirectory,
+                          "The revocationDataDirectory cannot be NULL when the revocation check is enabled");
+            configTrue(revocationDataRefreshIntervalInSeconds > 0,
+                       "The revocationDataRefreshIntervalInSeconds must be higher than zero");
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    @Override
+    public String toString() {
+        return "SignatureVerificationConfiguration{" +
+               "trustAnchorsFile='" + trustAnchorsFile + '\'' +
+               ", trustAnchorsClasspathFile='" + trustAnchorsClasspathFile + '\'' +
+               ", trustAnchorsBytes=" + (trustAnchorsBytes == null ? "null" : "(not-null)") +
+               ", certificatePathCacheEnabled=" + certificatePathCacheEnabled +
+               ", certificatePathCacheMaximumSize=" + certificatePathCacheMaximumSize +
+               ", certificatePathCacheTimeToLiveInSeconds=" + certificatePathCacheTimeToLiveInSeconds +
+               ", revocationCheckEnabled=" + revocationCheckEnabled +
+               ", revocationDataDirectory='" + revocationDataDirectory + '\'' +
+               ", revocationDataRefreshIntervalInSeconds=" + revocationDataRefreshIntervalInSeconds +
+               ", revocationSoftFail=" + revocationSoftFail +
+               '}';
+    }
+
+}
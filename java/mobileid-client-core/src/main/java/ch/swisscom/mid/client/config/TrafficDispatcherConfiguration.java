@@ -0,0 +1,109 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.config;
+
+import static ch.swisscom.mid.client.utils.Utils.configNotNull;
+import static ch.swisscom.mid.client.utils.Utils.configTrue;
+
+/**
+ * Configuration for the asynchronous dispatch of the {@link TrafficObserver} notifications. When enabled, the client
+ * replaces the traffic observer of each request (and signature tracking) with a wrapper that only puts the
+ * notifications in a bounded buffer; these are delivered to the actual observer by {@link #getConsumerThreads()}
+ * dedicated threads, so that a slow observer does not add to the latency of the MSS requests. All the notifications
+ * of an observer go through the same consumer thread, so that they are delivered in order.
+ */
+public class TrafficDispatcherConfiguration {
+
+    private boolean enabled = false;
+    private int bufferSize = DefaultConfiguration.TRAFFIC_DISPATCHER_DEFAULT_BUFFER_SIZE;
+    private int consumerThreads = DefaultConfiguration.TRAFFIC_DISPATCHER_DEFAULT_CONSUMER_THREADS;
+    private TrafficOverflowPolicy overflowPolicy = TrafficOverflowPolicy.DROP;
+    private int sampleRate = DefaultConfiguration.TRAFFIC_DISPATCHER_DEFAULT_SAMPLE_RATE;
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Sets the number of notifications that each consumer thread can have pending. Must be a power of two.
+     */
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public int getConsumerThreads() {
+        return consumerThreads;
+    }
+
+    public void setConsumerThreads(int consumerThreads) {
+        this.consumerThreads = consumerThreads;
+    }
+
+    public TrafficOverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public void setOverflowPolicy(TrafficOverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(int sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public void validateYourself() {
+        if (!enabled) {
+            return;
+        }
+        configTrue(bufferSize > 1 && Integer.bitCount(bufferSize) == 1,
+                   "The traffic dispatcher bufferSize must be a power of two");
+        configTrue(consumerThreads > 0,
+                   "The traffic dispatcher consumerThreads must be higher than zero");
+        configNotNull(overflowPolicy, "The traffic dispatcher overflowPolicy cannot be NULL");
+        configTrue(sampleRate > 0,
+                   "The traffic dispatcher sampleRate must be higher than zero");
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    @Override
+    public String toString() {
+        return "TrafficDispatcherConfiguration{" +
+               "enabled=" + enabled +
+               ", bufferSize=" + bufferSize +
+               ", consumerThreads=" + consumerThreads +
+               ", overflowPolicy=" + overflowPolicy +
+               ", sampleRate=" + sampleRate +
+               '}';
+    }
+
+}
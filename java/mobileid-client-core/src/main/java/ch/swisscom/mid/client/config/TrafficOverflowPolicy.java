@@ -0,0 +1,39 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.config;
+
+/**
+ * What the asynchronous traffic observer dispatcher does with a notification when the buffer of its consumer is full.
+ */
+public enum TrafficOverflowPolicy {
+
+    /**
+     * The notification is dropped; the request goes on right away.
+     */
+    DROP,
+
+    /**
+     * Once the buffer is more than half full, only one of each {@link TrafficDispatcherConfiguration#getSampleRate()}
+     * notifications is kept; when it is full, the notification is dropped.
+     */
+    SAMPLE,
+
+    /**
+     * The request thread waits until there is room in the buffer, so that no notification is lost.
+     */
+    BLOCK;
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.config;
+
+import static ch.swisscom.mid.client.utils.Utils.configTrue;
+
+/**
+ * Configuration for the traffic recorder, which keeps the last {@link #getRecordCount()} MSS exchanges (with their
+ * redacted request and response bodies) in a fixed-size off-heap buffer, so that they can be dumped after an incident.
+ * Each record takes {@link #getRecordSizeInBytes()} bytes; longer bodies are truncated. The recorder is cheap enough to
+ * stay enabled in production, where logging the full requests and responses is not an option.
+ */
+public class TrafficRecorderConfiguration {
+
+    private boolean enabled = false;
+    private int recordCount = DefaultConfiguration.TRAFFIC_RECORDER_DEFAULT_RECORD_COUNT;
+    private int recordSizeInBytes = DefaultConfiguration.TRAFFIC_RECORDER_DEFAULT_RECORD_SIZE_IN_BYTES;
+    private String dumpSignal;
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    public void setRecordCount(int recordCount) {
+        this.recordCount = recordCount;
+    }
+
+    public int getRecordSizeInBytes() {
+        return recordSizeInBytes;
+    }
+
+    public void setRecordSizeInBytes(int recordSizeInBytes) {
+        this.recordSizeInBytes = recordSizeInBytes;
+    }
+
+    public String getDumpSignal() {
+        return dumpSignal;
+    }
+
+    /**
+     * Sets the name of the OS signal (e.g. "USR1") that dumps the recorded exchanges to the traffic recorder logger.
+     * NULL (the default) leaves the signals alone.
+     */
+    public void setDumpSignal(String dumpSignal) {
+        this.dumpSignal = dumpSignal;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public void validateYourself() {
+        if (!enabled) {
+            return;
+        }
+        configTrue(recordCount > 0,
+                   "The traffic recorder recordCount must be higher than zero");
+        configTrue(recordSizeInBytes >= 512,
+                   "The traffic recorder recordSizeInBytes must be at least 512");
+        configTrue((long) recordCount * recordSizeInBytes <= Integer.MAX_VALUE,
+                   "The traffic recorder buffer (recordCount * recordSizeInBytes) must be smaller than 2 GB");
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    @Override
+    public String toString() {
+        return "TrafficRecorderConfiguration{" +
+               "enabled=" + enabled +
+               ", recordCount=" + recordCount +
+               ", recordSizeInBytes=" + recordSizeInBytes +
+               ", dumpSignal='" + dumpSignal + '\'' +
+               '}';
+    }
+
+}
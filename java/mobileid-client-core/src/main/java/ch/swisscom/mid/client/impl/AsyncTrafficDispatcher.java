@@ -0,0 +1,293 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import ch.swisscom.mid.client.config.ComProtocol;
+import ch.swisscom.mid.client.config.RequestTrace;
+import ch.swisscom.mid.client.config.ResponseTrace;
+import ch.swisscom.mid.client.config.TrafficDispatcherConfiguration;
+import ch.swisscom.mid.client.config.TrafficObserver;
+import ch.swisscom.mid.client.config.TrafficOverflowPolicy;
+
+/**
+ * Delivers the {@link TrafficObserver} notifications on dedicated consumer threads instead of the request threads.
+ * <p>
+ * Each consumer thread drains its own {@link TrafficRingBuffer}; an observer is always served by the same consumer, so
+ * that its notifications are delivered in order. The request threads only put the notifications in the buffer and,
+ * when the buffer is full, apply the configured {@link TrafficOverflowPolicy}. An idle consumer parks itself and is
+ * woken up by the next producer.
+ */
+public class AsyncTrafficDispatcher implements Closeable {
+
+    private static final Logger logClient = LoggerFactory.getLogger(Loggers.LOGGER_CLIENT);
+
+    private static final long IDLE_PARK_IN_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long BLOCKED_PARK_IN_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long CLOSE_TIMEOUT_IN_MILLIS = 1000;
+
+    private static final int APTRANSID_NOTIFICATION = 0;
+    private static final int REQUEST_NOTIFICATION = 1;
+    private static final int RESPONSE_NOTIFICATION = 2;
+
+    private final TrafficOverflowPolicy overflowPolicy;
+    private final int sampleRate;
+    private final Consumer[] consumers;
+    // weak keys, as the observers may well be created per request
+    private final Map<TrafficObserver, TrafficObserverStats> statsByObserver = Collections.synchronizedMap(new WeakHashMap<>());
+    private volatile boolean closed;
+
+    public AsyncTrafficDispatcher(TrafficDispatcherConfiguration config) {
+        this.overflowPolicy = config.getOverflowPolicy();
+        this.sampleRate = config.getSampleRate();
+        this.consumers = new Consumer[config.getConsumerThreads()];
+        for (int index = 0; index < consumers.length; index++) {
+            consumers[index] = new Consumer(config.getBufferSize(), "mid-client-traffic-observer-" + (index + 1));
+            consumers[index].thread.start();
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns an observer that dispatches its notifications asynchronously to the given one. Returns the given observer
+     * itself if it is NULL or if it was already wrapped by this dispatcher.
+     */
+    public TrafficObserver wrap(TrafficObserver observer) {
+        if (observer == null || (observer instanceof AsyncTrafficObserver && ((AsyncTrafficObserver) observer).owner() == this)) {
+            return observer;
+        }
+        TrafficObserverStats stats = statsByObserver.computeIfAbsent(observer, key -> new TrafficObserverStats(key.getClass().getName()));
+        Consumer consumer = consumers[(System.identityHashCode(observer) & Integer.MAX_VALUE) % consumers.length];
+        return new AsyncTrafficObserver(observer, stats, consumer);
+    }
+
+    /**
+     * Returns the counters of each observer that is still referenced by the application (or by a pending notification).
+     */
+    public List<TrafficObserverStats> getObserverStats() {
+        synchronized (statsByObserver) {
+            return new ArrayList<>(statsByObserver.values());
+        }
+    }
+
+    /**
+     * Returns the number of notifications waiting to be delivered, over all the consumers.
+     */
+    public int getPendingCount() {
+        int result = 0;
+        for (Consumer consumer : consumers) {
+            result += consumer.buffer.size();
+        }
+        return result;
+    }
+
+    /**
+     * Stops accepting notifications and gives the consumers a short time to deliver the pending ones.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Consumer consumer : consumers) {
+            LockSupport.unpark(consumer.thread);
+        }
+        for (Consumer consumer : consumers) {
+            try {
+                consumer.thread.join(CLOSE_TIMEOUT_IN_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (consumer.thread.isAlive()) {
+                logClient.warn("Traffic observer consumer {} did not finish in time, {} notifications are lost",
+                               consumer.thread.getName(), consumer.buffer.size());
+                consumer.thread.interrupt();
+            }
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private void submit(Notification notification, Consumer consumer) {
+        TrafficObserverStats stats = notification.stats;
+        stats.recordSubmitted();
+        if (closed) {
+            stats.recordDropped();
+            return;
+        }
+        TrafficRingBuffer<Notification> buffer = consumer.buffer;
+        switch (overflowPolicy) {
+            case SAMPLE:
+                if (buffer.size() * 2 > buffer.capacity() && !stats.nextSampleIsKept(sampleRate)) {
+                    stats.recordDropped();
+                    return;
+                }
+                offerOrDrop(notification, consumer);
+                break;
+            case BLOCK:
+                while (!buffer.offer(notification)) {
+                    if (closed) {
+                        stats.recordDropped();
+                        return;
+                    }
+                    LockSupport.parkNanos(BLOCKED_PARK_IN_NANOS);
+                }
+                consumer.wakeUp();
+                break;
+            default:
+                offerOrDrop(notification, consumer);
+                break;
+        }
+    }
+
+    private static void offerOrDrop(Notification notification, Consumer consumer) {
+        if (consumer.buffer.offer(notification)) {
+            consumer.wakeUp();
+        } else {
+            notification.stats.recordDropped();
+        }
+    }
+
+    private static void deliver(Notification notification) {
+        boolean failure = false;
+        try {
+            switch (notification.type) {
+                case APTRANSID_NOTIFICATION:
+                    notification.observer.notifyOfGeneratedApTransId(notification.apTransId, notification.protocol);
+                    break;
+                case REQUEST_NOTIFICATION:
+                    notification.observer.notifyOfOutgoingRequest(notification.requestTrace, notification.protocol);
+                    break;
+                default:
+                    notification.observer.notifyOfIncomingResponse(notification.responseTrace, notification.protocol);
+                    break;
+            }
+        } catch (RuntimeException e) {
+            failure = true;
+            logClient.warn("Traffic observer {} failed", notification.stats.getObserverName(), e);
+        }
+        notification.stats.recordDelivered(System.nanoTime() - notification.submittedAtInNanos, failure);
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private class Consumer implements Runnable {
+
+        private final TrafficRingBuffer<Notification> buffer;
+        private final Thread thread;
+        private volatile boolean parked;
+
+        private Consumer(int bufferSize, String threadName) {
+            this.buffer = new TrafficRingBuffer<>(bufferSize);
+            this.thread = new Thread(this, threadName);
+            this.thread.setDaemon(true);
+        }
+
+        private void wakeUp() {
+            if (parked) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        @Override
+        public void run() {
+            while (!Thread.currentThread().isInterrupted()) {
+                Notification notification = buffer.poll();
+                if (notification != null) {
+                    deliver(notification);
+                    continue;
+                }
+                if (closed) {
+                    return;
+                }
+                parked = true;
+                // check again, in case a producer added a notification before it could see the parked flag
+                if (buffer.size() == 0 && !closed) {
+                    LockSupport.parkNanos(this, IDLE_PARK_IN_NANOS);
+                }
+                parked = false;
+            }
+        }
+    }
+
+    private class AsyncTrafficObserver implements TrafficObserver {
+
+        private final TrafficObserver delegate;
+        private final TrafficObserverStats stats;
+        private final Consumer consumer;
+
+        private AsyncTrafficObserver(TrafficObserver delegate, TrafficObserverStats stats, Consumer consumer) {
+            this.delegate = delegate;
+            this.stats = stats;
+            this.consumer = consumer;
+        }
+
+        private AsyncTrafficDispatcher owner() {
+            return AsyncTrafficDispatcher.this;
+        }
+
+        @Override
+        public void notifyOfGeneratedApTransId(String apTransId, ComProtocol protocol) {
+            Notification notification = new Notification(delegate, stats, APTRANSID_NOTIFICATION, protocol);
+            notification.apTransId = apTransId;
+            submit(notification, consumer);
+        }
+
+        @Override
+        public void notifyOfOutgoingRequest(RequestTrace trace, ComProtocol protocol) {
+            Notification notification = new Notification(delegate, stats, REQUEST_NOTIFICATION, protocol);
+            notification.requestTrace = trace;
+            submit(notification, consumer);
+        }
+
+        @Override
+        public void notifyOfIncomingResponse(ResponseTrace trace, ComProtocol protocol) {
+            Notification notification = new Notification(delegate, stats, RESPONSE_NOTIFICATION, protocol);
+            notification.responseTrace = trace;
+            submit(notification, consumer);
+        }
+    }
+
+    private static class Notification {
+        private final TrafficObserver observer;
+        private final TrafficObserverStats stats;
+        private final int type;
+        private final ComProtocol protocol;
+        private final long submittedAtInNanos = System.nanoTime();
+        private String apTransId;
+        private RequestTrace requestTrace;
+        private ResponseTrace responseTrace;
+
+        private Notification(TrafficObserver observer, TrafficObserverStats stats, int type, ComProtocol protocol) {
+            this.observer = observer;
+            this.stats = stats;
+            this.type = type;
+            this.protocol = protocol;
+        }
+    }
+
+}
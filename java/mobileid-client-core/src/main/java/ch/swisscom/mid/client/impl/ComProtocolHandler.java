@@ -16,9 +16,13 @@
 package ch.swisscom.mid.client.impl;
 
 import java.io.Closeable;
+import java.util.Collections;
+import java.util.List;
 
 import ch.swisscom.mid.client.config.ClientConfiguration;
 import ch.swisscom.mid.client.config.ComProtocol;
+import ch.swisscom.mid.client.metrics.ConnectionPoolStats;
+import ch.swisscom.mid.client.metrics.MIDClientMetrics;
 import ch.swisscom.mid.client.model.*;
 
 /**
@@ -30,6 +34,14 @@ public interface ComProtocolHandler extends Closeable {
 
     void initialize(ClientConfiguration config);
 
+    /**
+     * Initializes this handler and instructs it to report each MSS exchange to the given metrics. Implementations that
+     * do not record metrics can rely on this default method.
+     */
+    default void initialize(ClientConfiguration config, MIDClientMetrics metrics) {
+        initialize(config);
+    }
+
     ComProtocol getImplementedComProtocol();
 
     SignatureResponse requestSyncSignature(SignatureRequest request);
@@ -42,4 +54,11 @@ public interface ComProtocolHandler extends Closeable {
 
     ProfileResponse requestProfile(ProfileRequest request);
 
+    /**
+     * Returns the current usage of the connection (or port) pools of this implementation, for monitoring purposes.
+     */
+    default List<ConnectionPoolStats> getConnectionPoolStats() {
+        return Collections.emptyList();
+    }
+
 }
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.impl;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count-Min sketch with 4-bit counters that estimates how often a key was seen recently. Once the number of recorded
+ * increments reaches the sample size, all counters are halved so that the old popularity fades away.
+ * <p>
+ * This class is thread safe without locking: the counters are updated with compare-and-set and the thread whose
+ * increment reaches the sample size does the halving. An increment that races with the halving may be halved or not,
+ * which does not matter for an estimate.
+ */
+final class FrequencySketch {
+
+    private static final long[] SEEDS = {
+        0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long COUNTER_MASK = 0xfL;
+    private static final int MAX_COUNTER_VALUE = 15;
+
+    private final AtomicLongArray table;
+    private final int tableMask;
+    private final int sampleSize;
+    private final AtomicInteger recordedIncrements = new AtomicInteger();
+
+    FrequencySketch(int maximumSize) {
+        int capacity = Integer.highestOneBit(Math.max(maximumSize, 16) - 1) << 1;
+        this.table = new AtomicLongArray(capacity);
+        this.tableMask = capacity - 1;
+        this.sampleSize = 10 * Math.max(maximumSize, 1);
+    }
+
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = MAX_COUNTER_VALUE;
+        for (int depth = 0; depth < SEEDS.length; depth++) {
+            long counter = (table.get(indexOf(hash, depth)) >>> counterOffset(hash, depth)) & COUNTER_MASK;
+            frequency = Math.min(frequency, (int) counter);
+        }
+        return frequency;
+    }
+
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean incremented = false;
+        for (int depth = 0; depth < SEEDS.length; depth++) {
+            incremented |= incrementAt(indexOf(hash, depth), counterOffset(hash, depth));
+        }
+        if (!incremented) {
+            return;
+        }
+        int increments = recordedIncrements.incrementAndGet();
+        if (increments >= sampleSize && recordedIncrements.compareAndSet(increments, increments / 2)) {
+            halveAllCounters();
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private boolean incrementAt(int index, int offset) {
+        long mask = COUNTER_MASK << offset;
+        while (true) {
+            long value = table.get(index);
+            if ((value & mask) == mask) {
+                return false;
+            }
+            if (table.compareAndSet(index, value, value + (1L << offset))) {
+                return true;
+            }
+        }
+    }
+
+    private void halveAllCounters() {
+        for (int index = 0; index < table.length(); index++) {
+            table.getAndUpdate(index, value -> (value >>> 1) & RESET_MASK);
+        }
+    }
+
+    private int indexOf(int hash, int depth) {
+        long value = (hash + SEEDS[depth]) * SEEDS[depth];
+        value += value >>> 32;
+        return (int) value & tableMask;
+    }
+
+    private static int counterOffset(int hash, int depth) {
+        // each long holds 16 counters of 4 bits; each depth picks its counter with a different nibble of the hash
+        return (int) ((hash >>> (depth << 3)) & COUNTER_MASK) << 2;
+    }
+
+    private static int spread(int hash) {
+        int value = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        value = ((value >>> 16) ^ value) * 0x45d9f3b;
+        return (value >>> 16) ^ value;
+    }
+
+}
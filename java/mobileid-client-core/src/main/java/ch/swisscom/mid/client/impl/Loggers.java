@@ -28,6 +28,7 @@ public class Loggers {
     public static final String LOGGER_CLIENT_PROTOCOL = "ch.swisscom.mid.client.protocol";
     public static final String LOGGER_REQUEST_RESPONSE = "ch.swisscom.mid.client.requestResponse";
     public static final String LOGGER_FULL_REQUEST_RESPONSE = "ch.swisscom.mid.client.fullRequestResponse";
+    public static final String LOGGER_TRAFFIC_RECORDER = "ch.swisscom.mid.client.trafficRecorder";
 
     // ----------------------------------------------------------------------------------------------------
 
@@ -18,14 +18,33 @@ package ch.swisscom.mid.client.impl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import ch.swisscom.mid.client.MIDClient;
+import ch.swisscom.mid.client.MIDFlowException;
 import ch.swisscom.mid.client.config.ClientConfiguration;
+import ch.swisscom.mid.client.config.ComProtocol;
 import ch.swisscom.mid.client.config.ConfigurationException;
+import ch.swisscom.mid.client.config.TrafficObserver;
+import ch.swisscom.mid.client.jmx.MIDClientManagement;
+import ch.swisscom.mid.client.metrics.ConnectionPoolStats;
+import ch.swisscom.mid.client.metrics.MIDClientMetrics;
 import ch.swisscom.mid.client.model.*;
+import ch.swisscom.mid.client.recorder.TrafficRecorder;
+import ch.swisscom.mid.client.tracing.NoopTracer;
+import ch.swisscom.mid.client.tracing.Span;
+import ch.swisscom.mid.client.tracing.Tracer;
+import ch.swisscom.mid.client.tracing.TracingContext;
 
 import static ch.swisscom.mid.client.utils.Utils.configNotNull;
 import static ch.swisscom.mid.client.utils.Utils.configTrue;
@@ -36,8 +55,28 @@ public class MIDClientImpl implements MIDClient {
     private static final Logger logClient = LoggerFactory.getLogger(Loggers.LOGGER_CLIENT);
     private static final Logger logConfig = LoggerFactory.getLogger(Loggers.LOGGER_CONFIG);
 
+    private static final long OUTSTANDING_SIGNATURES_SWEEP_INTERVAL_IN_MS = 10 * 1000;
+
     private final List<ComProtocolHandler> comProtocolHandlers;
+    private final MIDClientMetrics metrics = new MIDClientMetrics();
     private final ComProtocolHandler selectedProtocolHandler;
+    private final PriorityDispatcher dispatcher;
+    private final long finalPollWindowInMillis;
+    private final ComProtocolHandler alternateProtocolHandler;
+    private final RequestHedger hedger;
+    private final SingleFlight<String, SignatureResponse> pollSingleFlight;
+    private final SingleFlight<String, ProfileResponse> profileSingleFlight;
+    private final ProfileCache profileCache;
+    private final SignaturePreflightCheck preflightCheck;
+    private final boolean fetchProfileForPreflight;
+    private final Map<String, OutstandingSignature> outstandingSignatures = new ConcurrentHashMap<>();
+    private final AtomicLong nextOutstandingSignaturesSweepInMillis = new AtomicLong();
+    private final OutstandingSignatureRegistry outstandingSignatureRegistry;
+    private final SignatureJournal journal;
+    private final AsyncTrafficDispatcher trafficDispatcher;
+    private final TrafficRecorder trafficRecorder;
+    private final MIDClientManagement management;
+    private final Tracer tracer;
 
     public MIDClientImpl(ClientConfiguration config) throws ConfigurationException {
         logClient.debug("Creating new instance of MIDClient");
@@ -45,9 +84,82 @@ public class MIDClientImpl implements MIDClient {
         comProtocolHandlers = loadComProtocolHandlers();
         validateClientConfiguration(config);
         logConfig.debug("MID Client configuration successfully validated.");
-        selectedProtocolHandler = selectProtocolHandler(config);
+        selectedProtocolHandler = selectProtocolHandler(config, comProtocolHandlers);
         logConfig.debug("MID Client selected the following protocol implementation: {}", selectedProtocolHandler.getImplementedComProtocol());
-        selectedProtocolHandler.initialize(config);
+        selectedProtocolHandler.initialize(config, metrics);
+        if (config.getDispatcher().isEnabled()) {
+            dispatcher = new PriorityDispatcher(config.getDispatcher());
+            logConfig.debug("MID Client priority dispatcher enabled: {}", config.getDispatcher());
+        } else {
+            dispatcher = null;
+        }
+        finalPollWindowInMillis = config.getDispatcher().getFinalPollWindowInSeconds() * 1000L;
+        if (config.getHedging().isEnabled()) {
+            ClientConfiguration alternateConfig = createAlternateConfiguration(config);
+            alternateProtocolHandler = selectProtocolHandler(alternateConfig, loadComProtocolHandlers());
+            alternateProtocolHandler.initialize(alternateConfig, metrics);
+            hedger = new RequestHedger(config.getHedging());
+            logConfig.debug("MID Client hedging enabled: {}", config.getHedging());
+        } else {
+            alternateProtocolHandler = null;
+            hedger = null;
+        }
+        if (config.isCoalesceDuplicateRequests()) {
+            pollSingleFlight = new SingleFlight<>();
+            profileSingleFlight = new SingleFlight<>();
+        } else {
+            pollSingleFlight = null;
+            profileSingleFlight = null;
+        }
+        if (config.getProfileCache().isEnabled()) {
+            profileCache = new ProfileCache(config.getProfileCache());
+            logConfig.debug("MID Client profile cache enabled: {}", config.getProfileCache());
+        } else {
+            profileCache = null;
+        }
+        if (config.getPreflight().isEnabled()) {
+            preflightCheck = new SignaturePreflightCheck(config.getPreflight());
+            logConfig.debug("MID Client signature pre-flight check enabled: {}", config.getPreflight());
+        } else {
+            preflightCheck = null;
+        }
+        fetchProfileForPreflight = config.getPreflight().isFetchProfileOnCacheMiss();
+        if (config.getOutstandingSignatures().isEnabled()) {
+            outstandingSignatureRegistry = new OutstandingSignatureRegistry(config.getOutstandingSignatures());
+            logConfig.debug("MID Client outstanding signature registry enabled: {}", config.getOutstandingSignatures());
+        } else {
+            outstandingSignatureRegistry = null;
+        }
+        if (config.getJournal().isEnabled()) {
+            try {
+                journal = new SignatureJournal(config.getJournal());
+            } catch (IOException e) {
+                throw new ConfigurationException("Failed to open the signature journal: " + config.getJournal().getFile(), e);
+            }
+            logConfig.debug("MID Client signature journal enabled: {}", config.getJournal());
+        } else {
+            journal = null;
+        }
+        if (config.getTrafficDispatcher().isEnabled()) {
+            trafficDispatcher = new AsyncTrafficDispatcher(config.getTrafficDispatcher());
+            logConfig.debug("MID Client asynchronous traffic observer dispatch enabled: {}", config.getTrafficDispatcher());
+        } else {
+            trafficDispatcher = null;
+        }
+        if (config.getTrafficRecorder().isEnabled()) {
+            trafficRecorder = new TrafficRecorder(config.getTrafficRecorder());
+            metrics.addRegistry(trafficRecorder);
+            logConfig.debug("MID Client traffic recorder enabled: {}", config.getTrafficRecorder());
+        } else {
+            trafficRecorder = null;
+        }
+        if (config.getJmx().isEnabled()) {
+            management = MIDClientManagement.register(this, config.getJmx());
+            logConfig.debug("MID Client registered the JMX management interface: {}", management.getObjectName());
+        } else {
+            management = null;
+        }
+        tracer = config.getTracer() instanceof NoopTracer ? null : config.getTracer();
     }
 
     // ----------------------------------------------------------------------------------------------------
@@ -56,21 +168,46 @@ public class MIDClientImpl implements MIDClient {
     public SignatureResponse requestSyncSignature(SignatureRequest request) {
         dataNotNull(request, "The given signature request is NULL");
         request.validateYourself();
-        return selectedProtocolHandler.requestSyncSignature(request);
+        return trace("MIDClient requestSyncSignature", null, () -> {
+            runPreflightCheck(request);
+            SignatureRequest call = withAsyncObserver(request);
+            return dispatch(RequestPriority.SIGNATURE, () -> selectedProtocolHandler.requestSyncSignature(call));
+        });
     }
 
     @Override
     public SignatureResponse requestAsyncSignature(SignatureRequest request) {
         dataNotNull(request, "The given signature request is NULL");
         request.validateYourself();
-        return selectedProtocolHandler.requestAsyncSignature(request);
+        return trace("MIDClient requestAsyncSignature", null, () -> {
+            runPreflightCheck(request);
+            SignatureRequest call = withAsyncObserver(request);
+            long startTimeInMillis = System.currentTimeMillis();
+            SignatureResponse response = dispatch(RequestPriority.SIGNATURE,
+                                                  () -> selectedProtocolHandler.requestAsyncSignature(call));
+            if (response != null && response.getTracking() != null) {
+                // the tracking goes back to the caller, so it gets the caller's observer, not this client's wrapper
+                response.getTracking().setTrafficObserver(request.getTrafficObserver());
+                long deadlineInMillis = startTimeInMillis + request.getUserResponseTimeOutInSeconds() * 1000L;
+                response.getTracking().setDeadlineInMillis(deadlineInMillis);
+                if (tracer != null) {
+                    response.getTracking().setTraceParent(TracingContext.current().getTraceParent());
+                }
+                response.getTracking().setCorrelationKey(request.getCorrelationKey());
+                signatureStarted(response.getTracking(), request.getSignatureProfile(), deadlineInMillis);
+                journalSignatureStarted(response.getTracking(), deadlineInMillis);
+            }
+            return response;
+        });
     }
 
     @Override
     public SignatureResponse pollForSignatureStatus(SignatureTracking signatureTracking) {
         dataNotNull(signatureTracking, "The given signature tracking object is NULL");
         signatureTracking.validateYourself();
-        return selectedProtocolHandler.pollForSignatureStatus(signatureTracking);
+        SignatureTracking call = withAsyncObserver(signatureTracking);
+        return trace("MIDClient pollForSignatureStatus", signatureTracking.getTraceParent(),
+                     () -> pollForSignatureStatusAndTrackCompletion(call));
     }
 
     @Override
@@ -78,21 +215,197 @@ public class MIDClientImpl implements MIDClient {
         dataNotNull(request, "The given receipt request object is NULL");
         signatureTracking.validateYourself();
         request.validateYourself();
-        return selectedProtocolHandler.requestSyncReceipt(signatureTracking, request);
+        SignatureTracking trackingCall = withAsyncObserver(signatureTracking);
+        ReceiptRequest requestCall = withAsyncObserver(request);
+        return trace("MIDClient requestSyncReceipt", signatureTracking.getTraceParent(),
+                     () -> dispatch(RequestPriority.RECEIPT, () -> selectedProtocolHandler.requestSyncReceipt(trackingCall, requestCall)));
     }
 
     @Override
     public ProfileResponse requestProfile(ProfileRequest request) {
         dataNotNull(request, "The given profile request object is NULL");
         request.validateYourself();
-        return selectedProtocolHandler.requestProfile(request);
+        ProfileRequest call = withAsyncObserver(request);
+        return trace("MIDClient requestProfile", null, () -> requestProfileThroughCache(call));
+    }
+
+    /**
+     * Returns the priority dispatcher of this client (e.g. for inspecting its per-class queue depths) or NULL when
+     * the dispatcher is not enabled in the client configuration.
+     */
+    public PriorityDispatcher getPriorityDispatcher() {
+        return dispatcher;
+    }
+
+    /**
+     * Returns the request hedger of this client (e.g. for inspecting the current hedging delay and the hedge counters)
+     * or NULL when hedging is not enabled in the client configuration.
+     */
+    public RequestHedger getRequestHedger() {
+        return hedger;
+    }
+
+    /**
+     * Returns the metrics recorded by this client for each MSS operation and protocol. External metrics libraries can be
+     * plugged in via {@link MIDClientMetrics#addRegistry(ch.swisscom.mid.client.metrics.MetricsRegistry)}.
+     */
+    public MIDClientMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the asynchronous traffic observer dispatcher of this client (e.g. for inspecting the per-observer lag and
+     * drop counters) or NULL when the asynchronous dispatch is not enabled in the client configuration.
+     */
+    public AsyncTrafficDispatcher getTrafficDispatcher() {
+        return trafficDispatcher;
+    }
+
+    /**
+     * Returns the traffic recorder of this client (e.g. for dumping the last MSS exchanges after an incident) or NULL
+     * when the traffic recorder is not enabled in the client configuration.
+     */
+    public TrafficRecorder getTrafficRecorder() {
+        return trafficRecorder;
+    }
+
+    /**
+     * Returns the number of async signatures started by this client whose final status has not been polled yet. A
+     * signature is no longer counted once its user response timeout has passed (or once it has expired, when the
+     * outstanding signature registry is enabled, see {@link OutstandingSignatureRegistry}).
+     */
+    public int getOutstandingSignatureCount() {
+        if (outstandingSignatureRegistry != null) {
+            return outstandingSignatureRegistry.getOutstandingCount();
+        }
+        removeExpiredOutstandingSignatures(System.currentTimeMillis());
+        return outstandingSignatures.size();
+    }
+
+    /**
+     * Returns the registry of the outstanding async signatures of this client, e.g. for inspecting the in-flight
+     * signatures per signature profile. Returns NULL when the registry is not enabled in the client configuration.
+     */
+    public OutstandingSignatureRegistry getOutstandingSignatureRegistry() {
+        return outstandingSignatureRegistry;
+    }
+
+    /**
+     * Adds a listener that gets notified when an async signature of this client expires locally, because its final
+     * status was not polled by its deadline. Requires the outstanding signature registry to be enabled in the client
+     * configuration.
+     */
+    public void addOutstandingSignatureListener(OutstandingSignatureListener listener) {
+        configNotNull(outstandingSignatureRegistry, "The outstanding signature registry is not enabled");
+        outstandingSignatureRegistry.addListener(listener);
+    }
+
+    /**
+     * Returns the async signatures that were outstanding when the previous instance of this client stopped (and that
+     * are not past their deadline), as recorded in the signature journal, so that the caller can resume polling them.
+     * The signatures started by this instance and not completed yet are returned as well. Returns an empty list when
+     * the journal is not enabled in the client configuration.
+     */
+    public List<SignatureTracking> recoverOutstandingSignatures() {
+        if (journal == null) {
+            return Collections.emptyList();
+        }
+        List<SignatureTracking> result = journal.getOutstandingSignatures();
+        for (SignatureTracking tracking : result) {
+            if (outstandingSignatureRegistry == null) {
+                outstandingSignatures.putIfAbsent(tracking.getTransactionId(), new OutstandingSignature(tracking.getDeadlineInMillis()));
+            } else if (!outstandingSignatureRegistry.isRegistered(tracking.getTransactionId())) {
+                outstandingSignatureRegistry.register(tracking.getTransactionId(), null, tracking.getDeadlineInMillis());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the signature journal of this client or NULL when the journal is not enabled in the client configuration.
+     */
+    public SignatureJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Returns the current usage of the connection (or port) pools of the protocol implementations used by this client.
+     */
+    public List<ConnectionPoolStats> getConnectionPoolStats() {
+        List<ConnectionPoolStats> result = new ArrayList<>(selectedProtocolHandler.getConnectionPoolStats());
+        if (alternateProtocolHandler != null) {
+            result.addAll(alternateProtocolHandler.getConnectionPoolStats());
+        }
+        return result;
+    }
+
+    public ComProtocol getComProtocol() {
+        return selectedProtocolHandler.getImplementedComProtocol();
+    }
+
+    /**
+     * Returns the single-flight layer for status polls (e.g. for inspecting how many polls were coalesced) or NULL when
+     * duplicate request coalescing is not enabled in the client configuration.
+     */
+    public SingleFlight<String, SignatureResponse> getPollSingleFlight() {
+        return pollSingleFlight;
+    }
+
+    /**
+     * Returns the single-flight layer for profile queries or NULL when duplicate request coalescing is not enabled in
+     * the client configuration.
+     */
+    public SingleFlight<String, ProfileResponse> getProfileSingleFlight() {
+        return profileSingleFlight;
+    }
+
+    /**
+     * Returns the profile cache of this client (e.g. for invalidating the entries of a user or for inspecting the cache
+     * statistics) or NULL when the profile cache is not enabled in the client configuration.
+     */
+    public ProfileCache getProfileCache() {
+        return profileCache;
+    }
+
+    /**
+     * Returns the signature pre-flight check of this client (e.g. for inspecting how many requests were rejected locally)
+     * or NULL when the pre-flight check is not enabled in the client configuration.
+     */
+    public SignaturePreflightCheck getPreflightCheck() {
+        return preflightCheck;
     }
 
     @Override
     public void close() {
-        if (selectedProtocolHandler != null) {
+        if (management != null) {
+            management.unregister();
+        }
+        if (hedger != null) {
+            hedger.close();
+        }
+        if (journal != null) {
+            journal.close();
+        }
+        if (outstandingSignatureRegistry != null) {
+            outstandingSignatureRegistry.close();
+        }
+        closeProtocolHandler(selectedProtocolHandler);
+        closeProtocolHandler(alternateProtocolHandler);
+        if (trafficDispatcher != null) {
+            trafficDispatcher.close();
+        }
+        if (trafficRecorder != null) {
+            metrics.removeRegistry(trafficRecorder);
+            trafficRecorder.close();
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private void closeProtocolHandler(ComProtocolHandler handler) {
+        if (handler != null) {
             try {
-                selectedProtocolHandler.close();
+                handler.close();
             } catch (Exception e) {
                 logClient.debug("ComProtocolHandler failed to close: {}: {}, cause: {}: {}",
                                 e.getClass().getSimpleName(),
@@ -103,7 +416,232 @@ public class MIDClientImpl implements MIDClient {
         }
     }
 
-    // ----------------------------------------------------------------------------------------------------
+    /**
+     * Runs the given call in a new span of the configured tracer, which is current on this thread during the call, so
+     * that the MSS exchanges get child spans of it.
+     */
+    private <T> T trace(String spanName, String parentTraceParent, Supplier<T> call) {
+        if (tracer == null) {
+            return call.get();
+        }
+        Span span = tracer.startSpan(spanName, parentTraceParent);
+        Span previousSpan = TracingContext.activate(span);
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            span.recordFailure(e);
+            throw e;
+        } finally {
+            TracingContext.restore(previousSpan);
+            span.end();
+        }
+    }
+
+    private SignatureResponse pollForSignatureStatusAndTrackCompletion(SignatureTracking signatureTracking) {
+        if (outstandingSignatureRegistry != null) {
+            if (outstandingSignatureRegistry.isExpired(signatureTracking.getTransactionId())) {
+                throw createLocallyExpiredException(signatureTracking);
+            }
+            outstandingSignatureRegistry.recordPoll(signatureTracking.getTransactionId());
+        } else {
+            OutstandingSignature outstandingSignature = outstandingSignatures.get(signatureTracking.getTransactionId());
+            if (outstandingSignature != null) {
+                outstandingSignature.pollCount.incrementAndGet();
+            }
+        }
+        try {
+            SignatureResponse response = pollForSignatureStatusOnce(signatureTracking);
+            if (response == null || response.getStatus() == null ||
+                response.getStatus().getStatusCode() != StatusCode.OUTSTANDING_TRANSACTION) {
+                signatureCompleted(signatureTracking);
+            }
+            return response;
+        } catch (MIDFlowException e) {
+            if (e.getFault() != null && e.getFault().getStatusCode() != null) {
+                signatureCompleted(signatureTracking);
+            }
+            throw e;
+        }
+    }
+
+    private ProfileResponse requestProfileThroughCache(ProfileRequest request) {
+        if (profileCache == null) {
+            return requestProfileFromService(request);
+        }
+        String cacheKey = ProfileCache.keyOf(request);
+        ProfileResponse cachedResponse = profileCache.get(cacheKey);
+        if (cachedResponse != null) {
+            return cachedResponse;
+        }
+        try {
+            ProfileResponse response = requestProfileFromService(request);
+            profileCache.put(cacheKey, response);
+            return response;
+        } catch (MIDFlowException e) {
+            profileCache.putFailure(cacheKey, e);
+            throw e;
+        }
+    }
+
+    private <T> T dispatch(RequestPriority priority, Supplier<T> call) {
+        if (dispatcher == null) {
+            return call.get();
+        }
+        return dispatcher.dispatch(priority, call);
+    }
+
+    private <T> T hedge(RequestPriority priority, Function<ComProtocolHandler, T> call) {
+        if (hedger == null) {
+            return dispatch(priority, () -> call.apply(selectedProtocolHandler));
+        }
+        return hedger.call(TracingContext.propagate(() -> dispatch(priority, () -> call.apply(selectedProtocolHandler))),
+                           TracingContext.propagate(() -> dispatch(priority, () -> call.apply(alternateProtocolHandler))));
+    }
+
+    private void signatureStarted(SignatureTracking tracking, String signatureProfile, long deadlineInMillis) {
+        if (outstandingSignatureRegistry != null) {
+            outstandingSignatureRegistry.register(tracking.getTransactionId(), signatureProfile, deadlineInMillis);
+        } else {
+            outstandingSignatures.put(tracking.getTransactionId(), new OutstandingSignature(deadlineInMillis));
+            // signatures whose final status is never polled would otherwise stay in the map forever, so sweep the
+            // expired ones from time to time, whether or not anyone reads the outstanding signature count
+            long nowInMillis = System.currentTimeMillis();
+            long nextSweepInMillis = nextOutstandingSignaturesSweepInMillis.get();
+            if (nowInMillis >= nextSweepInMillis &&
+                nextOutstandingSignaturesSweepInMillis.compareAndSet(nextSweepInMillis,
+                                                                     nowInMillis + OUTSTANDING_SIGNATURES_SWEEP_INTERVAL_IN_MS)) {
+                removeExpiredOutstandingSignatures(nowInMillis);
+            }
+        }
+    }
+
+    private void removeExpiredOutstandingSignatures(long nowInMillis) {
+        outstandingSignatures.values().removeIf(outstanding -> outstanding.deadlineInMillis < nowInMillis);
+    }
+
+    private void signatureCompleted(SignatureTracking signatureTracking) {
+        if (outstandingSignatureRegistry != null) {
+            int pollCount = outstandingSignatureRegistry.complete(signatureTracking.getTransactionId());
+            if (pollCount >= 0) {
+                metrics.recordCompletedSignature(pollCount);
+            }
+        } else {
+            OutstandingSignature outstandingSignature = outstandingSignatures.remove(signatureTracking.getTransactionId());
+            if (outstandingSignature != null) {
+                metrics.recordCompletedSignature(outstandingSignature.pollCount.get());
+            }
+        }
+        if (journal != null) {
+            try {
+                journal.signatureCompleted(signatureTracking.getTransactionId());
+            } catch (IOException e) {
+                logClient.warn("Failed to record the completion of signature {} in the journal", signatureTracking.getTransactionId(), e);
+            }
+        }
+    }
+
+    // the caller's beans keep their own observer: each call gets a copy of the bean with the wrapped observer, so that
+    // a bean can be reused (even with another client) without piling up this client's wrappers
+
+    private SignatureRequest withAsyncObserver(SignatureRequest request) {
+        TrafficObserver observer = dispatchAsynchronously(request.getTrafficObserver());
+        return observer == request.getTrafficObserver() ? request : request.withTrafficObserver(observer);
+    }
+
+    private SignatureTracking withAsyncObserver(SignatureTracking signatureTracking) {
+        TrafficObserver observer = dispatchAsynchronously(signatureTracking.getTrafficObserver());
+        return observer == signatureTracking.getTrafficObserver() ? signatureTracking : signatureTracking.withTrafficObserver(observer);
+    }
+
+    private ReceiptRequest withAsyncObserver(ReceiptRequest request) {
+        TrafficObserver observer = dispatchAsynchronously(request.getTrafficObserver());
+        return observer == request.getTrafficObserver() ? request : request.withTrafficObserver(observer);
+    }
+
+    private ProfileRequest withAsyncObserver(ProfileRequest request) {
+        TrafficObserver observer = dispatchAsynchronously(request.getTrafficObserver());
+        return observer == request.getTrafficObserver() ? request : request.withTrafficObserver(observer);
+    }
+
+    private TrafficObserver dispatchAsynchronously(TrafficObserver observer) {
+        return trafficDispatcher == null ? observer : trafficDispatcher.wrap(observer);
+    }
+
+    private static MIDFlowException createLocallyExpiredException(SignatureTracking signatureTracking) {
+        Fault fault = new Fault();
+        fault.setFailureReason(FailureReason.MID_SERVICE_FAILURE);
+        fault.setFailureDetail("Signature " + signatureTracking.getTransactionId() +
+                               " expired locally, its final status was not polled by its deadline");
+        fault.setStatusCode(StatusCode.EXPIRED_TRANSACTION);
+        fault.setStatusCodeString(String.valueOf(StatusCode.EXPIRED_TRANSACTION.getCode()));
+        fault.setStatusDetail(StatusCode.EXPIRED_TRANSACTION.getDescription());
+        fault.setStatusFaultReason(StatusCode.EXPIRED_TRANSACTION.name());
+        return new MIDFlowException(fault.getFailureDetail(), fault);
+    }
+
+    private void journalSignatureStarted(SignatureTracking tracking, long deadlineInMillis) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.signatureStarted(tracking, deadlineInMillis);
+        } catch (IOException | RuntimeException e) {
+            // the signature is already on its way to the user, so it is better to go on without the journal entry
+            logClient.warn("Failed to record the start of signature {} in the journal", tracking.getTransactionId(), e);
+        }
+    }
+
+    private SignatureResponse pollForSignatureStatusOnce(SignatureTracking signatureTracking) {
+        if (pollSingleFlight == null) {
+            return hedge(getPollPriority(signatureTracking), handler -> handler.pollForSignatureStatus(signatureTracking));
+        }
+        return pollSingleFlight.execute(signatureTracking.getTransactionId(),
+                                        () -> hedge(getPollPriority(signatureTracking),
+                                                    handler -> handler.pollForSignatureStatus(signatureTracking)));
+    }
+
+    private void runPreflightCheck(SignatureRequest request) {
+        if (preflightCheck == null) {
+            return;
+        }
+        ProfileRequest profileRequest = new ProfileRequest();
+        profileRequest.getMobileUser().setMsisdn(request.getMobileUser().getMsisdn());
+        profileRequest.setExtensionParamsToAllValues();
+        ProfileResponse profile;
+        try {
+            profile = profileCache.get(ProfileCache.keyOf(profileRequest));
+            if (profile == null && fetchProfileForPreflight) {
+                profile = requestProfile(profileRequest);
+            }
+        } catch (MIDFlowException e) {
+            Fault fault = e.getFault();
+            if (fault != null && (fault.getStatusCode() == StatusCode.UNKNOWN_CLIENT || fault.getStatusCode() == StatusCode.NO_CERT_FOUND)) {
+                throw e;
+            }
+            logClient.debug("Failed to obtain the profile of MSISDN {} for the pre-flight check, skipping the check: {}",
+                            profileRequest.getMobileUser().getMsisdn(), e.getMessage());
+            return;
+        }
+        if (profile != null) {
+            preflightCheck.check(request, profile);
+        }
+    }
+
+    private ProfileResponse requestProfileFromService(ProfileRequest request) {
+        if (profileSingleFlight == null) {
+            return hedge(RequestPriority.PROFILE_QUERY, handler -> handler.requestProfile(request));
+        }
+        return profileSingleFlight.execute(ProfileCache.keyOf(request),
+                                           () -> hedge(RequestPriority.PROFILE_QUERY, handler -> handler.requestProfile(request)));
+    }
+
+    private RequestPriority getPollPriority(SignatureTracking signatureTracking) {
+        long deadline = signatureTracking.getDeadlineInMillis();
+        if (deadline > 0 && deadline - System.currentTimeMillis() <= finalPollWindowInMillis) {
+            return RequestPriority.FINAL_POLL;
+        }
+        return RequestPriority.STATUS_POLL;
+    }
 
     private List<ComProtocolHandler> loadComProtocolHandlers() {
         ServiceLoader<ComProtocolHandler> loader = ServiceLoader.load(ComProtocolHandler.class);
@@ -140,8 +678,8 @@ public class MIDClientImpl implements MIDClient {
                    ". Please check your library dependencies.");
     }
 
-    private ComProtocolHandler selectProtocolHandler(ClientConfiguration config) {
-        for (ComProtocolHandler handler : comProtocolHandlers) {
+    private ComProtocolHandler selectProtocolHandler(ClientConfiguration config, List<ComProtocolHandler> handlers) {
+        for (ComProtocolHandler handler : handlers) {
             if (handler.getImplementedComProtocol() == config.getProtocol()) {
                 return handler;
             }
@@ -152,4 +690,29 @@ public class MIDClientImpl implements MIDClient {
                                          " Are you missing a library dependency?");
     }
 
+    private ClientConfiguration createAlternateConfiguration(ClientConfiguration config) {
+        ClientConfiguration alternateConfig = new ClientConfiguration();
+        alternateConfig.setProtocol(config.getProtocol());
+        alternateConfig.setApId(config.getApId());
+        alternateConfig.setApPassword(config.getApPassword());
+        alternateConfig.setMsspId(config.getMsspId());
+        alternateConfig.setTls(config.getTls());
+        alternateConfig.setHttp(config.getHttp());
+        alternateConfig.setUrls(config.getHedging().getAlternateUrls());
+        return alternateConfig;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private static class OutstandingSignature {
+
+        private final long deadlineInMillis;
+        private final AtomicInteger pollCount = new AtomicInteger();
+
+        private OutstandingSignature(long deadlineInMillis) {
+            this.deadlineInMillis = deadlineInMillis;
+        }
+
+    }
+
 }
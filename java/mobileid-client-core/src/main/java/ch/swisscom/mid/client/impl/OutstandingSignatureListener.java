@@ -0,0 +1,31 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.impl;
+
+/**
+ * Gets notified by the {@link OutstandingSignatureRegistry} about the async signatures that expire locally.
+ */
+public interface OutstandingSignatureListener {
+
+    /**
+     * Called (from the sweeper thread) when the given signature was not completed by its deadline plus the grace time.
+     *
+     * @param transactionId    the MSSP transaction ID of the signature
+     * @param signatureProfile the signature profile of the request or NULL if not known (e.g. for recovered signatures)
+     */
+    void signatureExpired(String transactionId, String signatureProfile);
+
+}
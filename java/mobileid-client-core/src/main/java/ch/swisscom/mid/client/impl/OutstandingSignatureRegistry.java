@@ -0,0 +1,293 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import ch.swisscom.mid.client.config.OutstandingSignaturesConfiguration;
+
+/**
+ * Registry of the outstanding async signatures of a client, from their start until their final status is polled.
+ * <p>
+ * The deadlines are checked by a hashed timing wheel: each signature goes into the bucket of the tick at which it
+ * expires (deadline plus grace time), so that registering, completing and expiring a signature cost O(1), whatever the
+ * number of outstanding signatures. A daemon thread advances the wheel at each tick and marks the signatures of the
+ * current bucket as expired; these stay in the registry (so that their further polls can be answered locally) for
+ * {@link #EXPIRED_RETENTION_IN_MILLIS}, then are dropped. When the local expiry is disabled, the signatures are only
+ * dropped from the counts at their deadline.
+ * <p>
+ * Only the transaction ID and the signature profile of each signature are kept, not its tracking object.
+ */
+public class OutstandingSignatureRegistry implements Closeable {
+
+    private static final Logger logClient = LoggerFactory.getLogger(Loggers.LOGGER_CLIENT);
+
+    /**
+     * How long the expired signatures are remembered, for answering their polls locally.
+     */
+    static final long EXPIRED_RETENTION_IN_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private static final int WHEEL_SIZE = 512;
+    private static final String UNKNOWN_SIGNATURE_PROFILE = "unknown";
+
+    private final boolean localExpiryEnabled;
+    private final long graceInMillis;
+    private final long tickInMillis;
+    private final List<OutstandingSignatureListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final Map<String, Integer> inFlightBySignatureProfile = new HashMap<>();
+    @SuppressWarnings("unchecked")
+    private final Set<Entry>[] wheel = new Set[WHEEL_SIZE];
+    private long currentTick;
+    private int outstandingCount;
+    private long expiredCount;
+    private final ScheduledExecutorService sweeper;
+
+    public OutstandingSignatureRegistry(OutstandingSignaturesConfiguration config) {
+        this(config, true);
+    }
+
+    OutstandingSignatureRegistry(OutstandingSignaturesConfiguration config, boolean startSweeper) {
+        this.localExpiryEnabled = config.isLocalExpiryEnabled();
+        this.graceInMillis = TimeUnit.SECONDS.toMillis(config.getExpiryGraceInSeconds());
+        this.tickInMillis = config.getTickInMs();
+        for (int index = 0; index < WHEEL_SIZE; index++) {
+            wheel[index] = new HashSet<>();
+        }
+        this.currentTick = System.currentTimeMillis() / tickInMillis;
+        if (startSweeper) {
+            sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "mid-client-deadline-sweeper");
+                thread.setDaemon(true);
+                return thread;
+            });
+            sweeper.scheduleAtFixedRate(this::sweepSafely, tickInMillis, tickInMillis, TimeUnit.MILLISECONDS);
+        } else {
+            sweeper = null;
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public void addListener(OutstandingSignatureListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(OutstandingSignatureListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Registers a newly started async signature (or one recovered after a restart). The signature profile is used only
+     * for the in-flight counts and may be NULL.
+     */
+    public synchronized void register(String transactionId, String signatureProfile, long deadlineInMillis) {
+        Entry entry = new Entry(transactionId, signatureProfile == null ? UNKNOWN_SIGNATURE_PROFILE : signatureProfile);
+        Entry previous = entries.put(transactionId, entry);
+        if (previous != null) {
+            remove(previous);
+        }
+        outstandingCount++;
+        inFlightBySignatureProfile.merge(entry.signatureProfile, 1, Integer::sum);
+        if (deadlineInMillis > 0) {
+            schedule(entry, localExpiryEnabled ? deadlineInMillis + graceInMillis : deadlineInMillis);
+        }
+    }
+
+    /**
+     * Counts a poll of the given signature.
+     */
+    public synchronized void recordPoll(String transactionId) {
+        Entry entry = entries.get(transactionId);
+        if (entry != null) {
+            entry.pollCount++;
+        }
+    }
+
+    /**
+     * Returns true if the given signature is in this registry, either outstanding or recently expired.
+     */
+    public synchronized boolean isRegistered(String transactionId) {
+        return entries.containsKey(transactionId);
+    }
+
+    /**
+     * Returns true if the given signature has expired locally (and its polls should not reach the MSSP anymore).
+     */
+    public synchronized boolean isExpired(String transactionId) {
+        Entry entry = entries.get(transactionId);
+        return entry != null && entry.expired;
+    }
+
+    /**
+     * Removes the given signature, as its final status has been polled. Returns the number of polls it took or -1 if the
+     * signature was not outstanding (unknown or already expired).
+     */
+    public synchronized int complete(String transactionId) {
+        Entry entry = entries.get(transactionId);
+        if (entry == null || entry.expired) {
+            return -1;
+        }
+        entries.remove(transactionId);
+        remove(entry);
+        return entry.pollCount;
+    }
+
+    public synchronized int getOutstandingCount() {
+        return outstandingCount;
+    }
+
+    public synchronized long getExpiredCount() {
+        return expiredCount;
+    }
+
+    /**
+     * Returns the number of outstanding (not completed, not expired) signatures per signature profile.
+     */
+    public synchronized Map<String, Integer> getInFlightCountsBySignatureProfile() {
+        return new TreeMap<>(inFlightBySignatureProfile);
+    }
+
+    @Override
+    public void close() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    /**
+     * Advances the wheel up to the given moment, expiring the signatures of the passed ticks.
+     */
+    void sweep(long nowInMillis) {
+        List<Entry> expiredEntries = new ArrayList<>();
+        synchronized (this) {
+            long targetTick = nowInMillis / tickInMillis;
+            while (currentTick < targetTick) {
+                currentTick++;
+                Set<Entry> bucket = wheel[(int) (currentTick % WHEEL_SIZE)];
+                List<Entry> due = new ArrayList<>();
+                for (Entry entry : bucket) {
+                    if (entry.remainingRounds > 0) {
+                        entry.remainingRounds--;
+                    } else {
+                        due.add(entry);
+                    }
+                }
+                bucket.removeAll(due);
+                for (Entry entry : due) {
+                    entry.bucket = null;
+                    if (entry.expired) {
+                        entries.remove(entry.transactionId, entry);
+                    } else if (!localExpiryEnabled) {
+                        // only stop counting it; the polls still go to the MSSP
+                        entries.remove(entry.transactionId, entry);
+                        decrementCounts(entry);
+                    } else {
+                        expire(entry, nowInMillis);
+                        expiredEntries.add(entry);
+                    }
+                }
+            }
+        }
+        for (Entry entry : expiredEntries) {
+            logClient.info("Signature {} expired locally, its final status was not polled by its deadline",
+                           entry.transactionId);
+            for (OutstandingSignatureListener listener : listeners) {
+                try {
+                    listener.signatureExpired(entry.transactionId, UNKNOWN_SIGNATURE_PROFILE.equals(entry.signatureProfile)
+                                                              ? null : entry.signatureProfile);
+                } catch (RuntimeException e) {
+                    logClient.warn("Outstanding signature listener failed for signature {}",
+                                   entry.transactionId, e);
+                }
+            }
+        }
+    }
+
+    private void sweepSafely() {
+        try {
+            sweep(System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            logClient.warn("Failed to sweep the outstanding signatures", e);
+        }
+    }
+
+    private void expire(Entry entry, long nowInMillis) {
+        entry.expired = true;
+        expiredCount++;
+        decrementCounts(entry);
+        schedule(entry, nowInMillis + EXPIRED_RETENTION_IN_MILLIS);
+    }
+
+    private void remove(Entry entry) {
+        if (entry.bucket != null) {
+            entry.bucket.remove(entry);
+            entry.bucket = null;
+        }
+        if (!entry.expired) {
+            decrementCounts(entry);
+        }
+    }
+
+    private void decrementCounts(Entry entry) {
+        outstandingCount--;
+        if (inFlightBySignatureProfile.merge(entry.signatureProfile, -1, Integer::sum) <= 0) {
+            inFlightBySignatureProfile.remove(entry.signatureProfile);
+        }
+    }
+
+    private void schedule(Entry entry, long expiresAtInMillis) {
+        // rounded up, so that an entry never fires before its time
+        long tick = Math.max(currentTick + 1, (expiresAtInMillis + tickInMillis - 1) / tickInMillis);
+        entry.remainingRounds = (tick - currentTick - 1) / WHEEL_SIZE;
+        entry.bucket = wheel[(int) (tick % WHEEL_SIZE)];
+        entry.bucket.add(entry);
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private static class Entry {
+        private final String transactionId;
+        private final String signatureProfile;
+        private int pollCount;
+        private boolean expired;
+        private long remainingRounds;
+        private Set<Entry> bucket;
+
+        private Entry(String transactionId, String signatureProfile) {
+            this.transactionId = transactionId;
+            this.signatureProfile = signatureProfile;
+        }
+    }
+
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import ch.swisscom.mid.client.MIDFlowException;
+import ch.swisscom.mid.client.config.DispatcherConfiguration;
+import ch.swisscom.mid.client.model.FailureReason;
+import ch.swisscom.mid.client.model.Fault;
+
+/**
+ * Gate that limits the number of concurrent MSS requests and, when all the slots are taken, serves the waiting requests in
+ * the order of their {@link RequestPriority}. To avoid starvation of the lower classes, a waiting request that has been
+ * queued for longer than the configured starvation threshold is served next, regardless of its class.
+ */
+public class PriorityDispatcher {
+
+    private static final Logger logClient = LoggerFactory.getLogger(Loggers.LOGGER_CLIENT);
+
+    private static final RequestPriority[] PRIORITIES = RequestPriority.values();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<Waiter>[] queues;
+    private final long starvationThresholdInNanos;
+    private int availableSlots;
+
+    private final AtomicLongArray queueDepths = new AtomicLongArray(PRIORITIES.length);
+    private final AtomicLongArray dispatchedCounts = new AtomicLongArray(PRIORITIES.length);
+    private final AtomicLong starvationPromotions = new AtomicLong();
+
+    @SuppressWarnings("unchecked")
+    public PriorityDispatcher(DispatcherConfiguration config) {
+        this.availableSlots = config.getMaxConcurrentRequests();
+        this.starvationThresholdInNanos = TimeUnit.MILLISECONDS.toNanos(config.getStarvationThresholdInMs());
+        this.queues = new ArrayDeque[PRIORITIES.length];
+        for (int index = 0; index < queues.length; index++) {
+            queues[index] = new ArrayDeque<>();
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    /**
+     * Runs the given call as soon as a slot is available and this request is the next one in line.
+     */
+    public <T> T dispatch(RequestPriority priority, Supplier<T> call) {
+        acquire(priority);
+        try {
+            return call.get();
+        } finally {
+            release();
+        }
+    }
+
+    public long getQueueDepth(RequestPriority priority) {
+        return queueDepths.get(priority.ordinal());
+    }
+
+    public long getDispatchedCount(RequestPriority priority) {
+        return dispatchedCounts.get(priority.ordinal());
+    }
+
+    public long getStarvationPromotionCount() {
+        return starvationPromotions.get();
+    }
+
+    public int getAvailableSlots() {
+        lock.lock();
+        try {
+            return availableSlots;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private void acquire(RequestPriority priority) {
+        lock.lock();
+        try {
+            if (availableSlots > 0 && noneWaiting()) {
+                availableSlots--;
+                dispatchedCounts.incrementAndGet(priority.ordinal());
+                return;
+            }
+            Waiter waiter = new Waiter(priority, System.nanoTime(), lock.newCondition());
+            queues[priority.ordinal()].addLast(waiter);
+            queueDepths.incrementAndGet(priority.ordinal());
+            boolean interrupted = false;
+            while (!waiter.granted) {
+                try {
+                    waiter.condition.await();
+                } catch (InterruptedException e) {
+                    if (!waiter.granted) {
+                        queues[priority.ordinal()].remove(waiter);
+                        queueDepths.decrementAndGet(priority.ordinal());
+                        Thread.currentThread().interrupt();
+                        throw createInterruptedException(priority, e);
+                    }
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release() {
+        lock.lock();
+        try {
+            Waiter next = selectNextWaiter();
+            if (next == null) {
+                availableSlots++;
+            } else {
+                queueDepths.decrementAndGet(next.priority.ordinal());
+                dispatchedCounts.incrementAndGet(next.priority.ordinal());
+                next.granted = true;
+                next.condition.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Waiter selectNextWaiter() {
+        long now = System.nanoTime();
+        Waiter starving = null;
+        for (ArrayDeque<Waiter> queue : queues) {
+            Waiter head = queue.peekFirst();
+            if (head != null
+                && now - head.enqueuedAt >= starvationThresholdInNanos
+                && (starving == null || head.enqueuedAt - starving.enqueuedAt < 0)) {
+                starving = head;
+            }
+        }
+        if (starving != null) {
+            queues[starving.priority.ordinal()].pollFirst();
+            if (starving != firstWaiterByPriority(starving)) {
+                starvationPromotions.incrementAndGet();
+                logClient.debug("Promoting starving MSS request of class {}, queued for {} ms",
+                                starving.priority, TimeUnit.NANOSECONDS.toMillis(now - starving.enqueuedAt));
+            }
+            return starving;
+        }
+        for (ArrayDeque<Waiter> queue : queues) {
+            Waiter head = queue.pollFirst();
+            if (head != null) {
+                return head;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the waiter that would have been picked by strict priority order, with the given (already dequeued)
+     * waiter taken into account.
+     */
+    private Waiter firstWaiterByPriority(Waiter dequeued) {
+        for (int index = 0; index < dequeued.priority.ordinal(); index++) {
+            Waiter head = queues[index].peekFirst();
+            if (head != null) {
+                return head;
+            }
+        }
+        return dequeued;
+    }
+
+    private boolean noneWaiting() {
+        for (ArrayDeque<Waiter> queue : queues) {
+            if (!queue.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static MIDFlowException createInterruptedException(RequestPriority priority, InterruptedException cause) {
+        Fault fault = new Fault();
+        fault.setFailureReason(FailureReason.UNKNOWN_FAILURE);
+        fault.setFailureDetail("Interrupted while waiting for a free MSS request slot (class " + priority + ")");
+        return new MIDFlowException(fault.getFailureDetail(), cause, fault);
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private static final class Waiter {
+
+        private final RequestPriority priority;
+        private final long enqueuedAt;
+        private final Condition condition;
+        private boolean granted;
+
+        private Waiter(RequestPriority priority, long enqueuedAt, Condition condition) {
+            this.priority = priority;
+            this.enqueuedAt = enqueuedAt;
+            this.condition = condition;
+        }
+    }
+
+}
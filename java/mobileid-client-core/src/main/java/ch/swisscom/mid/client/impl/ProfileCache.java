@@ -0,0 +1,270 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import ch.swisscom.mid.client.MIDFlowException;
+import ch.swisscom.mid.client.config.ProfileCacheConfiguration;
+import ch.swisscom.mid.client.model.Fault;
+import ch.swisscom.mid.client.model.ProfileRequest;
+import ch.swisscom.mid.client.model.ProfileResponse;
+import ch.swisscom.mid.client.model.StatusCode;
+
+/**
+ * In-process cache of profile query results, keyed by MSISDN plus the requested profile query extensions.
+ * <p>
+ * The eviction policy is W-TinyLFU: new entries land in a small LRU window; an entry that falls out of the window is
+ * admitted in the main LRU region only if it was requested more often (according to a {@link FrequencySketch}) than the
+ * entry it would replace. This keeps one-off queries (e.g. a batch over all users) from flushing the popular entries.
+ * <p>
+ * Reads do not block: the entries live in a {@link ConcurrentHashMap}, the sketch and the statistics are updated without
+ * locking, and the LRU order is updated only if the eviction lock is free. Writes and evictions take the lock.
+ * <p>
+ * The cache stores a copy of each response and hands out a new copy on each hit (see {@link ProfileResponse#copy()}),
+ * so that a caller changing its response cannot change what the other callers (or the signature pre-flight check) get.
+ */
+public class ProfileCache {
+
+    private static final String KEY_SEPARATOR = "|";
+
+    private final int windowMaximumSize;
+    private final int mainMaximumSize;
+    private final long timeToLiveInNanos;
+    private final long negativeTimeToLiveInNanos;
+
+    private final ConcurrentHashMap<String, CacheEntry> data = new ConcurrentHashMap<>();
+    private final FrequencySketch sketch;
+
+    // the eviction policy is guarded by the lock; a read that cannot get the lock right away skips its LRU update
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final LinkedHashMap<String, CacheEntry> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, CacheEntry> main = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder negativeHitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder expirationCount = new LongAdder();
+
+    public ProfileCache(ProfileCacheConfiguration config) {
+        this.windowMaximumSize = Math.max(1, config.getMaximumSize() / 100);
+        this.mainMaximumSize = Math.max(0, config.getMaximumSize() - windowMaximumSize);
+        this.timeToLiveInNanos = TimeUnit.SECONDS.toNanos(config.getTimeToLiveInSeconds());
+        this.negativeTimeToLiveInNanos = TimeUnit.SECONDS.toNanos(config.getNegativeTimeToLiveInSeconds());
+        this.sketch = new FrequencySketch(config.getMaximumSize());
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public static String keyOf(ProfileRequest request) {
+        List<String> extensionParams = new ArrayList<>(request.getExtensionParams());
+        Collections.sort(extensionParams);
+        String key = request.getMobileUser().getMsisdn() + KEY_SEPARATOR + String.join(",", extensionParams);
+        // a projected response lacks the parts outside of its projection, so it cannot serve other requests
+        return request.getProjection() == null ? key : key + KEY_SEPARATOR + request.getProjection();
+    }
+
+    /**
+     * Returns a copy of the cached response for the given key or NULL if nothing (valid) is cached for it. If a failure
+     * is cached for the key, a new {@link MIDFlowException} with the cached fault is thrown.
+     */
+    public ProfileResponse get(String key) {
+        sketch.increment(key);
+        CacheEntry entry = data.get(key);
+        if (entry == null) {
+            missCount.increment();
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAt >= 0) {
+            if (data.remove(key, entry)) {
+                expirationCount.increment();
+                evictionLock.lock();
+                try {
+                    window.remove(key, entry);
+                    main.remove(key, entry);
+                } finally {
+                    evictionLock.unlock();
+                }
+            }
+            missCount.increment();
+            return null;
+        }
+        hitCount.increment();
+        recordAccess(key);
+        if (entry.fault != null) {
+            negativeHitCount.increment();
+            throw new MIDFlowException(entry.failureMessage, entry.fault);
+        }
+        return entry.response.copy();
+    }
+
+    /**
+     * Caches a copy of the given response; later changes to the given response do not affect the cached one.
+     */
+    public void put(String key, ProfileResponse response) {
+        putEntry(key, new CacheEntry(response.copy(), null, null, System.nanoTime() + timeToLiveInNanos));
+    }
+
+    /**
+     * Caches the given failure, if it is one that can be cached (the MSISDN is unknown or the user has no certificate).
+     */
+    public void putFailure(String key, MIDFlowException failure) {
+        Fault fault = failure.getFault();
+        if (negativeTimeToLiveInNanos == 0 || fault == null) {
+            return;
+        }
+        if (fault.getStatusCode() == StatusCode.UNKNOWN_CLIENT || fault.getStatusCode() == StatusCode.NO_CERT_FOUND) {
+            putEntry(key, new CacheEntry(null, fault, failure.getMessage(), System.nanoTime() + negativeTimeToLiveInNanos));
+        }
+    }
+
+    /**
+     * Removes all the cached entries for the given MSISDN, regardless of the requested profile query extensions.
+     */
+    public void invalidate(String msisdn) {
+        String keyPrefix = msisdn + KEY_SEPARATOR;
+        evictionLock.lock();
+        try {
+            data.keySet().removeIf(key -> key.startsWith(keyPrefix));
+            window.keySet().removeIf(key -> key.startsWith(keyPrefix));
+            main.keySet().removeIf(key -> key.startsWith(keyPrefix));
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        evictionLock.lock();
+        try {
+            data.clear();
+            window.clear();
+            main.clear();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public int getSize() {
+        return data.size();
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getNegativeHitCount() {
+        return negativeHitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    public long getExpirationCount() {
+        return expirationCount.sum();
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private void recordAccess(String key) {
+        // like a full read buffer, a busy lock drops the LRU update rather than making the read wait
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            if (window.get(key) == null) {
+                main.get(key);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void putEntry(String key, CacheEntry entry) {
+        evictionLock.lock();
+        try {
+            data.put(key, entry);
+            if (main.containsKey(key)) {
+                main.put(key, entry);
+                return;
+            }
+            window.put(key, entry);
+            if (window.size() <= windowMaximumSize) {
+                return;
+            }
+            Map.Entry<String, CacheEntry> candidate = removeEldest(window);
+            if (main.size() < mainMaximumSize) {
+                main.put(candidate.getKey(), candidate.getValue());
+                return;
+            }
+            evictionCount.increment();
+            Iterator<Map.Entry<String, CacheEntry>> mainIterator = main.entrySet().iterator();
+            if (!mainIterator.hasNext()) {
+                data.remove(candidate.getKey(), candidate.getValue());
+                return;
+            }
+            Map.Entry<String, CacheEntry> victim = mainIterator.next();
+            if (sketch.frequency(candidate.getKey()) > sketch.frequency(victim.getKey())) {
+                mainIterator.remove();
+                data.remove(victim.getKey(), victim.getValue());
+                main.put(candidate.getKey(), candidate.getValue());
+            } else {
+                data.remove(candidate.getKey(), candidate.getValue());
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private static Map.Entry<String, CacheEntry> removeEldest(LinkedHashMap<String, CacheEntry> map) {
+        Iterator<Map.Entry<String, CacheEntry>> iterator = map.entrySet().iterator();
+        Map.Entry<String, CacheEntry> eldest = iterator.next();
+        iterator.remove();
+        return eldest;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private static final class CacheEntry {
+
+        private final ProfileResponse response;
+        private final Fault fault;
+        private final String failureMessage;
+        private final long expiresAt;
+
+        private CacheEntry(ProfileResponse response, Fault fault, String failureMessage, long expiresAt) {
+            this.response = response;
+            this.fault = fault;
+            this.failureMessage = failureMessage;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.impl;
+
+import java.util.function.Supplier;
+
+/**
+ * Lets the {@link RequestHedger} abort the copy of a request that lost the race. The hedger runs each copy within its
+ * own cancellation scope; a protocol handler that can abort its call in flight registers the abort action with
+ * {@link #onCancel(Runnable)} right before sending the request (the REST handler, for example, cancels its HTTP
+ * request). A call that registers nothing is not aborted and simply runs to completion.
+ */
+public final class RequestCancellation {
+
+    private static final ThreadLocal<RequestCancellation> CURRENT = new ThreadLocal<>();
+
+    private volatile Runnable abortAction;
+    private volatile boolean cancelled;
+
+    RequestCancellation() {
+    }
+
+    /**
+     * Registers the action that aborts the call currently running in this thread, if that call can be cancelled. The
+     * action runs immediately if the call was already cancelled. Does nothing outside a cancellation scope.
+     */
+    public static void onCancel(Runnable abortAction) {
+        RequestCancellation current = CURRENT.get();
+        if (current == null) {
+            return;
+        }
+        current.abortAction = abortAction;
+        if (current.cancelled) {
+            abortAction.run();
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    <T> T run(Supplier<T> call) {
+        RequestCancellation previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return call.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    void cancel() {
+        cancelled = true;
+        Runnable action = abortAction;
+        if (action != null) {
+            action.run();
+        }
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+}
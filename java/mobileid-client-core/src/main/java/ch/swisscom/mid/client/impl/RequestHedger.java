@@ -0,0 +1,315 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import ch.swisscom.mid.client.MIDFlowException;
+import ch.swisscom.mid.client.config.HedgingConfiguration;
+import ch.swisscom.mid.client.model.FailureReason;
+import ch.swisscom.mid.client.model.Fault;
+
+/**
+ * Runs a request against the primary endpoints and, if no answer arrives within the hedging delay, sends a second copy
+ * to the alternate endpoints. The first successful answer wins; the request fails only if both copies fail.
+ * <p>
+ * The hedging delay follows the configured percentile of the latencies recently observed on the primary endpoints. Only
+ * the successful requests count: a primary request that wins records its own latency, a hedge that wins records the
+ * time it took to get its answer (the primary request was at least that slow), and failed requests are ignored. The
+ * number of hedges is capped by a token bucket: each request earns {@code maxHedgeRatePercent / 100} tokens and each
+ * hedge costs one token, so that hedging cannot add more than the configured percentage of load.
+ * <p>
+ * The primary request runs in the calling thread. The hedge is started by a single scheduler thread, which hands the
+ * alternate request over to a pool of at most {@code maxConcurrentHedges} threads, so that a slow hedge never delays
+ * the start of the next one. A hedge that is due while the pool is busy is skipped. When one copy wins, the other one is
+ * cancelled (see {@link RequestCancellation}).
+ */
+public class RequestHedger implements Closeable {
+
+    private static final Logger logProtocol = LoggerFactory.getLogger(Loggers.LOGGER_CLIENT_PROTOCOL);
+
+    private static final int LATENCY_WINDOW_SIZE = 512;
+    private static final int DELAY_RECOMPUTE_INTERVAL = 32;
+    private static final double MAX_TOKENS = 10;
+    private static final long IDLE_HEDGE_THREAD_KEEP_ALIVE_IN_SECONDS = 60;
+
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final ThreadPoolExecutor hedgeExecutor;
+    private final int delayPercentile;
+    private final long minDelayInMs;
+    private final double tokensPerRequest;
+
+    private final long[] latencyWindow = new long[LATENCY_WINDOW_SIZE];
+    private int latencyWriteIndex;
+    private int latencySampleCount;
+    private int samplesSinceDelayRecompute;
+    private double tokens = MAX_TOKENS;
+    private volatile long currentDelayInMs;
+
+    private final AtomicLong hedgesSent = new AtomicLong();
+    private final AtomicLong hedgesWon = new AtomicLong();
+    private final AtomicLong hedgesSkipped = new AtomicLong();
+
+    public RequestHedger(HedgingConfiguration config) {
+        this.delayPercentile = config.getDelayPercentile();
+        this.minDelayInMs = config.getMinDelayInMs();
+        this.tokensPerRequest = config.getMaxHedgeRatePercent() / 100.0;
+        this.currentDelayInMs = config.getInitialDelayInMs();
+        this.scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "mid-client-hedging-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.setRemoveOnCancelPolicy(true);
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.hedgeExecutor = new ThreadPoolExecutor(0, config.getMaxConcurrentHedges(),
+                                                    IDLE_HEDGE_THREAD_KEEP_ALIVE_IN_SECONDS, TimeUnit.SECONDS,
+                                                    new SynchronousQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "mid-client-hedging-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public <T> T call(Supplier<T> primaryCall, Supplier<T> alternateCall) {
+        earnTokens();
+        HedgedCall<T> hedgedCall = new HedgedCall<>(alternateCall);
+        hedgedCall.hedgeTask = scheduler.schedule(hedgedCall, currentDelayInMs, TimeUnit.MILLISECONDS);
+        T primaryResult;
+        try {
+            primaryResult = hedgedCall.primaryCancellation.run(primaryCall);
+        } catch (RuntimeException e) {
+            return hedgedCall.primaryFailed(e);
+        }
+        return hedgedCall.primarySucceeded(primaryResult);
+    }
+
+    public long getCurrentDelayInMs() {
+        return currentDelayInMs;
+    }
+
+    public long getHedgesSent() {
+        return hedgesSent.get();
+    }
+
+    public long getHedgesWon() {
+        return hedgesWon.get();
+    }
+
+    /**
+     * Returns the number of hedges that were due but not sent, either because of the hedge rate cap or because all the
+     * hedge threads were busy.
+     */
+    public long getHedgesSkipped() {
+        return hedgesSkipped.get();
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        hedgeExecutor.shutdownNow();
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    /**
+     * One hedged request. The primary copy runs in the calling thread, which then calls either
+     * {@link #primarySucceeded(Object)} or {@link #primaryFailed(RuntimeException)}; the hedge, if still needed after
+     * the hedging delay, is triggered by {@link #run()} on the scheduler thread and sent by {@link #sendHedge()} on a
+     * hedge thread. The first successful copy settles the request and cancels the other one.
+     */
+    private final class HedgedCall<T> implements Runnable {
+
+        private final Supplier<T> alternateCall;
+        private final RequestCancellation primaryCancellation = new RequestCancellation();
+        private final RequestCancellation alternateCancellation = new RequestCancellation();
+        private final CompletableFuture<T> alternateResult = new CompletableFuture<>();
+        private final AtomicBoolean settled = new AtomicBoolean();
+        private final long startTime = System.nanoTime();
+        private volatile ScheduledFuture<?> hedgeTask;
+
+        private HedgedCall(Supplier<T> alternateCall) {
+            this.alternateCall = alternateCall;
+        }
+
+        @Override
+        public void run() {
+            if (settled.get()) {
+                alternateResult.cancel(false);
+                return;
+            }
+            if (!tryTakeToken()) {
+                hedgesSkipped.incrementAndGet();
+                alternateResult.cancel(false);
+                return;
+            }
+            try {
+                hedgeExecutor.execute(this::sendHedge);
+            } catch (RejectedExecutionException e) {
+                // all the hedge threads are busy (or the hedger is closed), do not queue a hedge that would be late
+                returnToken();
+                hedgesSkipped.incrementAndGet();
+                alternateResult.cancel(false);
+            }
+        }
+
+        private void sendHedge() {
+            if (settled.get()) {
+                // the primary request answered while the hedge was being handed over
+                returnToken();
+                alternateResult.cancel(false);
+                return;
+            }
+            hedgesSent.incrementAndGet();
+            logProtocol.debug("No answer from the primary endpoint after {} ms, hedging the request to the alternate "
+                              + "endpoint", currentDelayInMs);
+            try {
+                T result = alternateCancellation.run(alternateCall);
+                // count the win before completing, so that the caller already sees it when it gets the value
+                if (settled.compareAndSet(false, true)) {
+                    recordLatency(System.nanoTime() - startTime);
+                    hedgesWon.incrementAndGet();
+                    primaryCancellation.cancel();
+                }
+                alternateResult.complete(result);
+            } catch (RuntimeException e) {
+                alternateResult.completeExceptionally(e);
+            }
+        }
+
+        private T primarySucceeded(T result) {
+            if (settled.compareAndSet(false, true)) {
+                recordLatency(System.nanoTime() - startTime);
+                cancelHedge();
+                return result;
+            }
+            // the hedge won the race while the primary request was completing
+            return awaitHedge();
+        }
+
+        private T primaryFailed(RuntimeException primaryError) {
+            if (settled.get()) {
+                // the primary request failed because the hedge won and cancelled it
+                return awaitHedge();
+            }
+            if (hedgeTask.cancel(false)) {
+                throw primaryError;
+            }
+            try {
+                return awaitHedge();
+            } catch (CancellationException e) {
+                // no hedge was sent (rate limit)
+                throw primaryError;
+            } catch (RuntimeException e) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+                // report the failure of the primary endpoint, as that is the one the caller configured first
+                throw primaryError;
+            }
+        }
+
+        private void cancelHedge() {
+            hedgeTask.cancel(false);
+            alternateCancellation.cancel();
+        }
+
+        private T awaitHedge() {
+            try {
+                return alternateResult.get();
+            } catch (ExecutionException e) {
+                throw unwrap(e);
+            } catch (InterruptedException e) {
+                cancelHedge();
+                throw createInterruptedException(e);
+            }
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private synchronized void earnTokens() {
+        tokens = Math.min(MAX_TOKENS, tokens + tokensPerRequest);
+    }
+
+    private synchronized boolean tryTakeToken() {
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    private synchronized void returnToken() {
+        tokens = Math.min(MAX_TOKENS, tokens + 1);
+    }
+
+    private synchronized void recordLatency(long latencyInNanos) {
+        latencyWindow[latencyWriteIndex] = latencyInNanos;
+        latencyWriteIndex = (latencyWriteIndex + 1) % LATENCY_WINDOW_SIZE;
+        // the sample count saturates at the window size and the write index wraps, so neither overflows
+        if (latencySampleCount < LATENCY_WINDOW_SIZE) {
+            latencySampleCount++;
+        }
+        if (++samplesSinceDelayRecompute == DELAY_RECOMPUTE_INTERVAL) {
+            samplesSinceDelayRecompute = 0;
+            int size = latencySampleCount;
+            long[] sorted = Arrays.copyOf(latencyWindow, size);
+            Arrays.sort(sorted);
+            long percentileValue = sorted[Math.min(size - 1, size * delayPercentile / 100)];
+            currentDelayInMs = Math.max(minDelayInMs, TimeUnit.NANOSECONDS.toMillis(percentileValue));
+        }
+    }
+
+    private static RuntimeException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        Fault fault = new Fault();
+        fault.setFailureReason(FailureReason.UNKNOWN_FAILURE);
+        fault.setFailureDetail("Hedged MSS request failed: " + cause);
+        return new MIDFlowException(fault.getFailureDetail(), cause, fault);
+    }
+
+    private static MIDFlowException createInterruptedException(InterruptedException cause) {
+        Thread.currentThread().interrupt();
+        Fault fault = new Fault();
+        fault.setFailureReason(FailureReason.UNKNOWN_FAILURE);
+        fault.setFailureDetail("Interrupted while waiting for a hedged MSS request to complete");
+        return new MIDFlowException(fault.getFailureDetail(), cause, fault);
+    }
+
+}
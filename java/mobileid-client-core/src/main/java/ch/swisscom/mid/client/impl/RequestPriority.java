@@ -0,0 +1,43 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.impl;
+
+import ch.swisscom.mid.client.model.DocumentedEnum;
+
+/**
+ * Priority classes used by the {@link PriorityDispatcher}. The declaration order is the priority order: the first
+ * element is served first when more than one MSS request waits for a free slot.
+ */
+public enum RequestPriority implements DocumentedEnum {
+
+    FINAL_POLL("Status poll for an async signature whose user response timeout is about to expire"),
+    SIGNATURE("New signature request (sync or async), most likely with a user actively waiting for it"),
+    RECEIPT("Receipt request sent after a successful signature"),
+    STATUS_POLL("Regular status poll for an async signature"),
+    PROFILE_QUERY("Profile query, often issued in bulk or in the background");
+
+    private final String description;
+
+    RequestPriority(String description) {
+        this.description = description;
+    }
+
+    @Override
+    public String getDescription() {
+        return description;
+    }
+
+}
@@ -0,0 +1,430 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+
+import ch.swisscom.mid.client.config.JournalConfiguration;
+import ch.swisscom.mid.client.model.SignatureTracking;
+
+/**
+ * Append-only, memory-mapped journal of the outstanding async signatures. Each started signature gets a record with
+ * everything needed for polling it again (MSSP transaction ID, MSISDN, versions, deadline and the caller's correlation
+ * key); each completed signature gets a small record that cancels it. On opening, the journal is scanned once and the
+ * signatures that are still outstanding are kept in memory, so that a restarted client can resume polling them right
+ * away.
+ * <p>
+ * File layout: an 8 bytes header (magic and format version) followed by records of the form
+ * {@code [payload length: int][CRC32 of type and payload: int][type: byte][payload]}. The unused rest of the file is
+ * zero, so the scan stops at the first zero length; a torn record at the end (e.g. after a crash in the middle of a
+ * write) fails its CRC check and ends the scan as well.
+ * <p>
+ * When the file is full, the journal is compacted: the outstanding signatures are rewritten to a new file, which
+ * atomically replaces the old one. If the outstanding signatures alone fill more than half of the file, the new file is
+ * twice as large.
+ * <p>
+ * The new file is written without mapping it and the old one is closed before the replacement, as Windows refuses to
+ * replace an open file. The mapping of the old file may outlive its channel (the JDK has no public way to unmap a
+ * file), which is handled when moving the new file in place.
+ * <p>
+ * The buffer positioning calls go through {@link Buffer}, so that they link on Java 8 whichever JDK compiles them.
+ */
+public class SignatureJournal implements Closeable {
+
+    private static final Logger logClient = LoggerFactory.getLogger(Loggers.LOGGER_CLIENT);
+
+    private static final int MAGIC = 0x4D49444A; // "MIDJ"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 9;
+
+    private static final int REPLACE_ATTEMPTS = 3;
+    private static final long REPLACE_RETRY_DELAY_IN_MILLIS = 100;
+
+    private static final byte RECORD_STARTED = 1;
+    private static final byte RECORD_COMPLETED = 2;
+
+    private final Path file;
+    private final int initialSizeInBytes;
+    private final boolean forceOnWrite;
+
+    private final Map<String, Entry> outstanding = new LinkedHashMap<>();
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int completedRecordCount;
+    private int compactionCount;
+
+    public SignatureJournal(JournalConfiguration config) throws IOException {
+        this.file = Paths.get(config.getFile());
+        this.initialSizeInBytes = config.getInitialSizeInBytes();
+        this.forceOnWrite = config.isForceOnWrite();
+        boolean clean = Files.exists(file) ? recover() : false;
+        if (!clean) {
+            compact();
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    /**
+     * Records the start of an async signature. The given deadline is the moment after which the MSSP no longer waits
+     * for the user; the signature is dropped from the journal after it.
+     */
+    public synchronized void signatureStarted(SignatureTracking tracking, long deadlineInMillis) throws IOException {
+        Entry entry = new Entry(tracking, deadlineInMillis);
+        append(RECORD_STARTED, encode(entry));
+        outstanding.put(tracking.getTransactionId(), entry);
+    }
+
+    /**
+     * Records the completion of an async signature (its final status has been polled). Unknown transactions are ignored.
+     */
+    public synchronized void signatureCompleted(String transactionId) throws IOException {
+        if (outstanding.remove(transactionId) == null) {
+            return;
+        }
+        ByteBuffer payload = ByteBuffer.allocate(2 + 3 * transactionId.length());
+        putString(payload, transactionId);
+        ((Buffer) payload).flip();
+        append(RECORD_COMPLETED, payload);
+        completedRecordCount++;
+    }
+
+    /**
+     * Returns new tracking objects for the signatures that are outstanding and whose deadline has not passed yet, in
+     * the order in which they were started.
+     */
+    public synchronized List<SignatureTracking> getOutstandingSignatures() {
+        long nowInMillis = System.currentTimeMillis();
+        List<SignatureTracking> result = new ArrayList<>();
+        for (Entry entry : outstanding.values()) {
+            if (entry.deadlineInMillis >= nowInMillis) {
+                result.add(entry.toTracking());
+            }
+        }
+        return result;
+    }
+
+    public synchronized int getOutstandingSignatureCount() {
+        return outstanding.size();
+    }
+
+    public synchronized int getCompactionCount() {
+        return compactionCount;
+    }
+
+    public synchronized int getSizeInBytes() {
+        return buffer.capacity();
+    }
+
+    /**
+     * Rewrites the journal with only the outstanding signatures whose deadline has not passed yet.
+     */
+    public synchronized void compact() throws IOException {
+        long nowInMillis = System.currentTimeMillis();
+        outstanding.values().removeIf(entry -> entry.deadlineInMillis < nowInMillis);
+        List<ByteBuffer> records = new ArrayList<>();
+        int requiredSize = HEADER_SIZE;
+        for (Entry entry : outstanding.values()) {
+            ByteBuffer payload = encode(entry);
+            records.add(payload);
+            requiredSize += RECORD_HEADER_SIZE + payload.remaining();
+        }
+        int size = buffer == null ? initialSizeInBytes : buffer.capacity();
+        while (requiredSize > size / 2) {
+            size *= 2;
+        }
+
+        // the new file is written without mapping it, so that nothing holds it open when it is moved
+        Path compactedFile = file.resolveSibling(file.getFileName() + ".compacting");
+        ByteBuffer content = ByteBuffer.allocate(size);
+        content.putInt(MAGIC).putInt(FORMAT_VERSION);
+        for (ByteBuffer payload : records) {
+            putRecord(content, RECORD_STARTED, payload);
+        }
+        int appendPosition = content.position();
+        ((Buffer) content).clear();
+        try (FileChannel compactedChannel = FileChannel.open(compactedFile, StandardOpenOption.CREATE,
+                                                             StandardOpenOption.TRUNCATE_EXISTING,
+                                                             StandardOpenOption.WRITE)) {
+            while (content.hasRemaining()) {
+                compactedChannel.write(content);
+            }
+            compactedChannel.force(true);
+        }
+
+        int oldSize = buffer == null ? 0 : buffer.capacity();
+        int oldPosition = buffer == null ? 0 : buffer.position();
+        closeChannel();
+        buffer = null;
+        try {
+            replaceFile(compactedFile);
+        } catch (IOException e) {
+            if (oldSize > 0) {
+                // keep journaling into the old file; the next compaction tries again
+                map(oldSize, oldPosition);
+            }
+            throw e;
+        }
+        map(size, appendPosition);
+        completedRecordCount = 0;
+        compactionCount++;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (buffer != null) {
+            buffer.force();
+        }
+        closeChannel();
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    /**
+     * Scans the existing journal file, filling the outstanding signatures. Returns true if the file can be appended to
+     * as it is, false if it needs to be rewritten (unknown format, torn record or signatures past their deadline).
+     */
+    private boolean recover() throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long fileSize = channel.size();
+        if (fileSize < HEADER_SIZE || fileSize > Integer.MAX_VALUE) {
+            logClient.warn("Ignoring the signature journal [{}]: unexpected size of {} bytes", file, fileSize);
+            closeChannel();
+            return false;
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+        if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+            logClient.warn("Ignoring the signature journal [{}]: unknown format", file);
+            closeChannel();
+            buffer = null;
+            return false;
+        }
+        boolean clean = true;
+        int recordCount = 0;
+        CRC32 crc = new CRC32();
+        while (buffer.remaining() >= RECORD_HEADER_SIZE) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            if (length == 0) {
+                ((Buffer) buffer).position(start);
+                break;
+            }
+            if (length < 0 || length > buffer.remaining() - RECORD_HEADER_SIZE + 4) {
+                clean = false;
+                ((Buffer) buffer).position(start);
+                break;
+            }
+            int expectedCrc = buffer.getInt();
+            ByteBuffer record = ((ByteBuffer) buffer).slice();
+            ((Buffer) record).limit(1 + length);
+            crc.reset();
+            crc.update(record.duplicate());
+            if ((int) crc.getValue() != expectedCrc) {
+                clean = false;
+                ((Buffer) buffer).position(start);
+                break;
+            }
+            byte type = record.get();
+            if (type == RECORD_STARTED) {
+                Entry entry = decode(record);
+                outstanding.put(entry.transactionId, entry);
+            } else if (type == RECORD_COMPLETED) {
+                outstanding.remove(getString(record));
+                completedRecordCount++;
+            }
+            ((Buffer) buffer).position(buffer.position() + 1 + length);
+            recordCount++;
+        }
+        long nowInMillis = System.currentTimeMillis();
+        int expiredCount = 0;
+        for (Entry entry : outstanding.values()) {
+            if (entry.deadlineInMillis < nowInMillis) {
+                expiredCount++;
+            }
+        }
+        logClient.info("Recovered {} outstanding signature(s) from the journal [{}] ({} records, {} past their deadline{})",
+                       outstanding.size() - expiredCount, file, recordCount, expiredCount, clean ? "" : ", torn end");
+        return clean && expiredCount == 0;
+    }
+
+    private void append(byte type, ByteBuffer payload) throws IOException {
+        if (buffer.remaining() < RECORD_HEADER_SIZE + payload.remaining()) {
+            compact();
+        }
+        putRecord(buffer, type, payload);
+        if (forceOnWrite) {
+            buffer.force();
+        }
+    }
+
+    private static void putRecord(ByteBuffer target, byte type, ByteBuffer payload) {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(payload.duplicate());
+        int start = target.position();
+        // the length goes last, so that a record is never seen before it is complete
+        ((Buffer) target).position(start + 4);
+        target.putInt((int) crc.getValue()).put(type).put(payload);
+        target.putInt(start, payload.limit());
+    }
+
+    private static ByteBuffer encode(Entry entry) {
+        ByteBuffer payload = ByteBuffer.allocate(8 + 5 * 2 + 3 * (length(entry.transactionId) + length(entry.msisdn) +
+                                                                   length(entry.majorVersion) + length(entry.minorVersion) +
+                                                                   length(entry.correlationKey)));
+        putString(payload, entry.transactionId);
+        putString(payload, entry.msisdn);
+        putString(payload, entry.majorVersion);
+        putString(payload, entry.minorVersion);
+        putString(payload, entry.correlationKey);
+        payload.putLong(entry.deadlineInMillis);
+        ((Buffer) payload).flip();
+        return payload;
+    }
+
+    private static Entry decode(ByteBuffer record) {
+        Entry entry = new Entry();
+        entry.transactionId = getString(record);
+        entry.msisdn = getString(record);
+        entry.majorVersion = getString(record);
+        entry.minorVersion = getString(record);
+        entry.correlationKey = getString(record);
+        entry.deadlineInMillis = record.getLong();
+        return entry;
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    private static void putString(ByteBuffer target, String value) {
+        if (value == null) {
+            target.putShort((short) -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Value too long for the signature journal: " + bytes.length + " bytes");
+        }
+        target.putShort((short) bytes.length).put(bytes);
+    }
+
+    private static String getString(ByteBuffer source) {
+        short length = source.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        source.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Moves the compacted file over the journal file. The old journal file is closed at this point, but it may still
+     * be mapped until its buffer is garbage collected; as Windows refuses to replace a mapped file, a failed move is
+     * retried after requesting a garbage collection.
+     */
+    private void replaceFile(Path compactedFile) throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Files.move(compactedFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                return;
+            } catch (IOException e) {
+                if (attempt == REPLACE_ATTEMPTS) {
+                    throw e;
+                }
+                logClient.debug("Failed to replace the signature journal [{}], retrying after a garbage collection",
+                                file, e);
+                System.gc();
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(REPLACE_RETRY_DELAY_IN_MILLIS));
+            }
+        }
+    }
+
+    private void map(int size, int position) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        ((Buffer) buffer).position(position);
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logClient.debug("Failed to close the signature journal [{}]: {}", file, e.getMessage());
+            }
+            channel = null;
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private static class Entry {
+        private String transactionId;
+        private String msisdn;
+        private String majorVersion;
+        private String minorVersion;
+        private String correlationKey;
+        private long deadlineInMillis;
+
+        private Entry() {
+        }
+
+        private Entry(SignatureTracking tracking, long deadlineInMillis) {
+            this.transactionId = tracking.getTransactionId();
+            this.msisdn = tracking.getMobileUserMsisdn();
+            this.majorVersion = tracking.getMajorVersion();
+            this.minorVersion = tracking.getMinorVersion();
+            this.correlationKey = tracking.getCorrelationKey();
+            this.deadlineInMillis = deadlineInMillis;
+        }
+
+        private SignatureTracking toTracking() {
+            SignatureTracking tracking = new SignatureTracking();
+            tracking.setTransactionId(transactionId);
+            tracking.setMobileUserMsisdn(msisdn);
+            tracking.setMajorVersion(majorVersion);
+            tracking.setMinorVersion(minorVersion);
+            tracking.setCorrelationKey(correlationKey);
+            tracking.setDeadlineInMillis(deadlineInMillis);
+            return tracking;
+        }
+    }
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ch.swisscom.mid.client.MIDFlowException;
+import ch.swisscom.mid.client.config.PreflightConfiguration;
+import ch.swisscom.mid.client.model.*;
+
+/**
+ * Checks a signature request against the profile of the target user and rejects it locally when the profile shows that
+ * the request cannot succeed. The check only relies on positive evidence: missing profile data (e.g. because the
+ * profile was queried without the needed extensions) never leads to a rejection.
+ * <p>
+ * A rejection is reported with the same {@link StatusCode} that the Mobile ID service would have returned, so that the
+ * callers can handle it in the same way.
+ */
+public class SignaturePreflightCheck {
+
+    private static final Logger logClient = LoggerFactory.getLogger(Loggers.LOGGER_CLIENT);
+
+    private final boolean autoSelectSignatureProfile;
+    private final List<String> preferredSignatureProfiles;
+
+    private final AtomicLong checkedRequests = new AtomicLong();
+    private final AtomicLong rejectedRequests = new AtomicLong();
+    private final AtomicLong autoSelectedProfiles = new AtomicLong();
+
+    public SignaturePreflightCheck(PreflightConfiguration config) {
+        this.autoSelectSignatureProfile = config.isAutoSelectSignatureProfile();
+        this.preferredSignatureProfiles = new ArrayList<>(config.getPreferredSignatureProfiles());
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    /**
+     * Checks the given request against the given profile. When auto-selection is enabled and the requested signature
+     * profile is not supported by the user, the request is updated with the selected signature profile.
+     *
+     * @throws MIDFlowException if the request is rejected
+     */
+    public void check(SignatureRequest request, ProfileResponse profile) {
+        checkedRequests.incrementAndGet();
+        StatusCode deviceRejection = checkDevices(profile);
+        if (deviceRejection != null) {
+            throw reject(request, deviceRejection);
+        }
+        List<String> supportedProfiles = profile.getSignatureProfiles();
+        if (supportedProfiles == null || supportedProfiles.isEmpty()
+            || supportedProfiles.contains(request.getSignatureProfile())) {
+            return;
+        }
+        if (autoSelectSignatureProfile) {
+            for (String preferredProfile : preferredSignatureProfiles) {
+                if (supportedProfiles.contains(preferredProfile)) {
+                    logClient.debug("Signature profile {} is not supported by MSISDN {}, using {} instead",
+                                    request.getSignatureProfile(), request.getMobileUser().getMsisdn(), preferredProfile);
+                    request.setSignatureProfile(preferredProfile);
+                    autoSelectedProfiles.incrementAndGet();
+                    return;
+                }
+            }
+        }
+        throw reject(request, StatusCode.UNSUPPORTED_PROFILE);
+    }
+
+    public long getCheckedRequests() {
+        return checkedRequests.get();
+    }
+
+    public long getRejectedRequests() {
+        return rejectedRequests.get();
+    }
+
+    public long getAutoSelectedProfiles() {
+        return autoSelectedProfiles.get();
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns NULL if at least one device might be able to sign, otherwise the status code that best describes why no
+     * device can sign.
+     */
+    private static StatusCode checkDevices(ProfileResponse profile) {
+        List<ProfileDeviceInfo> devices = new ArrayList<>();
+        if (profile.getSimDevices() != null) {
+            devices.addAll(profile.getSimDevices());
+        }
+        if (profile.getAppDevices() != null) {
+            devices.addAll(profile.getAppDevices());
+        }
+        if (devices.isEmpty()) {
+            return null;
+        }
+        boolean activeDeviceFound = false;
+        boolean pinBlockedFound = false;
+        boolean revokedCertificateFound = false;
+        for (ProfileDeviceInfo device : devices) {
+            if (device.getState() != null && device.getState() != ProfileDeviceState.ACTIVE) {
+                continue;
+            }
+            activeDeviceFound = true;
+            if (device.getPinState() == ProfileDevicePinState.BLOCKED) {
+                pinBlockedFound = true;
+                continue;
+            }
+            if (device.getCertificates() == null) {
+                return null;
+            }
+            for (ProfileMobileUserCertificate certificate : device.getCertificates()) {
+                if (certificate.getState() == null || certificate.getState() == ProfileMobileUserCertificateState.ACTIVE) {
+                    return null;
+                }
+                if (certificate.getState() == ProfileMobileUserCertificateState.REVOKED) {
+                    revokedCertificateFound = true;
+                }
+            }
+        }
+        if (!activeDeviceFound) {
+            return StatusCode.NO_KEY_FOUND;
+        }
+        if (pinBlockedFound) {
+            return StatusCode.PIN_NR_BLOCKED;
+        }
+        return revokedCertificateFound ? StatusCode.REVOKED_CERTIFICATE : StatusCode.NO_CERT_FOUND;
+    }
+
+    private MIDFlowException reject(SignatureRequest request, StatusCode statusCode) {
+        rejectedRequests.incrementAndGet();
+        logClient.debug("Signature request for MSISDN {} rejected by the pre-flight check: {}",
+                        request.getMobileUser().getMsisdn(), statusCode);
+        Fault fault = new Fault();
+        fault.setFailureReason(FailureReason.MID_SERVICE_FAILURE);
+        fault.setFailureDetail("Signature request rejected by the MID client pre-flight check, based on the user's profile");
+        fault.setStatusCode(statusCode);
+        fault.setStatusCodeString(String.valueOf(statusCode.getCode()));
+        fault.setStatusDetail(statusCode.getDescription());
+        fault.setStatusFaultReason(statusCode.name());
+        return new MIDFlowException(fault.getFailureDetail() + ": " + statusCode, fault);
+    }
+
+}
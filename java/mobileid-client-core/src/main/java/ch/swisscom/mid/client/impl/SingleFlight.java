@@ -0,0 +1,96 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.impl;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import ch.swisscom.mid.client.MIDFlowException;
+import ch.swisscom.mid.client.model.FailureReason;
+import ch.swisscom.mid.client.model.Fault;
+
+/**
+ * Merges concurrent calls with the same key into one single call. The first caller for a key runs the call; the callers
+ * that arrive while that call is still in flight wait for it and receive the same result (or the same exception).
+ *
+ * @param <K> the type of the key that identifies identical calls
+ * @param <V> the type of the call result
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> callsInFlight = new ConcurrentHashMap<>();
+    private final AtomicLong executedCalls = new AtomicLong();
+    private final AtomicLong coalescedCalls = new AtomicLong();
+
+    public V execute(K key, Supplier<V> call) {
+        CompletableFuture<V> ownCall = new CompletableFuture<>();
+        CompletableFuture<V> existingCall = callsInFlight.putIfAbsent(key, ownCall);
+        if (existingCall != null) {
+            coalescedCalls.incrementAndGet();
+            return await(existingCall);
+        }
+        executedCalls.incrementAndGet();
+        try {
+            V result = call.get();
+            ownCall.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            ownCall.completeExceptionally(e);
+            throw e;
+        } finally {
+            callsInFlight.remove(key, ownCall);
+        }
+    }
+
+    public long getExecutedCalls() {
+        return executedCalls.get();
+    }
+
+    public long getCoalescedCalls() {
+        return coalescedCalls.get();
+    }
+
+    public int getCallsInFlight() {
+        return callsInFlight.size();
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private static <V> V await(CompletableFuture<V> call) {
+        try {
+            return call.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("Unexpected checked exception from a coalesced call", cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Fault fault = new Fault();
+            fault.setFailureReason(FailureReason.UNKNOWN_FAILURE);
+            fault.setFailureDetail("Interrupted while waiting for an identical MSS request to complete");
+            throw new MIDFlowException(fault.getFailureDetail(), e, fault);
+        }
+    }
+
+}
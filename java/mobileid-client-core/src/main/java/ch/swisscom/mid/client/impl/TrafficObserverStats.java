@@ -0,0 +1,131 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.impl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the notifications dispatched asynchronously to one traffic observer.
+ */
+public class TrafficObserverStats {
+
+    private final String observerName;
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong sampleCounter = new AtomicLong();
+    private volatile long lastDelayInNanos;
+    private volatile long maxDelayInNanos;
+
+    TrafficObserverStats(String observerName) {
+        this.observerName = observerName;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public String getObserverName() {
+        return observerName;
+    }
+
+    /**
+     * Returns the number of notifications sent by the client to this observer, whether delivered, pending or dropped.
+     */
+    public long getSubmittedCount() {
+        return submitted.get();
+    }
+
+    public long getDeliveredCount() {
+        return delivered.get();
+    }
+
+    /**
+     * Returns the number of notifications dropped because the buffer was full (or sampled out, or sent after close).
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Returns the number of delivered notifications for which the observer threw an exception.
+     */
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * Returns the number of notifications waiting to be delivered.
+     */
+    public long getLag() {
+        return Math.max(0, submitted.get() - delivered.get() - dropped.get());
+    }
+
+    /**
+     * Returns how long the last delivered notification waited in the buffer.
+     */
+    public long getLastDelayInMs() {
+        return TimeUnit.NANOSECONDS.toMillis(lastDelayInNanos);
+    }
+
+    public long getMaxDelayInMs() {
+        return TimeUnit.NANOSECONDS.toMillis(maxDelayInNanos);
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    void recordSubmitted() {
+        submitted.incrementAndGet();
+    }
+
+    void recordDropped() {
+        dropped.incrementAndGet();
+    }
+
+    boolean nextSampleIsKept(int sampleRate) {
+        return sampleCounter.getAndIncrement() % sampleRate == 0;
+    }
+
+    /**
+     * Called only by the consumer thread of the observer.
+     */
+    void recordDelivered(long delayInNanos, boolean failure) {
+        lastDelayInNanos = delayInNanos;
+        if (delayInNanos > maxDelayInNanos) {
+            maxDelayInNanos = delayInNanos;
+        }
+        if (failure) {
+            failed.incrementAndGet();
+        }
+        delivered.incrementAndGet();
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    @Override
+    public String toString() {
+        return "TrafficObserverStats{" +
+               "observerName='" + observerName + '\'' +
+               ", submitted=" + submitted +
+               ", delivered=" + delivered +
+               ", dropped=" + dropped +
+               ", failed=" + failed +
+               ", lag=" + getLag() +
+               ", maxDelayInMs=" + getMaxDelayInMs() +
+               '}';
+    }
+
+}
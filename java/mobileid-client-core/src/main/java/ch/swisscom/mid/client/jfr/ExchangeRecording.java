@@ -0,0 +1,34 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.jfr;
+
+import ch.swisscom.mid.client.metrics.MssExchange;
+
+/**
+ * Java Flight Recorder event for one MSS exchange, started when the exchange starts. See {@link FlightRecorderSupport}.
+ */
+public interface ExchangeRecording {
+
+    ExchangeRecording NOOP = exchange -> {
+        // nothing to record
+    };
+
+    /**
+     * Ends the event and commits it with the details of the given (ended) exchange.
+     */
+    void end(MssExchange exchange);
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.jfr;
+
+import ch.swisscom.mid.client.config.ComProtocol;
+
+/**
+ * Entry point for emitting Java Flight Recorder (JFR) events from the MID client. The core library is packaged as a
+ * multi-release JAR: on Java 8 this class is used and records nothing, while on Java 11 and newer the JVM loads its
+ * variant from <code>META-INF/versions/11</code>, which emits the following custom events:
+ * <ul>
+ *     <li><i>ch.swisscom.mid.client.MssExchange</i> - one MSS request/response exchange, with the operation, protocol,
+ *     APTransID, HTTP status, MSS status code and the time spent in serialization, pool lease, network and parsing</li>
+ *     <li><i>ch.swisscom.mid.client.SoapPortCreation</i> - the creation of a new SOAP port</li>
+ *     <li><i>ch.swisscom.mid.client.TlsContextCreation</i> - the creation of a TLS context (key and trust material)</li>
+ * </ul>
+ * While no recording is running, the events cost close to nothing.
+ */
+public final class FlightRecorderSupport {
+
+    private FlightRecorderSupport() {
+        // static utility class
+    }
+
+    /**
+     * Returns whether this runtime is able to emit the MID client's JFR events.
+     */
+    public static boolean isAvailable() {
+        return false;
+    }
+
+    public static ExchangeRecording beginExchange() {
+        return ExchangeRecording.NOOP;
+    }
+
+    public static OperationRecording beginSoapPortCreation(String portType, String serviceUrl) {
+        return OperationRecording.NOOP;
+    }
+
+    public static OperationRecording beginTlsContextCreation(ComProtocol protocol) {
+        return OperationRecording.NOOP;
+    }
+
+}
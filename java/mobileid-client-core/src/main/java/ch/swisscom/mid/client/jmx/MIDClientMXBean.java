@@ -0,0 +1,77 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.jmx;
+
+import java.util.List;
+import java.util.Map;
+
+import ch.swisscom.mid.client.metrics.ConnectionPoolStats;
+
+/**
+ * JMX management interface of one MID client instance. See {@link MIDClientManagement} for how it is registered.
+ */
+public interface MIDClientMXBean {
+
+    String getComProtocol();
+
+    /**
+     * Returns the current usage of the REST connection pool or of the SOAP port pools.
+     */
+    List<ConnectionPoolStats> getConnectionPoolStats();
+
+    /**
+     * Returns the latency percentiles and the counters of each MSS operation that was used since the last reset.
+     */
+    List<OperationLatencyStats> getOperationLatencies();
+
+    int getOutstandingAsyncSignatures();
+
+    /**
+     * Returns the number of outstanding async signatures per signature profile. Returns an empty map when the
+     * outstanding signature registry is not enabled.
+     */
+    Map<String, Integer> getOutstandingAsyncSignaturesBySignatureProfile();
+
+    /**
+     * Returns the number of async signatures that expired locally, without their final status being polled. Returns
+     * zero when the outstanding signature registry is not enabled.
+     */
+    long getLocallyExpiredAsyncSignatures();
+
+    /**
+     * Returns the MSS exchanges kept by the traffic recorder that match all the given criteria, as text. An empty
+     * APTransID or MSISDN and a zero status code match any exchange. Returns an empty text when the traffic recorder
+     * is not enabled.
+     */
+    String dumpTrafficRecords(String apTransId, String msisdn, int statusCode);
+
+    /**
+     * Returns the effective log level of each of the MID client's logger categories.
+     */
+    Map<String, String> getLogLevels();
+
+    /**
+     * Resets the latency histograms and the counters of all MSS operations.
+     */
+    void resetStatistics();
+
+    /**
+     * Changes the log level of one of the MID client's logger categories (see {@link #getLogLevels()}). The level is one
+     * of TRACE, DEBUG, INFO, WARN, ERROR or OFF.
+     */
+    void setLogLevel(String loggerName, String level);
+
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.jmx;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import ch.qos.logback.classic.Level;
+import ch.swisscom.mid.client.config.ConfigurationException;
+import ch.swisscom.mid.client.config.JmxConfiguration;
+import ch.swisscom.mid.client.impl.Loggers;
+import ch.swisscom.mid.client.impl.MIDClientImpl;
+import ch.swisscom.mid.client.impl.OutstandingSignatureRegistry;
+import ch.swisscom.mid.client.metrics.ConnectionPoolStats;
+import ch.swisscom.mid.client.metrics.OperationMetrics;
+import ch.swisscom.mid.client.model.StatusCode;
+import ch.swisscom.mid.client.recorder.TrafficRecordFilter;
+import ch.swisscom.mid.client.recorder.TrafficRecorder;
+
+/**
+ * JMX management interface of one MID client instance, registered in the platform MBean server when the client is
+ * created (if enabled via {@link JmxConfiguration}) and unregistered when the client is closed.
+ */
+public class MIDClientManagement implements MIDClientMXBean {
+
+    private static final Logger logConfig = LoggerFactory.getLogger(Loggers.LOGGER_CONFIG);
+
+    private static final AtomicInteger clientCounter = new AtomicInteger();
+
+    private final MIDClientImpl client;
+    private final ObjectName objectName;
+
+    private MIDClientManagement(MIDClientImpl client, ObjectName objectName) {
+        this.client = client;
+        this.objectName = objectName;
+    }
+
+    public static MIDClientManagement register(MIDClientImpl client, JmxConfiguration config) {
+        String clientName = config.getClientName() == null ? "client-" + clientCounter.incrementAndGet() : config.getClientName();
+        try {
+            ObjectName objectName = new ObjectName(config.getDomain() + ":type=MIDClient,name=" + clientName);
+            MIDClientManagement management = new MIDClientManagement(client, objectName);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(management, objectName);
+            return management;
+        } catch (JMException e) {
+            throw new ConfigurationException("Failed to register the JMX management interface of the MID client " +
+                                             "with the name [" + clientName + "]", e);
+        }
+    }
+
+    public void unregister() {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            logConfig.warn("Failed to unregister the JMX management interface of the MID client: {}", objectName, e);
+        }
+    }
+
+    public ObjectName getObjectName() {
+        return objectName;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    @Override
+    public String getComProtocol() {
+        return client.getComProtocol().name();
+    }
+
+    @Override
+    public List<ConnectionPoolStats> getConnectionPoolStats() {
+        return client.getConnectionPoolStats();
+    }
+
+    @Override
+    public List<OperationLatencyStats> getOperationLatencies() {
+        List<OperationLatencyStats> result = new ArrayList<>();
+        for (OperationMetrics metrics : client.getMetrics().getAllOperationMetrics()) {
+            if (metrics.getLatencyHistogram().getCount() > 0 || metrics.getInFlight() > 0) {
+                result.add(new OperationLatencyStats(metrics));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int getOutstandingAsyncSignatures() {
+        return client.getOutstandingSignatureCount();
+    }
+
+    @Override
+    public Map<String, Integer> getOutstandingAsyncSignaturesBySignatureProfile() {
+        OutstandingSignatureRegistry registry = client.getOutstandingSignatureRegistry();
+        return registry == null ? Collections.emptyMap() : registry.getInFlightCountsBySignatureProfile();
+    }
+
+    @Override
+    public long getLocallyExpiredAsyncSignatures() {
+        OutstandingSignatureRegistry registry = client.getOutstandingSignatureRegistry();
+        return registry == null ? 0 : registry.getExpiredCount();
+    }
+
+    @Override
+    public String dumpTrafficRecords(String apTransId, String msisdn, int statusCode) {
+        TrafficRecorder recorder = client.getTrafficRecorder();
+        if (recorder == null) {
+            return "";
+        }
+        TrafficRecordFilter filter = new TrafficRecordFilter();
+        filter.setApTransId(apTransId == null || apTransId.isEmpty() ? null : apTransId);
+        filter.setMobileUserMsisdn(msisdn == null || msisdn.isEmpty() ? null : msisdn);
+        if (statusCode != 0) {
+            StatusCode code = StatusCode.getByStatusCodeValue(statusCode);
+            if (code == null) {
+                throw new IllegalArgumentException("Unknown status code: " + statusCode);
+            }
+            filter.setStatusCode(code);
+        }
+        return recorder.dump(filter);
+    }
+
+    @Override
+    public Map<String, String> getLogLevels() {
+        Map<String, String> result = new LinkedHashMap<>();
+        for (String loggerName : Loggers.ALL_OF_THEM) {
+            Logger logger = LoggerFactory.getLogger(loggerName);
+            if (logger instanceof ch.qos.logback.classic.Logger) {
+                result.put(loggerName, ((ch.qos.logback.classic.Logger) logger).getEffectiveLevel().toString());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void resetStatistics() {
+        client.getMetrics().reset();
+    }
+
+    @Override
+    public void setLogLevel(String loggerName, String level) {
+        if (!Loggers.ALL_OF_THEM.contains(loggerName)) {
+            throw new IllegalArgumentException("Unknown MID client logger: [" + loggerName + "]. " +
+                                               "Available loggers: " + Loggers.ALL_OF_THEM);
+        }
+        Level newLevel = Level.toLevel(level, null);
+        if (newLevel == null) {
+            throw new IllegalArgumentException("Unknown log level: [" + level + "]");
+        }
+        Logger logger = LoggerFactory.getLogger(loggerName);
+        if (!(logger instanceof ch.qos.logback.classic.Logger)) {
+            throw new UnsupportedOperationException("The log level can only be changed when Logback is the SLF4J backend");
+        }
+        ((ch.qos.logback.classic.Logger) logger).setLevel(newLevel);
+        logConfig.info("Log level of logger [{}] changed via JMX to [{}]", loggerName, newLevel);
+    }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.jmx;
+
+import ch.swisscom.mid.client.metrics.LatencyHistogram;
+import ch.swisscom.mid.client.metrics.OperationMetrics;
+
+/**
+ * Snapshot of the latency histogram and of the counters of one MSS operation, as exposed via JMX.
+ */
+public class OperationLatencyStats {
+
+    private final String operation;
+    private final String protocol;
+    private final long count;
+    private final long failureCount;
+    private final int inFlight;
+    private final double meanInMicros;
+    private final long p50InMicros;
+    private final long p90InMicros;
+    private final long p99InMicros;
+    private final long maxInMicros;
+
+    public OperationLatencyStats(OperationMetrics metrics) {
+        LatencyHistogram histogram = metrics.getLatencyHistogram();
+        operation = metrics.getOperation().name();
+        protocol = metrics.getProtocol().name();
+        count = histogram.getCount();
+        failureCount = metrics.getFailureReasonCounts().values().stream().mapToLong(Long::longValue).sum();
+        inFlight = metrics.getInFlight();
+        meanInMicros = histogram.getMeanInMicros();
+        p50InMicros = histogram.getValueAtPercentile(50);
+        p90InMicros = histogram.getValueAtPercentile(90);
+        p99InMicros = histogram.getValueAtPercentile(99);
+        maxInMicros = histogram.getMaxInMicros();
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public String getProtocol() {
+        return protocol;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getFailureCount() {
+        return failureCount;
+    }
+
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    public double getMeanInMicros() {
+        return meanInMicros;
+    }
+
+    public long getP50InMicros() {
+        return p50InMicros;
+    }
+
+    public long getP90InMicros() {
+        return p90InMicros;
+    }
+
+    public long getP99InMicros() {
+        return p99InMicros;
+    }
+
+    public long getMaxInMicros() {
+        return maxInMicros;
+    }
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.metrics;
+
+/**
+ * Snapshot of the usage of one connection (or port) pool of a communication protocol implementation.
+ */
+public class ConnectionPoolStats {
+
+    private final String poolName;
+    private final int leased;
+    private final int available;
+    private final int pending;
+    private final int max;
+
+    public ConnectionPoolStats(String poolName, int leased, int available, int pending, int max) {
+        this.poolName = poolName;
+        this.leased = leased;
+        this.available = available;
+        this.pending = pending;
+        this.max = max;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public String getPoolName() {
+        return poolName;
+    }
+
+    /**
+     * Returns the number of connections (or ports) currently in use by a request.
+     */
+    public int getLeased() {
+        return leased;
+    }
+
+    /**
+     * Returns the number of idle connections (or ports), ready to be used.
+     */
+    public int getAvailable() {
+        return available;
+    }
+
+    /**
+     * Returns the number of requests that are waiting for a connection (or port).
+     */
+    public int getPending() {
+        return pending;
+    }
+
+    /**
+     * Returns the maximum size of the pool or a negative value if the pool is not bounded.
+     */
+    public int getMax() {
+        return max;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    @Override
+    public String toString() {
+        return "ConnectionPoolStats{" +
+               "poolName='" + poolName + '\'' +
+               ", leased=" + leased +
+               ", available=" + available +
+               ", pending=" + pending +
+               ", max=" + max +
+               '}';
+    }
+
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with log-linear buckets (in the style of HdrHistogram): each power of two is split into
+ * 16 linear sub-buckets, which keeps the relative error of any reported value under 6.25%. Values are recorded in
+ * microseconds, from 0 up to about 76 hours; larger values are recorded in the last bucket.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 37;
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalSum = new AtomicLong();
+    private final AtomicLong maxValue = new AtomicLong();
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public void record(long valueInMicros) {
+        long value = Math.max(0, valueInMicros);
+        buckets.incrementAndGet(bucketIndexOf(value));
+        totalCount.incrementAndGet();
+        totalSum.addAndGet(value);
+        long currentMax = maxValue.get();
+        while (value > currentMax && !maxValue.compareAndSet(currentMax, value)) {
+            currentMax = maxValue.get();
+        }
+    }
+
+    public void recordNanos(long valueInNanos) {
+        record(valueInNanos / 1000);
+    }
+
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    public long getSumInMicros() {
+        return totalSum.get();
+    }
+
+    public long getMaxInMicros() {
+        return maxValue.get();
+    }
+
+    public double getMeanInMicros() {
+        long count = totalCount.get();
+        return count == 0 ? 0 : (double) totalSum.get() / count;
+    }
+
+    /**
+     * Returns the value (in microseconds) at or below which the given percentage of the recorded values fall, or zero if
+     * nothing was recorded yet. The returned value is the upper bound of the bucket holding that percentile.
+     */
+    public long getValueAtPercentile(double percentile) {
+        long[] counts = snapshotBuckets();
+        long count = 0;
+        for (long bucketCount : counts) {
+            count += bucketCount;
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long targetCount = Math.max(1, (long) Math.ceil(Math.min(100, percentile) / 100.0 * count));
+        long cumulativeCount = 0;
+        for (int index = 0; index < counts.length; index++) {
+            cumulativeCount += counts[index];
+            if (cumulativeCount >= targetCount) {
+                return Math.min(upperBoundOf(index), maxValue.get());
+            }
+        }
+        return maxValue.get();
+    }
+
+    /**
+     * Returns how many of the recorded values are lower than or equal to the given value (in microseconds), with the
+     * precision of the bucket that holds the given value.
+     */
+    public long getCountAtOrBelow(long valueInMicros) {
+        int lastIndex = bucketIndexOf(Math.max(0, valueInMicros));
+        long cumulativeCount = 0;
+        for (int index = 0; index <= lastIndex; index++) {
+            cumulativeCount += buckets.get(index);
+        }
+        return cumulativeCount;
+    }
+
+    public void reset() {
+        for (int index = 0; index < BUCKET_COUNT; index++) {
+            buckets.set(index, 0);
+        }
+        totalCount.set(0);
+        totalSum.set(0);
+        maxValue.set(0);
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private long[] snapshotBuckets() {
+        long[] counts = new long[BUCKET_COUNT];
+        for (int index = 0; index < BUCKET_COUNT; index++) {
+            counts[index] = buckets.get(index);
+        }
+        return counts;
+    }
+
+    private static int bucketIndexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = Math.min(MAX_EXPONENT, 63 - Long.numberOfLeadingZeros(value));
+        if (exponent == MAX_EXPONENT && value >= (1L << (MAX_EXPONENT + 1))) {
+            return BUCKET_COUNT - 1;
+        }
+        int subBucket = (int) ((value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1));
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    private static long upperBoundOf(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+        int subBucket = index % SUB_BUCKET_COUNT;
+        long bucketWidth = 1L << (exponent - SUB_BUCKET_BITS);
+        return ((long) (SUB_BUCKET_COUNT + subBucket) << (exponent - SUB_BUCKET_BITS)) + bucketWidth - 1;
+    }
+
+}
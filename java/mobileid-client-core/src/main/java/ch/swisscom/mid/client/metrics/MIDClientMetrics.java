@@ -0,0 +1,146 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import ch.swisscom.mid.client.config.ComProtocol;
+import ch.swisscom.mid.client.model.Status;
+import ch.swisscom.mid.client.model.StatusCode;
+import ch.swisscom.mid.client.impl.Loggers;
+
+/**
+ * Metrics recorded by one MID client instance: for each {@link MIDOperation} and each {@link ComProtocol}, a latency
+ * histogram, the number of requests in flight and the counters by status code and failure reason (see
+ * {@link OperationMetrics}). The communication protocol implementations report each MSS exchange to this object; the
+ * exchanges are also forwarded to the registered {@link MetricsRegistry} instances.
+ */
+public class MIDClientMetrics {
+
+    private static final Logger logClient = LoggerFactory.getLogger(Loggers.LOGGER_CLIENT);
+
+    private final OperationMetrics[][] operationMetrics;
+    private final LatencyHistogram pollsPerSignature = new LatencyHistogram();
+    private final List<MetricsRegistry> registries = new CopyOnWriteArrayList<>();
+
+    public MIDClientMetrics() {
+        MIDOperation[] operations = MIDOperation.values();
+        ComProtocol[] protocols = ComProtocol.values();
+        operationMetrics = new OperationMetrics[operations.length][protocols.length];
+        for (MIDOperation operation : operations) {
+            for (ComProtocol protocol : protocols) {
+                operationMetrics[operation.ordinal()][protocol.ordinal()] = new OperationMetrics(operation, protocol);
+            }
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public MssExchange startExchange(MIDOperation operation, ComProtocol protocol) {
+        MssExchange exchange = new MssExchange(this, operation, protocol);
+        operationMetrics[operation.ordinal()][protocol.ordinal()].exchangeStarted();
+        for (MetricsRegistry registry : registries) {
+            try {
+                registry.exchangeStarted(exchange);
+            } catch (RuntimeException e) {
+                logClient.warn("Metrics registry {} failed to record the start of an MSS exchange", registry, e);
+            }
+        }
+        return exchange;
+    }
+
+    public OperationMetrics getOperationMetrics(MIDOperation operation, ComProtocol protocol) {
+        return operationMetrics[operation.ordinal()][protocol.ordinal()];
+    }
+
+    public List<OperationMetrics> getAllOperationMetrics() {
+        List<OperationMetrics> result = new ArrayList<>();
+        for (OperationMetrics[] metricsPerProtocol : operationMetrics) {
+            for (OperationMetrics metrics : metricsPerProtocol) {
+                result.add(metrics);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the distribution of the number of status polls that each async signature needed until its final status
+     * was received. The histogram's values are plain poll counts, not microseconds.
+     */
+    public LatencyHistogram getPollsPerSignature() {
+        return pollsPerSignature;
+    }
+
+    public void recordCompletedSignature(int pollCount) {
+        pollsPerSignature.record(pollCount);
+    }
+
+    /**
+     * Runs one MSS request within an exchange: the exchange is completed with the status code extracted from the result
+     * (REQUEST_OK when the result has no status) or failed with the exception thrown by the call.
+     */
+    public <T> T measure(MIDOperation operation, ComProtocol protocol,
+                         Function<MssExchange, T> call, Function<T, Status> statusOf) {
+        MssExchange exchange = startExchange(operation, protocol);
+        try {
+            T result = call.apply(exchange);
+            Status status = statusOf.apply(result);
+            exchange.completed(status == null || status.getStatusCode() == null ? StatusCode.REQUEST_OK : status.getStatusCode());
+            return result;
+        } catch (RuntimeException e) {
+            exchange.failed(e);
+            throw e;
+        }
+    }
+
+    public void addRegistry(MetricsRegistry registry) {
+        registries.add(registry);
+    }
+
+    public void removeRegistry(MetricsRegistry registry) {
+        registries.remove(registry);
+    }
+
+    /**
+     * Resets the histograms and the counters. The in-flight gauges are not affected.
+     */
+    public void reset() {
+        for (OperationMetrics metrics : getAllOperationMetrics()) {
+            metrics.reset();
+        }
+        pollsPerSignature.reset();
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    void exchangeCompleted(MssExchange exchange) {
+        operationMetrics[exchange.getOperation().ordinal()][exchange.getProtocol().ordinal()].exchangeCompleted(exchange);
+        for (MetricsRegistry registry : registries) {
+            try {
+                registry.exchangeCompleted(exchange);
+            } catch (RuntimeException e) {
+                logClient.warn("Metrics registry {} failed to record the end of an MSS exchange", registry, e);
+            }
+        }
+    }
+
+}
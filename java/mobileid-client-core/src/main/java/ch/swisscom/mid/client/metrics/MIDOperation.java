@@ -0,0 +1,42 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.metrics;
+
+import ch.swisscom.mid.client.model.DocumentedEnum;
+
+/**
+ * The MSS operations for which the MID client records metrics.
+ */
+public enum MIDOperation implements DocumentedEnum {
+
+    SYNC_SIGNATURE("MSS Signature (sync)"),
+    ASYNC_SIGNATURE("MSS Signature (async)"),
+    STATUS_QUERY("MSS Status Query"),
+    RECEIPT("MSS Receipt (sync)"),
+    PROFILE_QUERY("MSS Profile Query");
+
+    private final String description;
+
+    MIDOperation(String description) {
+        this.description = description;
+    }
+
+    @Override
+    public String getDescription() {
+        return description;
+    }
+
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.metrics;
+
+/**
+ * Extension point for forwarding the MID client metrics to an external metrics library (e.g. Micrometer or Dropwizard
+ * Metrics), without the MID client depending on it. Registries are added via
+ * {@link MIDClientMetrics#addRegistry(MetricsRegistry)} and are called on the thread that runs the MSS request, so their
+ * implementation must be fast and thread safe.
+ */
+public interface MetricsRegistry {
+
+    default void exchangeStarted(MssExchange exchange) {
+        // nothing to do by default
+    }
+
+    void exchangeCompleted(MssExchange exchange);
+
+}
@@ -0,0 +1,314 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.metrics;
+
+import ch.swisscom.mid.client.MIDFlowException;
+import ch.swisscom.mid.client.config.ComProtocol;
+import ch.swisscom.mid.client.jfr.ExchangeRecording;
+import ch.swisscom.mid.client.jfr.FlightRecorderSupport;
+import ch.swisscom.mid.client.model.FailureReason;
+import ch.swisscom.mid.client.model.Fault;
+import ch.swisscom.mid.client.model.StatusCode;
+import ch.swisscom.mid.client.tracing.Span;
+import ch.swisscom.mid.client.tracing.TracingContext;
+import ch.swisscom.mid.client.tracing.TracingPhase;
+
+/**
+ * One MSS request/response exchange, as seen by a communication protocol implementation. An exchange is started via
+ * {@link MIDClientMetrics#startExchange(MIDOperation, ComProtocol)} and must be ended with exactly one call to
+ * {@link #completed(StatusCode)} or {@link #failed(Throwable)}.
+ * <p>
+ * When a span is current on the starting thread (see {@link TracingContext}), the exchange gets a child span of it, which
+ * receives the phase timings and the outcome of the exchange when it ends.
+ */
+public class MssExchange {
+
+    private final MIDClientMetrics metrics;
+    private final MIDOperation operation;
+    private final ComProtocol protocol;
+    private final long startTimeInNanos;
+    private final ExchangeRecording recording;
+    private final Span span;
+
+    private String apTransId;
+    private String mobileUserMsisdn;
+    private String requestBody;
+    private String responseBody;
+    private int httpStatusCode;
+    private long requestBuildingTimeInNanos;
+    private long serializationTimeInNanos;
+    private long poolLeaseTimeInNanos;
+    private long networkTimeInNanos;
+    private long parsingTimeInNanos;
+    private long responseMappingTimeInNanos;
+    private long requestSentTimeInNanos;
+    private long responseReceivedTimeInNanos;
+    private boolean requestSent;
+    private boolean responseReceived;
+    private long endTimeInNanos;
+    private StatusCode statusCode;
+    private FailureReason failureReason;
+    private boolean ended;
+
+    MssExchange(MIDClientMetrics metrics, MIDOperation operation, ComProtocol protocol) {
+        this.metrics = metrics;
+        this.operation = operation;
+        this.protocol = protocol;
+        this.startTimeInNanos = System.nanoTime();
+        this.recording = FlightRecorderSupport.beginExchange();
+        Span parentSpan = TracingContext.current();
+        this.span = parentSpan == null ? null : parentSpan.startChild("MSS " + operation);
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public void completed(StatusCode statusCode) {
+        if (ended) {
+            return;
+        }
+        this.statusCode = statusCode;
+        end();
+    }
+
+    public void failed(Throwable failure) {
+        if (ended) {
+            return;
+        }
+        Fault fault = failure instanceof MIDFlowException ? ((MIDFlowException) failure).getFault() : null;
+        if (fault != null) {
+            statusCode = fault.getStatusCode();
+            failureReason = fault.getFailureReason() == null ? FailureReason.UNKNOWN_FAILURE : fault.getFailureReason();
+        } else {
+            failureReason = FailureReason.UNKNOWN_FAILURE;
+        }
+        if (span != null) {
+            span.recordFailure(failure);
+        }
+        end();
+    }
+
+    public String getApTransId() {
+        return apTransId;
+    }
+
+    public void setApTransId(String apTransId) {
+        this.apTransId = apTransId;
+    }
+
+    public String getMobileUserMsisdn() {
+        return mobileUserMsisdn;
+    }
+
+    public void setMobileUserMsisdn(String mobileUserMsisdn) {
+        this.mobileUserMsisdn = mobileUserMsisdn;
+    }
+
+    /**
+     * Returns the serialized request (JSON or SOAP) as sent or NULL if it was not sent.
+     */
+    public String getRequestBody() {
+        return requestBody;
+    }
+
+    public void setRequestBody(String requestBody) {
+        this.requestBody = requestBody;
+    }
+
+    /**
+     * Returns the response (JSON or SOAP) as received or NULL if none was received.
+     */
+    public String getResponseBody() {
+        return responseBody;
+    }
+
+    public void setResponseBody(String responseBody) {
+        this.responseBody = responseBody;
+    }
+
+    /**
+     * Returns the HTTP status code of the response or zero if it is not known (e.g. no response was received or the
+     * protocol implementation does not expose it).
+     */
+    public int getHttpStatusCode() {
+        return httpStatusCode;
+    }
+
+    public void setHttpStatusCode(int httpStatusCode) {
+        this.httpStatusCode = httpStatusCode;
+    }
+
+    /**
+     * Returns the time spent building the MSS request model from the client request.
+     */
+    public long getRequestBuildingTimeInNanos() {
+        return requestBuildingTimeInNanos;
+    }
+
+    public void addRequestBuildingTime(long nanos) {
+        requestBuildingTimeInNanos += nanos;
+    }
+
+    public long getSerializationTimeInNanos() {
+        return serializationTimeInNanos;
+    }
+
+    public void addSerializationTime(long nanos) {
+        serializationTimeInNanos += nanos;
+    }
+
+    /**
+     * Returns the time spent waiting for a pooled connection (or SOAP port), including the time to open a new connection
+     * when the pool had none available.
+     */
+    public long getPoolLeaseTimeInNanos() {
+        return poolLeaseTimeInNanos;
+    }
+
+    public void addPoolLeaseTime(long nanos) {
+        poolLeaseTimeInNanos += nanos;
+    }
+
+    public long getNetworkTimeInNanos() {
+        return networkTimeInNanos;
+    }
+
+    public void addNetworkTime(long nanos) {
+        networkTimeInNanos += nanos;
+    }
+
+    /**
+     * Marks the moment the serialized request is handed over to the transport, for protocol implementations that
+     * serialize, send and parse in one single call (see {@link #addCallTime(long)}).
+     */
+    public void markRequestSent() {
+        requestSentTimeInNanos = System.nanoTime();
+        requestSent = true;
+    }
+
+    /**
+     * Marks the moment the response arrives from the transport, before it is parsed (see {@link #addCallTime(long)}).
+     */
+    public void markResponseReceived() {
+        responseReceivedTimeInNanos = System.nanoTime();
+        responseReceived = true;
+    }
+
+    /**
+     * Records the time of one call that serializes the request, sends it and parses the response (e.g. a SOAP port
+     * call), started at the given time and ending now. The call is split into the serialization, network and parsing
+     * phases at the moments marked with {@link #markRequestSent()} and {@link #markResponseReceived()}; without these
+     * marks, the whole call counts as network time.
+     */
+    public void addCallTime(long callStartTimeInNanos) {
+        long callEndTimeInNanos = System.nanoTime();
+        if (requestSent && responseReceived) {
+            serializationTimeInNanos += requestSentTimeInNanos - callStartTimeInNanos;
+            networkTimeInNanos += responseReceivedTimeInNanos - requestSentTimeInNanos;
+            parsingTimeInNanos += callEndTimeInNanos - responseReceivedTimeInNanos;
+        } else {
+            networkTimeInNanos += callEndTimeInNanos - callStartTimeInNanos;
+        }
+        requestSent = false;
+        responseReceived = false;
+    }
+
+    public long getParsingTimeInNanos() {
+        return parsingTimeInNanos;
+    }
+
+    public void addParsingTime(long nanos) {
+        parsingTimeInNanos += nanos;
+    }
+
+    /**
+     * Returns the time spent mapping the MSS response model to the client response.
+     */
+    public long getResponseMappingTimeInNanos() {
+        return responseMappingTimeInNanos;
+    }
+
+    public void addResponseMappingTime(long nanos) {
+        responseMappingTimeInNanos += nanos;
+    }
+
+    public MIDOperation getOperation() {
+        return operation;
+    }
+
+    public ComProtocol getProtocol() {
+        return protocol;
+    }
+
+    public long getStartTimeInNanos() {
+        return startTimeInNanos;
+    }
+
+    public long getDurationInNanos() {
+        return (ended ? endTimeInNanos : System.nanoTime()) - startTimeInNanos;
+    }
+
+    /**
+     * Returns the status code of the MSS response (or of the fault) or NULL if none is known.
+     */
+    public StatusCode getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Returns the failure reason for a failed exchange or NULL for a completed one.
+     */
+    public FailureReason getFailureReason() {
+        return failureReason;
+    }
+
+    public boolean isSuccessful() {
+        return ended && failureReason == null;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private void end() {
+        ended = true;
+        endTimeInNanos = System.nanoTime();
+        recording.end(this);
+        if (span != null) {
+            endSpan();
+        }
+        metrics.exchangeCompleted(this);
+    }
+
+    private void endSpan() {
+        span.setAttribute("mid.operation", operation.name());
+        span.setAttribute("mid.protocol", protocol.name());
+        if (apTransId != null) {
+            span.setAttribute("mid.ap_trans_id", apTransId);
+        }
+        if (httpStatusCode != 0) {
+            span.setAttribute("http.status_code", String.valueOf(httpStatusCode));
+        }
+        if (statusCode != null) {
+            span.setAttribute("mid.status_code", statusCode.name());
+        }
+        span.recordPhase(TracingPhase.REQUEST_BUILDING, requestBuildingTimeInNanos);
+        span.recordPhase(TracingPhase.SERIALIZATION, serializationTimeInNanos);
+        span.recordPhase(TracingPhase.CONNECTION_LEASE, poolLeaseTimeInNanos);
+        span.recordPhase(TracingPhase.SEND_AND_WAIT, networkTimeInNanos);
+        span.recordPhase(TracingPhase.DESERIALIZATION, parsingTimeInNanos);
+        span.recordPhase(TracingPhase.RESPONSE_MAPPING, responseMappingTimeInNanos);
+        span.end();
+    }
+
+}
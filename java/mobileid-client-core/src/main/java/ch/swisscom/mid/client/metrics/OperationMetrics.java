@@ -0,0 +1,130 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import ch.swisscom.mid.client.config.ComProtocol;
+import ch.swisscom.mid.client.model.FailureReason;
+import ch.swisscom.mid.client.model.StatusCode;
+
+/**
+ * Metrics recorded for one MSS operation over one communication protocol: latency histogram, number of requests in
+ * flight and counters by the {@link StatusCode} of the completed requests and by the {@link FailureReason} of the
+ * failed ones.
+ */
+public class OperationMetrics {
+
+    private static final StatusCode[] STATUS_CODES = StatusCode.values();
+    private static final FailureReason[] FAILURE_REASONS = FailureReason.values();
+
+    private final MIDOperation operation;
+    private final ComProtocol protocol;
+    private final LatencyHistogram latencyHistogram = new LatencyHistogram();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLongArray statusCodeCounts = new AtomicLongArray(STATUS_CODES.length);
+    private final AtomicLongArray failureReasonCounts = new AtomicLongArray(FAILURE_REASONS.length);
+
+    OperationMetrics(MIDOperation operation, ComProtocol protocol) {
+        this.operation = operation;
+        this.protocol = protocol;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public MIDOperation getOperation() {
+        return operation;
+    }
+
+    public ComProtocol getProtocol() {
+        return protocol;
+    }
+
+    public LatencyHistogram getLatencyHistogram() {
+        return latencyHistogram;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getStatusCodeCount(StatusCode statusCode) {
+        return statusCodeCounts.get(statusCode.ordinal());
+    }
+
+    public long getFailureReasonCount(FailureReason failureReason) {
+        return failureReasonCounts.get(failureReason.ordinal());
+    }
+
+    /**
+     * Returns the non-zero counters by status code.
+     */
+    public Map<StatusCode, Long> getStatusCodeCounts() {
+        Map<StatusCode, Long> result = new EnumMap<>(StatusCode.class);
+        for (StatusCode statusCode : STATUS_CODES) {
+            long count = statusCodeCounts.get(statusCode.ordinal());
+            if (count > 0) {
+                result.put(statusCode, count);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the non-zero counters by failure reason.
+     */
+    public Map<FailureReason, Long> getFailureReasonCounts() {
+        Map<FailureReason, Long> result = new EnumMap<>(FailureReason.class);
+        for (FailureReason failureReason : FAILURE_REASONS) {
+            long count = failureReasonCounts.get(failureReason.ordinal());
+            if (count > 0) {
+                result.put(failureReason, count);
+            }
+        }
+        return result;
+    }
+
+    public void reset() {
+        latencyHistogram.reset();
+        for (int index = 0; index < STATUS_CODES.length; index++) {
+            statusCodeCounts.set(index, 0);
+        }
+        for (int index = 0; index < FAILURE_REASONS.length; index++) {
+            failureReasonCounts.set(index, 0);
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    void exchangeStarted() {
+        inFlight.incrementAndGet();
+    }
+
+    void exchangeCompleted(MssExchange exchange) {
+        inFlight.decrementAndGet();
+        latencyHistogram.recordNanos(exchange.getDurationInNanos());
+        if (exchange.getStatusCode() != null) {
+            statusCodeCounts.incrementAndGet(exchange.getStatusCode().ordinal());
+        }
+        if (exchange.getFailureReason() != null) {
+            failureReasonCounts.incrementAndGet(exchange.getFailureReason().ordinal());
+        }
+    }
+
+}
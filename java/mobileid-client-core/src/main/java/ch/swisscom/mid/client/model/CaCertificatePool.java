@@ -0,0 +1,106 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.model;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.X509Certificate;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The pool of the interned CA certificates (see {@link CertificateData#internCaCertificate(String, String)}), keyed by
+ * the SHA-256 fingerprint of their content. The Mobile ID service only uses a handful of CA certificates, so the pool
+ * is bounded by a generous maximum size: once it is reached (which would mean that something else than CA
+ * certificates is interned), new certificates are simply not shared.
+ */
+final class CaCertificatePool {
+
+    static final int MAXIMUM_SIZE = 1024;
+
+    private static final ConcurrentHashMap<String, SharedCertificate> POOL = new ConcurrentHashMap<>();
+
+    private CaCertificatePool() {
+    }
+
+    /**
+     * Returns the shared payload of the given certificate, creating it if needed, or NULL if the certificate is not
+     * shared (no valid content or pool full).
+     */
+    static SharedCertificate intern(String certificateAsBase64) {
+        String fingerprint = computeFingerprint(certificateAsBase64);
+        if (fingerprint == null) {
+            return null;
+        }
+        SharedCertificate result = POOL.get(fingerprint);
+        if (result != null) {
+            return result;
+        }
+        if (POOL.size() >= MAXIMUM_SIZE) {
+            return null;
+        }
+        return POOL.computeIfAbsent(fingerprint, ignored -> new SharedCertificate(certificateAsBase64));
+    }
+
+    static int size() {
+        return POOL.size();
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private static String computeFingerprint(String certificateAsBase64) {
+        if (certificateAsBase64 == null) {
+            return null;
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                                         .digest(Base64.getMimeDecoder().decode(certificateAsBase64));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (IllegalArgumentException | NoSuchAlgorithmException e) {
+            // not a valid certificate content; it is kept as it is, without interning
+            return null;
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    /**
+     * The content of one CA certificate and its parsed form (set on the first parsing), shared by all the
+     * {@link CertificateData} instances of that certificate.
+     */
+    static final class SharedCertificate {
+
+        private final String certificateAsBase64;
+        private volatile X509Certificate certificate;
+
+        private SharedCertificate(String certificateAsBase64) {
+            this.certificateAsBase64 = certificateAsBase64;
+        }
+
+        String getCertificateAsBase64() {
+            return certificateAsBase64;
+        }
+
+        X509Certificate getCertificate() {
+            return certificate;
+        }
+
+        void setCertificate(X509Certificate certificate) {
+            this.certificate = certificate;
+        }
+    }
+
+}
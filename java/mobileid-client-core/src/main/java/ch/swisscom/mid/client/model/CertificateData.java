@@ -1,11 +1,70 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
 package ch.swisscom.mid.client.model;
 
+import java.io.ByteArrayInputStream;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.Base64;
+
+/**
+ * An X.509 certificate, as returned by the profile query, with its subject name.
+ * <p>
+ * The CA certificates are the same for all the Mobile ID users, so the response processors intern them (see
+ * {@link #internCaCertificate(String, String)}): the instances of the same CA certificate then share its Base64
+ * content and its parsed form, and caching many profiles costs memory only for the per-user certificates. An interned
+ * instance is still a plain bean of its own; setting its content detaches it from the shared one.
+ */
 public class CertificateData {
 
     private String subjectName;
 
     private String certificateAsBase64;
 
+    /**
+     * The payload shared with the other instances of the same CA certificate, or NULL when not interned.
+     */
+    private CaCertificatePool.SharedCertificate sharedCertificate;
+
+    private volatile X509Certificate certificate;
+
+    /**
+     * Returns a certificate data for the given CA certificate, whose content (and parsed form, see
+     * {@link #toX509Certificate()}) is shared with all the other instances of the same certificate. CA certificates are
+     * identified by the SHA-256 fingerprint of their content.
+     */
+    public static CertificateData internCaCertificate(String subjectName, String certificateAsBase64) {
+        CertificateData result = new CertificateData();
+        result.subjectName = subjectName;
+        result.sharedCertificate = CaCertificatePool.intern(certificateAsBase64);
+        result.certificateAsBase64 = result.sharedCertificate == null
+                                     ? certificateAsBase64 : result.sharedCertificate.getCertificateAsBase64();
+        return result;
+    }
+
+    /**
+     * Returns the number of CA certificates currently interned.
+     */
+    public static int getInternedCaCertificateCount() {
+        return CaCertificatePool.size();
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
     public String getSubjectName() {
         return subjectName;
     }
@@ -20,6 +79,57 @@ public class CertificateData {
 
     public void setCertificateAsBase64(String certificateAsBase64) {
         this.certificateAsBase64 = certificateAsBase64;
+        this.sharedCertificate = null;
+        this.certificate = null;
+    }
+
+    /**
+     * Returns a copy of this certificate data. The copy of an interned CA certificate is interned as well, and a parsed
+     * certificate is reused, as {@link X509Certificate} instances are immutable.
+     */
+    public CertificateData copy() {
+        CertificateData result = new CertificateData();
+        result.subjectName = subjectName;
+        result.certificateAsBase64 = certificateAsBase64;
+        result.sharedCertificate = sharedCertificate;
+        result.certificate = certificate;
+        return result;
+    }
+
+    /**
+     * Returns this certificate as an {@link X509Certificate}. The certificate is parsed on the first call only; for an
+     * interned CA certificate, this means once for all the profile responses.
+     *
+     * @throws CertificateException if there is no certificate content or if it cannot be parsed
+     */
+    public X509Certificate toX509Certificate() throws CertificateException {
+        CaCertificatePool.SharedCertificate shared = sharedCertificate;
+        X509Certificate result = shared == null ? certificate : shared.getCertificate();
+        if (result == null) {
+            result = parse(subjectName, certificateAsBase64);
+            if (shared == null) {
+                certificate = result;
+            } else {
+                shared.setCertificate(result);
+            }
+        }
+        return result;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private static X509Certificate parse(String subjectName, String certificateAsBase64) throws CertificateException {
+        if (certificateAsBase64 == null) {
+            throw new CertificateException("The certificate data [" + subjectName + "] has no content");
+        }
+        byte[] encoded;
+        try {
+            encoded = Base64.getMimeDecoder().decode(certificateAsBase64);
+        } catch (IllegalArgumentException e) {
+            throw new CertificateException("The certificate data [" + subjectName + "] is not valid Base64", e);
+        }
+        return (X509Certificate) CertificateFactory.getInstance("X.509")
+                                                   .generateCertificate(new ByteArrayInputStream(encoded));
     }
 
     @Override
@@ -15,6 +15,7 @@
  */
 package ch.swisscom.mid.client.model;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class ProfileDeviceInfo {
@@ -49,6 +50,19 @@ public class ProfileDeviceInfo {
         this.certificates = certificates;
     }
 
+    public ProfileDeviceInfo copy() {
+        ProfileDeviceInfo result = new ProfileDeviceInfo();
+        result.state = state;
+        result.pinState = pinState;
+        if (certificates != null) {
+            result.certificates = new ArrayList<>(certificates.size());
+            for (ProfileMobileUserCertificate certificate : certificates) {
+                result.certificates.add(certificate == null ? null : certificate.copy());
+            }
+        }
+        return result;
+    }
+
     @Override
     public String toString() {
         return "ProfileDeviceInfo{" +
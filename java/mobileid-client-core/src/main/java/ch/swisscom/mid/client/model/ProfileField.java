@@ -0,0 +1,69 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The parts of a {@link ProfileResponse} that a projected profile request can ask for (see
+ * {@link ProfileRequest#setProjection(ProfileField...)}). Each field brings in the profile query extensions that the
+ * Mobile ID service needs for returning it; the parts of the response that are not part of the projection are neither
+ * requested nor mapped.
+ */
+public enum ProfileField implements DocumentedEnum {
+
+    SIGNATURE_PROFILES("The signature profiles supported by the mobile user (always returned by the service)"),
+    MOBILE_USER("The recovery code and auto-activation status of the mobile user",
+                ProfileQueryExtensions.RECOVERY_CODE_STATUS, ProfileQueryExtensions.AUTO_ACTIVATION_STATUS),
+    DEVICE_STATE("The SIM and App devices of the mobile user, with their states",
+                 ProfileQueryExtensions.SSCDS, ProfileQueryExtensions.ACCOUNT_STATE),
+    PIN_STATE("The PIN state of each device",
+              ProfileQueryExtensions.SSCDS, ProfileQueryExtensions.PIN_STATUS),
+    CERTIFICATES("The user and CA certificates of each device",
+                 ProfileQueryExtensions.SSCDS, ProfileQueryExtensions.CERTIFICATES);
+
+    private final String description;
+    private final List<String> extensionParams;
+
+    ProfileField(String description, String... extensionParams) {
+        this.description = description;
+        this.extensionParams = Collections.unmodifiableList(Arrays.asList(extensionParams));
+    }
+
+    @Override
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Returns the profile query extensions that the Mobile ID service needs for returning this field.
+     */
+    public List<String> getExtensionParams() {
+        return extensionParams;
+    }
+
+    /**
+     * Returns true if this field is part of the given projection. A NULL projection stands for a non-projected request,
+     * for which everything that the service returns is mapped.
+     */
+    public boolean isIncludedIn(Set<ProfileField> projection) {
+        return projection == null || projection.contains(this);
+    }
+
+}
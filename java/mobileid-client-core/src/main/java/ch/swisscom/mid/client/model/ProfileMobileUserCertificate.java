@@ -15,6 +15,7 @@
  */
 package ch.swisscom.mid.client.model;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class ProfileMobileUserCertificate {
@@ -59,6 +60,20 @@ public class ProfileMobileUserCertificate {
         this.caCertificates = caCertificates;
     }
 
+    public ProfileMobileUserCertificate copy() {
+        ProfileMobileUserCertificate result = new ProfileMobileUserCertificate();
+        result.state = state;
+        result.algorithm = algorithm;
+        result.userCertificate = userCertificate == null ? null : userCertificate.copy();
+        if (caCertificates != null) {
+            result.caCertificates = new ArrayList<>(caCertificates.size());
+            for (CertificateData caCertificate : caCertificates) {
+                result.caCertificates.add(caCertificate == null ? null : caCertificate.copy());
+            }
+        }
+        return result;
+    }
+
     @Override
     public String toString() {
         return "ProfileMobileUserCertificate{" +
@@ -37,6 +37,13 @@ public class ProfileMobileUserInfo {
         this.autoActivation = autoActivation;
     }
 
+    public ProfileMobileUserInfo copy() {
+        ProfileMobileUserInfo result = new ProfileMobileUserInfo();
+        result.recoveryCodeCreated = recoveryCodeCreated;
+        result.autoActivation = autoActivation;
+        return result;
+    }
+
     @Override
     public String toString() {
         return "ProfileMobileUserInfo{" +
@@ -16,7 +16,11 @@
 package ch.swisscom.mid.client.model;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import ch.swisscom.mid.client.config.DefaultConfiguration;
 import ch.swisscom.mid.client.config.TrafficObserver;
@@ -34,6 +38,8 @@ public class ProfileRequest {
 
     private List<String> extensionParams;
 
+    private Set<ProfileField> projection;
+
     private TrafficObserver trafficObserver;
 
     // ----------------------------------------------------------------------------------------------------
@@ -50,6 +56,7 @@ public class ProfileRequest {
     }
 
     public void setExtensionParamsToAllValues() {
+        projection = null;
         List<String> localExtensionParams = getExtensionParams();
         localExtensionParams.add(ProfileQueryExtensions.SSCDS);
         localExtensionParams.add(ProfileQueryExtensions.ACCOUNT_STATE);
@@ -59,6 +66,36 @@ public class ProfileRequest {
         localExtensionParams.add(ProfileQueryExtensions.AUTO_ACTIVATION_STATUS);
     }
 
+    /**
+     * Restricts this request to the given parts of the profile. The extension params are replaced with the minimal set
+     * of profile query extensions that the given fields need, and the response processors skip the mapping of all the
+     * other parts of the response. Use this instead of {@link #setExtensionParamsToAllValues()} when only a few fields
+     * are needed (e.g. the signature profiles and the PIN state on a login path); the certificates can still be
+     * fetched later with {@link ch.swisscom.mid.client.MIDClient#requestProfileCertificates(ProfileRequest)}.
+     */
+    public void setProjection(ProfileField... fields) {
+        Set<ProfileField> localProjection = EnumSet.noneOf(ProfileField.class);
+        Set<String> localExtensionParams = new LinkedHashSet<>();
+        for (ProfileField field : fields) {
+            localProjection.add(field);
+            localExtensionParams.addAll(field.getExtensionParams());
+        }
+        if (localExtensionParams.isEmpty()) {
+            // the service expects at least one extension; the account state is the lightest one
+            localExtensionParams.add(ProfileQueryExtensions.ACCOUNT_STATE);
+        }
+        projection = Collections.unmodifiableSet(localProjection);
+        extensionParams = new ArrayList<>(localExtensionParams);
+    }
+
+    /**
+     * Returns the projection of this request or NULL if the request is not projected (see
+     * {@link #setProjection(ProfileField...)}).
+     */
+    public Set<ProfileField> getProjection() {
+        return projection;
+    }
+
     public String getMajorVersion() {
         return majorVersion;
     }
@@ -94,6 +131,22 @@ public class ProfileRequest {
         this.trafficObserver = trafficObserver;
     }
 
+    /**
+     * Returns a copy of this profile request that notifies the given traffic observer instead of this one's. The copy shares
+     * its other parts with this profile request; the client uses it to wrap the observer for one call without changing the
+     * caller's bean.
+     */
+    public ProfileRequest withTrafficObserver(TrafficObserver trafficObserver) {
+        ProfileRequest result = new ProfileRequest();
+        result.majorVersion = majorVersion;
+        result.minorVersion = minorVersion;
+        result.mobileUser = mobileUser;
+        result.extensionParams = extensionParams;
+        result.projection = projection;
+        result.trafficObserver = trafficObserver;
+        return result;
+    }
+
     // ----------------------------------------------------------------------------------------------------
 
     public void validateYourself() {
@@ -113,6 +166,7 @@ public class ProfileRequest {
                ", minorVersion='" + minorVersion + '\'' +
                ", mobileUser=" + mobileUser +
                ", extensionParams=" + extensionParams +
+               ", projection=" + projection +
                ", trafficObserver=" + trafficObserver +
                '}';
     }
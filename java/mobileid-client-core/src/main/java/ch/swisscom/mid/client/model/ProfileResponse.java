@@ -15,6 +15,7 @@
  */
 package ch.swisscom.mid.client.model;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class ProfileResponse {
@@ -61,6 +62,30 @@ public class ProfileResponse {
         this.appDevices = appDevices;
     }
 
+    /**
+     * Returns a deep copy of this response, which can be changed without affecting this one. The certificates of the
+     * copy still share their content with the ones of this response, see {@link CertificateData#copy()}.
+     */
+    public ProfileResponse copy() {
+        ProfileResponse result = new ProfileResponse();
+        result.signatureProfiles = signatureProfiles == null ? null : new ArrayList<>(signatureProfiles);
+        result.mobileUser = mobileUser == null ? null : mobileUser.copy();
+        result.simDevices = copyDevices(simDevices);
+        result.appDevices = copyDevices(appDevices);
+        return result;
+    }
+
+    private static List<ProfileDeviceInfo> copyDevices(List<ProfileDeviceInfo> devices) {
+        if (devices == null) {
+            return null;
+        }
+        List<ProfileDeviceInfo> result = new ArrayList<>(devices.size());
+        for (ProfileDeviceInfo device : devices) {
+            result.add(device == null ? null : device.copy());
+        }
+        return result;
+    }
+
     // ----------------------------------------------------------------------------------------------------
 
     @Override
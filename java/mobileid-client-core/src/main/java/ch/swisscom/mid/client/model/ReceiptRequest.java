@@ -96,6 +96,22 @@ public class ReceiptRequest {
         this.trafficObserver = trafficObserver;
     }
 
+    /**
+     * Returns a copy of this receipt request that notifies the given traffic observer instead of this one's. The copy shares
+     * its other parts with this receipt request; the client uses it to wrap the observer for one call without changing the
+     * caller's bean.
+     */
+    public ReceiptRequest withTrafficObserver(TrafficObserver trafficObserver) {
+        ReceiptRequest result = new ReceiptRequest();
+        result.majorVersion = majorVersion;
+        result.minorVersion = minorVersion;
+        result.messageToBeDisplayed = messageToBeDisplayed;
+        result.statusCode = statusCode;
+        result.requestExtension = requestExtension;
+        result.trafficObserver = trafficObserver;
+        return result;
+    }
+
     // ----------------------------------------------------------------------------------------------------
 
     public void validateYourself() {
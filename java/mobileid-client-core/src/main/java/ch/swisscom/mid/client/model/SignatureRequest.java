@@ -43,6 +43,8 @@ public class SignatureRequest {
 
     private TrafficObserver trafficObserver;
 
+    private String correlationKey;
+
     // ----------------------------------------------------------------------------------------------------
 
     public void setUserLanguage(UserLanguage language) {
@@ -119,6 +121,38 @@ public class SignatureRequest {
         this.trafficObserver = trafficObserver;
     }
 
+    /**
+     * Returns a copy of this signature request that notifies the given traffic observer instead of this one's. The copy shares
+     * its other parts with this signature request; the client uses it to wrap the observer for one call without changing the
+     * caller's bean.
+     */
+    public SignatureRequest withTrafficObserver(TrafficObserver trafficObserver) {
+        SignatureRequest result = new SignatureRequest();
+        result.majorVersion = majorVersion;
+        result.minorVersion = minorVersion;
+        result.additionalServices.addAll(additionalServices);
+        result.dataToBeSigned = dataToBeSigned;
+        result.mobileUser = mobileUser;
+        result.userResponseTimeOutInSeconds = userResponseTimeOutInSeconds;
+        result.signatureProfile = signatureProfile;
+        result.trafficObserver = trafficObserver;
+        result.correlationKey = correlationKey;
+        return result;
+    }
+
+    public String getCorrelationKey() {
+        return correlationKey;
+    }
+
+    /**
+     * Sets an optional key of the caller's own (e.g. login session) transaction. The key is copied into the
+     * {@link SignatureTracking} of an async signature and recorded in the signature journal, if enabled, so that a
+     * signature recovered after a restart can be matched with the caller's transaction.
+     */
+    public void setCorrelationKey(String correlationKey) {
+        this.correlationKey = correlationKey;
+    }
+
     // ----------------------------------------------------------------------------------------------------
 
     public void validateYourself() {
@@ -156,6 +190,7 @@ public class SignatureRequest {
                ", userResponseTimeOutInSeconds=" + userResponseTimeOutInSeconds +
                ", signatureProfile='" + signatureProfile + '\'' +
                ", trafficObserver=" + trafficObserver +
+               ", correlationKey='" + correlationKey + '\'' +
                '}';
     }
 }
@@ -15,6 +15,8 @@
  */
 package ch.swisscom.mid.client.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import ch.swisscom.mid.client.config.DefaultConfiguration;
 import ch.swisscom.mid.client.config.TrafficObserver;
 
@@ -30,8 +32,26 @@ public class SignatureTracking {
 
     private String mobileUserMsisdn;
 
+    /**
+     * Moment (in epoch millis) after which the MSSP no longer waits for the user to answer the signature request.
+     * Zero when not known.
+     */
+    private long deadlineInMillis;
+
     private TrafficObserver trafficObserver;
 
+    /**
+     * W3C trace context of the span that started the signature, so that the spans of the status polls join the same
+     * trace. NULL when tracing is not enabled.
+     */
+    private String traceParent;
+
+    /**
+     * Key given by the caller in {@link SignatureRequest#setCorrelationKey(String)}, for matching a signature recovered
+     * from the journal with the caller's own transaction. NULL when not given.
+     */
+    private String correlationKey;
+
     // ----------------------------------------------------------------------------------------------------
 
     public String getTransactionId() {
@@ -66,6 +86,16 @@ public class SignatureTracking {
         this.mobileUserMsisdn = mobileUserMsisdn;
     }
 
+    @JsonIgnore
+    public long getDeadlineInMillis() {
+        return deadlineInMillis;
+    }
+
+    @JsonIgnore
+    public void setDeadlineInMillis(long deadlineInMillis) {
+        this.deadlineInMillis = deadlineInMillis;
+    }
+
     public TrafficObserver getTrafficObserver() {
         return trafficObserver;
     }
@@ -74,6 +104,44 @@ public class SignatureTracking {
         this.trafficObserver = trafficObserver;
     }
 
+    /**
+     * Returns a copy of this signature tracking that notifies the given traffic observer instead of this one's. The copy shares
+     * its other parts with this signature tracking; the client uses it to wrap the observer for one call without changing the
+     * caller's bean.
+     */
+    public SignatureTracking withTrafficObserver(TrafficObserver trafficObserver) {
+        SignatureTracking result = new SignatureTracking();
+        result.majorVersion = majorVersion;
+        result.minorVersion = minorVersion;
+        result.transactionId = transactionId;
+        result.mobileUserMsisdn = mobileUserMsisdn;
+        result.deadlineInMillis = deadlineInMillis;
+        result.trafficObserver = trafficObserver;
+        result.traceParent = traceParent;
+        result.correlationKey = correlationKey;
+        return result;
+    }
+
+    @JsonIgnore
+    public String getTraceParent() {
+        return traceParent;
+    }
+
+    @JsonIgnore
+    public void setTraceParent(String traceParent) {
+        this.traceParent = traceParent;
+    }
+
+    @JsonIgnore
+    public String getCorrelationKey() {
+        return correlationKey;
+    }
+
+    @JsonIgnore
+    public void setCorrelationKey(String correlationKey) {
+        this.correlationKey = correlationKey;
+    }
+
     // ----------------------------------------------------------------------------------------------------
 
     public void validateYourself() {
@@ -91,6 +159,9 @@ public class SignatureTracking {
                ", minorVersion='" + minorVersion + '\'' +
                ", transactionId='" + transactionId + '\'' +
                ", mobileUserMsisdn='" + mobileUserMsisdn + '\'' +
+               ", deadlineInMillis=" + deadlineInMillis +
+               ", traceParent='" + traceParent + '\'' +
+               ", correlationKey='" + correlationKey + '\'' +
                '}';
     }
 }
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.recorder;
+
+import java.io.Closeable;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import ch.swisscom.mid.client.config.ConfigurationException;
+
+/**
+ * Handler of an OS signal (e.g. "USR1"), installed via <code>sun.misc.Signal</code>. That API is internal to the JDK,
+ * so it is loaded by reflection: the client does not compile against it and fails with a configuration error (instead
+ * of a linkage error) on a JVM that does not have it. Closing the hook restores the previous handler of the signal.
+ */
+class SignalHook implements Closeable {
+
+    private final String signalName;
+    private final Method handleMethod;
+    private final Object signal;
+    private final Object previousHandler;
+
+    SignalHook(String signalName, Runnable action) {
+        this.signalName = signalName;
+        try {
+            Class<?> signalClass = Class.forName("sun.misc.Signal");
+            Class<?> handlerClass = Class.forName("sun.misc.SignalHandler");
+            handleMethod = signalClass.getMethod("handle", signalClass, handlerClass);
+            signal = signalClass.getConstructor(String.class).newInstance(signalName);
+            Object handler = Proxy.newProxyInstance(SignalHook.class.getClassLoader(), new Class<?>[]{handlerClass},
+                                                    (proxy, method, args) -> {
+                                                        if (method.getDeclaringClass() == Object.class) {
+                                                            return handleObjectMethod(proxy, method, args);
+                                                        }
+                                                        action.run();
+                                                        return null;
+                                                    });
+            previousHandler = handleMethod.invoke(null, signal, handler);
+        } catch (InvocationTargetException e) {
+            throw new ConfigurationException("Failed to handle signal " + signalName + ": " +
+                                             e.getCause().getMessage(), e.getCause());
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new ConfigurationException("Signal handling is not supported by this JVM, cannot handle signal " +
+                                             signalName, e);
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    @Override
+    public void close() {
+        try {
+            handleMethod.invoke(null, signal, previousHandler);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("Failed to restore the handler of signal " + signalName, e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Failed to restore the handler of signal " + signalName, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SIG" + signalName;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private Object handleObjectMethod(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                return "SignalHandler for " + this;
+        }
+    }
+
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.recorder;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import ch.swisscom.mid.client.config.ComProtocol;
+import ch.swisscom.mid.client.metrics.MIDOperation;
+import ch.swisscom.mid.client.model.FailureReason;
+import ch.swisscom.mid.client.model.StatusCode;
+
+/**
+ * One MSS exchange, as read back from the {@link TrafficRecorder}. The bodies are already redacted and may be
+ * truncated (see {@link #isTruncated()}).
+ */
+public class TrafficRecord {
+
+    private final long sequence;
+    private final long timestampInMillis;
+    private final long durationInNanos;
+    private final MIDOperation operation;
+    private final ComProtocol protocol;
+    private final int httpStatusCode;
+    private final StatusCode statusCode;
+    private final FailureReason failureReason;
+    private final String apTransId;
+    private final String mobileUserMsisdn;
+    private final String requestBody;
+    private final String responseBody;
+    private final boolean truncated;
+
+    TrafficRecord(long sequence, long timestampInMillis, long durationInNanos, MIDOperation operation, ComProtocol protocol,
+                  int httpStatusCode, StatusCode statusCode, FailureReason failureReason, String apTransId,
+                  String mobileUserMsisdn, String requestBody, String responseBody, boolean truncated) {
+        this.sequence = sequence;
+        this.timestampInMillis = timestampInMillis;
+        this.durationInNanos = durationInNanos;
+        this.operation = operation;
+        this.protocol = protocol;
+        this.httpStatusCode = httpStatusCode;
+        this.statusCode = statusCode;
+        this.failureReason = failureReason;
+        this.apTransId = apTransId;
+        this.mobileUserMsisdn = mobileUserMsisdn;
+        this.requestBody = requestBody;
+        this.responseBody = responseBody;
+        this.truncated = truncated;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    /**
+     * Returns the number of this exchange, counted from 1 since the recorder was created.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getTimestampInMillis() {
+        return timestampInMillis;
+    }
+
+    public long getDurationInMs() {
+        return TimeUnit.NANOSECONDS.toMillis(durationInNanos);
+    }
+
+    public MIDOperation getOperation() {
+        return operation;
+    }
+
+    public ComProtocol getProtocol() {
+        return protocol;
+    }
+
+    /**
+     * Returns the HTTP status code of the response or zero if it is not known.
+     */
+    public int getHttpStatusCode() {
+        return httpStatusCode;
+    }
+
+    public StatusCode getStatusCode() {
+        return statusCode;
+    }
+
+    public FailureReason getFailureReason() {
+        return failureReason;
+    }
+
+    public String getApTransId() {
+        return apTransId;
+    }
+
+    public String getMobileUserMsisdn() {
+        return mobileUserMsisdn;
+    }
+
+    public String getRequestBody() {
+        return requestBody;
+    }
+
+    public String getResponseBody() {
+        return responseBody;
+    }
+
+    /**
+     * Returns true if one of the bodies did not fit in the record and was cut.
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    @Override
+    public String toString() {
+        return "TrafficRecord{" +
+               "sequence=" + sequence +
+               ", timestamp=" + Instant.ofEpochMilli(timestampInMillis) +
+               ", durationInMs=" + getDurationInMs() +
+               ", operation=" + operation +
+               ", protocol=" + protocol +
+               ", httpStatusCode=" + httpStatusCode +
+               ", statusCode=" + statusCode +
+               ", failureReason=" + failureReason +
+               ", apTransId='" + apTransId + '\'' +
+               ", mobileUserMsisdn='" + mobileUserMsisdn + '\'' +
+               ", truncated=" + truncated +
+               ", requestBody=[" + requestBody + ']' +
+               ", responseBody=[" + responseBody + ']' +
+               '}';
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.recorder;
+
+import ch.swisscom.mid.client.model.StatusCode;
+
+/**
+ * Selects the records returned by the {@link TrafficRecorder}. The criteria that are not set (NULL) match any record;
+ * the ones that are set must all match.
+ */
+public class TrafficRecordFilter {
+
+    private String apTransId;
+    private String mobileUserMsisdn;
+    private StatusCode statusCode;
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public String getApTransId() {
+        return apTransId;
+    }
+
+    public void setApTransId(String apTransId) {
+        this.apTransId = apTransId;
+    }
+
+    public String getMobileUserMsisdn() {
+        return mobileUserMsisdn;
+    }
+
+    public void setMobileUserMsisdn(String mobileUserMsisdn) {
+        this.mobileUserMsisdn = mobileUserMsisdn;
+    }
+
+    public StatusCode getStatusCode() {
+        return statusCode;
+    }
+
+    public void setStatusCode(StatusCode statusCode) {
+        this.statusCode = statusCode;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public boolean matches(TrafficRecord record) {
+        return (apTransId == null || apTransId.equals(record.getApTransId())) &&
+               (mobileUserMsisdn == null || mobileUserMsisdn.equals(record.getMobileUserMsisdn())) &&
+               (statusCode == null || statusCode == record.getStatusCode());
+    }
+
+    @Override
+    public String toString() {
+        return "TrafficRecordFilter{" +
+               "apTransId='" + apTransId + '\'' +
+               ", mobileUserMsisdn='" + mobileUserMsisdn + '\'' +
+               ", statusCode=" + statusCode +
+               '}';
+    }
+
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.recorder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ch.swisscom.mid.client.config.ComProtocol;
+import ch.swisscom.mid.client.config.TrafficRecorderConfiguration;
+import ch.swisscom.mid.client.impl.Loggers;
+import ch.swisscom.mid.client.metrics.MIDOperation;
+import ch.swisscom.mid.client.metrics.MetricsRegistry;
+import ch.swisscom.mid.client.metrics.MssExchange;
+import ch.swisscom.mid.client.model.FailureReason;
+import ch.swisscom.mid.client.model.StatusCode;
+
+/**
+ * Flight recorder for the MSS traffic: keeps the last N exchanges of a client in a direct (off-heap) buffer of fixed
+ * size, cut in N slots of equal size that are overwritten in a ring. The recorder gets the exchanges as a
+ * {@link MetricsRegistry}, redacts their bodies (see {@link TrafficRedactor}) and copies them in the next slot, so the
+ * cost of an exchange is one pass over its bodies and no retained heap.
+ * <p>
+ * Slot layout: sequence (long, 0 = empty), timestamp (long), duration in nanos (long), status code (int, -1 = none),
+ * HTTP status code (short), operation (byte), protocol (byte), failure reason (byte, -1 = none), flags (byte), then the
+ * APTransID, the MSISDN, the request body and the response body, each as its length (int) followed by its UTF-8 bytes.
+ * Each slot is guarded by its own lock, so the writers of different exchanges never wait for each other.
+ */
+public class TrafficRecorder implements MetricsRegistry, Closeable {
+
+    private static final Logger logRecorder = LoggerFactory.getLogger(Loggers.LOGGER_TRAFFIC_RECORDER);
+    private static final Logger logClient = LoggerFactory.getLogger(Loggers.LOGGER_CLIENT);
+
+    private static final int OFFSET_SEQUENCE = 0;
+    private static final int OFFSET_TIMESTAMP = 8;
+    private static final int OFFSET_DURATION = 16;
+    private static final int OFFSET_STATUS_CODE = 24;
+    private static final int OFFSET_HTTP_STATUS_CODE = 28;
+    private static final int OFFSET_OPERATION = 30;
+    private static final int OFFSET_PROTOCOL = 31;
+    private static final int OFFSET_FAILURE_REASON = 32;
+    private static final int OFFSET_FLAGS = 33;
+    private static final int OFFSET_STRINGS = 34;
+
+    private static final int FLAG_TRUNCATED = 1;
+    private static final int MAX_ID_LENGTH = 128;
+
+    private static final MIDOperation[] OPERATIONS = MIDOperation.values();
+    private static final ComProtocol[] PROTOCOLS = ComProtocol.values();
+    private static final FailureReason[] FAILURE_REASONS = FailureReason.values();
+
+    private final ByteBuffer buffer;
+    private final int recordCount;
+    private final int recordSize;
+    private final Object[] slotLocks;
+    private final AtomicLong lastSequence = new AtomicLong();
+    private final SignalHook dumpSignalHook;
+
+    public TrafficRecorder(TrafficRecorderConfiguration config) {
+        this.recordCount = config.getRecordCount();
+        this.recordSize = config.getRecordSizeInBytes();
+        this.buffer = ByteBuffer.allocateDirect(recordCount * recordSize);
+        this.slotLocks = new Object[recordCount];
+        for (int index = 0; index < recordCount; index++) {
+            slotLocks[index] = new Object();
+        }
+        dumpSignalHook = config.getDumpSignal() == null ? null : new SignalHook(config.getDumpSignal(), this::dumpToLog);
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    @Override
+    public void exchangeCompleted(MssExchange exchange) {
+        byte[] apTransId = truncatedBytesOf(exchange.getApTransId());
+        byte[] msisdn = truncatedBytesOf(exchange.getMobileUserMsisdn());
+        byte[] requestBody = bytesOf(TrafficRedactor.redact(exchange.getRequestBody()));
+        byte[] responseBody = bytesOf(TrafficRedactor.redact(exchange.getResponseBody()));
+
+        int available = recordSize - OFFSET_STRINGS - 4 * 4 - lengthOf(apTransId) - lengthOf(msisdn);
+        int requestLength = Math.min(lengthOf(requestBody), Math.max(available / 2, available - lengthOf(responseBody)));
+        requestLength = utf8Boundary(requestBody, requestLength);
+        int responseLength = utf8Boundary(responseBody, Math.min(lengthOf(responseBody), available - requestLength));
+        boolean truncated = requestLength < lengthOf(requestBody) || responseLength < lengthOf(responseBody);
+
+        long sequence = lastSequence.incrementAndGet();
+        int slot = (int) ((sequence - 1) % recordCount);
+        int base = slot * recordSize;
+        StatusCode statusCode = exchange.getStatusCode();
+        FailureReason failureReason = exchange.getFailureReason();
+        synchronized (slotLocks[slot]) {
+            ByteBuffer view = buffer.duplicate();
+            if (view.getLong(base + OFFSET_SEQUENCE) > sequence) {
+                // this writer stalled for a whole round of the ring, the slot already holds a newer exchange
+                return;
+            }
+            view.putLong(base + OFFSET_SEQUENCE, sequence);
+            view.putLong(base + OFFSET_TIMESTAMP, System.currentTimeMillis());
+            view.putLong(base + OFFSET_DURATION, exchange.getDurationInNanos());
+            view.putInt(base + OFFSET_STATUS_CODE, statusCode == null ? -1 : statusCode.getCode());
+            view.putShort(base + OFFSET_HTTP_STATUS_CODE, (short) exchange.getHttpStatusCode());
+            view.put(base + OFFSET_OPERATION, (byte) exchange.getOperation().ordinal());
+            view.put(base + OFFSET_PROTOCOL, (byte) exchange.getProtocol().ordinal());
+            view.put(base + OFFSET_FAILURE_REASON, (byte) (failureReason == null ? -1 : failureReason.ordinal()));
+            view.put(base + OFFSET_FLAGS, (byte) (truncated ? FLAG_TRUNCATED : 0));
+            ((Buffer) view).position(base + OFFSET_STRINGS);
+            putString(view, apTransId, lengthOf(apTransId));
+            putString(view, msisdn, lengthOf(msisdn));
+            putString(view, requestBody, requestLength);
+            putString(view, responseBody, responseLength);
+        }
+    }
+
+    /**
+     * Returns the recorded exchanges that match the given filter (all of them if the filter is NULL), oldest first.
+     */
+    public List<TrafficRecord> getRecords(TrafficRecordFilter filter) {
+        long last = lastSequence.get();
+        List<TrafficRecord> result = new ArrayList<>();
+        for (long sequence = Math.max(1, last - recordCount + 1); sequence <= last; sequence++) {
+            TrafficRecord record = readRecord(sequence);
+            if (record != null && (filter == null || filter.matches(record))) {
+                result.add(record);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the recorded exchanges that match the given filter as text, one record per line, oldest first.
+     */
+    public String dump(TrafficRecordFilter filter) {
+        StringBuilder result = new StringBuilder();
+        for (TrafficRecord record : getRecords(filter)) {
+            result.append(record).append('\n');
+        }
+        return result.toString();
+    }
+
+    /**
+     * Writes all the recorded exchanges to the traffic recorder logger, at INFO level.
+     */
+    public void dumpToLog() {
+        List<TrafficRecord> records = getRecords(null);
+        logRecorder.info("Dumping the last {} recorded MSS exchanges", records.size());
+        for (TrafficRecord record : records) {
+            logRecorder.info("{}", record);
+        }
+    }
+
+    /**
+     * Returns the total number of exchanges recorded since the recorder was created, including the overwritten ones.
+     */
+    public long getRecordedCount() {
+        return lastSequence.get();
+    }
+
+    public int getCapacityInBytes() {
+        return buffer.capacity();
+    }
+
+    @Override
+    public void close() {
+        if (dumpSignalHook != null) {
+            try {
+                dumpSignalHook.close();
+            } catch (IllegalStateException e) {
+                logClient.warn("Failed to restore the handler of signal {}", dumpSignalHook, e);
+            }
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private TrafficRecord readRecord(long sequence) {
+        int slot = (int) ((sequence - 1) % recordCount);
+        int base = slot * recordSize;
+        synchronized (slotLocks[slot]) {
+            ByteBuffer view = buffer.duplicate();
+            if (view.getLong(base + OFFSET_SEQUENCE) != sequence) {
+                // overwritten by a newer exchange in the meantime
+                return null;
+            }
+            int statusCode = view.getInt(base + OFFSET_STATUS_CODE);
+            byte failureReason = view.get(base + OFFSET_FAILURE_REASON);
+            ((Buffer) view).position(base + OFFSET_STRINGS);
+            String apTransId = getString(view);
+            String msisdn = getString(view);
+            String requestBody = getString(view);
+            String responseBody = getString(view);
+            return new TrafficRecord(sequence,
+                                     view.getLong(base + OFFSET_TIMESTAMP),
+                                     view.getLong(base + OFFSET_DURATION),
+                                     OPERATIONS[view.get(base + OFFSET_OPERATION)],
+                                     PROTOCOLS[view.get(base + OFFSET_PROTOCOL)],
+                                     view.getShort(base + OFFSET_HTTP_STATUS_CODE),
+                                     statusCode < 0 ? null : StatusCode.getByStatusCodeValue(statusCode),
+                                     failureReason < 0 ? null : FAILURE_REASONS[failureReason],
+                                     apTransId, msisdn, requestBody, responseBody,
+                                     (view.get(base + OFFSET_FLAGS) & FLAG_TRUNCATED) != 0);
+        }
+    }
+
+    private static void putString(ByteBuffer view, byte[] value, int length) {
+        if (value == null) {
+            view.putInt(-1);
+            return;
+        }
+        view.putInt(length);
+        view.put(value, 0, length);
+    }
+
+    private static String getString(ByteBuffer view) {
+        int length = view.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        view.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytesOf(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int lengthOf(byte[] value) {
+        return value == null ? 0 : value.length;
+    }
+
+    private static byte[] truncatedBytesOf(String value) {
+        byte[] result = bytesOf(value);
+        if (result == null || result.length <= MAX_ID_LENGTH) {
+            return result;
+        }
+        byte[] truncated = new byte[utf8Boundary(result, MAX_ID_LENGTH)];
+        System.arraycopy(result, 0, truncated, 0, truncated.length);
+        return truncated;
+    }
+
+    /**
+     * Moves the given cut position back to the start of a UTF-8 character, so that no character is cut in two.
+     */
+    private static int utf8Boundary(byte[] value, int length) {
+        int result = Math.max(0, length);
+        while (result > 0 && result < lengthOf(value) && (value[result] & 0xC0) == 0x80) {
+            result--;
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.recorder;
+
+/**
+ * Removes the secrets and the bulky contents from a request or response body, in one pass over its characters: the
+ * value of the AP_PWD field (JSON) or attribute (SOAP) becomes "***" and each run of 1000 or more Base64 characters
+ * (signatures, certificates, receipts) becomes "...".
+ */
+final class TrafficRedactor {
+
+    private static final String PASSWORD_KEY = "AP_PWD";
+    private static final String PASSWORD_REPLACEMENT = "***";
+    private static final int LARGE_BASE64_THRESHOLD = 1000;
+    private static final String LARGE_BASE64_REPLACEMENT = "...";
+
+    private TrafficRedactor() {
+        // static utility
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    static String redact(String body) {
+        if (body == null) {
+            return null;
+        }
+        int length = body.length();
+        StringBuilder result = new StringBuilder(Math.min(length, 16 * 1024));
+        int runStartInResult = -1;
+        int index = 0;
+        while (index < length) {
+            char current = body.charAt(index);
+            if (current == 'A' && body.startsWith(PASSWORD_KEY, index)) {
+                runStartInResult = endBase64Run(result, runStartInResult);
+                index = copyRedactedPassword(body, index, result);
+                continue;
+            }
+            if (isBase64Char(current)) {
+                if (runStartInResult < 0) {
+                    runStartInResult = result.length();
+                }
+            } else {
+                runStartInResult = endBase64Run(result, runStartInResult);
+            }
+            result.append(current);
+            index++;
+        }
+        endBase64Run(result, runStartInResult);
+        return result.toString();
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    /**
+     * Copies the key, the separator and the quotes of the password field, but not its value. Returns the index of the
+     * first character after the copied (or skipped) part.
+     */
+    private static int copyRedactedPassword(String body, int keyIndex, StringBuilder result) {
+        int index = keyIndex + PASSWORD_KEY.length();
+        result.append(PASSWORD_KEY);
+        // expect ": " or "=" (possibly with a closing quote and blanks) before the opening quote of the value
+        int separatorLimit = Math.min(body.length(), index + 4);
+        int separator = -1;
+        for (int cursor = index; cursor < separatorLimit; cursor++) {
+            char current = body.charAt(cursor);
+            if (current == ':' || current == '=') {
+                separator = cursor;
+                break;
+            }
+        }
+        if (separator < 0) {
+            return index;
+        }
+        int openingQuote = body.indexOf('"', separator);
+        if (openingQuote < 0 || openingQuote > separator + 4) {
+            return index;
+        }
+        int closingQuote = body.indexOf('"', openingQuote + 1);
+        if (closingQuote < 0) {
+            closingQuote = body.length();
+        }
+        result.append(body, index, openingQuote + 1).append(PASSWORD_REPLACEMENT);
+        return closingQuote;
+    }
+
+    private static int endBase64Run(StringBuilder result, int runStartInResult) {
+        if (runStartInResult >= 0 && result.length() - runStartInResult >= LARGE_BASE64_THRESHOLD) {
+            result.setLength(runStartInResult);
+            result.append(LARGE_BASE64_REPLACEMENT);
+        }
+        return -1;
+    }
+
+    private static boolean isBase64Char(char value) {
+        return (value >= 'A' && value <= 'Z') || (value >= 'a' && value <= 'z') || (value >= '0' && value <= '9') ||
+               value == '+' || value == '/' || value == '=' || value == '_' || value == '-';
+    }
+
+}
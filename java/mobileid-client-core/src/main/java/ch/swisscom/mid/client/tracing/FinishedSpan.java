@@ -0,0 +1,114 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.tracing;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An ended span, as kept by the {@link InMemoryTracer}.
+ */
+public class FinishedSpan {
+
+    private final String name;
+    private final String traceId;
+    private final String spanId;
+    private final String parentSpanId;
+    private final long durationInNanos;
+    private final Map<String, String> attributes;
+    private final Map<TracingPhase, Long> phaseDurations;
+    private final Throwable failure;
+
+    FinishedSpan(String name, String traceId, String spanId, String parentSpanId, long durationInNanos,
+                 Map<String, String> attributes, Map<TracingPhase, Long> phaseDurations, Throwable failure) {
+        this.name = name;
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.durationInNanos = durationInNanos;
+        this.attributes = Collections.unmodifiableMap(new LinkedHashMap<>(attributes));
+        this.phaseDurations = Collections.unmodifiableMap(phaseDurations.isEmpty() ?
+                                                          new EnumMap<>(TracingPhase.class) :
+                                                          new EnumMap<>(phaseDurations));
+        this.failure = failure;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public String getName() {
+        return name;
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    /**
+     * Returns the ID of the parent span or NULL for the root span of a trace.
+     */
+    public String getParentSpanId() {
+        return parentSpanId;
+    }
+
+    public long getDurationInNanos() {
+        return durationInNanos;
+    }
+
+    public Map<String, String> getAttributes() {
+        return attributes;
+    }
+
+    public String getAttribute(String key) {
+        return attributes.get(key);
+    }
+
+    /**
+     * Returns the recorded duration of each phase; phases that were not recorded are absent.
+     */
+    public Map<TracingPhase, Long> getPhaseDurations() {
+        return phaseDurations;
+    }
+
+    /**
+     * Returns the error recorded on the span or NULL if the span did not fail.
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    @Override
+    public String toString() {
+        return "FinishedSpan{" +
+               "name='" + name + '\'' +
+               ", traceId='" + traceId + '\'' +
+               ", spanId='" + spanId + '\'' +
+               ", parentSpanId='" + parentSpanId + '\'' +
+               ", durationInNanos=" + durationInNanos +
+               ", attributes=" + attributes +
+               ", phaseDurations=" + phaseDurations +
+               ", failure=" + failure +
+               '}';
+    }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.tracing;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Tracer that keeps the finished spans in memory, for inspecting them in tests. It is not meant for production use, as
+ * the finished spans are kept until {@link #clear()} is called.
+ */
+public class InMemoryTracer implements Tracer {
+
+    private static final String TRACE_PARENT_VERSION = "00";
+    private static final String TRACE_FLAGS_SAMPLED = "01";
+
+    private final ConcurrentLinkedQueue<FinishedSpan> finishedSpans = new ConcurrentLinkedQueue<>();
+
+    @Override
+    public Span startSpan(String name, String parentTraceParent) {
+        String[] parentParts = parentTraceParent == null ? null : parentTraceParent.split("-");
+        if (parentParts != null && parentParts.length == 4 && parentParts[1].length() == 32 && parentParts[2].length() == 16) {
+            return new InMemorySpan(name, parentParts[1], parentParts[2]);
+        }
+        return new InMemorySpan(name, randomHex(2), null);
+    }
+
+    /**
+     * Returns the spans finished so far, in the order in which they ended.
+     */
+    public List<FinishedSpan> getFinishedSpans() {
+        return new ArrayList<>(finishedSpans);
+    }
+
+    public List<FinishedSpan> getFinishedSpans(String name) {
+        return finishedSpans.stream().filter(span -> span.getName().equals(name)).collect(Collectors.toList());
+    }
+
+    public void clear() {
+        finishedSpans.clear();
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private static String randomHex(int longCount) {
+        StringBuilder result = new StringBuilder(longCount * 16);
+        for (int index = 0; index < longCount; index++) {
+            String hex = Long.toHexString(ThreadLocalRandom.current().nextLong());
+            for (int padding = hex.length(); padding < 16; padding++) {
+                result.append('0');
+            }
+            result.append(hex);
+        }
+        return result.toString();
+    }
+
+    private class InMemorySpan implements Span {
+
+        private final String name;
+        private final String traceId;
+        private final String spanId = randomHex(1);
+        private final String parentSpanId;
+        private final long startTimeInNanos = System.nanoTime();
+        private final Map<String, String> attributes = new LinkedHashMap<>();
+        private final Map<TracingPhase, Long> phaseDurations = new EnumMap<>(TracingPhase.class);
+        private Throwable failure;
+        private boolean ended;
+
+        private InMemorySpan(String name, String traceId, String parentSpanId) {
+            this.name = name;
+            this.traceId = traceId;
+            this.parentSpanId = parentSpanId;
+        }
+
+        @Override
+        public String getTraceParent() {
+            return TRACE_PARENT_VERSION + "-" + traceId + "-" + spanId + "-" + TRACE_FLAGS_SAMPLED;
+        }
+
+        @Override
+        public Span startChild(String childName) {
+            return new InMemorySpan(childName, traceId, spanId);
+        }
+
+        @Override
+        public void setAttribute(String key, String value) {
+            attributes.put(key, value);
+        }
+
+        @Override
+        public void recordPhase(TracingPhase phase, long durationInNanos) {
+            phaseDurations.merge(phase, durationInNanos, Long::sum);
+        }
+
+        @Override
+        public void recordFailure(Throwable failure) {
+            this.failure = failure;
+        }
+
+        @Override
+        public void end() {
+            if (ended) {
+                return;
+            }
+            ended = true;
+            finishedSpans.add(new FinishedSpan(name, traceId, spanId, parentSpanId, System.nanoTime() - startTimeInNanos,
+                                               attributes, phaseDurations, failure));
+        }
+    }
+
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.tracing;
+
+/**
+ * The default tracer, which records nothing. When it is configured, the client skips the tracing calls altogether.
+ */
+public final class NoopTracer implements Tracer {
+
+    public static final NoopTracer INSTANCE = new NoopTracer();
+
+    private static final Span NOOP_SPAN = new Span() {
+        @Override
+        public String getTraceParent() {
+            return null;
+        }
+
+        @Override
+        public Span startChild(String name) {
+            return this;
+        }
+
+        @Override
+        public void setAttribute(String key, String value) {
+            // nothing to record
+        }
+
+        @Override
+        public void recordPhase(TracingPhase phase, long durationInNanos) {
+            // nothing to record
+        }
+
+        @Override
+        public void recordFailure(Throwable failure) {
+            // nothing to record
+        }
+
+        @Override
+        public void end() {
+            // nothing to record
+        }
+    };
+
+    private NoopTracer() {
+    }
+
+    @Override
+    public Span startSpan(String name, String parentTraceParent) {
+        return NOOP_SPAN;
+    }
+
+    @Override
+    public String toString() {
+        return "NoopTracer";
+    }
+
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.tracing;
+
+/**
+ * One unit of traced work. A span is started by a {@link Tracer} (or by its parent span) and must be ended exactly once.
+ * Spans are used by a single thread at a time.
+ */
+public interface Span {
+
+    /**
+     * Returns the context of this span in the W3C {@code traceparent} format (e.g.
+     * {@code 00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01}), so that it can be carried to later calls.
+     */
+    String getTraceParent();
+
+    /**
+     * Starts a child span of this span, in the same trace.
+     */
+    Span startChild(String name);
+
+    void setAttribute(String key, String value);
+
+    /**
+     * Records the time spent by this span in one of the phases of an MSS exchange. A phase can be recorded more than
+     * once; the durations add up.
+     */
+    void recordPhase(TracingPhase phase, long durationInNanos);
+
+    /**
+     * Marks this span as failed, with the given error.
+     */
+    void recordFailure(Throwable failure);
+
+    void end();
+
+}
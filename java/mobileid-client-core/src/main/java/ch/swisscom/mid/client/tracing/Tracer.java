@@ -0,0 +1,36 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.tracing;
+
+/**
+ * Entry point of the tracing SPI. When a tracer is set in the client configuration, the client opens one span for each
+ * call made through it, with one child span for each MSS exchange that the call triggers. Adapters to tracing libraries
+ * (e.g. OpenTelemetry) implement this interface and {@link Span}.
+ */
+public interface Tracer {
+
+    /**
+     * Starts a new span.
+     *
+     * @param name              the name of the span
+     * @param parentTraceParent the W3C trace context ({@code traceparent} header format) of the parent span, e.g. the one
+     *                          stored in a {@link ch.swisscom.mid.client.model.SignatureTracking}, or NULL to start a
+     *                          new trace
+     * @return the started span; never NULL
+     */
+    Span startSpan(String name, String parentTraceParent);
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.tracing;
+
+import java.util.function.Supplier;
+
+/**
+ * Holds the span that is current on each thread, so that the communication protocol implementations can attach the
+ * spans of their MSS exchanges to the span of the client call that triggered them.
+ */
+public final class TracingContext {
+
+    private static final ThreadLocal<Span> CURRENT_SPAN = new ThreadLocal<>();
+
+    private TracingContext() {
+    }
+
+    /**
+     * Returns the span current on this thread or NULL if there is none.
+     */
+    public static Span current() {
+        return CURRENT_SPAN.get();
+    }
+
+    /**
+     * Makes the given span current on this thread and returns the previously current one, which must be given back to
+     * {@link #restore(Span)} when the span's work is done.
+     */
+    public static Span activate(Span span) {
+        Span previous = CURRENT_SPAN.get();
+        CURRENT_SPAN.set(span);
+        return previous;
+    }
+
+    public static void restore(Span previous) {
+        if (previous == null) {
+            CURRENT_SPAN.remove();
+        } else {
+            CURRENT_SPAN.set(previous);
+        }
+    }
+
+    /**
+     * Wraps the given call so that it runs with the span that is current on this thread, whichever thread runs it.
+     */
+    public static <T> Supplier<T> propagate(Supplier<T> call) {
+        Span span = current();
+        if (span == null) {
+            return call;
+        }
+        return () -> {
+            Span previous = activate(span);
+            try {
+                return call.get();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.tracing;
+
+/**
+ * The phases of one MSS exchange, as recorded on its span via {@link Span#recordPhase(TracingPhase, long)}.
+ */
+public enum TracingPhase {
+
+    /**
+     * Building the MSS request model from the client request.
+     */
+    REQUEST_BUILDING,
+
+    /**
+     * Serializing the MSS request to JSON (REST only; for SOAP, JAX-WS does it as part of {@link #SEND_AND_WAIT}).
+     */
+    SERIALIZATION,
+
+    /**
+     * Waiting for a pooled connection (or SOAP port), including opening a new one when the pool had none available.
+     */
+    CONNECTION_LEASE,
+
+    /**
+     * Sending the request and waiting for the response of the MSS.
+     */
+    SEND_AND_WAIT,
+
+    /**
+     * Parsing the JSON response (REST only; for SOAP, JAX-WS does it as part of {@link #SEND_AND_WAIT}).
+     */
+    DESERIALIZATION,
+
+    /**
+     * Mapping the MSS response model to the client response.
+     */
+    RESPONSE_MAPPING
+
+}
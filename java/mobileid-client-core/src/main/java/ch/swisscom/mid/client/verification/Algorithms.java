@@ -0,0 +1,73 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.verification;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps the algorithm identifiers found in the CMS signatures and OCSP responses to the JCA algorithm names. Only the
+ * SHA-2 digests with RSA or ECDSA signatures are known here; anything else is rejected as unsupported.
+ */
+final class Algorithms {
+
+    private static final String OID_RSA_ENCRYPTION = "1.2.840.113549.1.1.1";
+    private static final String OID_EC_PUBLIC_KEY = "1.2.840.10045.2.1";
+
+    private static final Map<String, String> DIGEST_NAMES = new HashMap<>();
+    private static final Map<String, String> SIGNATURE_NAMES = new HashMap<>();
+
+    static {
+        DIGEST_NAMES.put("2.16.840.1.101.3.4.2.1", "SHA-256");
+        DIGEST_NAMES.put("2.16.840.1.101.3.4.2.2", "SHA-384");
+        DIGEST_NAMES.put("2.16.840.1.101.3.4.2.3", "SHA-512");
+        DIGEST_NAMES.put("2.16.840.1.101.3.4.2.4", "SHA-224");
+
+        SIGNATURE_NAMES.put("1.2.840.113549.1.1.11", "SHA256withRSA");
+        SIGNATURE_NAMES.put("1.2.840.113549.1.1.12", "SHA384withRSA");
+        SIGNATURE_NAMES.put("1.2.840.113549.1.1.13", "SHA512withRSA");
+        SIGNATURE_NAMES.put("1.2.840.113549.1.1.14", "SHA224withRSA");
+        SIGNATURE_NAMES.put("1.2.840.10045.4.3.1", "SHA224withECDSA");
+        SIGNATURE_NAMES.put("1.2.840.10045.4.3.2", "SHA256withECDSA");
+        SIGNATURE_NAMES.put("1.2.840.10045.4.3.3", "SHA384withECDSA");
+        SIGNATURE_NAMES.put("1.2.840.10045.4.3.4", "SHA512withECDSA");
+    }
+
+    private Algorithms() {
+    }
+
+    /**
+     * Returns the JCA name of the given digest algorithm or NULL if it is not supported.
+     */
+    static String getDigestName(String digestAlgorithm) {
+        return DIGEST_NAMES.get(digestAlgorithm);
+    }
+
+    /**
+     * Returns the JCA name of the given signature algorithm or NULL if it is not supported. In CMS, the signature
+     * algorithm can also be given as the bare key algorithm, in which case the digest algorithm completes it.
+     */
+    static String getSignatureName(String signatureAlgorithm, String digestName) {
+        if (digestName != null && OID_RSA_ENCRYPTION.equals(signatureAlgorithm)) {
+            return digestName.replace("-", "") + "withRSA";
+        }
+        if (digestName != null && OID_EC_PUBLIC_KEY.equals(signatureAlgorithm)) {
+            return digestName.replace("-", "") + "withECDSA";
+        }
+        return SIGNATURE_NAMES.get(signatureAlgorithm);
+    }
+
+}
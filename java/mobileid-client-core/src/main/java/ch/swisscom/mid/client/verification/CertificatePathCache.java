@@ -0,0 +1,104 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.verification;
+
+import java.security.cert.X509Certificate;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of the validated certificate paths, keyed by the SHA-256 fingerprint of the validated (end entity)
+ * certificate. An entry expires after the configured time to live or when the first certificate of its path expires,
+ * whichever comes first. Each entry remembers the generation of the revocation data it was checked against.
+ * <p>
+ * When the cache is full, the expired entries are evicted; if this does not free any room, new paths are simply not
+ * cached until some entries expire.
+ */
+final class CertificatePathCache {
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final int maximumSize;
+    private final long timeToLiveInMs;
+
+    CertificatePathCache(int maximumSize, long timeToLiveInMs) {
+        this.maximumSize = maximumSize;
+        this.timeToLiveInMs = timeToLiveInMs;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    Entry get(String fingerprint, long now) {
+        Entry entry = entries.get(fingerprint);
+        if (entry != null && entry.expiresAt <= now) {
+            entries.remove(fingerprint, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    void put(String fingerprint, List<X509Certificate> path, long revocationGeneration, long now) {
+        if (entries.size() >= maximumSize && !entries.containsKey(fingerprint)) {
+            entries.values().removeIf(entry -> entry.expiresAt <= now);
+            if (entries.size() >= maximumSize) {
+                return;
+            }
+        }
+        long expiresAt = now + timeToLiveInMs;
+        for (X509Certificate certificate : path) {
+            expiresAt = Math.min(expiresAt, certificate.getNotAfter().getTime());
+        }
+        entries.put(fingerprint, new Entry(path, revocationGeneration, expiresAt));
+    }
+
+    /**
+     * Records that the given entry was checked again against a newer generation of the revocation data.
+     */
+    void updateRevocationGeneration(String fingerprint, Entry entry, long revocationGeneration) {
+        entries.replace(fingerprint, entry, new Entry(entry.path, revocationGeneration, entry.expiresAt));
+    }
+
+    void remove(String fingerprint) {
+        entries.remove(fingerprint);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    static final class Entry {
+
+        private final List<X509Certificate> path;
+        private final long revocationGeneration;
+        private final long expiresAt;
+
+        private Entry(List<X509Certificate> path, long revocationGeneration, long expiresAt) {
+            this.path = path;
+            this.revocationGeneration = revocationGeneration;
+            this.expiresAt = expiresAt;
+        }
+
+        List<X509Certificate> getPath() {
+            return path;
+        }
+
+        long getRevocationGeneration() {
+            return revocationGeneration;
+        }
+    }
+
+}
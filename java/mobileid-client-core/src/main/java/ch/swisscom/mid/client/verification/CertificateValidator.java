@@ -0,0 +1,348 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.verification;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.cert.CertPathBuilder;
+import java.security.cert.CertPathBuilderException;
+import java.security.cert.CertStore;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.CollectionCertStoreParameters;
+import java.security.cert.PKIXBuilderParameters;
+import java.security.cert.PKIXCertPathBuilderResult;
+import java.security.cert.TrustAnchor;
+import java.security.cert.X509CertSelector;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ch.swisscom.mid.client.config.ConfigurationException;
+import ch.swisscom.mid.client.config.SignatureVerificationConfiguration;
+import ch.swisscom.mid.client.impl.Loggers;
+import ch.swisscom.mid.client.model.CertificateData;
+import ch.swisscom.mid.client.model.ProfileMobileUserCertificate;
+
+/**
+ * Validates X.509 certificate chains against the configured trust anchors: the ones embedded in the Mobile ID
+ * signatures (see {@link SignatureVerifier}) and the ones returned by the profile queries (see
+ * {@link #validate(ProfileMobileUserCertificate)}).
+ * <p>
+ * The validated paths are cached by certificate fingerprint, so that the PKIX path building runs only once per
+ * certificate and time to live. When the revocation check is enabled, the certificates of the path are also checked
+ * against the revocation data loaded from the configured directory. That data is reloaded by a background thread when
+ * its files change or when it becomes stale, so the validation only reads an in-memory snapshot and never blocks on
+ * I/O. A cached path that was checked against an older snapshot is checked again (revocation only) on its next use.
+ * <p>
+ * The validator is thread safe. Call {@link #close()} to stop the background refresh.
+ */
+public class CertificateValidator implements Closeable {
+
+    private static final Logger logClient = LoggerFactory.getLogger(Loggers.LOGGER_CLIENT);
+
+    private final Set<TrustAnchor> trustAnchors;
+    private final CertificatePathCache pathCache;
+    private final boolean revocationCheckEnabled;
+    private final boolean revocationSoftFail;
+    private final File revocationDataDirectory;
+    private final ScheduledExecutorService refreshExecutor;
+
+    private volatile RevocationData revocationData = RevocationData.EMPTY;
+
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+
+    public CertificateValidator(SignatureVerificationConfiguration config) {
+        config.validateYourself();
+        Set<TrustAnchor> anchors = new HashSet<>();
+        for (X509Certificate certificate : loadTrustAnchors(config)) {
+            anchors.add(new TrustAnchor(certificate, null));
+        }
+        if (anchors.isEmpty()) {
+            throw new ConfigurationException("No trust anchor certificate found in the configured source: " + config);
+        }
+        this.trustAnchors = Collections.unmodifiableSet(anchors);
+        if (config.isCertificatePathCacheEnabled()) {
+            long timeToLiveInMs = TimeUnit.SECONDS.toMillis(config.getCertificatePathCacheTimeToLiveInSeconds());
+            this.pathCache = new CertificatePathCache(config.getCertificatePathCacheMaximumSize(), timeToLiveInMs);
+        } else {
+            this.pathCache = null;
+        }
+        this.revocationCheckEnabled = config.isRevocationCheckEnabled();
+        this.revocationSoftFail = config.isRevocationSoftFail();
+        if (revocationCheckEnabled) {
+            revocationDataDirectory = new File(config.getRevocationDataDirectory());
+            if (!revocationDataDirectory.isDirectory()) {
+                throw new ConfigurationException("The revocation data directory [" + revocationDataDirectory +
+                                                 "] does not exist or is not a directory");
+            }
+            revocationData = RevocationData.load(revocationDataDirectory, 1);
+            refreshExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "mid-client-revocation-data-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+            int interval = config.getRevocationDataRefreshIntervalInSeconds();
+            refreshExecutor.scheduleWithFixedDelay(this::refreshRevocationDataQuietly,
+                                                   interval, interval, TimeUnit.SECONDS);
+        } else {
+            revocationDataDirectory = null;
+            refreshExecutor = null;
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    /**
+     * Validates the given certificate, using the given intermediate certificates to build its path to a trust anchor.
+     *
+     * @return the validated path, starting with the given certificate and ending with the trust anchor
+     * @throws SignatureVerificationException if the certificate does not chain up to a trust anchor, is not valid or
+     *                                        (when the revocation check is enabled) is revoked or has an unknown status
+     */
+    public List<X509Certificate> validate(X509Certificate certificate,
+                                          Collection<X509Certificate> intermediateCertificates) {
+        long now = System.currentTimeMillis();
+        RevocationData currentRevocationData = revocationData;
+        String fingerprint = null;
+        if (pathCache != null) {
+            fingerprint = computeFingerprint(certificate);
+            CertificatePathCache.Entry entry = pathCache.get(fingerprint, now);
+            if (entry != null) {
+                cacheHits.incrementAndGet();
+                if (revocationCheckEnabled && entry.getRevocationGeneration() != currentRevocationData.getGeneration()) {
+                    checkRevocation(entry.getPath(), currentRevocationData, now, fingerprint);
+                    pathCache.updateRevocationGeneration(fingerprint, entry, currentRevocationData.getGeneration());
+                }
+                return entry.getPath();
+            }
+            cacheMisses.incrementAndGet();
+        }
+        List<X509Certificate> path = buildPath(certificate, intermediateCertificates, now);
+        if (revocationCheckEnabled) {
+            checkRevocation(path, currentRevocationData, now, null);
+        }
+        if (pathCache != null) {
+            pathCache.put(fingerprint, path, currentRevocationData.getGeneration(), now);
+        }
+        return path;
+    }
+
+    /**
+     * Validates the user certificate of a Mobile ID profile (as returned by a profile query with the certificate
+     * extension), using the CA certificates returned along with it.
+     *
+     * @see #validate(X509Certificate, Collection)
+     */
+    public List<X509Certificate> validate(ProfileMobileUserCertificate profileCertificate) {
+        if (profileCertificate.getUserCertificate() == null) {
+            throw new SignatureVerificationException(VerificationFailure.MALFORMED_CERTIFICATE,
+                                                     "The profile certificate contains no user certificate");
+        }
+        List<X509Certificate> caCertificates = new ArrayList<>();
+        if (profileCertificate.getCaCertificates() != null) {
+            for (CertificateData caCertificate : profileCertificate.getCaCertificates()) {
+                caCertificates.add(decodeCertificate(caCertificate));
+            }
+        }
+        return validate(decodeCertificate(profileCertificate.getUserCertificate()), caCertificates);
+    }
+
+    /**
+     * Reloads the revocation data now, if its files have changed or if it has become stale. This is also done
+     * periodically in the background.
+     */
+    public synchronized void refreshRevocationData() {
+        if (!revocationCheckEnabled) {
+            return;
+        }
+        RevocationData current = revocationData;
+        boolean filesChanged = !current.getFileStamps().equals(RevocationData.scan(revocationDataDirectory));
+        if (filesChanged || current.isStale(new Date())) {
+            revocationData = RevocationData.load(revocationDataDirectory, current.getGeneration() + 1);
+        }
+    }
+
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses.get();
+    }
+
+    public int getCachedPaths() {
+        return pathCache == null ? 0 : pathCache.size();
+    }
+
+    @Override
+    public void close() {
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private List<X509Certificate> buildPath(X509Certificate certificate,
+                                            Collection<X509Certificate> intermediateCertificates,
+                                            long now) {
+        PKIXCertPathBuilderResult result;
+        try {
+            X509CertSelector target = new X509CertSelector();
+            target.setCertificate(certificate);
+            PKIXBuilderParameters parameters = new PKIXBuilderParameters(trustAnchors, target);
+            parameters.setDate(new Date(now));
+            // the revocation is checked separately, against the locally loaded data
+            parameters.setRevocationEnabled(false);
+            parameters.addCertStore(CertStore.getInstance("Collection",
+                                                          new CollectionCertStoreParameters(intermediateCertificates)));
+            result = (PKIXCertPathBuilderResult) CertPathBuilder.getInstance("PKIX").build(parameters);
+        } catch (CertPathBuilderException e) {
+            throw new SignatureVerificationException(VerificationFailure.UNTRUSTED_CERTIFICATE,
+                                                     "Failed to validate the certificate ["
+                                                     + certificate.getSubjectX500Principal() + "]: "
+                                                     + e.getMessage(), e);
+        } catch (GeneralSecurityException e) {
+            throw new SignatureVerificationException(VerificationFailure.UNSUPPORTED_ALGORITHM,
+                                                     "The PKIX certificate path validation is not available", e);
+        }
+        List<X509Certificate> path = new ArrayList<>();
+        for (Certificate pathCertificate : result.getCertPath().getCertificates()) {
+            path.add((X509Certificate) pathCertificate);
+        }
+        path.add(result.getTrustAnchor().getTrustedCert());
+        return Collections.unmodifiableList(path);
+    }
+
+    private void checkRevocation(List<X509Certificate> path, RevocationData data, long now, String cachedFingerprint) {
+        Date date = new Date(now);
+        // the trust anchor (last in the path) is not checked
+        for (int index = 0; index < path.size() - 1; index++) {
+            X509Certificate certificate = path.get(index);
+            RevocationStatus status = data.getStatus(certificate, path.get(index + 1), date);
+            if (status == RevocationStatus.GOOD || (status == RevocationStatus.UNKNOWN && revocationSoftFail)) {
+                continue;
+            }
+            if (cachedFingerprint != null) {
+                pathCache.remove(cachedFingerprint);
+            }
+            if (status == RevocationStatus.REVOKED) {
+                throw new SignatureVerificationException(VerificationFailure.REVOKED_CERTIFICATE,
+                                                         "The certificate [" + certificate.getSubjectX500Principal()
+                                                         + "] is revoked");
+            }
+            throw new SignatureVerificationException(VerificationFailure.REVOCATION_STATUS_UNKNOWN,
+                                                     "No current revocation data found for the certificate ["
+                                                     + certificate.getSubjectX500Principal() + "]");
+        }
+    }
+
+    private void refreshRevocationDataQuietly() {
+        try {
+            refreshRevocationData();
+        } catch (RuntimeException e) {
+            logClient.warn("Failed to refresh the revocation data from [{}]", revocationDataDirectory, e);
+        }
+    }
+
+    private static String computeFingerprint(X509Certificate certificate) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(certificate.getEncoded());
+            StringBuilder result = new StringBuilder(digest.length * 2);
+            for (byte value : digest) {
+                result.append(Character.forDigit((value >> 4) & 0x0F, 16)).append(Character.forDigit(value & 0x0F, 16));
+            }
+            return result.toString();
+        } catch (GeneralSecurityException e) {
+            throw new SignatureVerificationException(VerificationFailure.MALFORMED_CERTIFICATE,
+                                                     "Failed to compute the fingerprint of the certificate ["
+                                                     + certificate.getSubjectX500Principal() + "]", e);
+        }
+    }
+
+    private static X509Certificate decodeCertificate(CertificateData certificateData) {
+        if (certificateData.getCertificateAsBase64() == null) {
+            throw new SignatureVerificationException(VerificationFailure.MALFORMED_CERTIFICATE,
+                                                     "The profile certificate [" + certificateData.getSubjectName()
+                                                     + "] has no content");
+        }
+        try {
+            // interned CA certificates are parsed only once, whatever the number of profiles they appear in
+            return certificateData.toX509Certificate();
+        } catch (CertificateException e) {
+            throw new SignatureVerificationException(VerificationFailure.MALFORMED_CERTIFICATE,
+                                                     "Failed to decode the profile certificate ["
+                                                     + certificateData.getSubjectName() + "]", e);
+        }
+    }
+
+    private static Collection<X509Certificate> loadTrustAnchors(SignatureVerificationConfiguration config) {
+        String source;
+        if (config.getTrustAnchorsFile() != null) {
+            source = "file: [" + config.getTrustAnchorsFile() + "]";
+        } else if (config.getTrustAnchorsClasspathFile() != null) {
+            source = "classpath: [" + config.getTrustAnchorsClasspathFile() + "]";
+        } else {
+            source = "bytes";
+        }
+        try (InputStream is = openTrustAnchors(config)) {
+            if (is == null) {
+                throw new ConfigurationException("Cannot find the trust anchors for the signature verification in the "
+                                                 + source);
+            }
+            List<X509Certificate> result = new ArrayList<>();
+            for (Certificate certificate : CertificateFactory.getInstance("X.509").generateCertificates(is)) {
+                result.add((X509Certificate) certificate);
+            }
+            return result;
+        } catch (IOException | GeneralSecurityException e) {
+            throw new ConfigurationException("Failed to load the trust anchors for the signature verification from the "
+                                             + source, e);
+        }
+    }
+
+    private static InputStream openTrustAnchors(SignatureVerificationConfiguration config) throws IOException {
+        if (config.getTrustAnchorsFile() != null) {
+            return new FileInputStream(config.getTrustAnchorsFile());
+        } else if (config.getTrustAnchorsClasspathFile() != null) {
+            return CertificateValidator.class.getResourceAsStream(config.getTrustAnchorsClasspathFile());
+        } else {
+            return new ByteArrayInputStream(config.getTrustAnchorsBytes());
+        }
+    }
+
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.verification;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.security.auth.x500.X500Principal;
+
+import static ch.swisscom.mid.client.verification.DerValue.malformed;
+
+/**
+ * A parsed PKCS#7/CMS SignedData structure (RFC 5652), as returned by the Mobile ID service in the Base64 signature.
+ * Only structures with exactly one signer are accepted, as this is what the Mobile ID signatures contain.
+ */
+final class CmsSignedData {
+
+    static final String OID_SIGNED_DATA = "1.2.840.113549.1.7.2";
+    static final String OID_CONTENT_TYPE = "1.2.840.113549.1.9.3";
+    static final String OID_MESSAGE_DIGEST = "1.2.840.113549.1.9.4";
+    static final String OID_SIGNING_TIME = "1.2.840.113549.1.9.5";
+
+    private static final String OID_SUBJECT_KEY_IDENTIFIER = "2.5.29.14";
+
+    private final String contentType;
+    private final byte[] content;
+    private final List<X509Certificate> certificates;
+
+    private final X500Principal signerIssuer;
+    private final BigInteger signerSerialNumber;
+    private final byte[] signerKeyIdentifier;
+    private final String digestAlgorithm;
+    private final DerValue signedAttributes;
+    private final String signatureAlgorithm;
+    private final byte[] signature;
+
+    private CmsSignedData(DerValue signedData) {
+        List<DerValue> fields = signedData.expect(DerValue.TAG_SEQUENCE).getChildren();
+        if (fields.size() < 4) {
+            throw malformed("The CMS SignedData structure is incomplete");
+        }
+
+        DerValue encapsulatedContentInfo = fields.get(2).expect(DerValue.TAG_SEQUENCE);
+        contentType = encapsulatedContentInfo.getChild(0).getOid();
+        if (encapsulatedContentInfo.getChildren().size() > 1) {
+            DerValue explicitContent = encapsulatedContentInfo.getChild(1);
+            if (!explicitContent.isContextSpecific(0)) {
+                throw malformed("Unexpected element in the CMS EncapsulatedContentInfo");
+            }
+            content = explicitContent.getChild(0).getOctets();
+        } else {
+            content = null;
+        }
+
+        List<X509Certificate> parsedCertificates = new ArrayList<>();
+        for (DerValue field : fields.subList(3, fields.size() - 1)) {
+            if (field.isContextSpecific(0)) {
+                parsedCertificates.addAll(parseCertificates(field));
+            } else if (!field.isContextSpecific(1)) {
+                // [1] are the CRLs, which are not used here
+                throw malformed("Unexpected element in the CMS SignedData structure");
+            }
+        }
+        certificates = Collections.unmodifiableList(parsedCertificates);
+
+        List<DerValue> signerInfos = fields.get(fields.size() - 1).expect(DerValue.TAG_SET).getChildren();
+        if (signerInfos.size() != 1) {
+            throw malformed("Expected exactly one CMS SignerInfo but found " + signerInfos.size());
+        }
+        List<DerValue> signerInfo = signerInfos.get(0).expect(DerValue.TAG_SEQUENCE).getChildren();
+        if (signerInfo.size() < 5) {
+            throw malformed("The CMS SignerInfo structure is incomplete");
+        }
+
+        DerValue signerIdentifier = signerInfo.get(1);
+        if (signerIdentifier.getTag() == DerValue.TAG_SEQUENCE) {
+            signerIssuer = parsePrincipal(signerIdentifier.getChild(0));
+            signerSerialNumber = signerIdentifier.getChild(1).getInteger();
+            signerKeyIdentifier = null;
+        } else if (signerIdentifier.isContextSpecific(0)) {
+            signerIssuer = null;
+            signerSerialNumber = null;
+            signerKeyIdentifier = signerIdentifier.getOctets();
+        } else {
+            throw malformed("Unexpected signer identifier in the CMS SignerInfo");
+        }
+
+        digestAlgorithm = signerInfo.get(2).expect(DerValue.TAG_SEQUENCE).getChild(0).getOid();
+        int next = 3;
+        if (signerInfo.get(next).isContextSpecific(0)) {
+            signedAttributes = signerInfo.get(next++);
+        } else {
+            signedAttributes = null;
+        }
+        if (signerInfo.size() < next + 2) {
+            throw malformed("The CMS SignerInfo structure is incomplete");
+        }
+        signatureAlgorithm = signerInfo.get(next).expect(DerValue.TAG_SEQUENCE).getChild(0).getOid();
+        signature = signerInfo.get(next + 1).expect(DerValue.TAG_OCTET_STRING).getOctets();
+    }
+
+    static CmsSignedData parse(byte[] encoded) {
+        DerValue contentInfo = DerValue.parse(encoded).expect(DerValue.TAG_SEQUENCE);
+        if (!OID_SIGNED_DATA.equals(contentInfo.getChild(0).getOid())) {
+            throw malformed("The CMS ContentInfo does not contain a SignedData structure");
+        }
+        DerValue explicitContent = contentInfo.getChild(1);
+        if (!explicitContent.isContextSpecific(0)) {
+            throw malformed("Unexpected element in the CMS ContentInfo");
+        }
+        return new CmsSignedData(explicitContent.getChild(0));
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Returns the encapsulated content or NULL if the signature is detached.
+     */
+    byte[] getContent() {
+        return content;
+    }
+
+    List<X509Certificate> getCertificates() {
+        return certificates;
+    }
+
+    String getDigestAlgorithm() {
+        return digestAlgorithm;
+    }
+
+    String getSignatureAlgorithm() {
+        return signatureAlgorithm;
+    }
+
+    byte[] getSignature() {
+        return signature;
+    }
+
+    boolean hasSignedAttributes() {
+        return signedAttributes != null;
+    }
+
+    /**
+     * Returns the value of the given signed attribute or NULL if the attribute is not present.
+     */
+    DerValue getSignedAttribute(String oid) {
+        if (signedAttributes == null) {
+            return null;
+        }
+        DerValue result = null;
+        for (DerValue attribute : signedAttributes.getChildren()) {
+            if (oid.equals(attribute.expect(DerValue.TAG_SEQUENCE).getChild(0).getOid())) {
+                List<DerValue> values = attribute.getChild(1).expect(DerValue.TAG_SET).getChildren();
+                if (result != null || values.size() != 1) {
+                    throw malformed("The CMS signed attribute " + oid + " must have exactly one value");
+                }
+                result = values.get(0);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the bytes covered by the signature when signed attributes are present: their DER encoding with the
+     * explicit SET OF tag, instead of the implicit [0] tag used in the SignerInfo (RFC 5652, section 5.4).
+     */
+    byte[] getSignedAttributesForVerification() {
+        byte[] encoded = signedAttributes.getEncoded();
+        encoded[0] = (byte) DerValue.TAG_SET;
+        return encoded;
+    }
+
+    /**
+     * Returns the certificate of the signer, as identified in the SignerInfo, or NULL if the structure does not
+     * contain it.
+     */
+    X509Certificate findSignerCertificate() {
+        for (X509Certificate certificate : certificates) {
+            if (signerKeyIdentifier == null) {
+                if (signerSerialNumber.equals(certificate.getSerialNumber()) &&
+                    signerIssuer.equals(certificate.getIssuerX500Principal())) {
+                    return certificate;
+                }
+            } else {
+                byte[] extension = certificate.getExtensionValue(OID_SUBJECT_KEY_IDENTIFIER);
+                if (extension != null) {
+                    byte[] keyIdentifier = DerValue.parse(DerValue.parse(extension).getOctets()).getOctets();
+                    if (Arrays.equals(signerKeyIdentifier, keyIdentifier)) {
+                        return certificate;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private static List<X509Certificate> parseCertificates(DerValue certificateSet) {
+        List<X509Certificate> result = new ArrayList<>();
+        try {
+            CertificateFactory factory = CertificateFactory.getInstance("X.509");
+            for (DerValue choice : certificateSet.getChildren()) {
+                // the other choices (attribute certificates and others) are tagged and not used here
+                if (choice.getTag() == DerValue.TAG_SEQUENCE) {
+                    InputStream encoded = new ByteArrayInputStream(choice.getEncoded());
+                    result.add((X509Certificate) factory.generateCertificate(encoded));
+                }
+            }
+        } catch (CertificateException e) {
+            throw new SignatureVerificationException(VerificationFailure.MALFORMED_SIGNATURE,
+                                                     "Failed to parse a certificate of the CMS SignedData structure", e);
+        }
+        return result;
+    }
+
+    private static X500Principal parsePrincipal(DerValue name) {
+        try {
+            return new X500Principal(name.expect(DerValue.TAG_SEQUENCE).getEncoded());
+        } catch (IllegalArgumentException e) {
+            throw new SignatureVerificationException(VerificationFailure.MALFORMED_SIGNATURE,
+                                                     "Failed to parse the issuer name of the CMS signer identifier", e);
+        }
+    }
+
+}
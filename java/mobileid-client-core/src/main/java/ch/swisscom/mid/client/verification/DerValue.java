@@ -0,0 +1,307 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.verification;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Minimal reader for ASN.1 encoded data, just enough to walk through a CMS SignedData structure and the names of an
+ * X.509 certificate. Besides DER, the indefinite lengths and the constructed strings of BER are accepted, as some
+ * signers produce BER encoded CMS structures. Only the low tag numbers (below 31) are supported.
+ * <p>
+ * A value is a view over the original byte array; nothing is copied until the content of a value is requested.
+ */
+final class DerValue {
+
+    static final int TAG_INTEGER = 0x02;
+    static final int TAG_BIT_STRING = 0x03;
+    static final int TAG_OCTET_STRING = 0x04;
+    static final int TAG_OID = 0x06;
+    static final int TAG_ENUMERATED = 0x0A;
+    static final int TAG_UTF8_STRING = 0x0C;
+    static final int TAG_PRINTABLE_STRING = 0x13;
+    static final int TAG_TELETEX_STRING = 0x14;
+    static final int TAG_IA5_STRING = 0x16;
+    static final int TAG_UTC_TIME = 0x17;
+    static final int TAG_GENERALIZED_TIME = 0x18;
+    static final int TAG_BMP_STRING = 0x1E;
+    static final int TAG_SEQUENCE = 0x30;
+    static final int TAG_SET = 0x31;
+
+    private static final int CONSTRUCTED_BIT = 0x20;
+    private static final int CLASS_MASK = 0xC0;
+    private static final int CONTEXT_SPECIFIC_CLASS = 0x80;
+    private static final int TAG_NUMBER_MASK = 0x1F;
+    private static final int MAX_DEPTH = 32;
+
+    private final byte[] data;
+    private final int tag;
+    private final int start;
+    private final int contentStart;
+    private final int contentEnd;
+    private final int end;
+    private final List<DerValue> children;
+
+    private DerValue(byte[] data, int tag, int start, int contentStart, int contentEnd, int end, List<DerValue> children) {
+        this.data = data;
+        this.tag = tag;
+        this.start = start;
+        this.contentStart = contentStart;
+        this.contentEnd = contentEnd;
+        this.end = end;
+        this.children = children;
+    }
+
+    /**
+     * Parses the given bytes as exactly one ASN.1 value.
+     *
+     * @throws SignatureVerificationException with {@link VerificationFailure#MALFORMED_SIGNATURE} if the bytes are not
+     *                                        a single well-formed value
+     */
+    static DerValue parse(byte[] data) {
+        DerValue value = read(data, 0, data.length, 0);
+        if (value.end != data.length) {
+            throw malformed("Unexpected trailing data after the ASN.1 value, at offset " + value.end);
+        }
+        return value;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    int getTag() {
+        return tag;
+    }
+
+    boolean isContextSpecific(int tagNumber) {
+        return (tag & CLASS_MASK) == CONTEXT_SPECIFIC_CLASS && (tag & TAG_NUMBER_MASK) == tagNumber;
+    }
+
+    DerValue expect(int expectedTag) {
+        if (tag != expectedTag) {
+            throw malformed(String.format("Expected the ASN.1 tag 0x%02X but found 0x%02X at offset %d",
+                                          expectedTag, tag, start));
+        }
+        return this;
+    }
+
+    List<DerValue> getChildren() {
+        if (children == null) {
+            throw malformed(String.format("Expected a constructed ASN.1 value at offset %d (tag 0x%02X)", start, tag));
+        }
+        return children;
+    }
+
+    DerValue getChild(int index) {
+        List<DerValue> list = getChildren();
+        if (index >= list.size()) {
+            throw malformed("Missing element " + index + " in the ASN.1 value at offset " + start);
+        }
+        return list.get(index);
+    }
+
+    /**
+     * Returns the complete encoding of this value (tag, length and content).
+     */
+    byte[] getEncoded() {
+        return Arrays.copyOfRange(data, start, end);
+    }
+
+    /**
+     * Returns the content octets of this value. For a constructed (BER) string, the contents of its segments are
+     * concatenated.
+     */
+    byte[] getOctets() {
+        if (children == null) {
+            return Arrays.copyOfRange(data, contentStart, contentEnd);
+        }
+        ByteArrayOutputStream result = new ByteArrayOutputStream(contentEnd - contentStart);
+        for (DerValue segment : children) {
+            byte[] octets = segment.getOctets();
+            result.write(octets, 0, octets.length);
+        }
+        return result.toByteArray();
+    }
+
+    BigInteger getInteger() {
+        expect(TAG_INTEGER);
+        if (contentEnd == contentStart) {
+            throw malformed("Empty ASN.1 INTEGER at offset " + start);
+        }
+        return new BigInteger(getOctets());
+    }
+
+    /**
+     * Returns the bits of a BIT STRING that holds whole bytes (such as a signature or a public key).
+     */
+    byte[] getBitString() {
+        expect(TAG_BIT_STRING);
+        byte[] octets = getOctets();
+        if (octets.length == 0 || octets[0] != 0) {
+            throw malformed("Unexpected unused bits in the ASN.1 BIT STRING at offset " + start);
+        }
+        return Arrays.copyOfRange(octets, 1, octets.length);
+    }
+
+    String getOid() {
+        expect(TAG_OID);
+        if (contentEnd == contentStart || (data[contentEnd - 1] & 0x80) != 0) {
+            throw malformed("Malformed ASN.1 OBJECT IDENTIFIER at offset " + start);
+        }
+        StringBuilder result = new StringBuilder();
+        long arc = 0;
+        for (int index = contentStart; index < contentEnd; index++) {
+            if (arc > (Long.MAX_VALUE >> 7)) {
+                throw malformed("Too large ASN.1 OBJECT IDENTIFIER arc at offset " + start);
+            }
+            arc = (arc << 7) | (data[index] & 0x7F);
+            if ((data[index] & 0x80) == 0) {
+                if (result.length() == 0) {
+                    long firstArc = Math.min(arc / 40, 2);
+                    result.append(firstArc).append('.').append(arc - firstArc * 40);
+                } else {
+                    result.append('.').append(arc);
+                }
+                arc = 0;
+            }
+        }
+        return result.toString();
+    }
+
+    String getString() {
+        switch (tag) {
+            case TAG_UTF8_STRING:
+                return new String(getOctets(), StandardCharsets.UTF_8);
+            case TAG_PRINTABLE_STRING:
+            case TAG_TELETEX_STRING:
+            case TAG_IA5_STRING:
+                return new String(getOctets(), StandardCharsets.ISO_8859_1);
+            case TAG_BMP_STRING:
+                return new String(getOctets(), StandardCharsets.UTF_16BE);
+            default:
+                throw malformed(String.format("Expected an ASN.1 string but found the tag 0x%02X at offset %d",
+                                              tag, start));
+        }
+    }
+
+    Date getTime() {
+        String value = new String(getOctets(), StandardCharsets.US_ASCII);
+        String pattern;
+        if (tag == TAG_UTC_TIME) {
+            pattern = "yyMMddHHmmss'Z'";
+        } else if (tag == TAG_GENERALIZED_TIME) {
+            // the fractional seconds are not needed here
+            value = value.replaceFirst("\\.\\d+Z$", "Z");
+            pattern = "yyyyMMddHHmmss'Z'";
+        } else {
+            throw malformed(String.format("Expected an ASN.1 time but found the tag 0x%02X at offset %d", tag, start));
+        }
+        SimpleDateFormat format = new SimpleDateFormat(pattern);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        format.setLenient(false);
+        if (tag == TAG_UTC_TIME) {
+            // RFC 5280: two-digit years from 50 to 99 are 19xx, the ones from 00 to 49 are 20xx
+            format.set2DigitYearStart(new Date(-631152000000L));
+        }
+        try {
+            return format.parse(value);
+        } catch (ParseException e) {
+            throw malformed("Malformed ASN.1 time [" + value + "] at offset " + start);
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private static DerValue read(byte[] data, int offset, int limit, int depth) {
+        if (depth > MAX_DEPTH) {
+            throw malformed("The ASN.1 structure is nested too deeply");
+        }
+        if (limit - offset < 2) {
+            throw malformed("Truncated ASN.1 value at offset " + offset);
+        }
+        int tag = data[offset] & 0xFF;
+        if ((tag & TAG_NUMBER_MASK) == TAG_NUMBER_MASK) {
+            throw malformed("Unsupported ASN.1 high tag number at offset " + offset);
+        }
+        boolean constructed = (tag & CONSTRUCTED_BIT) != 0;
+        int position = offset + 1;
+        int firstLengthByte = data[position++] & 0xFF;
+
+        if (firstLengthByte == 0x80) {
+            if (!constructed) {
+                throw malformed("Indefinite length on a primitive ASN.1 value at offset " + offset);
+            }
+            List<DerValue> children = new ArrayList<>();
+            int cursor = position;
+            while (true) {
+                if (limit - cursor < 2) {
+                    throw malformed("Missing the end-of-contents octets of the ASN.1 value at offset " + offset);
+                }
+                if (data[cursor] == 0 && data[cursor + 1] == 0) {
+                    break;
+                }
+                DerValue child = read(data, cursor, limit, depth + 1);
+                children.add(child);
+                cursor = child.end;
+            }
+            return new DerValue(data, tag, offset, position, cursor, cursor + 2, Collections.unmodifiableList(children));
+        }
+
+        long length;
+        if (firstLengthByte < 0x80) {
+            length = firstLengthByte;
+        } else {
+            int lengthBytes = firstLengthByte & 0x7F;
+            if (lengthBytes > 4 || limit - position < lengthBytes) {
+                throw malformed("Unsupported ASN.1 length at offset " + offset);
+            }
+            length = 0;
+            for (int index = 0; index < lengthBytes; index++) {
+                length = (length << 8) | (data[position++] & 0xFF);
+            }
+        }
+        if (length > limit - position) {
+            throw malformed("Truncated ASN.1 value at offset " + offset);
+        }
+        int contentEnd = position + (int) length;
+        List<DerValue> children = null;
+        if (constructed) {
+            children = new ArrayList<>();
+            int cursor = position;
+            while (cursor < contentEnd) {
+                DerValue child = read(data, cursor, contentEnd, depth + 1);
+                children.add(child);
+                cursor = child.end;
+            }
+            children = Collections.unmodifiableList(children);
+        }
+        return new DerValue(data, tag, offset, position, contentEnd, contentEnd, children);
+    }
+
+    static SignatureVerificationException malformed(String message) {
+        return new SignatureVerificationException(VerificationFailure.MALFORMED_SIGNATURE, message);
+    }
+
+}
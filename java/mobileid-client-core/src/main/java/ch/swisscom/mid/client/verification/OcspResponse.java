@@ -0,0 +1,243 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.verification;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.Signature;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static ch.swisscom.mid.client.verification.DerValue.malformed;
+
+/**
+ * A stored OCSP response (RFC 6960), as saved for example by <i>openssl ocsp -respout</i>. Only the successful basic
+ * responses are accepted. The response is parsed once, when the revocation data is loaded; its signature is checked
+ * against the issuer of the certificate in question, when the response is used.
+ */
+final class OcspResponse {
+
+    private static final String OID_BASIC_RESPONSE = "1.3.6.1.5.5.7.48.1.1";
+    private static final String OID_OCSP_SIGNING = "1.3.6.1.5.5.7.3.9";
+    private static final String OID_SHA1 = "1.3.14.3.2.26";
+
+    private final byte[] signedResponseData;
+    private final String signatureAlgorithm;
+    private final byte[] signature;
+    private final List<X509Certificate> certificates;
+    private final List<SingleResponse> responses;
+
+    private OcspResponse(DerValue basicResponse) {
+        List<DerValue> fields = basicResponse.expect(DerValue.TAG_SEQUENCE).getChildren();
+        if (fields.size() < 3) {
+            throw malformed("The OCSP BasicOCSPResponse structure is incomplete");
+        }
+        DerValue responseData = fields.get(0).expect(DerValue.TAG_SEQUENCE);
+        signedResponseData = responseData.getEncoded();
+        signatureAlgorithm = fields.get(1).expect(DerValue.TAG_SEQUENCE).getChild(0).getOid();
+        signature = fields.get(2).getBitString();
+
+        List<X509Certificate> parsedCertificates = new ArrayList<>();
+        if (fields.size() > 3 && fields.get(3).isContextSpecific(0)) {
+            try {
+                CertificateFactory factory = CertificateFactory.getInstance("X.509");
+                for (DerValue certificate : fields.get(3).getChild(0).getChildren()) {
+                    InputStream encoded = new ByteArrayInputStream(certificate.getEncoded());
+                    parsedCertificates.add((X509Certificate) factory.generateCertificate(encoded));
+                }
+            } catch (GeneralSecurityException e) {
+                throw new SignatureVerificationException(VerificationFailure.MALFORMED_SIGNATURE,
+                                                         "Failed to parse a certificate of the OCSP response", e);
+            }
+        }
+        certificates = Collections.unmodifiableList(parsedCertificates);
+
+        // ResponseData: version [0] (optional), responderID, producedAt, responses, responseExtensions [1] (optional)
+        List<DerValue> dataFields = responseData.getChildren();
+        int index = dataFields.get(0).isContextSpecific(0) ? 3 : 2;
+        if (dataFields.size() <= index) {
+            throw malformed("The OCSP ResponseData structure is incomplete");
+        }
+        List<SingleResponse> parsedResponses = new ArrayList<>();
+        for (DerValue singleResponse : dataFields.get(index).expect(DerValue.TAG_SEQUENCE).getChildren()) {
+            parsedResponses.add(new SingleResponse(singleResponse));
+        }
+        responses = Collections.unmodifiableList(parsedResponses);
+    }
+
+    static OcspResponse parse(byte[] encoded) {
+        DerValue response = DerValue.parse(encoded).expect(DerValue.TAG_SEQUENCE);
+        int status = response.getChild(0).expect(DerValue.TAG_ENUMERATED).getOctets()[0];
+        if (status != 0) {
+            throw malformed("The OCSP response is not successful (status " + status + ")");
+        }
+        DerValue responseBytes = response.getChild(1);
+        if (!responseBytes.isContextSpecific(0)) {
+            throw malformed("Unexpected element in the OCSP response");
+        }
+        DerValue typedResponse = responseBytes.getChild(0).expect(DerValue.TAG_SEQUENCE);
+        if (!OID_BASIC_RESPONSE.equals(typedResponse.getChild(0).getOid())) {
+            throw malformed("The OCSP response is not a basic OCSP response");
+        }
+        byte[] basicResponse = typedResponse.getChild(1).expect(DerValue.TAG_OCTET_STRING).getOctets();
+        return new OcspResponse(DerValue.parse(basicResponse));
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    List<SingleResponse> getResponses() {
+        return responses;
+    }
+
+    /**
+     * Returns the status of the given certificate, as given by this response, or NULL if this response does not cover
+     * the certificate, is not current or is not signed by the issuer (or by a responder that the issuer authorized).
+     */
+    RevocationStatus getStatus(X509Certificate certificate, X509Certificate issuer, Date now) {
+        for (SingleResponse response : responses) {
+            if (response.matches(certificate, issuer) && response.isCurrent(now) && isSignedBy(issuer, now)) {
+                return response.status;
+            }
+        }
+        return null;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private boolean isSignedBy(X509Certificate issuer, Date now) {
+        String signatureName = Algorithms.getSignatureName(signatureAlgorithm, null);
+        if (signatureName == null) {
+            return false;
+        }
+        List<X509Certificate> responders = new ArrayList<>();
+        responders.add(issuer);
+        for (X509Certificate certificate : certificates) {
+            if (isAuthorizedResponder(certificate, issuer, now)) {
+                responders.add(certificate);
+            }
+        }
+        for (X509Certificate responder : responders) {
+            try {
+                Signature verifier = Signature.getInstance(signatureName);
+                verifier.initVerify(responder.getPublicKey());
+                verifier.update(signedResponseData);
+                if (verifier.verify(signature)) {
+                    return true;
+                }
+            } catch (GeneralSecurityException ignored) {
+                // try the next responder
+            }
+        }
+        return false;
+    }
+
+    private static boolean isAuthorizedResponder(X509Certificate responder, X509Certificate issuer, Date now) {
+        try {
+            if (!responder.getIssuerX500Principal().equals(issuer.getSubjectX500Principal())) {
+                return false;
+            }
+            List<String> extendedKeyUsage = responder.getExtendedKeyUsage();
+            if (extendedKeyUsage == null || !extendedKeyUsage.contains(OID_OCSP_SIGNING)) {
+                return false;
+            }
+            responder.checkValidity(now);
+            responder.verify(issuer.getPublicKey());
+            return true;
+        } catch (GeneralSecurityException e) {
+            return false;
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    /**
+     * The status of one certificate, identified by its serial number and by the hashes of its issuer's name and key.
+     */
+    static final class SingleResponse {
+
+        private final String hashAlgorithm;
+        private final byte[] issuerNameHash;
+        private final byte[] issuerKeyHash;
+        private final BigInteger serialNumber;
+        private final RevocationStatus status;
+        private final Date thisUpdate;
+        private final Date nextUpdate;
+
+        private SingleResponse(DerValue singleResponse) {
+            List<DerValue> fields = singleResponse.expect(DerValue.TAG_SEQUENCE).getChildren();
+            if (fields.size() < 3) {
+                throw malformed("The OCSP SingleResponse structure is incomplete");
+            }
+            DerValue certId = fields.get(0).expect(DerValue.TAG_SEQUENCE);
+            hashAlgorithm = certId.getChild(0).expect(DerValue.TAG_SEQUENCE).getChild(0).getOid();
+            issuerNameHash = certId.getChild(1).expect(DerValue.TAG_OCTET_STRING).getOctets();
+            issuerKeyHash = certId.getChild(2).expect(DerValue.TAG_OCTET_STRING).getOctets();
+            serialNumber = certId.getChild(3).getInteger();
+
+            DerValue certStatus = fields.get(1);
+            if (certStatus.isContextSpecific(0)) {
+                status = RevocationStatus.GOOD;
+            } else if (certStatus.isContextSpecific(1)) {
+                status = RevocationStatus.REVOKED;
+            } else {
+                status = RevocationStatus.UNKNOWN;
+            }
+            thisUpdate = fields.get(2).getTime();
+            boolean hasNextUpdate = fields.size() > 3 && fields.get(3).isContextSpecific(0);
+            nextUpdate = hasNextUpdate ? fields.get(3).getChild(0).getTime() : null;
+        }
+
+        BigInteger getSerialNumber() {
+            return serialNumber;
+        }
+
+        Date getNextUpdate() {
+            return nextUpdate;
+        }
+
+        boolean isCurrent(Date now) {
+            return !thisUpdate.after(now) && (nextUpdate == null || nextUpdate.after(now));
+        }
+
+        boolean matches(X509Certificate certificate, X509Certificate issuer) {
+            if (!serialNumber.equals(certificate.getSerialNumber())) {
+                return false;
+            }
+            // the CertID hash is an identifier, not a security measure, hence SHA-1 is accepted here
+            String digestName = OID_SHA1.equals(hashAlgorithm) ? "SHA-1" : Algorithms.getDigestName(hashAlgorithm);
+            if (digestName == null) {
+                return false;
+            }
+            try {
+                byte[] issuerName = issuer.getSubjectX500Principal().getEncoded();
+                byte[] issuerKey = DerValue.parse(issuer.getPublicKey().getEncoded()).getChild(1).getBitString();
+                MessageDigest digest = MessageDigest.getInstance(digestName);
+                return MessageDigest.isEqual(issuerNameHash, digest.digest(issuerName)) &&
+                       MessageDigest.isEqual(issuerKeyHash, digest.digest(issuerKey));
+            } catch (GeneralSecurityException e) {
+                return false;
+            }
+        }
+    }
+
+}
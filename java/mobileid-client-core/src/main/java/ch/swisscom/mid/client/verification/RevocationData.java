@@ -0,0 +1,205 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.verification;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.security.GeneralSecurityException;
+import java.security.cert.CRL;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509CRL;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.security.auth.x500.X500Principal;
+
+import ch.swisscom.mid.client.impl.Loggers;
+
+/**
+ * An immutable snapshot of the revocation data (CRLs and stored OCSP responses) loaded from a local directory. Each new
+ * snapshot gets a higher generation number, so that the results computed with an older snapshot can be recognized.
+ * Files that cannot be read or parsed are skipped with a warning.
+ */
+final class RevocationData {
+
+    private static final Logger logClient = LoggerFactory.getLogger(Loggers.LOGGER_CLIENT);
+
+    static final RevocationData EMPTY = new RevocationData(0, Collections.emptyMap(),
+                                                           Collections.emptyMap(), Collections.emptyMap(), null);
+
+    private final long generation;
+    private final Map<String, Long> fileStamps;
+    private final Map<X500Principal, List<X509CRL>> crlsByIssuer;
+    private final Map<BigInteger, List<OcspResponse>> ocspResponsesBySerialNumber;
+    private final Date earliestNextUpdate;
+
+    private RevocationData(long generation,
+                           Map<String, Long> fileStamps,
+                           Map<X500Principal, List<X509CRL>> crlsByIssuer,
+                           Map<BigInteger, List<OcspResponse>> ocspResponsesBySerialNumber,
+                           Date earliestNextUpdate) {
+        this.generation = generation;
+        this.fileStamps = fileStamps;
+        this.crlsByIssuer = crlsByIssuer;
+        this.ocspResponsesBySerialNumber = ocspResponsesBySerialNumber;
+        this.earliestNextUpdate = earliestNextUpdate;
+    }
+
+    static RevocationData load(File directory, long generation) {
+        Map<String, Long> fileStamps = scan(directory);
+        Map<X500Principal, List<X509CRL>> crlsByIssuer = new HashMap<>();
+        Map<BigInteger, List<OcspResponse>> ocspResponsesBySerialNumber = new HashMap<>();
+        Date earliestNextUpdate = null;
+        for (String fileName : fileStamps.keySet()) {
+            File file = new File(directory, fileName);
+            try {
+                if (fileName.endsWith(".crl")) {
+                    for (X509CRL crl : readCrls(file)) {
+                        crlsByIssuer.computeIfAbsent(crl.getIssuerX500Principal(), key -> new ArrayList<>()).add(crl);
+                        earliestNextUpdate = earliestOf(earliestNextUpdate, crl.getNextUpdate());
+                    }
+                } else {
+                    OcspResponse response = OcspResponse.parse(Files.readAllBytes(file.toPath()));
+                    for (OcspResponse.SingleResponse singleResponse : response.getResponses()) {
+                        ocspResponsesBySerialNumber.computeIfAbsent(singleResponse.getSerialNumber(),
+                                                                    key -> new ArrayList<>()).add(response);
+                        earliestNextUpdate = earliestOf(earliestNextUpdate, singleResponse.getNextUpdate());
+                    }
+                }
+            } catch (IOException | GeneralSecurityException | SignatureVerificationException e) {
+                logClient.warn("Skipping the revocation data file [{}], as it cannot be loaded: {}",
+                               file, e.getMessage());
+            }
+        }
+        logClient.info("Loaded the revocation data from [{}]: {} CRL issuer(s), {} OCSP certificate status(es)",
+                       directory, crlsByIssuer.size(), ocspResponsesBySerialNumber.size());
+        return new RevocationData(generation, fileStamps, crlsByIssuer, ocspResponsesBySerialNumber, earliestNextUpdate);
+    }
+
+    /**
+     * Returns the names and the last modification times of the revocation data files in the given directory.
+     */
+    static Map<String, Long> scan(File directory) {
+        Map<String, Long> result = new TreeMap<>();
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(".crl") || name.endsWith(".ocsp"));
+        if (files == null) {
+            logClient.warn("Cannot list the revocation data directory [{}]", directory);
+            return result;
+        }
+        for (File file : files) {
+            if (file.isFile()) {
+                result.put(file.getName(), file.lastModified());
+            }
+        }
+        return result;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    long getGeneration() {
+        return generation;
+    }
+
+    Map<String, Long> getFileStamps() {
+        return fileStamps;
+    }
+
+    /**
+     * Returns true if the given snapshot has become stale, meaning that at least one of its CRLs or OCSP responses is
+     * past its next update time.
+     */
+    boolean isStale(Date now) {
+        return earliestNextUpdate != null && !earliestNextUpdate.after(now);
+    }
+
+    /**
+     * Returns the revocation status of the given certificate. Both the OCSP responses and the CRLs are consulted and
+     * any of them saying that the certificate is revoked wins. Only the current data that is signed by the given
+     * issuer (or by a responder that it authorized) is used.
+     */
+    RevocationStatus getStatus(X509Certificate certificate, X509Certificate issuer, Date now) {
+        RevocationStatus result = RevocationStatus.UNKNOWN;
+        List<OcspResponse> responses = ocspResponsesBySerialNumber.get(certificate.getSerialNumber());
+        if (responses != null) {
+            for (OcspResponse response : responses) {
+                RevocationStatus status = response.getStatus(certificate, issuer, now);
+                if (status == RevocationStatus.REVOKED) {
+                    return status;
+                }
+                if (status == RevocationStatus.GOOD) {
+                    result = status;
+                }
+            }
+        }
+        List<X509CRL> crls = crlsByIssuer.get(certificate.getIssuerX500Principal());
+        if (crls != null) {
+            for (X509CRL crl : crls) {
+                if (isCurrentAndSignedBy(crl, issuer, now)) {
+                    if (crl.isRevoked(certificate)) {
+                        return RevocationStatus.REVOKED;
+                    }
+                    result = RevocationStatus.GOOD;
+                }
+            }
+        }
+        return result;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private static boolean isCurrentAndSignedBy(X509CRL crl, X509Certificate issuer, Date now) {
+        if (crl.getThisUpdate().after(now) || (crl.getNextUpdate() != null && !crl.getNextUpdate().after(now))) {
+            return false;
+        }
+        try {
+            crl.verify(issuer.getPublicKey());
+            return true;
+        } catch (GeneralSecurityException e) {
+            return false;
+        }
+    }
+
+    private static List<X509CRL> readCrls(File file) throws IOException, GeneralSecurityException {
+        List<X509CRL> result = new ArrayList<>();
+        try (InputStream is = new FileInputStream(file)) {
+            for (CRL crl : CertificateFactory.getInstance("X.509").generateCRLs(is)) {
+                result.add((X509CRL) crl);
+            }
+        }
+        return result;
+    }
+
+    private static Date earliestOf(Date current, Date candidate) {
+        if (candidate == null) {
+            return current;
+        }
+        return current == null || candidate.before(current) ? candidate : current;
+    }
+
+}
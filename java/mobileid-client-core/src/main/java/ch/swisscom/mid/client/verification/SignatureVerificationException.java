@@ -0,0 +1,40 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.verification;
+
+import ch.swisscom.mid.client.MIDClientException;
+
+/**
+ * Exception thrown by the {@link SignatureVerifier} when a signature fails the local verification. The
+ * {@link VerificationFailure} tells which of the verification steps failed.
+ */
+public class SignatureVerificationException extends MIDClientException {
+
+    private final VerificationFailure failure;
+
+    public SignatureVerificationException(VerificationFailure failure, String message) {
+        this(failure, message, null);
+    }
+
+    public SignatureVerificationException(VerificationFailure failure, String message, Throwable cause) {
+        super(message, cause);
+        this.failure = failure;
+    }
+
+    public VerificationFailure getFailure() {
+        return failure;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.verification;
+
+import java.security.cert.X509Certificate;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * The outcome of a successful local verification of a Mobile ID signature.
+ */
+public class SignatureVerificationResult {
+
+    private final X509Certificate signerCertificate;
+    private final List<X509Certificate> certificateChain;
+    private final String signerSerialNumber;
+    private final byte[] signedContent;
+    private final Date signingTime;
+
+    public SignatureVerificationResult(X509Certificate signerCertificate,
+                                       List<X509Certificate> certificateChain,
+                                       String signerSerialNumber,
+                                       byte[] signedContent,
+                                       Date signingTime) {
+        this.signerCertificate = signerCertificate;
+        this.certificateChain = certificateChain;
+        this.signerSerialNumber = signerSerialNumber;
+        this.signedContent = signedContent;
+        this.signingTime = signingTime;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public X509Certificate getSignerCertificate() {
+        return signerCertificate;
+    }
+
+    /**
+     * Returns the validated certificate chain, starting with the signer certificate and ending with the trust anchor.
+     */
+    public List<X509Certificate> getCertificateChain() {
+        return certificateChain;
+    }
+
+    /**
+     * Returns the SERIALNUMBER attribute of the signer certificate's subject (e.g. MIDCHEGU8GSH6K88), which identifies
+     * the Mobile ID user independently of the phone number, or NULL if the subject has no such attribute.
+     */
+    public String getSignerSerialNumber() {
+        return signerSerialNumber;
+    }
+
+    public byte[] getSignedContent() {
+        return signedContent;
+    }
+
+    /**
+     * Returns the signing time claimed in the signed attributes or NULL if the signature does not carry one.
+     */
+    public Date getSigningTime() {
+        return signingTime;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    @Override
+    public String toString() {
+        return "SignatureVerificationResult{" +
+               "signerSubject='" + signerCertificate.getSubjectX500Principal() + '\'' +
+               ", signerSerialNumber='" + signerSerialNumber + '\'' +
+               ", certificateChainLength=" + certificateChain.size() +
+               ", signingTime=" + signingTime +
+               '}';
+    }
+
+}
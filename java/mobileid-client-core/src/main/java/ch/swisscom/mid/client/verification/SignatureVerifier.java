@@ -0,0 +1,263 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.verification;
+
+import java.io.Closeable;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.security.cert.X509Certificate;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ch.swisscom.mid.client.config.SignatureVerificationConfiguration;
+import ch.swisscom.mid.client.model.DataToBeSigned;
+import ch.swisscom.mid.client.model.SignatureRequest;
+import ch.swisscom.mid.client.model.SignatureResponse;
+
+/**
+ * Verifies locally the PKCS#7/CMS signatures returned by the Mobile ID service, as an alternative to asking the service
+ * for it (via the {@link ch.swisscom.mid.client.model.SignatureValidationAdditionalService}, which adds processing time
+ * to each signature request). A signature passes the verification when:
+ * <ul>
+ *     <li>the signed content is the data to be signed that was sent in the signature request;</li>
+ *     <li>the signature value verifies with the public key of the signer certificate, which must be included in the
+ *     signature (as the Mobile ID service does);</li>
+ *     <li>the signer certificate passes the validation of the {@link CertificateValidator}: it chains up to one of the
+ *     configured trust anchors, all the certificates of the chain are currently valid and, if enabled, none of them is
+ *     revoked according to the local revocation data.</li>
+ * </ul>
+ * Only the SHA-2 digests with RSA or ECDSA signatures are accepted. The verifier holds no mutable state besides its
+ * counters and can be shared by all the threads of an application.
+ */
+public class SignatureVerifier implements Closeable {
+
+    private static final String OID_SUBJECT_SERIAL_NUMBER = "2.5.4.5";
+
+    private final CertificateValidator certificateValidator;
+    private final boolean ownsCertificateValidator;
+
+    private final AtomicLong verifiedSignatures = new AtomicLong();
+    private final AtomicLong rejectedSignatures = new AtomicLong();
+
+    public SignatureVerifier(SignatureVerificationConfiguration config) {
+        this.certificateValidator = new CertificateValidator(config);
+        this.ownsCertificateValidator = true;
+    }
+
+    /**
+     * Creates a verifier that uses the given certificate validator, which can thus be shared with other verifiers or
+     * used for the certificates of the profile queries. The validator is not closed by this verifier.
+     */
+    public SignatureVerifier(CertificateValidator certificateValidator) {
+        this.certificateValidator = certificateValidator;
+        this.ownsCertificateValidator = false;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    /**
+     * Verifies the signature of the given response against the data to be signed of the given request.
+     *
+     * @throws SignatureVerificationException if the signature fails the verification
+     */
+    public SignatureVerificationResult verify(SignatureRequest request, SignatureResponse response) {
+        DataToBeSigned dataToBeSigned = request.getDataToBeSigned();
+        Charset charset = dataToBeSigned.getEncoding() == null ?
+                          StandardCharsets.UTF_8 : Charset.forName(dataToBeSigned.getEncoding());
+        return verify(response.getBase64Signature(), dataToBeSigned.getData().getBytes(charset));
+    }
+
+    /**
+     * Verifies the signature of the given response against the given data to be signed (in UTF-8).
+     *
+     * @throws SignatureVerificationException if the signature fails the verification
+     */
+    public SignatureVerificationResult verify(SignatureResponse response, String expectedDataToBeSigned) {
+        return verify(response.getBase64Signature(), expectedDataToBeSigned.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Verifies the given Base64 encoded CMS signature against the given expected content.
+     *
+     * @throws SignatureVerificationException if the signature fails the verification
+     */
+    public SignatureVerificationResult verify(String base64Signature, byte[] expectedContent) {
+        if (base64Signature == null) {
+            throw countRejection(new SignatureVerificationException(VerificationFailure.MALFORMED_SIGNATURE,
+                                                                    "The signature response contains no signature"));
+        }
+        byte[] signature;
+        try {
+            signature = Base64.getMimeDecoder().decode(base64Signature);
+        } catch (IllegalArgumentException e) {
+            throw countRejection(new SignatureVerificationException(VerificationFailure.MALFORMED_SIGNATURE,
+                                                                    "The signature is not valid Base64", e));
+        }
+        return verify(signature, expectedContent);
+    }
+
+    /**
+     * Verifies the given DER (or BER) encoded CMS signature against the given expected content.
+     *
+     * @throws SignatureVerificationException if the signature fails the verification
+     */
+    public SignatureVerificationResult verify(byte[] signature, byte[] expectedContent) {
+        try {
+            SignatureVerificationResult result = doVerify(signature, expectedContent);
+            verifiedSignatures.incrementAndGet();
+            return result;
+        } catch (SignatureVerificationException e) {
+            throw countRejection(e);
+        }
+    }
+
+    public long getVerifiedSignatures() {
+        return verifiedSignatures.get();
+    }
+
+    public long getRejectedSignatures() {
+        return rejectedSignatures.get();
+    }
+
+    public CertificateValidator getCertificateValidator() {
+        return certificateValidator;
+    }
+
+    @Override
+    public void close() {
+        if (ownsCertificateValidator) {
+            certificateValidator.close();
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private SignatureVerificationResult doVerify(byte[] signature, byte[] expectedContent) {
+        CmsSignedData signedData = CmsSignedData.parse(signature);
+
+        byte[] content = signedData.getContent() == null ? expectedContent : signedData.getContent();
+        if (!MessageDigest.isEqual(content, expectedContent)) {
+            throw new SignatureVerificationException(VerificationFailure.CONTENT_MISMATCH,
+                                                     "The signed content does not match the expected data to be signed");
+        }
+
+        X509Certificate signerCertificate = signedData.findSignerCertificate();
+        if (signerCertificate == null) {
+            throw new SignatureVerificationException(VerificationFailure.SIGNER_CERTIFICATE_NOT_FOUND,
+                                                     "The signer certificate is not included in the signature");
+        }
+
+        String digestName = Algorithms.getDigestName(signedData.getDigestAlgorithm());
+        String signatureName = Algorithms.getSignatureName(signedData.getSignatureAlgorithm(), digestName);
+        if (digestName == null || signatureName == null) {
+            throw new SignatureVerificationException(VerificationFailure.UNSUPPORTED_ALGORITHM,
+                                                     "Unsupported digest algorithm [" + signedData.getDigestAlgorithm()
+                                                     + "] or signature algorithm ["
+                                                     + signedData.getSignatureAlgorithm() + "]");
+        }
+
+        byte[] signedBytes = content;
+        Date signingTime = null;
+        if (signedData.hasSignedAttributes()) {
+            checkSignedAttributes(signedData, digest(digestName, content));
+            DerValue signingTimeValue = signedData.getSignedAttribute(CmsSignedData.OID_SIGNING_TIME);
+            signingTime = signingTimeValue == null ? null : signingTimeValue.getTime();
+            signedBytes = signedData.getSignedAttributesForVerification();
+        }
+        checkSignatureValue(signatureName, signerCertificate, signedBytes, signedData.getSignature());
+
+        List<X509Certificate> certificateChain = certificateValidator.validate(signerCertificate,
+                                                                               signedData.getCertificates());
+        return new SignatureVerificationResult(signerCertificate, certificateChain,
+                                               getSubjectSerialNumber(signerCertificate), content, signingTime);
+    }
+
+    private static void checkSignedAttributes(CmsSignedData signedData, byte[] contentDigest) {
+        DerValue messageDigest = signedData.getSignedAttribute(CmsSignedData.OID_MESSAGE_DIGEST);
+        DerValue contentType = signedData.getSignedAttribute(CmsSignedData.OID_CONTENT_TYPE);
+        if (messageDigest == null || contentType == null) {
+            throw new SignatureVerificationException(VerificationFailure.MALFORMED_SIGNATURE,
+                                                     "The CMS signed attributes must contain the message digest and "
+                                                     + "the content type");
+        }
+        if (!signedData.getContentType().equals(contentType.getOid())) {
+            throw new SignatureVerificationException(VerificationFailure.INVALID_SIGNATURE,
+                                                     "The signed content type does not match the encapsulated "
+                                                     + "content type");
+        }
+        if (!MessageDigest.isEqual(contentDigest, messageDigest.expect(DerValue.TAG_OCTET_STRING).getOctets())) {
+            throw new SignatureVerificationException(VerificationFailure.CONTENT_MISMATCH,
+                                                     "The signed message digest does not match the digest of the "
+                                                     + "expected data to be signed");
+        }
+    }
+
+    private static void checkSignatureValue(String signatureName, X509Certificate signerCertificate,
+                                            byte[] signedBytes, byte[] signatureValue) {
+        boolean valid;
+        try {
+            Signature verifier = Signature.getInstance(signatureName);
+            // initializing with the certificate (not its key) also enforces its key usage extension
+            verifier.initVerify(signerCertificate);
+            verifier.update(signedBytes);
+            valid = verifier.verify(signatureValue);
+        } catch (NoSuchAlgorithmException e) {
+            throw new SignatureVerificationException(VerificationFailure.UNSUPPORTED_ALGORITHM,
+                                                     "The signature algorithm " + signatureName + " is not available", e);
+        } catch (InvalidKeyException | SignatureException e) {
+            throw new SignatureVerificationException(VerificationFailure.INVALID_SIGNATURE,
+                                                     "Failed to verify the signature value: " + e.getMessage(), e);
+        }
+        if (!valid) {
+            throw new SignatureVerificationException(VerificationFailure.INVALID_SIGNATURE,
+                                                     "The signature value does not verify with the signer certificate");
+        }
+    }
+
+    private static byte[] digest(String digestName, byte[] content) {
+        try {
+            return MessageDigest.getInstance(digestName).digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new SignatureVerificationException(VerificationFailure.UNSUPPORTED_ALGORITHM,
+                                                     "The digest algorithm " + digestName + " is not available", e);
+        }
+    }
+
+    private static String getSubjectSerialNumber(X509Certificate certificate) {
+        DerValue subject = DerValue.parse(certificate.getSubjectX500Principal().getEncoded());
+        for (DerValue relativeName : subject.getChildren()) {
+            for (DerValue attribute : relativeName.getChildren()) {
+                if (OID_SUBJECT_SERIAL_NUMBER.equals(attribute.getChild(0).getOid())) {
+                    return attribute.getChild(1).getString();
+                }
+            }
+        }
+        return null;
+    }
+
+    private SignatureVerificationException countRejection(SignatureVerificationException e) {
+        rejectedSignatures.incrementAndGet();
+        return e;
+    }
+
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.verification;
+
+import ch.swisscom.mid.client.model.DocumentedEnum;
+
+/**
+ * The reasons for which the local verification of a Mobile ID signature can fail. A reason from this list is carried
+ * by the {@link SignatureVerificationException} thrown by the {@link SignatureVerifier}.
+ */
+public enum VerificationFailure implements DocumentedEnum {
+
+    MALFORMED_SIGNATURE("The signature is not a well-formed PKCS#7/CMS SignedData structure (or it is not valid Base64)."),
+    CONTENT_MISMATCH("The signed content does not match the data to be signed that was sent in the signature request."),
+    SIGNER_CERTIFICATE_NOT_FOUND("The signature does not contain the certificate of its signer."),
+    UNSUPPORTED_ALGORITHM("The signature uses a digest or signature algorithm that is not supported by the verifier."),
+    INVALID_SIGNATURE("The cryptographic signature value does not verify with the public key of the signer certificate."),
+    MALFORMED_CERTIFICATE("A certificate to validate cannot be decoded as an X.509 certificate."),
+    UNTRUSTED_CERTIFICATE("The signer certificate does not chain up to one of the configured trust anchors, or one of "
+                          + "the certificates of the chain is expired or not yet valid."),
+    REVOKED_CERTIFICATE("One of the certificates of the chain is revoked, according to the local revocation data."),
+    REVOCATION_STATUS_UNKNOWN("The local revocation data has no current status for one of the certificates of the chain.");
+
+    private final String description;
+
+    VerificationFailure(String description) {
+        this.description = description;
+    }
+
+    @Override
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public String toString() {
+        return name();
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.jfr;
+
+import ch.swisscom.mid.client.config.ComProtocol;
+import ch.swisscom.mid.client.metrics.MssExchange;
+
+/**
+ * Java 11+ variant of the entry point for emitting the MID client's Java Flight Recorder events. Keep the public API in
+ * sync with the Java 8 variant in <code>src/main/java</code>.
+ */
+public final class FlightRecorderSupport {
+
+    private FlightRecorderSupport() {
+        // static utility class
+    }
+
+    public static boolean isAvailable() {
+        return true;
+    }
+
+    public static ExchangeRecording beginExchange() {
+        MssExchangeEvent event = new MssExchangeEvent();
+        if (!event.isEnabled()) {
+            return ExchangeRecording.NOOP;
+        }
+        event.begin();
+        return exchange -> commitExchange(event, exchange);
+    }
+
+    public static OperationRecording beginSoapPortCreation(String portType, String serviceUrl) {
+        SoapPortCreationEvent event = new SoapPortCreationEvent();
+        if (!event.isEnabled()) {
+            return OperationRecording.NOOP;
+        }
+        event.portType = portType;
+        event.serviceUrl = serviceUrl;
+        event.begin();
+        return event::commit;
+    }
+
+    public static OperationRecording beginTlsContextCreation(ComProtocol protocol) {
+        TlsContextCreationEvent event = new TlsContextCreationEvent();
+        if (!event.isEnabled()) {
+            return OperationRecording.NOOP;
+        }
+        event.protocol = protocol.name();
+        event.begin();
+        return event::commit;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private static void commitExchange(MssExchangeEvent event, MssExchange exchange) {
+        event.end();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.operation = exchange.getOperation().name();
+        event.protocol = exchange.getProtocol().name();
+        event.apTransId = exchange.getApTransId();
+        event.httpStatusCode = exchange.getHttpStatusCode();
+        event.statusCode = exchange.getStatusCode() == null ? null : exchange.getStatusCode().name();
+        event.failureReason = exchange.getFailureReason() == null ? null : exchange.getFailureReason().name();
+        event.requestBuildingTime = exchange.getRequestBuildingTimeInNanos();
+        event.serializationTime = exchange.getSerializationTimeInNanos();
+        event.poolLeaseTime = exchange.getPoolLeaseTimeInNanos();
+        event.networkTime = exchange.getNetworkTimeInNanos();
+        event.parsingTime = exchange.getParsingTimeInNanos();
+        event.responseMappingTime = exchange.getResponseMappingTimeInNanos();
+        event.commit();
+    }
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("ch.swisscom.mid.client.MssExchange")
+@Label("MSS Exchange")
+@Description("One MSS request/response exchange with the Mobile ID service")
+@Category({"Mobile ID Client"})
+@StackTrace(false)
+class MssExchangeEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Protocol")
+    String protocol;
+
+    @Label("APTransID")
+    String apTransId;
+
+    @Label("HTTP Status Code")
+    @Description("Zero when no HTTP response was received or the protocol does not expose it")
+    int httpStatusCode;
+
+    @Label("MSS Status Code")
+    String statusCode;
+
+    @Label("Failure Reason")
+    String failureReason;
+
+    @Label("Request Building Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long requestBuildingTime;
+
+    @Label("Serialization Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long serializationTime;
+
+    @Label("Pool Lease Time")
+    @Description("Time spent waiting for a pooled connection or SOAP port, including opening a new connection")
+    @Timespan(Timespan.NANOSECONDS)
+    long poolLeaseTime;
+
+    @Label("Network Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long networkTime;
+
+    @Label("Parsing Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long parsingTime;
+
+    @Label("Response Mapping Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long responseMappingTime;
+
+}
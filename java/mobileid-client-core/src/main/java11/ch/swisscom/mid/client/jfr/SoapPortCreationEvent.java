@@ -0,0 +1,36 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("ch.swisscom.mid.client.SoapPortCreation")
+@Label("SOAP Port Creation")
+@Description("Creation of a new JAX-WS port for the MSS SOAP pool, including WSDL parsing and TLS setup")
+@Category({"Mobile ID Client"})
+class SoapPortCreationEvent extends Event {
+
+    @Label("Port Type")
+    String portType;
+
+    @Label("Service URL")
+    String serviceUrl;
+
+}
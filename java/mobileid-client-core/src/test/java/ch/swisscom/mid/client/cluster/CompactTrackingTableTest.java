@@ -0,0 +1,120 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import ch.swisscom.mid.client.model.SignatureTracking;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+
+public class CompactTrackingTableTest {
+
+    @Test
+    public void testRoundTrip() {
+        CompactTrackingTable table = new CompactTrackingTable();
+        SignatureTracking tracking = buildTracking("h29ah1", "41790000000");
+        tracking.setMajorVersion("2");
+        tracking.setMinorVersion("3");
+        tracking.setDeadlineInMillis(1234567890123L);
+        tracking.setCorrelationKey("session-1");
+        tracking.setTraceParent("00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01");
+        table.put(tracking);
+        table.put(buildTracking("h29ah2", "0041790000000"));
+        table.put(buildTracking("h29ah3", "+41790000000"));
+        table.put(buildTracking("h29ah4", null));
+
+        SignatureTracking copy = table.get("h29ah1");
+        assertThat(copy.getTransactionId(), is("h29ah1"));
+        assertThat(copy.getMobileUserMsisdn(), is("41790000000"));
+        assertThat(copy.getMajorVersion(), is("2"));
+        assertThat(copy.getMinorVersion(), is("3"));
+        assertThat(copy.getDeadlineInMillis(), is(1234567890123L));
+        assertThat(copy.getCorrelationKey(), is("session-1"));
+        assertThat(copy.getTraceParent(), is(tracking.getTraceParent()));
+        assertThat(table.get("h29ah2").getMobileUserMsisdn(), is("0041790000000"));
+        assertThat(table.get("h29ah2").getCorrelationKey(), is(nullValue()));
+        assertThat(table.get("h29ah3").getMobileUserMsisdn(), is("+41790000000"));
+        assertThat(table.get("h29ah4").getMobileUserMsisdn(), is(nullValue()));
+        assertThat(table.get("unknown"), is(nullValue()));
+        assertThat(table.size(), is(4));
+    }
+
+    @Test
+    public void testReplaceAndRemove() {
+        CompactTrackingTable table = new CompactTrackingTable();
+        table.put(buildTracking("T1", "41790000001"));
+        table.put(buildTracking("T1", "41790000002"));
+        assertThat(table.size(), is(1));
+        assertThat(table.get("T1").getMobileUserMsisdn(), is("41790000002"));
+
+        assertThat(table.remove("T1"), is(true));
+        assertThat(table.remove("T1"), is(false));
+        assertThat(table.contains("T1"), is(false));
+        assertThat(table.size(), is(0));
+        assertThat(table.toList(), hasSize(0));
+    }
+
+    @Test
+    public void testManyEntries() {
+        CompactTrackingTable table = new CompactTrackingTable();
+        int count = 100_000;
+        for (int index = 0; index < count; index++) {
+            table.put(buildTracking("MSSP-TRANS-" + index, Long.toString(41790000000L + index)));
+        }
+        assertThat(table.size(), is(count));
+        // remove most of them, so that the slab gets compacted and the removed slots are reused
+        for (int index = 0; index < count; index++) {
+            if (index % 10 != 0) {
+                assertThat(table.remove("MSSP-TRANS-" + index), is(true));
+            }
+        }
+        for (int index = count; index < count + 1000; index++) {
+            table.put(buildTracking("MSSP-TRANS-" + index, Long.toString(41790000000L + index)));
+        }
+        assertThat(table.size(), is(count / 10 + 1000));
+        assertThat(table.get("MSSP-TRANS-500").getMobileUserMsisdn(), is("41790000500"));
+        assertThat(table.get("MSSP-TRANS-100500").getMobileUserMsisdn(), is("41790100500"));
+        assertThat(table.contains("MSSP-TRANS-501"), is(false));
+        List<SignatureTracking> all = table.toList();
+        assertThat(all, hasSize(count / 10 + 1000));
+        // about 20 bytes of transaction ID plus 28 bytes of columns and 8 to 16 bytes of slots per entry
+        assertThat(table.estimateSizeInBytes(), lessThan(count * 80L));
+    }
+
+    @Test
+    public void testMsisdnEncoding() {
+        for (String msisdn : new String[]{"0", "7", "41790000000", "00000000000000001", "99999999999999999"}) {
+            assertThat(CompactTrackingTable.decodeMsisdn(CompactTrackingTable.encodeMsisdn(msisdn)), is(msisdn));
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private static SignatureTracking buildTracking(String transactionId, String msisdn) {
+        SignatureTracking tracking = new SignatureTracking();
+        tracking.setTransactionId(transactionId);
+        tracking.setMobileUserMsisdn(msisdn);
+        return tracking;
+    }
+
+}
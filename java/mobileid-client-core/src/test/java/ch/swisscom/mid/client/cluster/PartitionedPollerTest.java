@@ -0,0 +1,259 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ch.swisscom.mid.client.MIDClient;
+import ch.swisscom.mid.client.MIDFlowException;
+import ch.swisscom.mid.client.config.ClusterConfiguration;
+import ch.swisscom.mid.client.model.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+public class PartitionedPollerTest {
+
+    private static final int PARTITION_COUNT = 16;
+
+    @Test
+    public void testPartitionsAreSplitBetweenNodes() {
+        TrackingStore store = new InMemoryTrackingStore();
+        try (PartitionedPoller first = newPoller(store, "node-1", 5000);
+             PartitionedPoller second = newPoller(store, "node-2", 5000)) {
+            first.rebalance();
+            second.rebalance();
+            // the first node saw only itself at first and still holds the partitions of the second node
+            first.rebalance();
+            second.rebalance();
+
+            Set<Integer> firstPartitions = first.getOwnedPartitions();
+            Set<Integer> secondPartitions = second.getOwnedPartitions();
+            assertThat(firstPartitions.isEmpty(), is(false));
+            assertThat(secondPartitions.isEmpty(), is(false));
+            Set<Integer> all = new HashSet<>(firstPartitions);
+            all.addAll(secondPartitions);
+            assertThat(all.size(), is(PARTITION_COUNT));
+            assertThat(firstPartitions.size() + secondPartitions.size(), is(PARTITION_COUNT));
+        }
+    }
+
+    @Test
+    public void testEachSignatureIsPolledByOneNode() {
+        TrackingStore store = new InMemoryTrackingStore();
+        FakeClient client = new FakeClient(2);
+        CountingListener listener = new CountingListener();
+        try (PartitionedPoller first = new PartitionedPoller(client, store, listener, buildConfig("node-1", 5000));
+             PartitionedPoller second = new PartitionedPoller(client, store, listener, buildConfig("node-2", 5000))) {
+            for (PartitionedPoller poller : new PartitionedPoller[]{first, second, first, second}) {
+                poller.rebalance();
+            }
+            for (int index = 0; index < 100; index++) {
+                first.track(buildTracking("TX-" + index));
+            }
+            for (int round = 0; round < 2; round++) {
+                first.pollOnce();
+                second.pollOnce();
+            }
+
+            assertThat(listener.finished.size(), is(100));
+            assertThat(first.getPollCount() + second.getPollCount(), is(200L));
+            assertThat(first.getPollCount() > 0 && second.getPollCount() > 0, is(true));
+            for (AtomicInteger pollCount : client.pollCounts.values()) {
+                assertThat(pollCount.get(), is(2));
+            }
+            for (int partition = 0; partition < PARTITION_COUNT; partition++) {
+                assertThat(store.getTrackings(partition), is(empty()));
+            }
+        }
+    }
+
+    @Test
+    public void testPartitionsOfDeadNodeAreTakenOver() throws InterruptedException {
+        TrackingStore store = new InMemoryTrackingStore();
+        PartitionedPoller survivor = newPoller(store, "node-1", 1000);
+        // a node that joined and took its share of the partitions, then died without leaving the cluster
+        PartitionedPoller dead = newPoller(store, "node-2", 1000);
+        survivor.rebalance();
+        dead.rebalance();
+        survivor.rebalance();
+        dead.rebalance();
+        int deadPartitionCount = dead.getOwnedPartitions().size();
+        assertThat(survivor.getOwnedPartitions().size(), is(PARTITION_COUNT - deadPartitionCount));
+
+        Thread.sleep(600);
+        survivor.rebalance();
+        assertThat(survivor.getOwnedPartitions().size(), is(PARTITION_COUNT - deadPartitionCount));
+
+        Thread.sleep(600);
+        survivor.rebalance();
+        assertThat(survivor.getOwnedPartitions().size(), is(PARTITION_COUNT));
+        survivor.close();
+    }
+
+    @Test
+    public void testLeavingNodeHandsOverImmediately() {
+        TrackingStore store = new InMemoryTrackingStore();
+        try (PartitionedPoller staying = newPoller(store, "node-1", 60000)) {
+            PartitionedPoller leaving = newPoller(store, "node-2", 60000);
+            staying.rebalance();
+            leaving.rebalance();
+            staying.rebalance();
+            leaving.rebalance();
+            leaving.close();
+            staying.rebalance();
+            assertThat(staying.getOwnedPartitions().size(), is(PARTITION_COUNT));
+        }
+    }
+
+    @Test
+    public void testSlowPollsDoNotLoseLeases() throws InterruptedException {
+        TrackingStore store = new InMemoryTrackingStore();
+        // each poll takes longer than a lease, and the signatures stay outstanding
+        FakeClient client = new FakeClient(Integer.MAX_VALUE, 1000);
+        CountingListener listener = new CountingListener();
+        ClusterConfiguration firstConfig = buildConfig("node-1", 600);
+        ClusterConfiguration secondConfig = buildConfig("node-2", 600);
+        firstConfig.setPollIntervalInMs(10);
+        secondConfig.setPollIntervalInMs(10);
+        try (PartitionedPoller first = new PartitionedPoller(client, store, listener, firstConfig);
+             PartitionedPoller second = new PartitionedPoller(client, store, listener, secondConfig)) {
+            for (int index = 0; index < 20; index++) {
+                first.track(buildTracking("TX-" + index));
+            }
+            first.start();
+            second.start();
+            Thread.sleep(800);
+            Set<Integer> firstPartitions = first.getOwnedPartitions();
+            Set<Integer> secondPartitions = second.getOwnedPartitions();
+            assertThat(firstPartitions.size() + secondPartitions.size(), is(PARTITION_COUNT));
+
+            for (int check = 0; check < 20; check++) {
+                Thread.sleep(100);
+                assertThat(first.getOwnedPartitions(), is(firstPartitions));
+                assertThat(second.getOwnedPartitions(), is(secondPartitions));
+            }
+            assertThat(first.getPollCount() > 0 && second.getPollCount() > 0, is(true));
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private static PartitionedPoller newPoller(TrackingStore store, String nodeId, int leaseDurationInMs) {
+        return new PartitionedPoller(new FakeClient(1), store, new CountingListener(), buildConfig(nodeId, leaseDurationInMs));
+    }
+
+    private static ClusterConfiguration buildConfig(String nodeId, int leaseDurationInMs) {
+        ClusterConfiguration config = new ClusterConfiguration();
+        config.setNodeId(nodeId);
+        config.setPartitionCount(PARTITION_COUNT);
+        config.setLeaseDurationInMs(leaseDurationInMs);
+        return config;
+    }
+
+    private static SignatureTracking buildTracking(String transactionId) {
+        SignatureTracking tracking = new SignatureTracking();
+        tracking.setTransactionId(transactionId);
+        tracking.setMobileUserMsisdn("41790000000");
+        return tracking;
+    }
+
+    private static class CountingListener implements SignatureStatusListener {
+
+        private final Set<String> finished = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public void signatureFinished(SignatureTracking tracking, SignatureResponse response) {
+            finished.add(tracking.getTransactionId());
+        }
+
+        @Override
+        public void signatureFailed(SignatureTracking tracking, MIDFlowException exception) {
+            throw new AssertionError("Unexpected failure for " + tracking.getTransactionId(), exception);
+        }
+    }
+
+    /**
+     * Answers each signature with OUTSTANDING_TRANSACTION until the given poll, then with SIGNATURE, each poll taking
+     * the given time.
+     */
+    private static class FakeClient implements MIDClient {
+
+        private final int pollsUntilSigned;
+        private final long pollTimeInMillis;
+        private final Map<String, AtomicInteger> pollCounts = new ConcurrentHashMap<>();
+
+        private FakeClient(int pollsUntilSigned) {
+            this(pollsUntilSigned, 0);
+        }
+
+        private FakeClient(int pollsUntilSigned, long pollTimeInMillis) {
+            this.pollsUntilSigned = pollsUntilSigned;
+            this.pollTimeInMillis = pollTimeInMillis;
+        }
+
+        @Override
+        public SignatureResponse pollForSignatureStatus(SignatureTracking signatureTracking) {
+            if (pollTimeInMillis > 0) {
+                try {
+                    Thread.sleep(pollTimeInMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            int pollCount = pollCounts.computeIfAbsent(signatureTracking.getTransactionId(), ignored -> new AtomicInteger())
+                                      .incrementAndGet();
+            Status status = new Status();
+            status.setStatusCode(pollCount < pollsUntilSigned ? StatusCode.OUTSTANDING_TRANSACTION : StatusCode.SIGNATURE);
+            SignatureResponse response = new SignatureResponse();
+            response.setStatus(status);
+            response.setTracking(signatureTracking);
+            return response;
+        }
+
+        @Override
+        public SignatureResponse requestSyncSignature(SignatureRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SignatureResponse requestAsyncSignature(SignatureRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ReceiptResponse requestSyncReceipt(SignatureTracking signatureTracking, ReceiptRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ProfileResponse requestProfile(ProfileRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+}
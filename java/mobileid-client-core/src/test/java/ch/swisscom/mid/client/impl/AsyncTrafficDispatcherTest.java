@@ -0,0 +1,173 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import ch.swisscom.mid.client.config.ComProtocol;
+import ch.swisscom.mid.client.config.RequestTrace;
+import ch.swisscom.mid.client.config.ResponseTrace;
+import ch.swisscom.mid.client.config.TrafficDispatcherConfiguration;
+import ch.swisscom.mid.client.config.TrafficObserver;
+import ch.swisscom.mid.client.config.TrafficOverflowPolicy;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.Matchers.startsWith;
+
+public class AsyncTrafficDispatcherTest {
+
+    @Test
+    public void testNotificationsDeliveredInOrderOnConsumerThread() throws InterruptedException {
+        RecordingObserver observer = new RecordingObserver(null);
+        try (AsyncTrafficDispatcher dispatcher = new AsyncTrafficDispatcher(buildConfig(TrafficOverflowPolicy.DROP, 1024))) {
+            TrafficObserver wrapped = dispatcher.wrap(observer);
+            wrapped.notifyOfGeneratedApTransId("AP.TEST.1", ComProtocol.REST);
+            wrapped.notifyOfOutgoingRequest(new RequestTrace("request"), ComProtocol.REST);
+            wrapped.notifyOfIncomingResponse(new ResponseTrace(200, "OK", "response"), ComProtocol.REST);
+
+            TrafficObserverStats stats = dispatcher.getObserverStats().get(0);
+            awaitNoLag(stats);
+            assertThat(observer.events, contains("AP.TEST.1", "request", "response"));
+            assertThat(observer.threadNames.get(0), startsWith("mid-client-traffic-observer-"));
+            assertThat(stats.getSubmittedCount(), is(3L));
+            assertThat(stats.getDeliveredCount(), is(3L));
+            assertThat(stats.getLag(), is(0L));
+        }
+    }
+
+    @Test
+    public void testDropWhenBufferIsFull() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingObserver observer = new RecordingObserver(release);
+        try (AsyncTrafficDispatcher dispatcher = new AsyncTrafficDispatcher(buildConfig(TrafficOverflowPolicy.DROP, 4))) {
+            TrafficObserver wrapped = dispatcher.wrap(observer);
+            for (int index = 0; index < 20; index++) {
+                wrapped.notifyOfGeneratedApTransId("AP.TEST." + index, ComProtocol.SOAP);
+            }
+            TrafficObserverStats stats = dispatcher.getObserverStats().get(0);
+            assertThat(stats.getDroppedCount(), greaterThan(0L));
+            assertThat(stats.getLag(), greaterThan(0L));
+
+            release.countDown();
+            awaitNoLag(stats);
+            assertThat(stats.getDeliveredCount() + stats.getDroppedCount(), is(20L));
+            assertThat(observer.events.get(0), is("AP.TEST.0"));
+        }
+    }
+
+    @Test
+    public void testBlockLosesNothing() throws InterruptedException {
+        RecordingObserver observer = new RecordingObserver(null);
+        try (AsyncTrafficDispatcher dispatcher = new AsyncTrafficDispatcher(buildConfig(TrafficOverflowPolicy.BLOCK, 4))) {
+            TrafficObserver wrapped = dispatcher.wrap(observer);
+            Thread[] producers = new Thread[4];
+            for (int thread = 0; thread < producers.length; thread++) {
+                producers[thread] = new Thread(() -> {
+                    for (int index = 0; index < 250; index++) {
+                        wrapped.notifyOfOutgoingRequest(new RequestTrace("request"), ComProtocol.REST);
+                    }
+                });
+                producers[thread].start();
+            }
+            for (Thread producer : producers) {
+                producer.join();
+            }
+            awaitNoLag(dispatcher.getObserverStats().get(0));
+            assertThat(observer.events, hasSize(1000));
+            assertThat(dispatcher.getObserverStats().get(0).getDroppedCount(), is(0L));
+        }
+    }
+
+    @Test
+    public void testWrap() {
+        try (AsyncTrafficDispatcher dispatcher = new AsyncTrafficDispatcher(buildConfig(TrafficOverflowPolicy.SAMPLE, 16))) {
+            RecordingObserver observer = new RecordingObserver(null);
+            TrafficObserver wrapped = dispatcher.wrap(observer);
+            assertThat(wrapped, not(sameInstance(observer)));
+            assertThat(dispatcher.wrap(wrapped), sameInstance(wrapped));
+            assertThat(dispatcher.wrap(null), is(nullValue()));
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private static void awaitNoLag(TrafficObserverStats stats) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (stats.getLag() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static TrafficDispatcherConfiguration buildConfig(TrafficOverflowPolicy overflowPolicy, int bufferSize) {
+        TrafficDispatcherConfiguration config = new TrafficDispatcherConfiguration();
+        config.setEnabled(true);
+        config.setOverflowPolicy(overflowPolicy);
+        config.setBufferSize(bufferSize);
+        config.setConsumerThreads(2);
+        return config;
+    }
+
+    private static class RecordingObserver implements TrafficObserver {
+
+        private final CountDownLatch release;
+        private final List<String> events = new CopyOnWriteArrayList<>();
+        private final List<String> threadNames = new CopyOnWriteArrayList<>();
+
+        private RecordingObserver(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void notifyOfGeneratedApTransId(String apTransId, ComProtocol protocol) {
+            record(apTransId);
+        }
+
+        @Override
+        public void notifyOfOutgoingRequest(RequestTrace trace, ComProtocol protocol) {
+            record(trace.getBody());
+        }
+
+        @Override
+        public void notifyOfIncomingResponse(ResponseTrace trace, ComProtocol protocol) {
+            record(trace.getBody());
+        }
+
+        private void record(String event) {
+            if (release != null) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            events.add(event);
+            threadNames.add(Thread.currentThread().getName());
+        }
+    }
+
+}
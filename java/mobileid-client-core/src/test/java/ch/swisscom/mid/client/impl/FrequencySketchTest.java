@@ -0,0 +1,82 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+public class FrequencySketchTest {
+
+    @Test
+    public void testFrequencyIsCappedAt15() {
+        FrequencySketch sketch = new FrequencySketch(1000);
+        for (int count = 1; count <= 20; count++) {
+            sketch.increment("418888888888");
+            assertThat(sketch.frequency("418888888888"), is(Math.min(count, 15)));
+        }
+    }
+
+    @Test
+    public void testCountersAreHalvedAtSampleSize() {
+        // the sample size is 10 times the maximum size, so the counters are halved after 160 increments
+        FrequencySketch sketch = new FrequencySketch(16);
+        for (int count = 0; count < 15; count++) {
+            sketch.increment("hot");
+        }
+        assertThat(sketch.frequency("hot"), is(15));
+        int increments = 15;
+        while (sketch.frequency("hot") == 15) {
+            sketch.increment("cold" + increments);
+            increments++;
+            assertThat(increments, is(lessThan(200)));
+        }
+        assertThat(sketch.frequency("hot"), is(7));
+        assertThat(increments, is(greaterThanOrEqualTo(160)));
+    }
+
+    @Test
+    public void testConcurrentIncrementsAreNotLost() throws InterruptedException {
+        FrequencySketch sketch = new FrequencySketch(10000);
+        List<Thread> threads = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            String prefix = "thread" + thread + "-";
+            threads.add(new Thread(() -> {
+                for (int round = 0; round < 3; round++) {
+                    for (int index = 0; index < 100; index++) {
+                        sketch.increment(prefix + index);
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int thread = 0; thread < 4; thread++) {
+            for (int index = 0; index < 100; index++) {
+                assertThat(sketch.frequency("thread" + thread + "-" + index), is(greaterThanOrEqualTo(3)));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import ch.swisscom.mid.client.config.OutstandingSignaturesConfiguration;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.is;
+
+public class OutstandingSignatureRegistryTest {
+
+    private static final long GRACE_IN_MILLIS = 10 * 1000L;
+
+    @Test
+    public void testExpiryAfterGrace() {
+        List<String> expired = new ArrayList<>();
+        try (OutstandingSignatureRegistry registry = new OutstandingSignatureRegistry(buildConfig(true), false)) {
+            registry.addListener((transactionId, signatureProfile) -> expired.add(transactionId + "/" + signatureProfile));
+            long now = System.currentTimeMillis();
+            registry.register("T1", "profile-a", now + 30_000);
+            registry.register("T2", null, now + 60_000);
+            registry.recordPoll("T1");
+
+            registry.sweep(now + 30_000 + GRACE_IN_MILLIS - 1000);
+            assertThat(expired.isEmpty(), is(true));
+            assertThat(registry.getOutstandingCount(), is(2));
+
+            registry.sweep(now + 30_000 + GRACE_IN_MILLIS + 1000);
+            assertThat(expired, contains("T1/profile-a"));
+            assertThat(registry.isExpired("T1"), is(true));
+            assertThat(registry.complete("T1"), is(-1));
+            assertThat(registry.getOutstandingCount(), is(1));
+            assertThat(registry.getExpiredCount(), is(1L));
+
+            registry.sweep(now + 60_000 + GRACE_IN_MILLIS + 1000);
+            assertThat(expired, contains("T1/profile-a", "T2/null"));
+
+            // the expired signatures are forgotten after the retention time
+            registry.sweep(now + 60_000 + GRACE_IN_MILLIS + OutstandingSignatureRegistry.EXPIRED_RETENTION_IN_MILLIS + 2000);
+            assertThat(registry.isRegistered("T1"), is(false));
+            assertThat(registry.isRegistered("T2"), is(false));
+        }
+    }
+
+    @Test
+    public void testCompletionBeforeDeadline() {
+        List<String> expired = new ArrayList<>();
+        try (OutstandingSignatureRegistry registry = new OutstandingSignatureRegistry(buildConfig(true), false)) {
+            registry.addListener((transactionId, signatureProfile) -> expired.add(transactionId));
+            long now = System.currentTimeMillis();
+            registry.register("T1", "profile-a", now + 5_000);
+            registry.recordPoll("T1");
+            registry.recordPoll("T1");
+
+            assertThat(registry.complete("T1"), is(2));
+            assertThat(registry.complete("T1"), is(-1));
+            registry.sweep(now + 5_000 + GRACE_IN_MILLIS + 1000);
+            assertThat(expired.isEmpty(), is(true));
+            assertThat(registry.getOutstandingCount(), is(0));
+        }
+    }
+
+    @Test
+    public void testDeadlineBeyondOneWheelRound() {
+        List<String> expired = new ArrayList<>();
+        try (OutstandingSignatureRegistry registry = new OutstandingSignatureRegistry(buildConfig(true), false)) {
+            registry.addListener((transactionId, signatureProfile) -> expired.add(transactionId));
+            long now = System.currentTimeMillis();
+            // the wheel has 512 one-second buckets, so this deadline needs two more rounds
+            long deadline = now + 1200 * 1000L;
+            registry.register("T1", "profile-a", deadline);
+
+            registry.sweep(deadline + GRACE_IN_MILLIS - 2000);
+            assertThat(expired.isEmpty(), is(true));
+            registry.sweep(deadline + GRACE_IN_MILLIS + 1000);
+            assertThat(expired, contains("T1"));
+        }
+    }
+
+    @Test
+    public void testInFlightCountsBySignatureProfile() {
+        try (OutstandingSignatureRegistry registry = new OutstandingSignatureRegistry(buildConfig(false), false)) {
+            long now = System.currentTimeMillis();
+            registry.register("T1", "profile-a", now + 30_000);
+            registry.register("T2", "profile-a", now + 30_000);
+            registry.register("T3", "profile-b", now + 60_000);
+            registry.register("T4", null, now + 60_000);
+
+            Map<String, Integer> counts = registry.getInFlightCountsBySignatureProfile();
+            assertThat(counts, hasEntry("profile-a", 2));
+            assertThat(counts, hasEntry("profile-b", 1));
+            assertThat(counts, hasEntry("unknown", 1));
+
+            registry.complete("T1");
+            assertThat(registry.getInFlightCountsBySignatureProfile(), hasEntry("profile-a", 1));
+
+            // without the local expiry, the signatures are only dropped from the counts at their deadline
+            registry.sweep(now + 31_000);
+            assertThat(registry.isExpired("T2"), is(false));
+            assertThat(registry.isRegistered("T2"), is(false));
+            registry.sweep(now + 61_000);
+            assertThat(registry.getInFlightCountsBySignatureProfile().isEmpty(), is(true));
+            assertThat(registry.getExpiredCount(), is(0L));
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private static OutstandingSignaturesConfiguration buildConfig(boolean localExpiryEnabled) {
+        OutstandingSignaturesConfiguration config = new OutstandingSignaturesConfiguration();
+        config.setEnabled(true);
+        config.setLocalExpiryEnabled(localExpiryEnabled);
+        config.setExpiryGraceInSeconds((int) (GRACE_IN_MILLIS / 1000));
+        return config;
+    }
+
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import ch.swisscom.mid.client.config.DispatcherConfiguration;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+public class PriorityDispatcherTest {
+
+    @Test
+    public void testWaitingRequestsAreServedByClass() throws InterruptedException {
+        PriorityDispatcher dispatcher = new PriorityDispatcher(buildConfig(1, 60_000));
+        List<RequestPriority> served = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = holdSlot(dispatcher, RequestPriority.SIGNATURE, release);
+
+        List<Thread> waiters = new ArrayList<>();
+        for (RequestPriority priority : new RequestPriority[]{RequestPriority.PROFILE_QUERY, RequestPriority.STATUS_POLL,
+                                                              RequestPriority.RECEIPT, RequestPriority.SIGNATURE,
+                                                              RequestPriority.FINAL_POLL}) {
+            waiters.add(enqueue(dispatcher, priority, served));
+        }
+        for (RequestPriority priority : RequestPriority.values()) {
+            assertThat(dispatcher.getQueueDepth(priority), is(1L));
+        }
+
+        release.countDown();
+        joinAll(holder, waiters);
+        assertThat(served, contains(RequestPriority.FINAL_POLL, RequestPriority.SIGNATURE, RequestPriority.RECEIPT,
+                                    RequestPriority.STATUS_POLL, RequestPriority.PROFILE_QUERY));
+        for (RequestPriority priority : RequestPriority.values()) {
+            assertThat(dispatcher.getQueueDepth(priority), is(0L));
+            assertThat(dispatcher.getDispatchedCount(priority), is(priority == RequestPriority.SIGNATURE ? 2L : 1L));
+        }
+        assertThat(dispatcher.getStarvationPromotionCount(), is(0L));
+        assertThat(dispatcher.getAvailableSlots(), is(1));
+    }
+
+    @Test
+    public void testStarvingRequestIsPromoted() throws InterruptedException {
+        PriorityDispatcher dispatcher = new PriorityDispatcher(buildConfig(1, 200));
+        List<RequestPriority> served = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = holdSlot(dispatcher, RequestPriority.SIGNATURE, release);
+
+        List<Thread> waiters = new ArrayList<>();
+        waiters.add(enqueue(dispatcher, RequestPriority.PROFILE_QUERY, served));
+        Thread.sleep(300);
+        waiters.add(enqueue(dispatcher, RequestPriority.FINAL_POLL, served));
+
+        release.countDown();
+        joinAll(holder, waiters);
+        assertThat(served, contains(RequestPriority.PROFILE_QUERY, RequestPriority.FINAL_POLL));
+        assertThat(dispatcher.getStarvationPromotionCount(), is(1L));
+    }
+
+    @Test
+    public void testFreeSlotsAreTakenWithoutQueueing() {
+        PriorityDispatcher dispatcher = new PriorityDispatcher(buildConfig(2, 60_000));
+        String result = dispatcher.dispatch(RequestPriority.PROFILE_QUERY, () -> {
+            assertThat(dispatcher.getAvailableSlots(), is(1));
+            return dispatcher.dispatch(RequestPriority.STATUS_POLL, () -> {
+                assertThat(dispatcher.getAvailableSlots(), is(0));
+                return "done";
+            });
+        });
+        assertThat(result, is("done"));
+        assertThat(dispatcher.getAvailableSlots(), is(2));
+        assertThat(dispatcher.getQueueDepth(RequestPriority.PROFILE_QUERY), is(0L));
+        assertThat(dispatcher.getDispatchedCount(RequestPriority.PROFILE_QUERY), is(1L));
+        assertThat(dispatcher.getDispatchedCount(RequestPriority.STATUS_POLL), is(1L));
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private static DispatcherConfiguration buildConfig(int maxConcurrentRequests, int starvationThresholdInMs) {
+        DispatcherConfiguration config = new DispatcherConfiguration();
+        config.setEnabled(true);
+        config.setMaxConcurrentRequests(maxConcurrentRequests);
+        config.setStarvationThresholdInMs(starvationThresholdInMs);
+        return config;
+    }
+
+    /**
+     * Takes the only slot of the dispatcher until the given latch is released.
+     */
+    private static Thread holdSlot(PriorityDispatcher dispatcher, RequestPriority priority, CountDownLatch release)
+        throws InterruptedException {
+        CountDownLatch holding = new CountDownLatch(1);
+        Thread thread = new Thread(() -> dispatcher.dispatch(priority, () -> {
+            holding.countDown();
+            try {
+                return release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }));
+        thread.start();
+        assertThat(holding.await(10, TimeUnit.SECONDS), is(true));
+        return thread;
+    }
+
+    /**
+     * Starts a request of the given class and returns once it waits in its queue.
+     */
+    private static Thread enqueue(PriorityDispatcher dispatcher, RequestPriority priority, List<RequestPriority> served)
+        throws InterruptedException {
+        long depth = dispatcher.getQueueDepth(priority);
+        Thread thread = new Thread(() -> dispatcher.dispatch(priority, () -> served.add(priority)));
+        thread.start();
+        long timeLimit = System.currentTimeMillis() + 10_000;
+        while (dispatcher.getQueueDepth(priority) == depth && System.currentTimeMillis() < timeLimit) {
+            Thread.sleep(5);
+        }
+        assertThat(dispatcher.getQueueDepth(priority), is(depth + 1));
+        return thread;
+    }
+
+    private static void joinAll(Thread holder, List<Thread> waiters) throws InterruptedException {
+        holder.join(10_000);
+        for (Thread waiter : waiters) {
+            waiter.join(10_000);
+        }
+    }
+
+}
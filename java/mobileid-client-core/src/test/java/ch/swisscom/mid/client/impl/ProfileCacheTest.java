@@ -0,0 +1,112 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import ch.swisscom.mid.client.MIDFlowException;
+import ch.swisscom.mid.client.config.ProfileCacheConfiguration;
+import ch.swisscom.mid.client.model.Fault;
+import ch.swisscom.mid.client.model.ProfileResponse;
+import ch.swisscom.mid.client.model.StatusCode;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ProfileCacheTest {
+
+    @Test
+    public void testSizeIsBounded() {
+        ProfileCache cache = new ProfileCache(buildConfig(100, 300));
+        for (int index = 0; index < 1000; index++) {
+            String key = "4179" + index;
+            assertThat(cache.get(key), is(nullValue()));
+            cache.put(key, buildResponse());
+        }
+        assertThat(cache.getSize(), is(lessThanOrEqualTo(100)));
+        assertThat(cache.getEvictionCount(), is(greaterThan(0L)));
+        assertThat(cache.getMissCount(), is(1000L));
+    }
+
+    @Test
+    public void testFrequentEntriesSurviveAScan() {
+        ProfileCache cache = new ProfileCache(buildConfig(100, 300));
+        for (int index = 0; index < 50; index++) {
+            cache.put("hot" + index, buildResponse());
+        }
+        for (int round = 0; round < 10; round++) {
+            for (int index = 0; index < 50; index++) {
+                assertThat(cache.get("hot" + index), is(notNullValue()));
+            }
+        }
+        // a one-off scan over many other users is not admitted at the expense of the frequently queried ones
+        for (int index = 0; index < 1000; index++) {
+            String key = "cold" + index;
+            cache.get(key);
+            cache.put(key, buildResponse());
+        }
+        for (int index = 0; index < 50; index++) {
+            assertThat(cache.get("hot" + index), is(notNullValue()));
+        }
+        assertThat(cache.getSize(), is(lessThanOrEqualTo(100)));
+    }
+
+    @Test
+    public void testExpiredEntryIsRemoved() throws InterruptedException {
+        ProfileCache cache = new ProfileCache(buildConfig(100, 1));
+        cache.put("418888888888", buildResponse());
+        assertThat(cache.get("418888888888"), is(notNullValue()));
+        Thread.sleep(1100);
+        assertThat(cache.get("418888888888"), is(nullValue()));
+        assertThat(cache.getExpirationCount(), is(1L));
+        assertThat(cache.getSize(), is(0));
+    }
+
+    @Test
+    public void testFailureIsCached() {
+        ProfileCache cache = new ProfileCache(buildConfig(100, 300));
+        Fault fault = new Fault();
+        fault.setStatusCode(StatusCode.UNKNOWN_CLIENT);
+        cache.putFailure("418888888888", new MIDFlowException("Unknown client", fault));
+        MIDFlowException failure = assertThrows(MIDFlowException.class, () -> cache.get("418888888888"));
+        assertThat(failure.getFault().getStatusCode(), is(StatusCode.UNKNOWN_CLIENT));
+        assertThat(cache.getNegativeHitCount(), is(1L));
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private static ProfileCacheConfiguration buildConfig(int maximumSize, int timeToLiveInSeconds) {
+        ProfileCacheConfiguration config = new ProfileCacheConfiguration();
+        config.setEnabled(true);
+        config.setMaximumSize(maximumSize);
+        config.setTimeToLiveInSeconds(timeToLiveInSeconds);
+        return config;
+    }
+
+    private static ProfileResponse buildResponse() {
+        ProfileResponse response = new ProfileResponse();
+        response.setSignatureProfiles(Arrays.asList("http://mid.swisscom.ch/Any-LoA4"));
+        return response;
+    }
+
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import ch.swisscom.mid.client.config.HedgingConfiguration;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class RequestHedgerTest {
+
+    private static final int CALLS = 64;
+
+    @Test
+    public void testSuccessfulPrimariesSetTheDelay() {
+        try (RequestHedger hedger = new RequestHedger(buildConfig())) {
+            for (int index = 0; index < CALLS; index++) {
+                assertThat(hedger.call(() -> "primary", () -> "alternate"), is("primary"));
+            }
+            assertThat(hedger.getCurrentDelayInMs(), is(10L));
+            assertThat(hedger.getHedgesSent(), is(0L));
+        }
+    }
+
+    @Test
+    public void testFailedPrimariesDoNotLowerTheDelay() {
+        try (RequestHedger hedger = new RequestHedger(buildConfig())) {
+            for (int index = 0; index < CALLS; index++) {
+                assertThrows(IllegalStateException.class, () -> hedger.call(() -> {
+                    throw new IllegalStateException("Connection refused");
+                }, () -> "alternate"));
+            }
+            assertThat(hedger.getCurrentDelayInMs(), is(5000L));
+            assertThat(hedger.getHedgesSent(), is(0L));
+        }
+    }
+
+    @Test
+    public void testHedgeWinIsCountedWhenTheCallReturns() {
+        HedgingConfiguration config = buildConfig();
+        config.setInitialDelayInMs(50);
+        CountDownLatch release = new CountDownLatch(1);
+        try (RequestHedger hedger = new RequestHedger(config)) {
+            String result = hedger.call(failAfter(release), () -> {
+                release.countDown();
+                return "alternate";
+            });
+            assertThat(result, is("alternate"));
+            assertThat(hedger.getHedgesSent(), is(1L));
+            assertThat(hedger.getHedgesWon(), is(1L));
+        }
+    }
+
+    @Test
+    public void testSlowHedgesDoNotDelayTheNextOnes() throws Exception {
+        HedgingConfiguration config = buildConfig();
+        config.setInitialDelayInMs(50);
+        config.setMaxHedgeRatePercent(100);
+        config.setMaxConcurrentHedges(6);
+        CountDownLatch hedgesStarted = new CountDownLatch(6);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(6);
+        try (RequestHedger hedger = new RequestHedger(config)) {
+            List<Future<String>> results = new ArrayList<>();
+            for (int index = 0; index < 6; index++) {
+                results.add(callers.submit(() -> hedger.call(failAfter(release), () -> {
+                    hedgesStarted.countDown();
+                    await(release);
+                    return "alternate";
+                })));
+            }
+            assertThat(hedgesStarted.await(2, TimeUnit.SECONDS), is(true));
+            release.countDown();
+            for (Future<String> result : results) {
+                assertThat(result.get(), is("alternate"));
+            }
+            assertThat(hedger.getHedgesSent(), is(6L));
+            assertThat(hedger.getHedgesWon(), is(6L));
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testHedgeIsSkippedWhenAllHedgeThreadsAreBusy() throws Exception {
+        HedgingConfiguration config = buildConfig();
+        config.setInitialDelayInMs(50);
+        config.setMaxHedgeRatePercent(100);
+        config.setMaxConcurrentHedges(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try (RequestHedger hedger = new RequestHedger(config)) {
+            List<Future<String>> results = new ArrayList<>();
+            for (int index = 0; index < 2; index++) {
+                results.add(callers.submit(() -> hedger.call(failAfter(release), () -> {
+                    await(release);
+                    return "alternate";
+                })));
+            }
+            long deadline = System.currentTimeMillis() + 2000;
+            while (hedger.getHedgesSkipped() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+            int failures = 0;
+            for (Future<String> result : results) {
+                try {
+                    assertThat(result.get(), is("alternate"));
+                } catch (ExecutionException e) {
+                    failures++;
+                }
+            }
+            assertThat(failures, is(1));
+            assertThat(hedger.getHedgesSent(), is(1L));
+            assertThat(hedger.getHedgesSkipped(), is(1L));
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private static Supplier<String> failAfter(CountDownLatch release) {
+        return () -> {
+            await(release);
+            throw new IllegalStateException("Read timed out");
+        };
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static HedgingConfiguration buildConfig() {
+        HedgingConfiguration config = new HedgingConfiguration();
+        config.setEnabled(true);
+        config.setMinDelayInMs(10);
+        config.setInitialDelayInMs(5000);
+        return config;
+    }
+
+}
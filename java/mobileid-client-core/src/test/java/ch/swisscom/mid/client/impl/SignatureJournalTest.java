@@ -0,0 +1,161 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import ch.swisscom.mid.client.config.JournalConfiguration;
+import ch.swisscom.mid.client.model.SignatureTracking;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+public class SignatureJournalTest {
+
+    private static final long ONE_HOUR_IN_MILLIS = 3600 * 1000L;
+
+    @TempDir
+    public Path tempDir;
+
+    @Test
+    public void testRecovery() throws IOException {
+        JournalConfiguration config = buildConfig();
+        long deadline = System.currentTimeMillis() + ONE_HOUR_IN_MILLIS;
+        try (SignatureJournal journal = new SignatureJournal(config)) {
+            journal.signatureStarted(buildTracking("T1", "session-1"), deadline);
+            journal.signatureStarted(buildTracking("T2", "session-2"), deadline);
+            journal.signatureStarted(buildTracking("T3", null), deadline);
+            journal.signatureCompleted("T2");
+        }
+        try (SignatureJournal journal = new SignatureJournal(config)) {
+            List<SignatureTracking> recovered = journal.getOutstandingSignatures();
+            assertThat(recovered, hasSize(2));
+            SignatureTracking first = recovered.get(0);
+            assertThat(first.getTransactionId(), is("T1"));
+            assertThat(first.getMobileUserMsisdn(), is("41790000000"));
+            assertThat(first.getMajorVersion(), is("1"));
+            assertThat(first.getMinorVersion(), is("1"));
+            assertThat(first.getCorrelationKey(), is("session-1"));
+            assertThat(first.getDeadlineInMillis(), is(deadline));
+            assertThat(recovered.get(1).getTransactionId(), is("T3"));
+            assertThat(recovered.get(1).getCorrelationKey(), is((String) null));
+        }
+    }
+
+    @Test
+    public void testExpiredSignaturesAreDropped() throws IOException {
+        JournalConfiguration config = buildConfig();
+        try (SignatureJournal journal = new SignatureJournal(config)) {
+            journal.signatureStarted(buildTracking("EXPIRED", null), System.currentTimeMillis() - 1);
+            journal.signatureStarted(buildTracking("LIVE", null), System.currentTimeMillis() + ONE_HOUR_IN_MILLIS);
+        }
+        try (SignatureJournal journal = new SignatureJournal(config)) {
+            assertThat(journal.getOutstandingSignatureCount(), is(1));
+            assertThat(journal.getCompactionCount(), is(1));
+            assertThat(transactionIdsOf(journal.getOutstandingSignatures()), contains("LIVE"));
+        }
+    }
+
+    @Test
+    public void testTornRecordIsIgnored() throws IOException {
+        JournalConfiguration config = buildConfig();
+        long deadline = System.currentTimeMillis() + ONE_HOUR_IN_MILLIS;
+        try (SignatureJournal journal = new SignatureJournal(config)) {
+            journal.signatureStarted(buildTracking("T1", null), deadline);
+            journal.signatureStarted(buildTracking("T2", null), deadline);
+        }
+        // corrupt the last byte of the second record, as if the JVM died in the middle of writing it
+        try (RandomAccessFile file = new RandomAccessFile(config.getFile(), "rw")) {
+            long position = 8;
+            for (int index = 0; index < 2; index++) {
+                file.seek(position);
+                position += 9 + file.readInt();
+            }
+            file.seek(position - 1);
+            int lastByte = file.read();
+            file.seek(position - 1);
+            file.write(lastByte ^ 0xFF);
+        }
+        try (SignatureJournal journal = new SignatureJournal(config)) {
+            assertThat(transactionIdsOf(journal.getOutstandingSignatures()), contains("T1"));
+            journal.signatureStarted(buildTracking("T3", null), deadline);
+        }
+        try (SignatureJournal journal = new SignatureJournal(config)) {
+            assertThat(transactionIdsOf(journal.getOutstandingSignatures()), contains("T1", "T3"));
+        }
+    }
+
+    @Test
+    public void testCompactionAndGrowth() throws IOException {
+        JournalConfiguration config = buildConfig();
+        long deadline = System.currentTimeMillis() + ONE_HOUR_IN_MILLIS;
+        try (SignatureJournal journal = new SignatureJournal(config)) {
+            // many completed signatures: compacted away, the file keeps its size
+            for (int index = 0; index < 1000; index++) {
+                journal.signatureStarted(buildTracking("DONE-" + index, null), deadline);
+                journal.signatureCompleted("DONE-" + index);
+            }
+            assertThat(journal.getCompactionCount(), greaterThan(1));
+            assertThat(journal.getSizeInBytes(), is(config.getInitialSizeInBytes()));
+            // many outstanding signatures: the file grows
+            for (int index = 0; index < 1000; index++) {
+                journal.signatureStarted(buildTracking("OPEN-" + index, null), deadline);
+            }
+            assertThat(journal.getSizeInBytes(), greaterThan(config.getInitialSizeInBytes()));
+            // the compacted file was moved in place, not left next to the journal
+            assertThat(Files.exists(tempDir.resolve("signatures.journal.compacting")), is(false));
+        }
+        try (SignatureJournal journal = new SignatureJournal(config)) {
+            List<SignatureTracking> recovered = journal.getOutstandingSignatures();
+            assertThat(recovered, hasSize(1000));
+            assertThat(recovered.get(999).getTransactionId(), is("OPEN-999"));
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private JournalConfiguration buildConfig() {
+        JournalConfiguration config = new JournalConfiguration();
+        config.setEnabled(true);
+        config.setFile(tempDir.resolve("signatures.journal").toString());
+        config.setInitialSizeInBytes(4096);
+        return config;
+    }
+
+    private static SignatureTracking buildTracking(String transactionId, String correlationKey) {
+        SignatureTracking tracking = new SignatureTracking();
+        tracking.setTransactionId(transactionId);
+        tracking.setMobileUserMsisdn("41790000000");
+        tracking.setCorrelationKey(correlationKey);
+        return tracking;
+    }
+
+    private static List<String> transactionIdsOf(List<SignatureTracking> trackings) {
+        return trackings.stream().map(SignatureTracking::getTransactionId).collect(Collectors.toList());
+    }
+
+}
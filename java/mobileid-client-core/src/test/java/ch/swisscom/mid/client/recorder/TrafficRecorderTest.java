@@ -0,0 +1,146 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.recorder;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import ch.swisscom.mid.client.config.ComProtocol;
+import ch.swisscom.mid.client.config.ConfigurationException;
+import ch.swisscom.mid.client.config.TrafficRecorderConfiguration;
+import ch.swisscom.mid.client.metrics.MIDClientMetrics;
+import ch.swisscom.mid.client.metrics.MIDOperation;
+import ch.swisscom.mid.client.metrics.MssExchange;
+import ch.swisscom.mid.client.model.StatusCode;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TrafficRecorderTest {
+
+    @Test
+    public void testKeepsLastExchangesAndFilters() {
+        try (TrafficRecorder recorder = new TrafficRecorder(buildConfig(4, 1024))) {
+            MIDClientMetrics metrics = new MIDClientMetrics();
+            metrics.addRegistry(recorder);
+            for (int index = 1; index <= 6; index++) {
+                MssExchange exchange = metrics.startExchange(MIDOperation.ASYNC_SIGNATURE, ComProtocol.REST);
+                exchange.setApTransId("AP.TEST." + index);
+                exchange.setMobileUserMsisdn(index % 2 == 0 ? "41790000002" : "41790000001");
+                exchange.setHttpStatusCode(200);
+                exchange.setRequestBody("{\"request\":" + index + "}");
+                exchange.setResponseBody("{\"response\":" + index + "}");
+                exchange.completed(index == 5 ? StatusCode.USER_CANCEL : StatusCode.REQUEST_OK);
+            }
+
+            assertThat(recorder.getRecordedCount(), is(6L));
+            assertThat(apTransIdsOf(recorder.getRecords(null)), contains("AP.TEST.3", "AP.TEST.4", "AP.TEST.5", "AP.TEST.6"));
+
+            TrafficRecordFilter filter = new TrafficRecordFilter();
+            filter.setMobileUserMsisdn("41790000002");
+            assertThat(apTransIdsOf(recorder.getRecords(filter)), contains("AP.TEST.4", "AP.TEST.6"));
+
+            filter = new TrafficRecordFilter();
+            filter.setStatusCode(StatusCode.USER_CANCEL);
+            List<TrafficRecord> records = recorder.getRecords(filter);
+            assertThat(apTransIdsOf(records), contains("AP.TEST.5"));
+            TrafficRecord record = records.get(0);
+            assertThat(record.getOperation(), is(MIDOperation.ASYNC_SIGNATURE));
+            assertThat(record.getProtocol(), is(ComProtocol.REST));
+            assertThat(record.getHttpStatusCode(), is(200));
+            assertThat(record.getFailureReason(), is(nullValue()));
+            assertThat(record.getRequestBody(), is("{\"request\":5}"));
+            assertThat(record.getResponseBody(), is("{\"response\":5}"));
+            assertThat(record.isTruncated(), is(false));
+
+            filter = new TrafficRecordFilter();
+            filter.setApTransId("AP.TEST.1");
+            assertThat(recorder.getRecords(filter).isEmpty(), is(true));
+        }
+    }
+
+    @Test
+    public void testRedaction() {
+        String largeBase64 = String.join("", Collections.nCopies(200, "MIIFaz=="));
+        assertThat(TrafficRedactor.redact("{\"AP_ID\":\"mid://test\",\"AP_PWD\" : \"secret\",\"Base64Signature\":\"" +
+                                          largeBase64 + "\"}"),
+                   is("{\"AP_ID\":\"mid://test\",\"AP_PWD\" : \"***\",\"Base64Signature\":\"...\"}"));
+        assertThat(TrafficRedactor.redact("<AP_Info AP_ID=\"mid://test\" AP_PWD=\"secret\" AP_TransID=\"AP.1\"/>"),
+                   is("<AP_Info AP_ID=\"mid://test\" AP_PWD=\"***\" AP_TransID=\"AP.1\"/>"));
+        assertThat(TrafficRedactor.redact("short MIIFaz== content"), is("short MIIFaz== content"));
+        assertThat(TrafficRedactor.redact(null), is(nullValue()));
+    }
+
+    @Test
+    public void testTruncatesLargeBodies() {
+        try (TrafficRecorder recorder = new TrafficRecorder(buildConfig(2, 512))) {
+            MIDClientMetrics metrics = new MIDClientMetrics();
+            metrics.addRegistry(recorder);
+            MssExchange exchange = metrics.startExchange(MIDOperation.PROFILE_QUERY, ComProtocol.SOAP);
+            exchange.setApTransId("AP.TEST.1");
+            exchange.setRequestBody("<request AP_PWD=\"secret\">" + String.join("", Collections.nCopies(400, "ä ")) + "</request>");
+            exchange.setResponseBody("<response/>");
+            exchange.failed(new IllegalStateException("boom"));
+
+            TrafficRecord record = recorder.getRecords(null).get(0);
+            assertThat(record.isTruncated(), is(true));
+            assertThat(record.getRequestBody(), not(containsString("secret")));
+            assertThat(record.getRequestBody(), not(containsString("\uFFFD")));
+            assertThat(record.getRequestBody().length(), lessThanOrEqualTo(512));
+            assertThat(record.getResponseBody(), is("<response/>"));
+            assertThat(record.getMobileUserMsisdn(), is(nullValue()));
+            assertThat(record.getStatusCode(), is(nullValue()));
+            assertThat(recorder.dump(null), containsString("AP.TEST.1"));
+        }
+    }
+
+    @Test
+    public void testDumpSignal() {
+        TrafficRecorderConfiguration config = buildConfig(2, 512);
+        config.setDumpSignal("USR2");
+        try (TrafficRecorder recorder = new TrafficRecorder(config)) {
+            assertThat(recorder.getRecordedCount(), is(0L));
+        }
+
+        config.setDumpSignal("NOT-A-SIGNAL");
+        ConfigurationException e = assertThrows(ConfigurationException.class, () -> new TrafficRecorder(config));
+        assertThat(e.getMessage(), containsString("NOT-A-SIGNAL"));
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private static TrafficRecorderConfiguration buildConfig(int recordCount, int recordSizeInBytes) {
+        TrafficRecorderConfiguration config = new TrafficRecorderConfiguration();
+        config.setEnabled(true);
+        config.setRecordCount(recordCount);
+        config.setRecordSizeInBytes(recordSizeInBytes);
+        return config;
+    }
+
+    private static List<String> apTransIdsOf(List<TrafficRecord> records) {
+        return records.stream().map(TrafficRecord::getApTransId).collect(Collectors.toList());
+    }
+
+}
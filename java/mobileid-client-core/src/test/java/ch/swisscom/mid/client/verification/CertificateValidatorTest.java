@@ -0,0 +1,179 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.verification;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.List;
+
+import ch.swisscom.mid.client.config.SignatureVerificationConfiguration;
+import ch.swisscom.mid.client.model.CertificateData;
+import ch.swisscom.mid.client.model.ProfileMobileUserCertificate;
+import ch.swisscom.mid.client.model.SignatureResponse;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CertificateValidatorTest {
+
+    private static final String DTBS = "Please confirm the login to the Test Bank (#ABC123)";
+
+    @TempDir
+    public Path tempDir;
+
+    @Test
+    public void testPathCache() {
+        try (SignatureVerifier verifier = new SignatureVerifier(buildConfig())) {
+            verifier.verify(buildResponse(), DTBS);
+            verifier.verify(buildResponse(), DTBS);
+            CertificateValidator validator = verifier.getCertificateValidator();
+            assertThat(validator.getCacheMisses(), is(1L));
+            assertThat(validator.getCacheHits(), is(1L));
+            assertThat(validator.getCachedPaths(), is(1));
+        }
+    }
+
+    @Test
+    public void testPathCacheDisabled() {
+        SignatureVerificationConfiguration config = buildConfig();
+        config.setCertificatePathCacheEnabled(false);
+        try (SignatureVerifier verifier = new SignatureVerifier(config)) {
+            verifier.verify(buildResponse(), DTBS);
+            verifier.verify(buildResponse(), DTBS);
+            assertThat(verifier.getCertificateValidator().getCachedPaths(), is(0));
+            assertThat(verifier.getVerifiedSignatures(), is(2L));
+        }
+    }
+
+    @Test
+    public void testRevocationWithCrl() {
+        assertThat(verifyWithRevocationData("crl-good").getSignerSerialNumber(), is("MIDCHEGU8GSH6K88"));
+        assertFailure(VerificationFailure.REVOKED_CERTIFICATE, () -> verifyWithRevocationData("crl-revoked"));
+    }
+
+    @Test
+    public void testRevocationWithOcspResponse() {
+        assertThat(verifyWithRevocationData("ocsp-good").getSignerSerialNumber(), is("MIDCHEGU8GSH6K88"));
+        assertFailure(VerificationFailure.REVOKED_CERTIFICATE, () -> verifyWithRevocationData("ocsp-revoked"));
+        assertFailure(VerificationFailure.REVOCATION_STATUS_UNKNOWN, () -> verifyWithRevocationData("ocsp-unknown"));
+    }
+
+    @Test
+    public void testRevocationWithoutData() {
+        SignatureVerificationConfiguration config = buildConfig();
+        config.setRevocationCheckEnabled(true);
+        config.setRevocationDataDirectory(tempDir.toString());
+        try (SignatureVerifier verifier = new SignatureVerifier(config)) {
+            assertFailure(VerificationFailure.REVOCATION_STATUS_UNKNOWN, () -> verifier.verify(buildResponse(), DTBS));
+        }
+        config.setRevocationSoftFail(true);
+        try (SignatureVerifier verifier = new SignatureVerifier(config)) {
+            assertThat(verifier.verify(buildResponse(), DTBS).getSignerSerialNumber(), is("MIDCHEGU8GSH6K88"));
+        }
+    }
+
+    @Test
+    public void testRevocationDataRefreshOnCachedPath() throws IOException {
+        Path crlFile = tempDir.resolve("test-ca.crl");
+        Files.copy(getResourcePath("revocation/crl-good/test-ca.crl"), crlFile);
+        SignatureVerificationConfiguration config = buildConfig();
+        config.setRevocationCheckEnabled(true);
+        config.setRevocationDataDirectory(tempDir.toString());
+        try (SignatureVerifier verifier = new SignatureVerifier(config)) {
+            verifier.verify(buildResponse(), DTBS);
+
+            Files.copy(getResourcePath("revocation/crl-revoked/test-ca.crl"), crlFile, StandardCopyOption.REPLACE_EXISTING);
+            Files.setLastModifiedTime(crlFile, FileTime.fromMillis(System.currentTimeMillis() + 10000));
+            verifier.getCertificateValidator().refreshRevocationData();
+
+            assertFailure(VerificationFailure.REVOKED_CERTIFICATE, () -> verifier.verify(buildResponse(), DTBS));
+            assertThat(verifier.getCertificateValidator().getCacheHits(), is(1L));
+            assertThat(verifier.getCertificateValidator().getCachedPaths(), is(0));
+        }
+    }
+
+    @Test
+    public void testProfileCertificate() throws IOException {
+        ProfileMobileUserCertificate profileCertificate = new ProfileMobileUserCertificate();
+        profileCertificate.setUserCertificate(buildCertificateData("signer.crt"));
+        profileCertificate.setCaCertificates(Collections.singletonList(buildCertificateData("test-ca.crt")));
+        try (CertificateValidator validator = new CertificateValidator(buildConfig())) {
+            List<?> path = validator.validate(profileCertificate);
+            assertThat(path.size(), is(2));
+
+            profileCertificate.getUserCertificate().setCertificateAsBase64("not-a-certificate");
+            assertFailure(VerificationFailure.MALFORMED_CERTIFICATE, () -> validator.validate(profileCertificate));
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private SignatureVerificationResult verifyWithRevocationData(String directory) {
+        SignatureVerificationConfiguration config = buildConfig();
+        config.setRevocationCheckEnabled(true);
+        config.setRevocationDataDirectory(getResourcePath("revocation/" + directory).toString());
+        try (SignatureVerifier verifier = new SignatureVerifier(config)) {
+            return verifier.verify(buildResponse(), DTBS);
+        }
+    }
+
+    private static SignatureVerificationConfiguration buildConfig() {
+        SignatureVerificationConfiguration config = new SignatureVerificationConfiguration();
+        config.setTrustAnchorsClasspathFile("/verification/test-ca.crt");
+        return config;
+    }
+
+    private static SignatureResponse buildResponse() {
+        try {
+            SignatureResponse response = new SignatureResponse();
+            response.setBase64Signature(new String(Files.readAllBytes(getResourcePath("signature.b64"))));
+            return response;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static CertificateData buildCertificateData(String fileName) throws IOException {
+        String pem = new String(Files.readAllBytes(getResourcePath(fileName)));
+        CertificateData data = new CertificateData();
+        data.setCertificateAsBase64(pem.replaceAll("-----[A-Z ]+-----", "").replaceAll("\\s", ""));
+        return data;
+    }
+
+    private static Path getResourcePath(String name) {
+        try {
+            return Paths.get(CertificateValidatorTest.class.getResource("/verification/" + name).toURI());
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void assertFailure(VerificationFailure expectedFailure, Runnable verification) {
+        SignatureVerificationException e = assertThrows(SignatureVerificationException.class, verification::run);
+        assertThat(e.getFailure(), is(expectedFailure));
+    }
+
+}
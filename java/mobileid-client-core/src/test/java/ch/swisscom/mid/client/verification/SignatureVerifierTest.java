@@ -0,0 +1,176 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.verification;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.stream.IntStream;
+
+import ch.swisscom.mid.client.config.ConfigurationException;
+import ch.swisscom.mid.client.config.SignatureVerificationConfiguration;
+import ch.swisscom.mid.client.model.DataToBeSigned;
+import ch.swisscom.mid.client.model.SignatureRequest;
+import ch.swisscom.mid.client.model.SignatureResponse;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SignatureVerifierTest {
+
+    private static final String DTBS = "Please confirm the login to the Test Bank (#ABC123)";
+
+    private static SignatureVerifier verifier;
+
+    @BeforeAll
+    public static void setUpThisClass() {
+        SignatureVerificationConfiguration config = new SignatureVerificationConfiguration();
+        config.setTrustAnchorsClasspathFile("/verification/test-ca.crt");
+        verifier = new SignatureVerifier(config);
+    }
+
+    @Test
+    public void testValidSignatureWithSignedAttributes() {
+        SignatureVerificationResult result = verifier.verify(buildResponse("signature.b64"), DTBS);
+        assertThat(result.getSignerSerialNumber(), is("MIDCHEGU8GSH6K88"));
+        assertThat(result.getSignerCertificate().getSubjectX500Principal().getName().contains("MIDCHEGU8GSH6K88:PN"), is(true));
+        assertThat(result.getCertificateChain().size(), is(2));
+        assertThat(new String(result.getSignedContent(), StandardCharsets.UTF_8), is(DTBS));
+        assertThat(result.getSigningTime(), is(notNullValue()));
+    }
+
+    @Test
+    public void testValidSignatureWithoutSignedAttributes() {
+        SignatureVerificationResult result = verifier.verify(buildResponse("signature-noattr.b64"), DTBS);
+        assertThat(result.getSignerSerialNumber(), is("MIDCHEGU8GSH6K88"));
+        assertThat(result.getSigningTime(), is(nullValue()));
+    }
+
+    @Test
+    public void testValidDetachedSignature() {
+        SignatureVerificationResult result = verifier.verify(buildResponse("signature-detached.b64"), DTBS);
+        assertThat(result.getSignerSerialNumber(), is("MIDCHEGU8GSH6K88"));
+    }
+
+    @Test
+    public void testVerificationAgainstTheSignatureRequest() {
+        DataToBeSigned dataToBeSigned = new DataToBeSigned();
+        dataToBeSigned.setData(DTBS);
+        SignatureRequest request = new SignatureRequest();
+        request.setDataToBeSigned(dataToBeSigned);
+        SignatureVerificationResult result = verifier.verify(request, buildResponse("signature.b64"));
+        assertThat(result.getSignerSerialNumber(), is("MIDCHEGU8GSH6K88"));
+    }
+
+    @Test
+    public void testContentMismatch() {
+        assertFailure(VerificationFailure.CONTENT_MISMATCH,
+                      () -> verifier.verify(buildResponse("signature.b64"), DTBS + "!"));
+        assertFailure(VerificationFailure.CONTENT_MISMATCH,
+                      () -> verifier.verify(buildResponse("signature-detached.b64"), DTBS + "!"));
+    }
+
+    @Test
+    public void testTamperedSignatureValue() {
+        byte[] signature = readSignature("signature.b64");
+        signature[signature.length - 1] ^= 0x01;
+        assertFailure(VerificationFailure.INVALID_SIGNATURE,
+                      () -> verifier.verify(signature, DTBS.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testMalformedSignature() {
+        byte[] signature = readSignature("signature.b64");
+        byte[] truncated = new byte[signature.length / 2];
+        System.arraycopy(signature, 0, truncated, 0, truncated.length);
+        assertFailure(VerificationFailure.MALFORMED_SIGNATURE,
+                      () -> verifier.verify(truncated, DTBS.getBytes(StandardCharsets.UTF_8)));
+        assertFailure(VerificationFailure.MALFORMED_SIGNATURE,
+                      () -> verifier.verify("not-base64!", DTBS.getBytes(StandardCharsets.UTF_8)));
+        assertFailure(VerificationFailure.MALFORMED_SIGNATURE,
+                      () -> verifier.verify(new SignatureResponse(), DTBS));
+    }
+
+    @Test
+    public void testUntrustedSigner() {
+        SignatureVerificationConfiguration config = new SignatureVerificationConfiguration();
+        config.setTrustAnchorsClasspathFile("/verification/other-ca.crt");
+        SignatureVerifier otherVerifier = new SignatureVerifier(config);
+        assertFailure(VerificationFailure.UNTRUSTED_CERTIFICATE,
+                      () -> otherVerifier.verify(buildResponse("signature.b64"), DTBS));
+        assertThat(otherVerifier.getRejectedSignatures(), is(1L));
+        assertThat(otherVerifier.getVerifiedSignatures(), is(0L));
+    }
+
+    @Test
+    public void testConcurrentVerifications() {
+        SignatureVerificationConfiguration config = new SignatureVerificationConfiguration();
+        config.setTrustAnchorsClasspathFile("/verification/test-ca.crt");
+        SignatureVerifier sharedVerifier = new SignatureVerifier(config);
+        SignatureResponse response = buildResponse("signature.b64");
+        IntStream.range(0, 200).parallel().forEach(index -> sharedVerifier.verify(response, DTBS));
+        assertThat(sharedVerifier.getVerifiedSignatures(), is(200L));
+    }
+
+    @Test
+    public void testMissingTrustAnchors() {
+        assertThrows(ConfigurationException.class,
+                     () -> new SignatureVerifier(new SignatureVerificationConfiguration()));
+        SignatureVerificationConfiguration config = new SignatureVerificationConfiguration();
+        config.setTrustAnchorsClasspathFile("/verification/missing.crt");
+        assertThrows(ConfigurationException.class, () -> new SignatureVerifier(config));
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private static void assertFailure(VerificationFailure expectedFailure, Runnable verification) {
+        SignatureVerificationException e = assertThrows(SignatureVerificationException.class, verification::run);
+        assertThat(e.getFailure(), is(expectedFailure));
+    }
+
+    private static SignatureResponse buildResponse(String fileName) {
+        SignatureResponse response = new SignatureResponse();
+        response.setBase64Signature(readResource(fileName));
+        return response;
+    }
+
+    private static byte[] readSignature(String fileName) {
+        return Base64.getMimeDecoder().decode(readResource(fileName));
+    }
+
+    private static String readResource(String fileName) {
+        try (InputStream is = SignatureVerifierTest.class.getResourceAsStream("/verification/" + fileName)) {
+            ByteArrayOutputStream result = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int count;
+            while ((count = is.read(buffer)) > 0) {
+                result.write(buffer, 0, count);
+            }
+            return new String(result.toByteArray(), StandardCharsets.US_ASCII);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read the test resource " + fileName, e);
+        }
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.jfr;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import ch.swisscom.mid.client.config.ComProtocol;
+import ch.swisscom.mid.client.metrics.MIDClientMetrics;
+import ch.swisscom.mid.client.metrics.MIDOperation;
+import ch.swisscom.mid.client.metrics.MssExchange;
+import ch.swisscom.mid.client.model.StatusCode;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+public class FlightRecorderSupportTest {
+
+    private static final String EXCHANGE_EVENT = "ch.swisscom.mid.client.MssExchange";
+    private static final String TLS_CONTEXT_EVENT = "ch.swisscom.mid.client.TlsContextCreation";
+    private static final String SOAP_PORT_EVENT = "ch.swisscom.mid.client.SoapPortCreation";
+
+    @TempDir
+    public Path tempDir;
+
+    @Test
+    public void testEventsAreEmitted() throws IOException {
+        assertThat(FlightRecorderSupport.isAvailable(), is(true));
+        Path dump = tempDir.resolve("mid-client.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(EXCHANGE_EVENT);
+            recording.enable(TLS_CONTEXT_EVENT);
+            recording.enable(SOAP_PORT_EVENT);
+            recording.start();
+
+            MssExchange exchange = new MIDClientMetrics().startExchange(MIDOperation.STATUS_QUERY, ComProtocol.REST);
+            exchange.setApTransId("ID-1234");
+            exchange.setHttpStatusCode(200);
+            exchange.completed(StatusCode.SIGNATURE);
+            try (OperationRecording ignored = FlightRecorderSupport.beginTlsContextCreation(ComProtocol.SOAP)) {
+                // the TLS context would be created here
+            }
+            try (OperationRecording ignored = FlightRecorderSupport.beginSoapPortCreation("MSS_StatusPort",
+                                                                                             "https://localhost/status")) {
+                // the SOAP port would be created here
+            }
+
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+        List<RecordedEvent> exchangeEvents = eventsOfType(events, EXCHANGE_EVENT);
+        assertThat(exchangeEvents, hasSize(1));
+        assertThat(exchangeEvents.get(0).getString("operation"), is("STATUS_QUERY"));
+        assertThat(exchangeEvents.get(0).getString("protocol"), is("REST"));
+        assertThat(exchangeEvents.get(0).getString("apTransId"), is("ID-1234"));
+        assertThat(exchangeEvents.get(0).getInt("httpStatusCode"), is(200));
+        assertThat(exchangeEvents.get(0).getString("statusCode"), is("SIGNATURE"));
+
+        List<RecordedEvent> tlsEvents = eventsOfType(events, TLS_CONTEXT_EVENT);
+        assertThat(tlsEvents, hasSize(1));
+        assertThat(tlsEvents.get(0).getString("protocol"), is("SOAP"));
+
+        List<RecordedEvent> portEvents = eventsOfType(events, SOAP_PORT_EVENT);
+        assertThat(portEvents, hasSize(1));
+        assertThat(portEvents.get(0).getString("portType"), is("MSS_StatusPort"));
+        assertThat(portEvents.get(0).getString("serviceUrl"), is("https://localhost/status"));
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private static List<RecordedEvent> eventsOfType(List<RecordedEvent> events, String eventName) {
+        return events.stream()
+            .filter(event -> event.getEventType().getName().equals(eventName))
+            .collect(Collectors.toList());
+    }
+
+}
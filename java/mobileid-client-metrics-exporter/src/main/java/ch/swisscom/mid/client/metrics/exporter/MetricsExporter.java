@@ -0,0 +1,143 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.metrics.exporter;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import ch.swisscom.mid.client.config.ConfigurationException;
+import ch.swisscom.mid.client.impl.Loggers;
+import ch.swisscom.mid.client.impl.MIDClientImpl;
+
+/**
+ * Small embedded HTTP endpoint (based on the JDK's built-in HTTP server) that serves the metrics of the registered MID
+ * clients in the Prometheus text format, on the <code>/metrics</code> path. It has no dependency other than the MID
+ * client core, so it can run in deployments without a metrics sidecar.
+ * <p>
+ * Usage:
+ * <pre>
+ * MetricsExporter exporter = new MetricsExporter(new InetSocketAddress("127.0.0.1", 9400));
+ * exporter.addClient("signing-service", client);
+ * exporter.start();
+ * </pre>
+ */
+public class MetricsExporter implements Closeable {
+
+    public static final String METRICS_PATH = "/metrics";
+
+    private static final Logger logClient = LoggerFactory.getLogger(Loggers.LOGGER_CLIENT);
+
+    private final Map<String, MIDClientImpl> clients = new ConcurrentSkipListMap<>();
+    private final InetSocketAddress address;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public MetricsExporter(InetSocketAddress address) {
+        this.address = address;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public void addClient(String clientName, MIDClientImpl client) {
+        clients.put(clientName, client);
+    }
+
+    public void removeClient(String clientName) {
+        clients.remove(clientName);
+    }
+
+    public synchronized void start() {
+        if (server != null) {
+            return;
+        }
+        try {
+            server = HttpServer.create(address, 0);
+        } catch (IOException e) {
+            throw new ConfigurationException("Failed to start the MID client metrics exporter on " + address, e);
+        }
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mid-client-metrics-exporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext(METRICS_PATH, this::handleScrape);
+        server.start();
+        logClient.info("MID client metrics exporter listening on {}", server.getAddress());
+    }
+
+    /**
+     * Returns the port the exporter listens on; useful when the exporter was created with port 0 (any free port).
+     */
+    public synchronized int getPort() {
+        return server == null ? address.getPort() : server.getAddress().getPort();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            server = null;
+            executor = null;
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private void handleScrape(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            if (!"GET".equals(method) && !"HEAD".equals(method)) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            if (!METRICS_PATH.equals(exchange.getRequestURI().getPath())) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            byte[] body = PrometheusTextFormat.format(clients).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", PrometheusTextFormat.CONTENT_TYPE);
+            if ("HEAD".equals(method)) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        } catch (RuntimeException e) {
+            logClient.warn("Failed to render the MID client metrics", e);
+            exchange.sendResponseHeaders(500, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.metrics.exporter;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+import ch.swisscom.mid.client.impl.MIDClientImpl;
+import ch.swisscom.mid.client.impl.OutstandingSignatureRegistry;
+import ch.swisscom.mid.client.metrics.ConnectionPoolStats;
+import ch.swisscom.mid.client.metrics.LatencyHistogram;
+import ch.swisscom.mid.client.metrics.OperationMetrics;
+import ch.swisscom.mid.client.model.FailureReason;
+import ch.swisscom.mid.client.model.StatusCode;
+
+/**
+ * Renders the metrics of one or more MID clients in the Prometheus text exposition format (version 0.0.4). Each sample
+ * carries a "client" label with the name under which the client was registered in the {@link MetricsExporter}.
+ */
+public final class PrometheusTextFormat {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final long[] LATENCY_BUCKETS_IN_MICROS = {
+        5_000, 10_000, 25_000, 50_000, 100_000, 250_000, 500_000,
+        1_000_000, 2_500_000, 5_000_000, 10_000_000, 30_000_000, 60_000_000, 120_000_000
+    };
+
+    private static final long[] POLL_COUNT_BUCKETS = {1, 2, 3, 5, 10, 20, 30, 60, 120};
+
+    private PrometheusTextFormat() {
+        // static utility class
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public static String format(Map<String, MIDClientImpl> clients) {
+        StringBuilder out = new StringBuilder(8 * 1024);
+
+        writeHeader(out, "mid_client_requests_in_flight", "gauge",
+                    "Number of MSS requests currently waiting for a response");
+        for (Map.Entry<String, MIDClientImpl> entry : clients.entrySet()) {
+            for (OperationMetrics metrics : entry.getValue().getMetrics().getAllOperationMetrics()) {
+                if (isExported(entry.getValue(), metrics)) {
+                    writeSample(out, "mid_client_requests_in_flight", operationLabels(entry.getKey(), metrics), metrics.getInFlight());
+                }
+            }
+        }
+
+        writeHeader(out, "mid_client_request_duration_seconds", "histogram",
+                    "Duration of the MSS request/response exchanges");
+        for (Map.Entry<String, MIDClientImpl> entry : clients.entrySet()) {
+            for (OperationMetrics metrics : entry.getValue().getMetrics().getAllOperationMetrics()) {
+                if (isExported(entry.getValue(), metrics)) {
+                    LatencyHistogram histogram = metrics.getLatencyHistogram();
+                    String labels = operationLabels(entry.getKey(), metrics);
+                    for (long bucketInMicros : LATENCY_BUCKETS_IN_MICROS) {
+                        writeSample(out, "mid_client_request_duration_seconds_bucket",
+                                    labels + ",le=\"" + formatSeconds(bucketInMicros) + "\"",
+                                    histogram.getCountAtOrBelow(bucketInMicros));
+                    }
+                    writeSample(out, "mid_client_request_duration_seconds_bucket", labels + ",le=\"+Inf\"", histogram.getCount());
+                    writeSample(out, "mid_client_request_duration_seconds_sum", labels, formatSeconds(histogram.getSumInMicros()));
+                    writeSample(out, "mid_client_request_duration_seconds_count", labels, histogram.getCount());
+                }
+            }
+        }
+
+        writeHeader(out, "mid_client_responses_total", "counter",
+                    "Number of MSS responses and faults, by Mobile ID status code");
+        for (Map.Entry<String, MIDClientImpl> entry : clients.entrySet()) {
+            for (OperationMetrics metrics : entry.getValue().getMetrics().getAllOperationMetrics()) {
+                for (Map.Entry<StatusCode, Long> count : metrics.getStatusCodeCounts().entrySet()) {
+                    writeSample(out, "mid_client_responses_total",
+                                operationLabels(entry.getKey(), metrics) +
+                                ",status_code=\"" + count.getKey().getCode() + "\"" +
+                                ",status=\"" + count.getKey().name() + "\"",
+                                count.getValue());
+                }
+            }
+        }
+
+        writeHeader(out, "mid_client_failures_total", "counter",
+                    "Number of failed MSS requests, by failure reason");
+        for (Map.Entry<String, MIDClientImpl> entry : clients.entrySet()) {
+            for (OperationMetrics metrics : entry.getValue().getMetrics().getAllOperationMetrics()) {
+                for (Map.Entry<FailureReason, Long> count : metrics.getFailureReasonCounts().entrySet()) {
+                    writeSample(out, "mid_client_failures_total",
+                                operationLabels(entry.getKey(), metrics) + ",reason=\"" + count.getKey().name() + "\"",
+                                count.getValue());
+                }
+            }
+        }
+
+        writeHeader(out, "mid_client_polls_per_signature", "histogram",
+                    "Number of status polls needed by each async signature until its final status");
+        for (Map.Entry<String, MIDClientImpl> entry : clients.entrySet()) {
+            LatencyHistogram histogram = entry.getValue().getMetrics().getPollsPerSignature();
+            String labels = clientLabel(entry.getKey());
+            for (long bucket : POLL_COUNT_BUCKETS) {
+                writeSample(out, "mid_client_polls_per_signature_bucket", labels + ",le=\"" + bucket + "\"",
+                            histogram.getCountAtOrBelow(bucket));
+            }
+            writeSample(out, "mid_client_polls_per_signature_bucket", labels + ",le=\"+Inf\"", histogram.getCount());
+            writeSample(out, "mid_client_polls_per_signature_sum", labels, histogram.getSumInMicros());
+            writeSample(out, "mid_client_polls_per_signature_count", labels, histogram.getCount());
+        }
+
+        writeHeader(out, "mid_client_outstanding_signatures", "gauge",
+                    "Number of async signatures whose final status was not polled yet");
+        for (Map.Entry<String, MIDClientImpl> entry : clients.entrySet()) {
+            writeSample(out, "mid_client_outstanding_signatures", clientLabel(entry.getKey()),
+                        entry.getValue().getOutstandingSignatureCount());
+        }
+
+        writeHeader(out, "mid_client_outstanding_signatures_by_profile", "gauge",
+                    "Number of async signatures whose final status was not polled yet, by signature profile");
+        for (Map.Entry<String, MIDClientImpl> entry : clients.entrySet()) {
+            OutstandingSignatureRegistry registry = entry.getValue().getOutstandingSignatureRegistry();
+            if (registry == null) {
+                continue;
+            }
+            for (Map.Entry<String, Integer> count : registry.getInFlightCountsBySignatureProfile().entrySet()) {
+                writeSample(out, "mid_client_outstanding_signatures_by_profile",
+                            clientLabel(entry.getKey()) + ",profile=\"" + escape(count.getKey()) + "\"", count.getValue());
+            }
+        }
+
+        writeHeader(out, "mid_client_expired_signatures_total", "counter",
+                    "Number of async signatures that expired locally, without their final status being polled");
+        for (Map.Entry<String, MIDClientImpl> entry : clients.entrySet()) {
+            OutstandingSignatureRegistry registry = entry.getValue().getOutstandingSignatureRegistry();
+            if (registry != null) {
+                writeSample(out, "mid_client_expired_signatures_total", clientLabel(entry.getKey()), registry.getExpiredCount());
+            }
+        }
+
+        writePoolMetric(out, clients, "mid_client_connection_pool_leased", "Number of pooled connections (or ports) in use",
+                        ConnectionPoolStats::getLeased);
+        writePoolMetric(out, clients, "mid_client_connection_pool_available", "Number of idle pooled connections (or ports)",
+                        ConnectionPoolStats::getAvailable);
+        writePoolMetric(out, clients, "mid_client_connection_pool_pending", "Number of requests waiting for a pooled connection (or port)",
+                        ConnectionPoolStats::getPending);
+        writePoolMetric(out, clients, "mid_client_connection_pool_max", "Maximum size of the connection (or port) pool",
+                        ConnectionPoolStats::getMax);
+        return out.toString();
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private static void writePoolMetric(StringBuilder out, Map<String, MIDClientImpl> clients,
+                                        String name, String help, ToIntFunction<ConnectionPoolStats> field) {
+        writeHeader(out, name, "gauge", help);
+        for (Map.Entry<String, MIDClientImpl> entry : clients.entrySet()) {
+            for (ConnectionPoolStats stats : entry.getValue().getConnectionPoolStats()) {
+                writeSample(out, name, clientLabel(entry.getKey()) + ",pool=\"" + escape(stats.getPoolName()) + "\"", field.applyAsInt(stats));
+            }
+        }
+    }
+
+    /**
+     * Exports the operations of the protocol the client actually uses, plus any other that has recorded something (e.g.
+     * when hedging across protocols), so that the unused protocol does not double the number of series.
+     */
+    private static boolean isExported(MIDClientImpl client, OperationMetrics metrics) {
+        return metrics.getProtocol() == client.getComProtocol()
+               || metrics.getLatencyHistogram().getCount() > 0
+               || metrics.getInFlight() > 0;
+    }
+
+    private static void writeHeader(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void writeSample(StringBuilder out, String name, String labels, Object value) {
+        out.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+    }
+
+    private static String clientLabel(String clientName) {
+        return "client=\"" + escape(clientName) + "\"";
+    }
+
+    private static String operationLabels(String clientName, OperationMetrics metrics) {
+        return clientLabel(clientName) +
+               ",operation=\"" + metrics.getOperation().name() + "\"" +
+               ",protocol=\"" + metrics.getProtocol().name() + "\"";
+    }
+
+    private static String formatSeconds(long valueInMicros) {
+        return String.format(Locale.ROOT, "%.6f", valueInMicros / 1_000_000.0).replaceAll("0+$", "").replaceAll("\\.$", ".0");
+    }
+
+    private static String escape(String labelValue) {
+        return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+}
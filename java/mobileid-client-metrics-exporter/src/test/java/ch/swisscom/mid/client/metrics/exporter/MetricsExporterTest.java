@@ -0,0 +1,139 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.metrics.exporter;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.http.MimeType;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import ch.swisscom.mid.client.config.ClientConfiguration;
+import ch.swisscom.mid.client.config.DefaultConfiguration;
+import ch.swisscom.mid.client.config.HttpConfiguration;
+import ch.swisscom.mid.client.config.TlsConfiguration;
+import ch.swisscom.mid.client.impl.MIDClientImpl;
+import ch.swisscom.mid.client.model.ProfileRequest;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+
+public class MetricsExporterTest {
+
+    private static WireMockServer server;
+    private static MIDClientImpl client;
+    private static MetricsExporter exporter;
+
+    @BeforeAll
+    public static void setUpThisClass() {
+        server = new WireMockServer(options().port(8089));
+        server.start();
+        client = new MIDClientImpl(buildConfig());
+        exporter = new MetricsExporter(new InetSocketAddress("127.0.0.1", 0));
+        exporter.addClient("test", client);
+        exporter.start();
+    }
+
+    @AfterAll
+    public static void tearDownThisClass() {
+        exporter.close();
+        client.close();
+        server.stop();
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    @Test
+    public void testScrape_exposesOperationAndPoolMetrics() throws IOException {
+        server.stubFor(
+            post(urlEqualTo(DefaultConfiguration.REST_ENDPOINT_SUB_URL))
+                .willReturn(
+                    aResponse()
+                        .withHeader("Content-Type", MimeType.JSON.toString())
+                        .withBody(fileToString("/samples/rest-response-profile-query.json"))));
+        ProfileRequest request = new ProfileRequest();
+        request.getMobileUser().setMsisdn("41798765432");
+        request.setExtensionParamsToAllValues();
+        client.requestProfile(request);
+
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + exporter.getPort() +
+                                                                   MetricsExporter.METRICS_PATH).openConnection();
+        assertThat(connection.getResponseCode(), is(200));
+        assertThat(connection.getContentType(), is(PrometheusTextFormat.CONTENT_TYPE));
+        String body;
+        try (InputStream is = connection.getInputStream()) {
+            body = IOUtils.toString(is, StandardCharsets.UTF_8);
+        }
+        assertThat(body, containsString("# TYPE mid_client_request_duration_seconds histogram\n"));
+        assertThat(body, containsString(
+            "mid_client_request_duration_seconds_count{client=\"test\",operation=\"PROFILE_QUERY\",protocol=\"REST\"} 1\n"));
+        assertThat(body, containsString(
+            "mid_client_request_duration_seconds_bucket{client=\"test\",operation=\"PROFILE_QUERY\",protocol=\"REST\",le=\"+Inf\"} 1\n"));
+        assertThat(body, containsString(
+            "mid_client_responses_total{client=\"test\",operation=\"PROFILE_QUERY\",protocol=\"REST\",status_code=\"100\",status=\"REQUEST_OK\"} 1\n"));
+        assertThat(body, containsString(
+            "mid_client_connection_pool_available{client=\"test\",pool=\"REST HTTP connections\"} 1\n"));
+        assertThat(body, containsString("mid_client_polls_per_signature_count{client=\"test\"} 0\n"));
+        assertThat(body, containsString("mid_client_outstanding_signatures{client=\"test\"} 0\n"));
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private static ClientConfiguration buildConfig() {
+        ClientConfiguration config = new ClientConfiguration();
+        config.setProtocolToRest();
+        config.setApId("mid://test.swisscom.ch");
+        config.setApPassword("TEST_ID");
+        config.getUrls().setAllServiceUrlsTo("http://localhost:8089" + DefaultConfiguration.REST_ENDPOINT_SUB_URL);
+
+        TlsConfiguration tls = config.getTls();
+        tls.setKeyStoreClasspathFile("/empty-store.jks");
+        tls.setKeyStorePassword("secret");
+        tls.setKeyStoreKeyPassword("secret");
+        tls.setKeyStoreCertificateAlias("alias");
+        tls.setTrustStoreClasspathFile("/empty-store.jks");
+        tls.setTrustStorePassword("secret");
+        tls.setHostnameVerification(false);
+
+        HttpConfiguration http = config.getHttp();
+        http.setConnectionTimeoutInMs(2 * 1000);
+        http.setResponseTimeoutInMs(2 * 1000);
+        return config;
+    }
+
+    private static String fileToString(String fileName) {
+        try (InputStream is = MetricsExporterTest.class.getResourceAsStream(fileName)) {
+            return IOUtils.toString(is, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load payload from file [" + fileName + "]", e);
+        }
+    }
+
+}
@@ -20,20 +20,27 @@ import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.apache.commons.codec.CharEncoding;
+import org.apache.hc.client5.http.classic.ExecChain;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
 import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.ChainElement;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
 import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
 import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
 import org.apache.hc.client5.http.ssl.NoopHostnameVerifier;
 import org.apache.hc.client5.http.ssl.SSLConnectionSocketFactory;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ClassicHttpResponse;
 import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpException;
 import org.apache.hc.core5.http.HttpResponse;
 import org.apache.hc.core5.http.ParseException;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
 import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.apache.hc.core5.pool.PoolStats;
 import org.apache.hc.core5.ssl.PrivateKeyStrategy;
 import org.apache.hc.core5.ssl.SSLContextBuilder;
 import org.apache.hc.core5.ssl.SSLContexts;
@@ -45,6 +52,8 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.security.KeyStore;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import javax.net.ssl.SSLException;
@@ -53,6 +62,13 @@ import ch.swisscom.mid.client.MIDFlowException;
 import ch.swisscom.mid.client.config.*;
 import ch.swisscom.mid.client.impl.ComProtocolHandler;
 import ch.swisscom.mid.client.impl.Loggers;
+import ch.swisscom.mid.client.impl.RequestCancellation;
+import ch.swisscom.mid.client.jfr.FlightRecorderSupport;
+import ch.swisscom.mid.client.jfr.OperationRecording;
+import ch.swisscom.mid.client.metrics.ConnectionPoolStats;
+import ch.swisscom.mid.client.metrics.MIDClientMetrics;
+import ch.swisscom.mid.client.metrics.MIDOperation;
+import ch.swisscom.mid.client.metrics.MssExchange;
 import ch.swisscom.mid.client.model.*;
 import ch.swisscom.mid.client.rest.model.fault.MSSFault;
 import ch.swisscom.mid.client.rest.model.profqreq.MSSProfileQueryRequest;
@@ -72,10 +88,17 @@ public class ComProtocolHandlerRestImpl implements ComProtocolHandler {
     private static final Logger logReqResp = LoggerFactory.getLogger(Loggers.LOGGER_REQUEST_RESPONSE);
     private static final Logger logFullReqResp = LoggerFactory.getLogger(Loggers.LOGGER_FULL_REQUEST_RESPONSE);
 
+    private static final String EXCHANGE_CONTEXT_ATTRIBUTE = "ch.swisscom.mid.client.exchange";
+    private static final String LEASE_START_CONTEXT_ATTRIBUTE = "ch.swisscom.mid.client.leaseStartTime";
+
     private ClientConfiguration config;
 
+    private MIDClientMetrics metrics;
+
     private ObjectMapper jacksonMapper;
 
+    private PoolingHttpClientConnectionManager connectionManager;
+
     private CloseableHttpClient httpClient;
 
     @Override
@@ -85,14 +108,20 @@ public class ComProtocolHandlerRestImpl implements ComProtocolHandler {
 
     @Override
     public void initialize(ClientConfiguration config) {
+        initialize(config, new MIDClientMetrics());
+    }
+
+    @Override
+    public void initialize(ClientConfiguration config, MIDClientMetrics metrics) {
         this.config = config;
+        this.metrics = metrics;
         jacksonMapper = new ObjectMapper();
         jacksonMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
 
         TlsConfiguration tlsConfig = config.getTls();
         logTlsConfiguration(tlsConfig);
         SSLConnectionSocketFactory sslConnectionSocketFactory;
-        try {
+        try (OperationRecording ignored = FlightRecorderSupport.beginTlsContextCreation(ComProtocol.REST)) {
             SSLContextBuilder sslContextBuilder = SSLContexts.custom()
                 .loadKeyMaterial(produceAKeyStore(tlsConfig),
                                  tlsConfig.getKeyStoreKeyPassword() == null ? null : tlsConfig.getKeyStoreKeyPassword().toCharArray(),
@@ -111,7 +140,7 @@ public class ComProtocolHandlerRestImpl implements ComProtocolHandler {
         }
 
         logHttpConnectionConfiguration(config);
-        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+        connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
             .setMaxConnTotal(config.getHttp().getMaxTotalConnections())
             .setMaxConnPerRoute(config.getHttp().getMaxConnectionsPerRoute())
             .setSSLSocketFactory(sslConnectionSocketFactory)
@@ -124,6 +153,8 @@ public class ComProtocolHandlerRestImpl implements ComProtocolHandler {
         httpClient = HttpClients.custom()
             .setConnectionManager(connectionManager)
             .setDefaultRequestConfig(httpClientRequestConfig)
+            .addExecInterceptorBefore(ChainElement.CONNECT.name(), "mid-lease-start", this::markLeaseStart)
+            .addExecInterceptorBefore(ChainElement.MAIN_TRANSPORT.name(), "mid-lease-end", this::recordLeaseTime)
             .build();
     }
 
@@ -136,66 +167,142 @@ public class ComProtocolHandlerRestImpl implements ComProtocolHandler {
 
     @Override
     public SignatureResponse requestSyncSignature(SignatureRequest request) {
-        MSSSignatureRequest requestWrapper = SignatureRequestModelUtils.createSignatureRequest(config, request, true);
-        notifyTrafficObserverForApTransId(request.getTrafficObserver(), requestWrapper.getMSSSignatureReq().getAPInfo().getAPTransID());
-        MSSSignatureResponse responseWrapper = sendAndReceive("MSS Signature (sync)",
-                                                              config.getUrls().getSignatureServiceUrl(),
-                                                              requestWrapper, MSSSignatureResponse.class, request.getTrafficObserver());
-        SignatureResponse signatureResponse = SignatureRequestModelUtils.processSignatureResponse(responseWrapper);
-        signatureResponse.setTracking(SignatureRequestModelUtils.createSignatureTracking(responseWrapper, request.getTrafficObserver()));
-        return signatureResponse;
+        return metrics.measure(MIDOperation.SYNC_SIGNATURE, ComProtocol.REST, exchange -> {
+            long phaseStartTime = System.nanoTime();
+            MSSSignatureRequest requestWrapper = SignatureRequestModelUtils.createSignatureRequest(config, request, true);
+            exchange.addRequestBuildingTime(System.nanoTime() - phaseStartTime);
+            exchange.setApTransId(requestWrapper.getMSSSignatureReq().getAPInfo().getAPTransID());
+            exchange.setMobileUserMsisdn(request.getMobileUser().getMsisdn());
+            notifyTrafficObserverForApTransId(request.getTrafficObserver(), exchange.getApTransId());
+            MSSSignatureResponse responseWrapper = sendAndReceive("MSS Signature (sync)",
+                                                                  config.getUrls().getSignatureServiceUrl(),
+                                                                  requestWrapper, MSSSignatureResponse.class, request.getTrafficObserver(), exchange);
+            phaseStartTime = System.nanoTime();
+            SignatureResponse signatureResponse = SignatureRequestModelUtils.processSignatureResponse(responseWrapper);
+            signatureResponse.setTracking(SignatureRequestModelUtils.createSignatureTracking(responseWrapper, request.getTrafficObserver()));
+            exchange.addResponseMappingTime(System.nanoTime() - phaseStartTime);
+            return signatureResponse;
+        }, SignatureResponse::getStatus);
     }
 
     @Override
     public SignatureResponse requestAsyncSignature(SignatureRequest request) {
-        MSSSignatureRequest requestWrapper = SignatureRequestModelUtils.createSignatureRequest(config, request, false);
-        notifyTrafficObserverForApTransId(request.getTrafficObserver(), requestWrapper.getMSSSignatureReq().getAPInfo().getAPTransID());
-        MSSSignatureResponse responseWrapper = sendAndReceive("MSS Signature (async)",
-                                                              config.getUrls().getSignatureServiceUrl(),
-                                                              requestWrapper, MSSSignatureResponse.class, request.getTrafficObserver());
-        SignatureResponse signatureResponse = SignatureRequestModelUtils.processSignatureResponse(responseWrapper);
-        signatureResponse.setTracking(SignatureRequestModelUtils.createSignatureTracking(responseWrapper, request.getTrafficObserver()));
-        return signatureResponse;
+        return metrics.measure(MIDOperation.ASYNC_SIGNATURE, ComProtocol.REST, exchange -> {
+            long phaseStartTime = System.nanoTime();
+            MSSSignatureRequest requestWrapper = SignatureRequestModelUtils.createSignatureRequest(config, request, false);
+            exchange.addRequestBuildingTime(System.nanoTime() - phaseStartTime);
+            exchange.setApTransId(requestWrapper.getMSSSignatureReq().getAPInfo().getAPTransID());
+            exchange.setMobileUserMsisdn(request.getMobileUser().getMsisdn());
+            notifyTrafficObserverForApTransId(request.getTrafficObserver(), exchange.getApTransId());
+            MSSSignatureResponse responseWrapper = sendAndReceive("MSS Signature (async)",
+                                                                  config.getUrls().getSignatureServiceUrl(),
+                                                                  requestWrapper, MSSSignatureResponse.class, request.getTrafficObserver(), exchange);
+            phaseStartTime = System.nanoTime();
+            SignatureResponse signatureResponse = SignatureRequestModelUtils.processSignatureResponse(responseWrapper);
+            signatureResponse.setTracking(SignatureRequestModelUtils.createSignatureTracking(responseWrapper, request.getTrafficObserver()));
+            exchange.addResponseMappingTime(System.nanoTime() - phaseStartTime);
+            return signatureResponse;
+        }, SignatureResponse::getStatus);
     }
 
     @Override
     public SignatureResponse pollForSignatureStatus(SignatureTracking signatureTracking) {
-        MSSStatusRequest requestWrapper = StatusQueryModelUtils.createStatusQueryRequest(config, signatureTracking);
-        MSSStatusResponse responseWrapper = sendAndReceive("MSS Status Query",
-                                                           config.getUrls().getStatusQueryServiceUrl(),
-                                                           requestWrapper, MSSStatusResponse.class,
-                                                           signatureTracking.getTrafficObserver());
-        return StatusQueryModelUtils.processStatusQueryResponse(responseWrapper, signatureTracking);
+        return metrics.measure(MIDOperation.STATUS_QUERY, ComProtocol.REST, exchange -> {
+            long phaseStartTime = System.nanoTime();
+            MSSStatusRequest requestWrapper = StatusQueryModelUtils.createStatusQueryRequest(config, signatureTracking);
+            exchange.addRequestBuildingTime(System.nanoTime() - phaseStartTime);
+            exchange.setApTransId(requestWrapper.getMSSStatusReq().getAPInfo().getAPTransID());
+            exchange.setMobileUserMsisdn(signatureTracking.getMobileUserMsisdn());
+            MSSStatusResponse responseWrapper = sendAndReceive("MSS Status Query",
+                                                               config.getUrls().getStatusQueryServiceUrl(),
+                                                               requestWrapper, MSSStatusResponse.class,
+                                                               signatureTracking.getTrafficObserver(), exchange);
+            phaseStartTime = System.nanoTime();
+            SignatureResponse response = StatusQueryModelUtils.processStatusQueryResponse(responseWrapper, signatureTracking);
+            exchange.addResponseMappingTime(System.nanoTime() - phaseStartTime);
+            return response;
+        }, SignatureResponse::getStatus);
     }
 
     @Override
     public ReceiptResponse requestSyncReceipt(SignatureTracking signatureTracking, ReceiptRequest request) {
-        MSSReceiptRequest requestWrapper = ReceiptRequestModelUtils.createReceiptRequest(config, signatureTracking, request);
-        String operationName;
-        if (request.getRequestExtension() == null || request.getRequestExtension().getMessagingMode() == ReceiptMessagingMode.SYNC) {
-            operationName = "MSS Receipt (sync)";
-        } else {
-            throw new UnsupportedOperationException("There is no support for non-sync MSS Receipt Request");
-        }
-        MSSReceiptResponse responseWrapper = sendAndReceive(operationName,
-                                                            config.getUrls().getReceiptServiceUrl(),
-                                                            requestWrapper, MSSReceiptResponse.class,
-                                                            signatureTracking.getTrafficObserver());
-        return ReceiptRequestModelUtils.processReceiptResponse(responseWrapper);
+        return metrics.measure(MIDOperation.RECEIPT, ComProtocol.REST, exchange -> {
+            long phaseStartTime = System.nanoTime();
+            MSSReceiptRequest requestWrapper = ReceiptRequestModelUtils.createReceiptRequest(config, signatureTracking, request);
+            exchange.addRequestBuildingTime(System.nanoTime() - phaseStartTime);
+            exchange.setApTransId(requestWrapper.getMSSReceiptReq().getAPInfo().getAPTransID());
+            exchange.setMobileUserMsisdn(signatureTracking.getMobileUserMsisdn());
+            String operationName;
+            if (request.getRequestExtension() == null || request.getRequestExtension().getMessagingMode() == ReceiptMessagingMode.SYNC) {
+                operationName = "MSS Receipt (sync)";
+            } else {
+                throw new UnsupportedOperationException("There is no support for non-sync MSS Receipt Request");
+            }
+            MSSReceiptResponse responseWrapper = sendAndReceive(operationName,
+                                                                config.getUrls().getReceiptServiceUrl(),
+                                                                requestWrapper, MSSReceiptResponse.class,
+                                                                signatureTracking.getTrafficObserver(), exchange);
+            phaseStartTime = System.nanoTime();
+            ReceiptResponse response = ReceiptRequestModelUtils.processReceiptResponse(responseWrapper);
+            exchange.addResponseMappingTime(System.nanoTime() - phaseStartTime);
+            return response;
+        }, ReceiptResponse::getStatus);
     }
 
     @Override
     public ProfileResponse requestProfile(ProfileRequest request) {
-        MSSProfileQueryRequest requestWrapper = ProfileRequestModelUtils.createProfileQueryRequest(request, config);
-        notifyTrafficObserverForApTransId(request.getTrafficObserver(), requestWrapper.getMSSProfileReq().getAPInfo().getAPTransID());
-        MSSProfileQueryResponse responseWrapper = sendAndReceive("MSS Profile Query",
-                                                                 config.getUrls().getProfileQueryServiceUrl(),
-                                                                 requestWrapper, MSSProfileQueryResponse.class, request.getTrafficObserver());
-        return ProfileRequestModelUtils.processProfileQueryResponse(responseWrapper);
+        return metrics.measure(MIDOperation.PROFILE_QUERY, ComProtocol.REST, exchange -> {
+            long phaseStartTime = System.nanoTime();
+            MSSProfileQueryRequest requestWrapper = ProfileRequestModelUtils.createProfileQueryRequest(request, config);
+            exchange.addRequestBuildingTime(System.nanoTime() - phaseStartTime);
+            exchange.setApTransId(requestWrapper.getMSSProfileReq().getAPInfo().getAPTransID());
+            exchange.setMobileUserMsisdn(request.getMobileUser().getMsisdn());
+            notifyTrafficObserverForApTransId(request.getTrafficObserver(), exchange.getApTransId());
+            MSSProfileQueryResponse responseWrapper = sendAndReceive("MSS Profile Query",
+                                                                     config.getUrls().getProfileQueryServiceUrl(),
+                                                                     requestWrapper, MSSProfileQueryResponse.class, request.getTrafficObserver(), exchange);
+            phaseStartTime = System.nanoTime();
+            ProfileResponse response = ProfileRequestModelUtils.processProfileQueryResponse(responseWrapper, request.getProjection());
+            exchange.addResponseMappingTime(System.nanoTime() - phaseStartTime);
+            return response;
+        }, response -> null);
+    }
+
+    @Override
+    public List<ConnectionPoolStats> getConnectionPoolStats() {
+        if (connectionManager == null) {
+            return Collections.emptyList();
+        }
+        PoolStats totalStats = connectionManager.getTotalStats();
+        return Collections.singletonList(new ConnectionPoolStats("REST HTTP connections",
+                                                                 totalStats.getLeased(),
+                                                                 totalStats.getAvailable(),
+                                                                 totalStats.getPending(),
+                                                                 totalStats.getMax()));
     }
 
     // ----------------------------------------------------------------------------------------------------
 
+    private ClassicHttpResponse markLeaseStart(ClassicHttpRequest request, ExecChain.Scope scope, ExecChain chain)
+        throws IOException, HttpException {
+        scope.clientContext.setAttribute(LEASE_START_CONTEXT_ATTRIBUTE, System.nanoTime());
+        return chain.proceed(request, scope);
+    }
+
+    /**
+     * Runs after the CONNECT element of the HTTP client's execution chain, which leases a connection from the pool (and
+     * opens it, if needed), so the time since {@link #markLeaseStart} is the pool lease time of the MSS exchange.
+     */
+    private ClassicHttpResponse recordLeaseTime(ClassicHttpRequest request, ExecChain.Scope scope, ExecChain chain)
+        throws IOException, HttpException {
+        Object exchange = scope.clientContext.getAttribute(EXCHANGE_CONTEXT_ATTRIBUTE);
+        Object leaseStartTime = scope.clientContext.getAttribute(LEASE_START_CONTEXT_ATTRIBUTE);
+        if (exchange instanceof MssExchange && leaseStartTime instanceof Long) {
+            ((MssExchange) exchange).addPoolLeaseTime(System.nanoTime() - (Long) leaseStartTime);
+        }
+        return chain.proceed(request, scope);
+    }
+
     private void logHttpConnectionConfiguration(ClientConfiguration config) {
         logConfig.info("Configuring HTTP client: " +
                        "connection timeout [{}], response timeout [{}], " +
@@ -300,16 +407,20 @@ public class ComProtocolHandlerRestImpl implements ComProtocolHandler {
                                                String serviceUrl,
                                                TReq requestObject,
                                                Class<TResp> responseClass,
-                                               TrafficObserver trafficObserver) {
+                                               TrafficObserver trafficObserver,
+                                               MssExchange exchange) {
         logProtocol.debug("{}: Serializing object of type {} to JSON", operationName, requestObject.getClass().getSimpleName());
         FaultProcessor faultProcessor = new FaultProcessor();
         String requestJson;
+        long phaseStartTime = System.nanoTime();
         try {
             requestJson = jacksonMapper.writeValueAsString(requestObject);
+            exchange.addSerializationTime(System.nanoTime() - phaseStartTime);
         } catch (JsonProcessingException e) {
             throw new MIDFlowException("Failed to serialize request object to JSON, for operation " + operationName,
                                        e, faultProcessor.processException(e, FailureReason.REQUEST_PREPARATION_FAILURE));
         }
+        exchange.setRequestBody(requestJson);
         notifyTrafficObserverForRequest(trafficObserver, requestJson);
         HttpPost httpPost = new HttpPost(serviceUrl);
         httpPost.setEntity(new StringEntity(requestJson, ContentType.APPLICATION_JSON, CharEncoding.UTF_8, false));
@@ -318,16 +429,24 @@ public class ComProtocolHandlerRestImpl implements ComProtocolHandler {
         logFullReqResp.info("{}: Sending JSON to: [{}], content: [{}]", operationName, serviceUrl, requestJson);
         TResp responseWrapper = null;
         MSSFault faultWrapper = null;
-        try (CloseableHttpResponse response = httpClient.execute(httpPost)) {
+        HttpClientContext context = HttpClientContext.create();
+        context.setAttribute(EXCHANGE_CONTEXT_ATTRIBUTE, exchange);
+        // lets the request hedger abort this request if its other copy wins
+        RequestCancellation.onCancel(httpPost::cancel);
+        phaseStartTime = System.nanoTime();
+        try (CloseableHttpResponse response = httpClient.execute(httpPost, context)) {
             logProtocol.info("{}: Received HTTP status code: {}", operationName, response.getCode());
+            exchange.setHttpStatusCode(response.getCode());
             String stringResponse;
             try {
                 stringResponse = EntityUtils.toString(response.getEntity());
+                exchange.addNetworkTime(System.nanoTime() - phaseStartTime - exchange.getPoolLeaseTimeInNanos());
             } catch (ParseException e) {
                 throw new MIDFlowException("Failed to interpret the HTTP response content as a string, " +
                                            "for operation " + operationName, e,
                                            faultProcessor.processException(e, FailureReason.HTTP_DATA_TRANSFER_FAILURE));
             }
+            exchange.setResponseBody(stringResponse);
             notifyTrafficObserverForResponse(trafficObserver, response, stringResponse);
             if (response.getCode() == 200) {
                 if (logReqResp.isInfoEnabled()) {
@@ -338,8 +457,10 @@ public class ComProtocolHandlerRestImpl implements ComProtocolHandler {
                     logFullReqResp.info("{}: Received JSON content: {}", operationName, stringResponse);
                 }
                 logProtocol.debug("{}: Deserializing JSON to object of type {}", operationName, responseClass.getSimpleName());
+                phaseStartTime = System.nanoTime();
                 try {
                     responseWrapper = jacksonMapper.readValue(stringResponse, responseClass);
+                    exchange.addParsingTime(System.nanoTime() - phaseStartTime);
                 } catch (JsonProcessingException e) {
                     throw new MIDFlowException("Failed to deserialize JSON content to object of type " +
                                                responseClass.getSimpleName() + " for operation " + operationName, e,
@@ -347,8 +468,10 @@ public class ComProtocolHandlerRestImpl implements ComProtocolHandler {
                 }
             } else {
                 logProtocol.debug("{}: Deserializing JSON to object of type {}", operationName, MSSFault.class.getSimpleName());
+                phaseStartTime = System.nanoTime();
                 try {
                     faultWrapper = jacksonMapper.readValue(stringResponse, MSSFault.class);
+                    exchange.addParsingTime(System.nanoTime() - phaseStartTime);
                 } catch (JsonProcessingException e) {
                     throw new MIDFlowException("Failed to deserialize JSON content to object of type " +
                                                MSSFault.class.getSimpleName() + " for operation " + operationName,
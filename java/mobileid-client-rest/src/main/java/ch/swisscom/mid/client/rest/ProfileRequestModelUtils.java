@@ -17,6 +17,7 @@ package ch.swisscom.mid.client.rest;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Supplier;
 
 import ch.swisscom.mid.client.config.ClientConfiguration;
@@ -50,14 +51,25 @@ public class ProfileRequestModelUtils {
     }
 
     public static ProfileResponse processProfileQueryResponse(MSSProfileQueryResponse mssResponseWrapper) {
+        return processProfileQueryResponse(mssResponseWrapper, null);
+    }
+
+    /**
+     * Maps the given profile query response, skipping the parts that are not in the given projection (NULL for
+     * mapping everything; see {@link ProfileRequest#setProjection(ProfileField...)}).
+     */
+    public static ProfileResponse processProfileQueryResponse(MSSProfileQueryResponse mssResponseWrapper,
+                                                              Set<ProfileField> projection) {
         ProfileResponse response = new ProfileResponse();
         MSSProfileResp mssResponse = mssResponseWrapper.getMSSProfileResp();
-        response.setSignatureProfiles(mssResponse.getSignatureProfile());
+        if (ProfileField.SIGNATURE_PROFILES.isIncludedIn(projection)) {
+            response.setSignatureProfiles(mssResponse.getSignatureProfile());
+        }
         if (mssResponse.getStatus() != null &&
             mssResponse.getStatus().getStatusDetail() != null &&
             mssResponse.getStatus().getStatusDetail().getProfileQueryExtension() != null) {
             ProfileQueryExtension mssPQExt = mssResponse.getStatus().getStatusDetail().getProfileQueryExtension();
-            if (mssPQExt.getMobileUser() != null) {
+            if (mssPQExt.getMobileUser() != null && ProfileField.MOBILE_USER.isIncludedIn(projection)) {
                 ProfileMobileUserInfo mobileUserInfo = new ProfileMobileUserInfo();
                 MobileUser mssPQMobileUser = mssPQExt.getMobileUser();
                 if (mssPQMobileUser.getRecoveryCodeCreated() != null) {
@@ -68,7 +80,7 @@ public class ProfileRequestModelUtils {
                 }
                 response.setMobileUser(mobileUserInfo);
             }
-            if (mssPQExt.getSscds() != null) {
+            if (mssPQExt.getSscds() != null && isAnyDeviceFieldIncludedIn(projection)) {
                 response.setSimDevices(new ArrayList<>());
                 response.setAppDevices(new ArrayList<>());
                 Sscds mssSscds = mssPQExt.getSscds();
@@ -76,14 +88,16 @@ public class ProfileRequestModelUtils {
                     Sim mssSim = mssSscds.getSim();
                     response.getSimDevices().add(processDeviceInfo(mssSim::getState,
                                                                    mssSim::getPinStatus,
-                                                                   mssSim::getMobileUserCertificate));
+                                                                   mssSim::getMobileUserCertificate,
+                                                                   projection));
                 }
                 if (mssSscds.getApp() != null && mssSscds.getApp().size() > 0) {
                     List<App> mssAppList = mssSscds.getApp();
                     for (App mssApp : mssAppList) {
                         response.getAppDevices().add(processDeviceInfo(mssApp::getState,
                                                                        mssApp::getPinStatus,
-                                                                       mssApp::getMobileUserCertificate));
+                                                                       mssApp::getMobileUserCertificate,
+                                                                       projection));
                     }
                 }
             }
@@ -116,15 +130,23 @@ public class ProfileRequestModelUtils {
         return msspInfo;
     }
 
+    private static boolean isAnyDeviceFieldIncludedIn(Set<ProfileField> projection) {
+        return ProfileField.DEVICE_STATE.isIncludedIn(projection) ||
+               ProfileField.PIN_STATE.isIncludedIn(projection) ||
+               ProfileField.CERTIFICATES.isIncludedIn(projection);
+    }
+
     private static ProfileDeviceInfo processDeviceInfo(Supplier<String> stateSupplier,
                                                        Supplier<PinStatus> pinStatusSupplier,
-                                                       Supplier<List<MobileUserCertificate>> certificateListSupplier) {
+                                                       Supplier<List<MobileUserCertificate>> certificateListSupplier,
+                                                       Set<ProfileField> projection) {
         ProfileDeviceInfo deviceInfo = new ProfileDeviceInfo();
         deviceInfo.setState(ProfileDeviceState.getByStateString(stateSupplier.get()));
-        if (pinStatusSupplier.get() != null) {
+        if (pinStatusSupplier.get() != null && ProfileField.PIN_STATE.isIncludedIn(projection)) {
             deviceInfo.setPinState(ProfileDevicePinState.getByPinBlockedBooleanValue(pinStatusSupplier.get().getBlocked()));
         }
-        if (certificateListSupplier.get() != null && certificateListSupplier.get().size() > 0) {
+        if (certificateListSupplier.get() != null && certificateListSupplier.get().size() > 0 &&
+            ProfileField.CERTIFICATES.isIncludedIn(projection)) {
             deviceInfo.setCertificates(new ArrayList<>());
 
             for (MobileUserCertificate mssCert : certificateListSupplier.get()) {
@@ -132,29 +154,24 @@ public class ProfileRequestModelUtils {
                 cert.setAlgorithm(mssCert.getAlgorithm());
                 cert.setState(ProfileMobileUserCertificateState.getByStateString(mssCert.getState()));
 
-                CertificateData userCertificate = new CertificateData();
-                List<CertificateData> caCertificates = new ArrayList<>();
+                List<String> certificates = mssCert.getX509Certificate() == null
+                                            ? new ArrayList<>() : mssCert.getX509Certificate();
+                List<String> subjectNames = mssCert.getX509SubjectName() == null
+                                            ? new ArrayList<>() : mssCert.getX509SubjectName();
 
-                if (mssCert.getX509Certificate() != null && mssCert.getX509Certificate().size() > 0) {
-                    userCertificate.setCertificateAsBase64(mssCert.getX509Certificate().get(0));
-                    for (int index = 1; index < mssCert.getX509Certificate().size(); index++) {
-                        CertificateData certificateData = new CertificateData();
-                        certificateData.setCertificateAsBase64(mssCert.getX509Certificate().get(index));
-                        caCertificates.add(certificateData);
-                    }
+                CertificateData userCertificate = new CertificateData();
+                if (certificates.size() > 0) {
+                    userCertificate.setCertificateAsBase64(certificates.get(0));
                 }
-                if (mssCert.getX509SubjectName() != null && mssCert.getX509SubjectName().size() > 0) {
-                    userCertificate.setSubjectName(mssCert.getX509SubjectName().get(0));
-                    for (int index = 1; index < mssCert.getX509SubjectName().size(); index++) {
-                        CertificateData certificateData;
-                        if (index - 1 < caCertificates.size()) {
-                            certificateData = caCertificates.get(index - 1);
-                        } else {
-                            certificateData = new CertificateData();
-                            caCertificates.add(certificateData);
-                        }
-                        certificateData.setSubjectName(mssCert.getX509SubjectName().get(index));
-                    }
+                if (subjectNames.size() > 0) {
+                    userCertificate.setSubjectName(subjectNames.get(0));
+                }
+                // the CA certificates are the same for all the users, so they are shared between all the responses
+                List<CertificateData> caCertificates = new ArrayList<>();
+                for (int index = 1; index < Math.max(certificates.size(), subjectNames.size()); index++) {
+                    caCertificates.add(CertificateData.internCaCertificate(
+                        index < subjectNames.size() ? subjectNames.get(index) : null,
+                        index < certificates.size() ? certificates.get(index) : null));
                 }
 
                 cert.setUserCertificate(userCertificate);
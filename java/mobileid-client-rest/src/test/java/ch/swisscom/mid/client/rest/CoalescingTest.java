@@ -0,0 +1,122 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.rest;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.http.MimeType;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import ch.swisscom.mid.client.config.ClientConfiguration;
+import ch.swisscom.mid.client.config.DefaultConfiguration;
+import ch.swisscom.mid.client.impl.MIDClientImpl;
+import ch.swisscom.mid.client.model.ProfileQueryExtensions;
+import ch.swisscom.mid.client.model.ProfileRequest;
+import ch.swisscom.mid.client.model.ProfileResponse;
+import ch.swisscom.mid.client.model.SignatureProfiles;
+
+import static ch.swisscom.mid.client.rest.TestSupport.buildConfig;
+import static ch.swisscom.mid.client.rest.TestSupport.fileToString;
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+public class CoalescingTest {
+
+    private static final int CONCURRENT_CALLERS = 5;
+
+    private static WireMockServer server;
+    private static MIDClientImpl client;
+
+    @BeforeAll
+    public static void setUpThisClass() {
+        server = new WireMockServer(options().port(8089));
+        server.start();
+
+        ClientConfiguration config = buildConfig();
+        config.setCoalesceDuplicateRequests(true);
+        client = new MIDClientImpl(config);
+    }
+
+    @AfterAll
+    public static void tearDownThisClass() {
+        client.close();
+        server.stop();
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    @Test
+    public void testProfileQuery_identicalConcurrentQueriesAreCoalesced() throws Exception {
+        server.stubFor(
+            post(urlEqualTo(DefaultConfiguration.REST_ENDPOINT_SUB_URL))
+                .willReturn(
+                    aResponse()
+                        .withFixedDelay(500)
+                        .withHeader("Content-Type", MimeType.JSON.toString())
+                        .withBody(fileToString("/samples/rest-response-profile-query.json"))));
+
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_CALLERS);
+        CountDownLatch startGate = new CountDownLatch(1);
+        List<Future<ProfileResponse>> futures = new ArrayList<>();
+        for (int index = 0; index < CONCURRENT_CALLERS; index++) {
+            boolean reversedParams = index % 2 == 0;
+            futures.add(executor.submit(() -> {
+                startGate.await();
+                return client.requestProfile(buildProfileRequest(reversedParams));
+            }));
+        }
+        startGate.countDown();
+        for (Future<ProfileResponse> future : futures) {
+            assertThat(future.get().getSignatureProfiles(),
+                       contains(SignatureProfiles.ANY_LOA4, SignatureProfiles.DEFAULT_PROFILE, SignatureProfiles.STK_LOA4));
+        }
+        executor.shutdown();
+
+        server.verify(1, postRequestedFor(urlEqualTo(DefaultConfiguration.REST_ENDPOINT_SUB_URL)));
+        assertThat(client.getProfileSingleFlight().getCoalescedCalls(), is((long) CONCURRENT_CALLERS - 1));
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private static ProfileRequest buildProfileRequest(boolean reversedParams) {
+        ProfileRequest request = new ProfileRequest();
+        request.getMobileUser().setMsisdn("418888888888");
+        if (reversedParams) {
+            request.addExtensionParam(ProfileQueryExtensions.CERTIFICATES);
+            request.addExtensionParam(ProfileQueryExtensions.PIN_STATUS);
+        } else {
+            request.addExtensionParam(ProfileQueryExtensions.PIN_STATUS);
+            request.addExtensionParam(ProfileQueryExtensions.CERTIFICATES);
+        }
+        return request;
+    }
+
+}
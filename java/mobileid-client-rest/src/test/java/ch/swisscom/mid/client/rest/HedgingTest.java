@@ -0,0 +1,100 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.rest;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.http.MimeType;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import ch.swisscom.mid.client.config.ClientConfiguration;
+import ch.swisscom.mid.client.config.DefaultConfiguration;
+import ch.swisscom.mid.client.config.HedgingConfiguration;
+import ch.swisscom.mid.client.impl.MIDClientImpl;
+import ch.swisscom.mid.client.model.ProfileRequest;
+import ch.swisscom.mid.client.model.ProfileResponse;
+import ch.swisscom.mid.client.model.SignatureProfiles;
+
+import static ch.swisscom.mid.client.rest.TestSupport.buildConfig;
+import static ch.swisscom.mid.client.rest.TestSupport.fileToString;
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+public class HedgingTest {
+
+    private static WireMockServer primaryServer;
+    private static WireMockServer alternateServer;
+    private static MIDClientImpl client;
+
+    @BeforeAll
+    public static void setUpThisClass() {
+        primaryServer = new WireMockServer(options().port(8089));
+        primaryServer.start();
+        alternateServer = new WireMockServer(options().port(8090));
+        alternateServer.start();
+
+        ClientConfiguration config = buildConfig();
+        HedgingConfiguration hedging = config.getHedging();
+        hedging.setEnabled(true);
+        hedging.setInitialDelayInMs(100);
+        hedging.getAlternateUrls().setAllServiceUrlsTo("http://localhost:8090" + DefaultConfiguration.REST_ENDPOINT_SUB_URL);
+        client = new MIDClientImpl(config);
+    }
+
+    @AfterAll
+    public static void tearDownThisClass() {
+        client.close();
+        primaryServer.stop();
+        alternateServer.stop();
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    @Test
+    public void testProfileQuery_slowPrimaryIsHedged() {
+        primaryServer.stubFor(
+            post(urlEqualTo(DefaultConfiguration.REST_ENDPOINT_SUB_URL))
+                .willReturn(
+                    aResponse()
+                        .withFixedDelay(1500)
+                        .withHeader("Content-Type", MimeType.JSON.toString())
+                        .withBody(fileToString("/samples/rest-response-profile-query.json"))));
+        alternateServer.stubFor(
+            post(urlEqualTo(DefaultConfiguration.REST_ENDPOINT_SUB_URL))
+                .willReturn(
+                    aResponse()
+                        .withHeader("Content-Type", MimeType.JSON.toString())
+                        .withBody(fileToString("/samples/rest-response-profile-query.json"))));
+
+        ProfileRequest request = new ProfileRequest();
+        request.getMobileUser().setMsisdn("418888888888");
+        request.setExtensionParamsToAllValues();
+
+        ProfileResponse response = client.requestProfile(request);
+        assertThat(response.getSignatureProfiles(),
+                   contains(SignatureProfiles.ANY_LOA4, SignatureProfiles.DEFAULT_PROFILE, SignatureProfiles.STK_LOA4));
+        assertThat(client.getRequestHedger().getHedgesSent(), is(1L));
+        assertThat(client.getRequestHedger().getHedgesWon(), is(1L));
+    }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.rest;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.http.MimeType;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.swisscom.mid.client.config.ClientConfiguration;
+import ch.swisscom.mid.client.config.DefaultConfiguration;
+import ch.swisscom.mid.client.impl.Loggers;
+import ch.swisscom.mid.client.impl.MIDClientImpl;
+import ch.swisscom.mid.client.model.ProfileRequest;
+
+import static ch.swisscom.mid.client.rest.TestSupport.buildConfig;
+import static ch.swisscom.mid.client.rest.TestSupport.fileToString;
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class JmxTest {
+
+    private static WireMockServer server;
+
+    @BeforeAll
+    public static void setUpThisClass() {
+        server = new WireMockServer(options().port(8089));
+        server.start();
+    }
+
+    @AfterAll
+    public static void tearDownThisClass() {
+        server.stop();
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    @Test
+    public void testMXBean_exposesStatsAndOperations() throws Exception {
+        server.stubFor(
+            post(urlEqualTo(DefaultConfiguration.REST_ENDPOINT_SUB_URL))
+                .willReturn(
+                    aResponse()
+                        .withHeader("Content-Type", MimeType.JSON.toString())
+                        .withBody(fileToString("/samples/rest-response-profile-query.json"))));
+
+        ClientConfiguration config = buildConfig();
+        config.getJmx().setEnabled(true);
+        config.getJmx().setClientName("jmx-test");
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName("ch.swisscom.mid.client:type=MIDClient,name=jmx-test");
+
+        MIDClientImpl client = new MIDClientImpl(config);
+        try {
+            ProfileRequest request = new ProfileRequest();
+            request.getMobileUser().setMsisdn("41798765432");
+            request.setExtensionParamsToAllValues();
+            client.requestProfile(request);
+
+            assertThat(mBeanServer.getAttribute(objectName, "ComProtocol"), is("REST"));
+            assertThat(mBeanServer.getAttribute(objectName, "OutstandingAsyncSignatures"), is(0));
+
+            CompositeData[] pools = (CompositeData[]) mBeanServer.getAttribute(objectName, "ConnectionPoolStats");
+            assertThat(pools.length, is(1));
+            assertThat(pools[0].get("leased"), is(0));
+            assertThat(pools[0].get("available"), is(1));
+
+            CompositeData[] latencies = (CompositeData[]) mBeanServer.getAttribute(objectName, "OperationLatencies");
+            assertThat(latencies.length, is(1));
+            assertThat(latencies[0].get("operation"), is("PROFILE_QUERY"));
+            assertThat(latencies[0].get("count"), is(1L));
+
+            mBeanServer.invoke(objectName, "resetStatistics", new Object[0], new String[0]);
+            latencies = (CompositeData[]) mBeanServer.getAttribute(objectName, "OperationLatencies");
+            assertThat(latencies.length, is(0));
+
+            Logger logger = (Logger) LoggerFactory.getLogger(Loggers.LOGGER_FULL_REQUEST_RESPONSE);
+            Level initialLevel = logger.getLevel();
+            try {
+                mBeanServer.invoke(objectName, "setLogLevel",
+                                   new Object[]{Loggers.LOGGER_FULL_REQUEST_RESPONSE, "WARN"},
+                                   new String[]{String.class.getName(), String.class.getName()});
+                assertThat(logger.getLevel(), is(Level.WARN));
+            } finally {
+                logger.setLevel(initialLevel);
+            }
+        } finally {
+            client.close();
+        }
+        assertThat(mBeanServer.isRegistered(objectName), is(false));
+    }
+
+}
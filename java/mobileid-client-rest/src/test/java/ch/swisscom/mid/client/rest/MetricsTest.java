@@ -0,0 +1,138 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.rest;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.http.MimeType;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ch.swisscom.mid.client.MIDFlowException;
+import ch.swisscom.mid.client.config.ComProtocol;
+import ch.swisscom.mid.client.config.DefaultConfiguration;
+import ch.swisscom.mid.client.impl.MIDClientImpl;
+import ch.swisscom.mid.client.metrics.MIDOperation;
+import ch.swisscom.mid.client.metrics.MetricsRegistry;
+import ch.swisscom.mid.client.metrics.MssExchange;
+import ch.swisscom.mid.client.metrics.OperationMetrics;
+import ch.swisscom.mid.client.model.ProfileRequest;
+import ch.swisscom.mid.client.model.StatusCode;
+
+import static ch.swisscom.mid.client.rest.TestSupport.buildConfig;
+import static ch.swisscom.mid.client.rest.TestSupport.fileToString;
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.fail;
+
+public class MetricsTest {
+
+    private static WireMockServer server;
+    private static MIDClientImpl client;
+
+    @BeforeAll
+    public static void setUpThisClass() {
+        server = new WireMockServer(options().port(8089));
+        server.start();
+        client = new MIDClientImpl(buildConfig());
+    }
+
+    @AfterAll
+    public static void tearDownThisClass() {
+        client.close();
+        server.stop();
+    }
+
+    @BeforeEach
+    public void setUpThisTest() {
+        server.resetAll();
+        client.getMetrics().reset();
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    @Test
+    public void testProfileQuery_successIsRecorded() {
+        server.stubFor(
+            post(urlEqualTo(DefaultConfiguration.REST_ENDPOINT_SUB_URL))
+                .willReturn(
+                    aResponse()
+                        .withHeader("Content-Type", MimeType.JSON.toString())
+                        .withBody(fileToString("/samples/rest-response-profile-query.json"))));
+
+        List<MssExchange> exchanges = new ArrayList<>();
+        MetricsRegistry registry = exchanges::add;
+        client.getMetrics().addRegistry(registry);
+        try {
+            client.requestProfile(buildProfileRequest());
+        } finally {
+            client.getMetrics().removeRegistry(registry);
+        }
+
+        OperationMetrics metrics = client.getMetrics().getOperationMetrics(MIDOperation.PROFILE_QUERY, ComProtocol.REST);
+        assertThat(metrics.getLatencyHistogram().getCount(), is(1L));
+        assertThat(metrics.getLatencyHistogram().getMaxInMicros(), is(greaterThan(0L)));
+        assertThat(metrics.getStatusCodeCount(StatusCode.REQUEST_OK), is(1L));
+        assertThat(metrics.getFailureReasonCounts().isEmpty(), is(true));
+        assertThat(metrics.getInFlight(), is(0));
+        assertThat(exchanges.size(), is(1));
+        assertThat(exchanges.get(0).isSuccessful(), is(true));
+    }
+
+    @Test
+    public void testProfileQuery_faultIsRecorded() {
+        server.stubFor(
+            post(urlEqualTo(DefaultConfiguration.REST_ENDPOINT_SUB_URL))
+                .willReturn(
+                    aResponse()
+                        .withStatus(500)
+                        .withHeader("Content-Type", MimeType.JSON.toString())
+                        .withBody(fileToString("/samples/rest-response-fault-unknown-client.json"))));
+
+        try {
+            client.requestProfile(buildProfileRequest());
+            fail("A MIDFlowException was expected at this point");
+        } catch (MIDFlowException ignored) {
+            // expected
+        }
+
+        OperationMetrics metrics = client.getMetrics().getOperationMetrics(MIDOperation.PROFILE_QUERY, ComProtocol.REST);
+        assertThat(metrics.getLatencyHistogram().getCount(), is(1L));
+        assertThat(metrics.getStatusCodeCount(StatusCode.UNKNOWN_CLIENT), is(1L));
+        assertThat(metrics.getFailureReasonCounts().size(), is(1));
+        assertThat(metrics.getInFlight(), is(0));
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private static ProfileRequest buildProfileRequest() {
+        ProfileRequest request = new ProfileRequest();
+        request.getMobileUser().setMsisdn("41798765432");
+        request.setExtensionParamsToAllValues();
+        return request;
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.rest;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.http.MimeType;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ch.swisscom.mid.client.MIDFlowException;
+import ch.swisscom.mid.client.config.ClientConfiguration;
+import ch.swisscom.mid.client.config.DefaultConfiguration;
+import ch.swisscom.mid.client.config.PreflightConfiguration;
+import ch.swisscom.mid.client.impl.MIDClientImpl;
+import ch.swisscom.mid.client.model.SignatureProfiles;
+import ch.swisscom.mid.client.model.SignatureRequest;
+import ch.swisscom.mid.client.model.SignatureResponse;
+import ch.swisscom.mid.client.model.StatusCode;
+import ch.swisscom.mid.client.model.UserLanguage;
+
+import static ch.swisscom.mid.client.rest.TestSupport.buildConfig;
+import static ch.swisscom.mid.client.rest.TestSupport.fileToString;
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.containing;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.fail;
+
+public class PreflightTest {
+
+    private static WireMockServer server;
+    private static MIDClientImpl client;
+
+    @BeforeAll
+    public static void setUpThisClass() {
+        server = new WireMockServer(options().port(8089));
+        server.start();
+
+        ClientConfiguration config = buildConfig();
+        config.getProfileCache().setEnabled(true);
+        PreflightConfiguration preflight = config.getPreflight();
+        preflight.setEnabled(true);
+        preflight.setFetchProfileOnCacheMiss(true);
+        preflight.setAutoSelectSignatureProfile(true);
+        preflight.getPreferredSignatureProfiles().add(SignatureProfiles.STK_LOA4);
+        client = new MIDClientImpl(config);
+    }
+
+    @AfterAll
+    public static void tearDownThisClass() {
+        client.close();
+        server.stop();
+    }
+
+    @BeforeEach
+    public void setUpThisTest() {
+        server.resetAll();
+        client.getProfileCache().invalidateAll();
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    @Test
+    public void testSignature_pinBlockedIsRejectedLocally() {
+        stubProfileQuery("/samples/rest-response-profile-query-pin-blocked.json");
+
+        try {
+            client.requestSyncSignature(buildSignatureRequest(SignatureProfiles.DEFAULT_PROFILE));
+            fail("A MIDFlowException was expected at this point");
+        } catch (MIDFlowException exception) {
+            assertThat(exception.getFault().getStatusCode(), is(StatusCode.PIN_NR_BLOCKED));
+        }
+        server.verify(0, postRequestedFor(urlEqualTo(DefaultConfiguration.REST_ENDPOINT_SUB_URL))
+            .withRequestBody(containing("MSS_SignatureReq")));
+        assertThat(client.getPreflightCheck().getRejectedRequests(), is(1L));
+    }
+
+    @Test
+    public void testSignature_unsupportedProfileIsReplaced() {
+        stubProfileQuery("/samples/rest-response-profile-query.json");
+        server.stubFor(
+            post(urlEqualTo(DefaultConfiguration.REST_ENDPOINT_SUB_URL))
+                .withRequestBody(containing("MSS_SignatureReq"))
+                .willReturn(
+                    aResponse()
+                        .withHeader("Content-Type", MimeType.JSON.toString())
+                        .withBody(fileToString("/samples/rest-response-signature.json"))));
+
+        SignatureResponse response = client.requestSyncSignature(buildSignatureRequest(SignatureProfiles.DEVICE_LOA4));
+        assertThat(response.getStatus().getStatusCode(), is(StatusCode.SIGNATURE));
+        server.verify(1, postRequestedFor(urlEqualTo(DefaultConfiguration.REST_ENDPOINT_SUB_URL))
+            .withRequestBody(containing(SignatureProfiles.STK_LOA4)));
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private static void stubProfileQuery(String sampleFileName) {
+        server.stubFor(
+            post(urlEqualTo(DefaultConfiguration.REST_ENDPOINT_SUB_URL))
+                .withRequestBody(containing("MSS_ProfileReq"))
+                .willReturn(
+                    aResponse()
+                        .withHeader("Content-Type", MimeType.JSON.toString())
+                        .withBody(fileToString(sampleFileName))));
+    }
+
+    private static SignatureRequest buildSignatureRequest(String signatureProfile) {
+        SignatureRequest request = new SignatureRequest();
+        request.setUserLanguage(UserLanguage.ENGLISH);
+        request.getDataToBeSigned().setData("test.com: Please sign this document");
+        request.getDataToBeSigned().setEncodingToUtf8();
+        request.getDataToBeSigned().setMimeTypeToTextPlain();
+        request.getMobileUser().setMsisdn("418888888888");
+        request.setSignatureProfile(signatureProfile);
+        return request;
+    }
+
+}
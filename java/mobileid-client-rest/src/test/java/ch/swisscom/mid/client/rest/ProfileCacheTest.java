@@ -0,0 +1,136 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.rest;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.http.MimeType;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ch.swisscom.mid.client.MIDFlowException;
+import ch.swisscom.mid.client.config.ClientConfiguration;
+import ch.swisscom.mid.client.config.DefaultConfiguration;
+import ch.swisscom.mid.client.impl.MIDClientImpl;
+import ch.swisscom.mid.client.model.ProfileRequest;
+import ch.swisscom.mid.client.model.ProfileResponse;
+import ch.swisscom.mid.client.model.StatusCode;
+
+import static ch.swisscom.mid.client.rest.TestSupport.buildConfig;
+import static ch.swisscom.mid.client.rest.TestSupport.fileToString;
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.fail;
+
+public class ProfileCacheTest {
+
+    private static WireMockServer server;
+    private static MIDClientImpl client;
+
+    @BeforeAll
+    public static void setUpThisClass() {
+        server = new WireMockServer(options().port(8089));
+        server.start();
+
+        ClientConfiguration config = buildConfig();
+        config.getProfileCache().setEnabled(true);
+        client = new MIDClientImpl(config);
+    }
+
+    @AfterAll
+    public static void tearDownThisClass() {
+        client.close();
+        server.stop();
+    }
+
+    @BeforeEach
+    public void setUpThisTest() {
+        server.resetAll();
+        client.getProfileCache().invalidateAll();
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    @Test
+    public void testProfileQuery_secondQueryIsServedFromCache() {
+        server.stubFor(
+            post(urlEqualTo(DefaultConfiguration.REST_ENDPOINT_SUB_URL))
+                .willReturn(
+                    aResponse()
+                        .withHeader("Content-Type", MimeType.JSON.toString())
+                        .withBody(fileToString("/samples/rest-response-profile-query.json"))));
+
+        long hitsBefore = client.getProfileCache().getHitCount();
+        ProfileResponse firstResponse = client.requestProfile(buildProfileRequest("418888888888"));
+        ProfileResponse secondResponse = client.requestProfile(buildProfileRequest("418888888888"));
+        assertThat(secondResponse, is(not(sameInstance(firstResponse))));
+        assertThat(secondResponse.getSignatureProfiles(), is(firstResponse.getSignatureProfiles()));
+        assertThat(client.getProfileCache().getHitCount(), is(hitsBefore + 1));
+
+        // the callers get copies, so changing one does not change the cached entry
+        firstResponse.getSignatureProfiles().clear();
+        secondResponse.getSimDevices().clear();
+        ProfileResponse thirdResponse = client.requestProfile(buildProfileRequest("418888888888"));
+        assertThat(thirdResponse.getSignatureProfiles().isEmpty(), is(false));
+        assertThat(thirdResponse.getSimDevices().isEmpty(), is(false));
+        server.verify(1, postRequestedFor(urlEqualTo(DefaultConfiguration.REST_ENDPOINT_SUB_URL)));
+
+        client.getProfileCache().invalidate("418888888888");
+        client.requestProfile(buildProfileRequest("418888888888"));
+        server.verify(2, postRequestedFor(urlEqualTo(DefaultConfiguration.REST_ENDPOINT_SUB_URL)));
+    }
+
+    @Test
+    public void testProfileQuery_unknownClientIsCached() {
+        server.stubFor(
+            post(urlEqualTo(DefaultConfiguration.REST_ENDPOINT_SUB_URL))
+                .willReturn(
+                    aResponse()
+                        .withStatus(500)
+                        .withHeader("Content-Type", MimeType.JSON.toString())
+                        .withBody(fileToString("/samples/rest-response-fault-unknown-client.json"))));
+
+        for (int index = 0; index < 2; index++) {
+            try {
+                client.requestProfile(buildProfileRequest("417777777777"));
+                fail("A MIDFlowException was expected at this point");
+            } catch (MIDFlowException exception) {
+                assertThat(exception.getFault().getStatusCode(), is(StatusCode.UNKNOWN_CLIENT));
+            }
+        }
+        assertThat(client.getProfileCache().getNegativeHitCount(), is(1L));
+        server.verify(1, postRequestedFor(urlEqualTo(DefaultConfiguration.REST_ENDPOINT_SUB_URL)));
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private static ProfileRequest buildProfileRequest(String msisdn) {
+        ProfileRequest request = new ProfileRequest();
+        request.getMobileUser().setMsisdn(msisdn);
+        request.setExtensionParamsToAllValues();
+        return request;
+    }
+
+}
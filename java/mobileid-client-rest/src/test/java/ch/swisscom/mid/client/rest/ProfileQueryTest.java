@@ -25,6 +25,10 @@ import org.junit.jupiter.api.Test;
 import ch.swisscom.mid.client.MIDClient;
 import ch.swisscom.mid.client.config.DefaultConfiguration;
 import ch.swisscom.mid.client.impl.MIDClientImpl;
+import ch.swisscom.mid.client.model.CertificateData;
+import ch.swisscom.mid.client.model.ProfileDeviceInfo;
+import ch.swisscom.mid.client.model.ProfileField;
+import ch.swisscom.mid.client.model.ProfileMobileUserCertificate;
 import ch.swisscom.mid.client.model.ProfileRequest;
 import ch.swisscom.mid.client.model.ProfileResponse;
 import ch.swisscom.mid.client.model.SignatureProfiles;
@@ -32,11 +36,20 @@ import ch.swisscom.mid.client.model.SignatureProfiles;
 import static ch.swisscom.mid.client.rest.TestSupport.buildConfig;
 import static ch.swisscom.mid.client.rest.TestSupport.fileToString;
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.matchingJsonPath;
 import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 
 public class ProfileQueryTest {
 
@@ -77,4 +90,72 @@ public class ProfileQueryTest {
                    contains(SignatureProfiles.ANY_LOA4, SignatureProfiles.DEFAULT_PROFILE, SignatureProfiles.STK_LOA4));
     }
 
+    @Test
+    public void testProfileQuery_caCertificatesSharedBetweenResponses() {
+        server.stubFor(
+            post(urlEqualTo(DefaultConfiguration.REST_ENDPOINT_SUB_URL))
+                .willReturn(
+                    aResponse()
+                        .withHeader("Content-Type", MimeType.JSON.toString())
+                        .withBody(fileToString("/samples/rest-response-profile-query.json"))));
+
+        ProfileRequest request = new ProfileRequest();
+        request.getMobileUser().setMsisdn("418888888888");
+        request.setExtensionParamsToAllValues();
+
+        ProfileMobileUserCertificate first = client.requestProfile(request).getSimDevices().get(0).getCertificates().get(0);
+        ProfileMobileUserCertificate second = client.requestProfile(request).getSimDevices().get(0).getCertificates().get(0);
+        assertThat(first.getCaCertificates(), hasSize(2));
+        for (int index = 0; index < 2; index++) {
+            CertificateData firstCa = first.getCaCertificates().get(index);
+            CertificateData secondCa = second.getCaCertificates().get(index);
+            assertThat(secondCa, not(sameInstance(firstCa)));
+            assertThat(secondCa.getCertificateAsBase64(), sameInstance(firstCa.getCertificateAsBase64()));
+        }
+        assertThat(second.getUserCertificate().getCertificateAsBase64(),
+                   not(sameInstance(first.getUserCertificate().getCertificateAsBase64())));
+
+        // interned instances stay regular beans; changing one does not affect the other responses
+        CertificateData changed = second.getCaCertificates().get(0);
+        changed.setSubjectName("changed");
+        changed.setCertificateAsBase64("AAAA");
+        assertThat(changed.getCertificateAsBase64(), is("AAAA"));
+        assertThat(first.getCaCertificates().get(0).getSubjectName(), is(not("changed")));
+        assertThat(first.getCaCertificates().get(0).getCertificateAsBase64(), is(not("AAAA")));
+    }
+
+    @Test
+    public void testProfileQuery_projection() {
+        server.stubFor(
+            post(urlEqualTo(DefaultConfiguration.REST_ENDPOINT_SUB_URL))
+                .willReturn(
+                    aResponse()
+                        .withHeader("Content-Type", MimeType.JSON.toString())
+                        .withBody(fileToString("/samples/rest-response-profile-query.json"))));
+
+        ProfileRequest request = new ProfileRequest();
+        request.getMobileUser().setMsisdn("418888888888");
+        request.setProjection(ProfileField.SIGNATURE_PROFILES, ProfileField.PIN_STATE);
+
+        // the sample response has everything, but only the projected fields are mapped
+        ProfileResponse response = client.requestProfile(request);
+        server.verify(postRequestedFor(urlEqualTo(DefaultConfiguration.REST_ENDPOINT_SUB_URL))
+                          .withRequestBody(matchingJsonPath("$.MSS_ProfileReq.Params",
+                                                            equalTo("sscds pinstatus"))));
+        assertThat(response.getSignatureProfiles(),
+                   contains(SignatureProfiles.ANY_LOA4, SignatureProfiles.DEFAULT_PROFILE, SignatureProfiles.STK_LOA4));
+        assertThat(response.getMobileUser(), nullValue());
+        ProfileDeviceInfo simDevice = response.getSimDevices().get(0);
+        assertThat(simDevice.getPinState(), notNullValue());
+        assertThat(simDevice.getCertificates(), nullValue());
+
+        ProfileResponse certificatesResponse = client.requestProfileCertificates(request);
+        server.verify(postRequestedFor(urlEqualTo(DefaultConfiguration.REST_ENDPOINT_SUB_URL))
+                          .withRequestBody(matchingJsonPath("$.MSS_ProfileReq.Params",
+                                                            equalTo("sscds certs"))));
+        assertThat(certificatesResponse.getSignatureProfiles(), nullValue());
+        assertThat(certificatesResponse.getSimDevices().get(0).getPinState(), nullValue());
+        assertThat(certificatesResponse.getSimDevices().get(0).getCertificates(), hasSize(2));
+    }
+
 }
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.rest;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.http.MimeType;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import ch.swisscom.mid.client.MIDFlowException;
+import ch.swisscom.mid.client.config.ClientConfiguration;
+import ch.swisscom.mid.client.config.DefaultConfiguration;
+import ch.swisscom.mid.client.impl.MIDClientImpl;
+import ch.swisscom.mid.client.model.ProfileRequest;
+import ch.swisscom.mid.client.model.SignatureProfiles;
+import ch.swisscom.mid.client.model.SignatureRequest;
+import ch.swisscom.mid.client.model.SignatureResponse;
+import ch.swisscom.mid.client.model.StatusCode;
+import ch.swisscom.mid.client.model.TrialNumbers;
+import ch.swisscom.mid.client.model.UserLanguage;
+import ch.swisscom.mid.client.tracing.FinishedSpan;
+import ch.swisscom.mid.client.tracing.InMemoryTracer;
+import ch.swisscom.mid.client.tracing.TracingPhase;
+
+import static ch.swisscom.mid.client.rest.TestSupport.buildConfig;
+import static ch.swisscom.mid.client.rest.TestSupport.fileToString;
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+public class TracingTest {
+
+    private static final InMemoryTracer tracer = new InMemoryTracer();
+
+    private static WireMockServer server;
+    private static MIDClientImpl client;
+
+    @BeforeAll
+    public static void setUpThisClass() {
+        server = new WireMockServer(options().port(8089));
+        server.start();
+        ClientConfiguration config = buildConfig();
+        config.setTracer(tracer);
+        client = new MIDClientImpl(config);
+    }
+
+    @AfterAll
+    public static void tearDownThisClass() {
+        client.close();
+        server.stop();
+    }
+
+    @BeforeEach
+    public void setUpThisTest() {
+        server.resetAll();
+        tracer.clear();
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    @Test
+    public void testAsyncSignature_pollsJoinTheTraceOfTheSignature() {
+        server.stubFor(
+            post(urlEqualTo(DefaultConfiguration.REST_ENDPOINT_SUB_URL))
+                .inScenario("Async signature")
+                .whenScenarioStateIs(Scenario.STARTED)
+                .willReturn(
+                    aResponse()
+                        .withHeader("Content-Type", MimeType.JSON.toString())
+                        .withBody(fileToString("/samples/rest-response-async-signature.json")))
+                .willSetStateTo("Signature running"));
+        server.stubFor(
+            post(urlEqualTo(DefaultConfiguration.REST_ENDPOINT_SUB_URL))
+                .inScenario("Async signature")
+                .whenScenarioStateIs("Signature running")
+                .willReturn(
+                    aResponse()
+                        .withHeader("Content-Type", MimeType.JSON.toString())
+                        .withBody(fileToString("/samples/rest-response-status-signature.json"))));
+
+        SignatureResponse response = client.requestAsyncSignature(buildSignatureRequest());
+        assertThat(response.getTracking().getTraceParent(), is(notNullValue()));
+        response = client.pollForSignatureStatus(response.getTracking());
+        assertThat(response.getStatus().getStatusCode(), is(StatusCode.SIGNATURE));
+
+        FinishedSpan signatureSpan = single(tracer.getFinishedSpans("MIDClient requestAsyncSignature"));
+        FinishedSpan signatureExchangeSpan = single(tracer.getFinishedSpans("MSS ASYNC_SIGNATURE"));
+        FinishedSpan pollSpan = single(tracer.getFinishedSpans("MIDClient pollForSignatureStatus"));
+        FinishedSpan pollExchangeSpan = single(tracer.getFinishedSpans("MSS STATUS_QUERY"));
+
+        assertThat(signatureSpan.getParentSpanId(), is(nullValue()));
+        assertThat(signatureExchangeSpan.getParentSpanId(), is(signatureSpan.getSpanId()));
+        assertThat(pollSpan.getParentSpanId(), is(signatureSpan.getSpanId()));
+        assertThat(pollExchangeSpan.getParentSpanId(), is(pollSpan.getSpanId()));
+        assertThat(signatureExchangeSpan.getTraceId(), is(signatureSpan.getTraceId()));
+        assertThat(pollSpan.getTraceId(), is(signatureSpan.getTraceId()));
+        assertThat(pollExchangeSpan.getTraceId(), is(signatureSpan.getTraceId()));
+
+        assertThat(signatureExchangeSpan.getAttribute("mid.status_code"), is(StatusCode.REQUEST_OK.name()));
+        assertThat(pollExchangeSpan.getAttribute("mid.status_code"), is(StatusCode.SIGNATURE.name()));
+        assertThat(pollExchangeSpan.getAttribute("http.status_code"), is("200"));
+        assertThat(pollExchangeSpan.getPhaseDurations().size(), is(TracingPhase.values().length));
+        assertThat(pollExchangeSpan.getPhaseDurations().get(TracingPhase.REQUEST_BUILDING), is(greaterThan(0L)));
+        assertThat(pollExchangeSpan.getPhaseDurations().get(TracingPhase.SEND_AND_WAIT), is(greaterThan(0L)));
+        assertThat(pollExchangeSpan.getPhaseDurations().get(TracingPhase.DESERIALIZATION), is(greaterThan(0L)));
+    }
+
+    @Test
+    public void testProfileQuery_faultIsRecordedOnTheSpans() {
+        server.stubFor(
+            post(urlEqualTo(DefaultConfiguration.REST_ENDPOINT_SUB_URL))
+                .willReturn(
+                    aResponse()
+                        .withStatus(500)
+                        .withHeader("Content-Type", MimeType.JSON.toString())
+                        .withBody(fileToString("/samples/rest-response-fault-unknown-client.json"))));
+
+        ProfileRequest request = new ProfileRequest();
+        request.getMobileUser().setMsisdn("41798765432");
+        request.setExtensionParamsToAllValues();
+        try {
+            client.requestProfile(request);
+            fail("A MIDFlowException was expected at this point");
+        } catch (MIDFlowException ignored) {
+            // expected
+        }
+
+        FinishedSpan profileSpan = single(tracer.getFinishedSpans("MIDClient requestProfile"));
+        FinishedSpan exchangeSpan = single(tracer.getFinishedSpans("MSS PROFILE_QUERY"));
+        assertThat(profileSpan.getFailure() instanceof MIDFlowException, is(true));
+        assertThat(exchangeSpan.getFailure() instanceof MIDFlowException, is(true));
+        assertThat(exchangeSpan.getAttribute("mid.status_code"), is(StatusCode.UNKNOWN_CLIENT.name()));
+        assertThat(exchangeSpan.getParentSpanId(), is(profileSpan.getSpanId()));
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private static FinishedSpan single(List<FinishedSpan> spans) {
+        assertThat(spans.size(), is(1));
+        return spans.get(0);
+    }
+
+    private static SignatureRequest buildSignatureRequest() {
+        SignatureRequest request = new SignatureRequest();
+        request.setUserLanguage(UserLanguage.ENGLISH);
+        request.getDataToBeSigned().setData("test.com: Please sign this document");
+        request.getDataToBeSigned().setEncodingToUtf8();
+        request.getDataToBeSigned().setMimeTypeToTextPlain();
+        request.getMobileUser().setMsisdn(TrialNumbers.ONE_THAT_GIVES_MISSING_PARAM);
+        request.setSignatureProfile(SignatureProfiles.DEFAULT_PROFILE);
+        return request;
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.rest;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.http.MimeType;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import ch.swisscom.mid.client.config.ClientConfiguration;
+import ch.swisscom.mid.client.config.ComProtocol;
+import ch.swisscom.mid.client.config.DefaultConfiguration;
+import ch.swisscom.mid.client.config.RequestTrace;
+import ch.swisscom.mid.client.config.ResponseTrace;
+import ch.swisscom.mid.client.config.TrafficObserver;
+import ch.swisscom.mid.client.impl.MIDClientImpl;
+import ch.swisscom.mid.client.model.ProfileRequest;
+
+import static ch.swisscom.mid.client.rest.TestSupport.buildConfig;
+import static ch.swisscom.mid.client.rest.TestSupport.fileToString;
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class TrafficDispatcherTest {
+
+    private static WireMockServer server;
+    private static MIDClientImpl client;
+
+    @BeforeAll
+    public static void setUpThisClass() {
+        server = new WireMockServer(options().port(8089));
+        server.start();
+
+        ClientConfiguration config = buildConfig();
+        config.getTrafficDispatcher().setEnabled(true);
+        client = new MIDClientImpl(config);
+    }
+
+    @AfterAll
+    public static void tearDownThisClass() {
+        client.close();
+        server.stop();
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    @Test
+    public void testProfileQuery_observerIsNotifiedWithoutChangingTheRequest() throws InterruptedException {
+        server.stubFor(
+            post(urlEqualTo(DefaultConfiguration.REST_ENDPOINT_SUB_URL))
+                .willReturn(
+                    aResponse()
+                        .withHeader("Content-Type", MimeType.JSON.toString())
+                        .withBody(fileToString("/samples/rest-response-profile-query.json"))));
+
+        CountDownLatch responses = new CountDownLatch(2);
+        TrafficObserver observer = new TrafficObserver() {
+            @Override
+            public void notifyOfGeneratedApTransId(String apTransId, ComProtocol protocol) {
+            }
+
+            @Override
+            public void notifyOfOutgoingRequest(RequestTrace trace, ComProtocol protocol) {
+            }
+
+            @Override
+            public void notifyOfIncomingResponse(ResponseTrace trace, ComProtocol protocol) {
+                responses.countDown();
+            }
+        };
+        ProfileRequest request = new ProfileRequest();
+        request.getMobileUser().setMsisdn("418888888888");
+        request.setExtensionParamsToAllValues();
+        request.setTrafficObserver(observer);
+
+        // the same request bean can be sent again, its observer is wrapped for each call only
+        client.requestProfile(request);
+        assertThat(request.getTrafficObserver(), is(sameInstance(observer)));
+        client.requestProfile(request);
+        assertThat(request.getTrafficObserver(), is(sameInstance(observer)));
+        assertThat(responses.await(5, TimeUnit.SECONDS), is(true));
+    }
+
+}
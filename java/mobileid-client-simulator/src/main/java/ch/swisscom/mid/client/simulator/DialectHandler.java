@@ -0,0 +1,128 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.simulator;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+
+import ch.swisscom.mid.client.impl.Loggers;
+import ch.swisscom.mid.client.model.StatusCode;
+
+/**
+ * Base class for the HTTP handlers of the two MSS dialects: reads the request, lets the dialect extract a
+ * {@link SimulatedRequest}, runs it through the {@link SimulatedMssp}, waits for the injected network latency and
+ * writes the rendered response back.
+ */
+abstract class DialectHandler implements HttpHandler {
+
+    static final String MSSP_ID_URI = "http://mid.swisscom.ch/";
+
+    private static final Logger logClient = LoggerFactory.getLogger(Loggers.LOGGER_CLIENT);
+
+    private final SimulatedMssp mssp;
+
+    DialectHandler(SimulatedMssp mssp) {
+        this.mssp = mssp;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            String requestBody = readFully(exchange.getRequestBody());
+            SimulatedRequest request = parseRequest(requestBody);
+            SimulatedResponse response = request == null ?
+                                         new SimulatedResponse(new SimulatedRequest(null), StatusCode.WRONG_PARAM) :
+                                         mssp.handle(request);
+            byte[] body = (response.isFault() ? renderFault(response) : renderResponse(response))
+                .getBytes(StandardCharsets.UTF_8);
+            long latencyInMs = mssp.sampleNetworkLatencyInMs();
+            if (latencyInMs > 0) {
+                TimeUnit.MILLISECONDS.sleep(latencyInMs);
+            }
+            exchange.getResponseHeaders().set("Content-Type", getContentType());
+            exchange.sendResponseHeaders(response.isFault() ? 500 : 200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.sendResponseHeaders(503, -1);
+        } catch (RuntimeException e) {
+            logClient.warn("The MSSP simulator failed to handle a request on {}", exchange.getRequestURI(), e);
+            exchange.sendResponseHeaders(500, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    /**
+     * Extracts the simulated request from the HTTP request body, or returns NULL when the body is not a request
+     * this dialect knows.
+     */
+    abstract SimulatedRequest parseRequest(String requestBody);
+
+    abstract String renderResponse(SimulatedResponse response);
+
+    abstract String renderFault(SimulatedResponse response);
+
+    abstract String getContentType();
+
+    static String now() {
+        return Instant.now().truncatedTo(ChronoUnit.MILLIS).toString();
+    }
+
+    static int parseTimeout(String timeout) {
+        if (timeout == null) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(timeout.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static String readFully(InputStream is) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        byte[] chunk = new byte[4096];
+        int read;
+        while ((read = is.read(chunk)) != -1) {
+            buffer.write(chunk, 0, read);
+        }
+        return new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+}
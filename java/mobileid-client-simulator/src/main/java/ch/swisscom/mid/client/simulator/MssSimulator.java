@@ -0,0 +1,206 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.simulator;
+
+import com.sun.net.httpserver.HttpServer;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+
+import ch.swisscom.mid.client.config.ClientConfiguration;
+import ch.swisscom.mid.client.config.ComProtocol;
+import ch.swisscom.mid.client.config.ConfigurationException;
+import ch.swisscom.mid.client.config.DefaultConfiguration;
+import ch.swisscom.mid.client.config.TlsConfiguration;
+import ch.swisscom.mid.client.impl.Loggers;
+
+/**
+ * Local MSSP simulator (based on the JDK's built-in HTTP server) that speaks both the REST and the SOAP dialects of the
+ * Mobile ID MSS interface. It gives load tests, benchmarks and integration tests a realistic server without needing
+ * access to the real Mobile ID service: asynchronous signatures go through their full lifecycle (outstanding, then
+ * signature or expiry), users answer after a configurable think time, the trial numbers fail the way the real service
+ * does and network latency can be added to every response. See {@link SimulatedMssp} for the exact behaviour.
+ * <p>
+ * Usage:
+ * <pre>
+ * try (MssSimulator simulator = new MssSimulator(new SimulatorConfiguration())) {
+ *     simulator.start();
+ *     ClientConfiguration config = new ClientConfiguration();
+ *     config.setProtocolToRest();
+ *     simulator.configureClient(config);
+ *     MIDClient client = new MIDClientImpl(config);
+ *     ...
+ * }
+ * </pre>
+ */
+public class MssSimulator implements Closeable {
+
+    private static final Logger logClient = LoggerFactory.getLogger(Loggers.LOGGER_CLIENT);
+
+    private static final String SOAP_CONTEXT_PATH = "/soap/services/";
+
+    private final SimulatorConfiguration config;
+    private final SimulatedMssp mssp;
+    private HttpServer server;
+    private ExecutorService executor;
+    private ScheduledExecutorService housekeeper;
+
+    public MssSimulator(SimulatorConfiguration config) {
+        config.validateYourself();
+        this.config = config;
+        this.mssp = new SimulatedMssp(config);
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public synchronized void start() {
+        if (server != null) {
+            return;
+        }
+        InetSocketAddress address = new InetSocketAddress(config.getHost(), config.getPort());
+        try {
+            if (config.isTlsEnabled()) {
+                HttpsServer httpsServer = HttpsServer.create(address, 0);
+                httpsServer.setHttpsConfigurator(new HttpsConfigurator(createSslContext()));
+                server = httpsServer;
+            } else {
+                server = HttpServer.create(address, 0);
+            }
+        } catch (IOException e) {
+            throw new ConfigurationException("Failed to start the MSSP simulator on " + address, e);
+        }
+        AtomicInteger threadCounter = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(config.getWorkerThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "mid-simulator-worker-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mid-simulator-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        housekeeper.scheduleWithFixedDelay(mssp::purgeTransactions, 1, 1, TimeUnit.SECONDS);
+        server.setExecutor(executor);
+        server.createContext(DefaultConfiguration.REST_ENDPOINT_SUB_URL, new RestDialectHandler(mssp));
+        server.createContext(SOAP_CONTEXT_PATH, new SoapDialectHandler(mssp));
+        server.start();
+        logClient.info("MSSP simulator listening on {}", getBaseUrl());
+    }
+
+    /**
+     * Returns the port the simulator listens on; useful when the simulator was configured with port 0 (any free port).
+     */
+    public synchronized int getPort() {
+        return server == null ? config.getPort() : server.getAddress().getPort();
+    }
+
+    /**
+     * Returns the base URL of the simulator, e.g. <code>https://localhost:45321</code>.
+     */
+    public String getBaseUrl() {
+        return (config.isTlsEnabled() ? "https" : "http") + "://" + config.getHost() + ":" + getPort();
+    }
+
+    /**
+     * Points the service URLs of the given client configuration to this simulator, for the protocol the configuration
+     * is already set to. When TLS is enabled, it also makes the client trust the simulator's certificate and present
+     * that same certificate as its client certificate (the simulator does not check client certificates, but the MID
+     * client requires a key store).
+     */
+    public void configureClient(ClientConfiguration clientConfig) {
+        if (clientConfig.getProtocol() == ComProtocol.SOAP) {
+            clientConfig.getUrls().setAllServiceUrlsToBase(getBaseUrl());
+        } else {
+            clientConfig.getUrls().setAllServiceUrlsTo(getBaseUrl() + DefaultConfiguration.REST_ENDPOINT_SUB_URL);
+        }
+        if (config.isTlsEnabled()) {
+            TlsConfiguration tls = clientConfig.getTls();
+            tls.setKeyStoreClasspathFile(config.getKeyStoreClasspathFile());
+            tls.setKeyStorePassword(config.getKeyStorePassword());
+            tls.setKeyStoreKeyPassword(config.getKeyStorePassword());
+            tls.setKeyStoreCertificateAlias(SimulatorConfiguration.DEFAULT_KEY_STORE_CERTIFICATE_ALIAS);
+            tls.setTrustStoreClasspathFile(config.getKeyStoreClasspathFile());
+            tls.setTrustStorePassword(config.getKeyStorePassword());
+        }
+    }
+
+    /**
+     * Returns the number of asynchronous signature transactions for which the simulated user has not answered yet.
+     */
+    public int getOutstandingTransactionCount() {
+        return mssp.getOutstandingTransactionCount();
+    }
+
+    /**
+     * Returns the number of asynchronous signature transactions the simulator currently remembers (outstanding or
+     * finished but still within the retention time).
+     */
+    public int getTransactionCount() {
+        return mssp.getTransactionCount();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            housekeeper.shutdownNow();
+            server = null;
+            executor = null;
+            housekeeper = null;
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private SSLContext createSslContext() {
+        try (InputStream is = MssSimulator.class.getResourceAsStream(config.getKeyStoreClasspathFile())) {
+            if (is == null) {
+                throw new ConfigurationException("Cannot find the MSSP simulator key store on the classpath: "
+                                                 + config.getKeyStoreClasspathFile());
+            }
+            char[] password = config.getKeyStorePassword().toCharArray();
+            KeyStore keyStore = KeyStore.getInstance("JKS");
+            keyStore.load(is, password);
+            KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+            keyManagerFactory.init(keyStore, password);
+            SSLContext sslContext = SSLContext.getInstance("TLS");
+            sslContext.init(keyManagerFactory.getKeyManagers(), null, null);
+            return sslContext;
+        } catch (IOException | GeneralSecurityException e) {
+            throw new ConfigurationException("Failed to create the TLS context of the MSSP simulator", e);
+        }
+    }
+
+}
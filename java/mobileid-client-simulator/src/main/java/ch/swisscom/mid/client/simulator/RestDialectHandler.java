@@ -0,0 +1,199 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.simulator;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Base64;
+
+import ch.swisscom.mid.client.config.DefaultConfiguration;
+import ch.swisscom.mid.client.model.StatusCode;
+
+/**
+ * Speaks the REST (JSON) dialect of the MSS interface, on {@link DefaultConfiguration#REST_ENDPOINT_SUB_URL}. All
+ * operations share that URL and are told apart by the root element of the request.
+ */
+class RestDialectHandler extends DialectHandler {
+
+    private static final String CONTENT_TYPE = "application/json;charset=utf-8";
+    private static final String ETSI_NS = "http://uri.etsi.org/TS102204/v1.1.2#";
+    private static final String SOAP_ENVELOPE_NS = "http://www.w3.org/2003/05/soap-envelope";
+
+    private final ObjectMapper jacksonMapper = new ObjectMapper();
+
+    RestDialectHandler(SimulatedMssp mssp) {
+        super(mssp);
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    @Override
+    SimulatedRequest parseRequest(String requestBody) {
+        JsonNode root;
+        try {
+            root = jacksonMapper.readTree(requestBody);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+        if (root == null) {
+            return null;
+        }
+        SimulatedRequest request;
+        JsonNode mssRequest;
+        if (root.has("MSS_SignatureReq")) {
+            mssRequest = root.get("MSS_SignatureReq");
+            request = new SimulatedRequest(SimulatedRequest.Kind.SIGNATURE);
+            request.setSignatureProfile(mssRequest.path("SignatureProfile").asText(null));
+            request.setAsync(!DefaultConfiguration.SIGNATURE_MODE_SYNC.equals(mssRequest.path("MessagingMode").asText()));
+            request.setTimeoutInSeconds(parseTimeout(mssRequest.path("TimeOut").asText(null)));
+        } else if (root.has("MSS_StatusReq")) {
+            mssRequest = root.get("MSS_StatusReq");
+            request = new SimulatedRequest(SimulatedRequest.Kind.STATUS_QUERY);
+        } else if (root.has("MSS_ReceiptReq")) {
+            mssRequest = root.get("MSS_ReceiptReq");
+            request = new SimulatedRequest(SimulatedRequest.Kind.RECEIPT);
+        } else if (root.has("MSS_ProfileReq")) {
+            mssRequest = root.get("MSS_ProfileReq");
+            request = new SimulatedRequest(SimulatedRequest.Kind.PROFILE_QUERY);
+        } else {
+            return null;
+        }
+        request.setApId(mssRequest.path("AP_Info").path("AP_ID").asText(null));
+        request.setApTransId(mssRequest.path("AP_Info").path("AP_TransID").asText(null));
+        request.setMsisdn(mssRequest.path("MobileUser").path("MSISDN").asText(null));
+        request.setMsspTransId(mssRequest.path("MSSP_TransID").asText(null));
+        return request;
+    }
+
+    @Override
+    String renderResponse(SimulatedResponse response) {
+        ObjectNode root = jacksonMapper.createObjectNode();
+        switch (response.getRequest().getKind()) {
+            case SIGNATURE: {
+                ObjectNode mssResponse = createResponseHeader(root.putObject("MSS_SignatureResp"), response, "1", "1");
+                mssResponse.put("MSSP_TransID", response.getMsspTransId());
+                mssResponse.put("SignatureProfile", response.getSignatureProfile());
+                addSignature(mssResponse, response);
+                addStatus(mssResponse, response.getStatusCode());
+                break;
+            }
+            case STATUS_QUERY: {
+                ObjectNode mssResponse = createResponseHeader(root.putObject("MSS_StatusResp"), response, "1", "1");
+                addSignature(mssResponse, response);
+                addStatus(mssResponse, response.getStatusCode());
+                break;
+            }
+            case RECEIPT: {
+                ObjectNode mssResponse = createResponseHeader(root.putObject("MSS_ReceiptResp"), response, "1", "1");
+                mssResponse.remove("MobileUser");
+                ObjectNode extension = addStatus(mssResponse, response.getStatusCode())
+                    .putObject("StatusDetail")
+                    .putObject("ReceiptResponseExtension");
+                extension.put("ClientAck", "true");
+                extension.put("NetworkAck", "true");
+                extension.put("ReceiptMessagingMode", "synch");
+                extension.put("UserAck", "true");
+                break;
+            }
+            case PROFILE_QUERY:
+            default: {
+                ObjectNode mssResponse = createResponseHeader(root.putObject("MSS_ProfileResp"), response, "2", "0");
+                mssResponse.remove("MobileUser");
+                ArrayNode profiles = mssResponse.putArray("SignatureProfile");
+                profiles.add("http://mid.swisscom.ch/Any-LoA4");
+                profiles.add("http://mid.swisscom.ch/MID/v1/AuthProfile1");
+                profiles.add("http://mid.swisscom.ch/STK-LoA4");
+                ObjectNode extension = addStatus(mssResponse, response.getStatusCode())
+                    .putObject("StatusDetail")
+                    .putObject("ProfileQueryExtension");
+                ObjectNode mobileUser = extension.putObject("MobileUser");
+                mobileUser.put("AutoActivation", false);
+                mobileUser.put("RecoveryCodeCreated", true);
+                ObjectNode sim = extension.putObject("Sscds").putObject("Sim");
+                sim.putObject("PinStatus").put("Blocked", response.isPinBlocked());
+                sim.put("State", "ACTIVE");
+                break;
+            }
+        }
+        return toJson(root);
+    }
+
+    @Override
+    String renderFault(SimulatedResponse response) {
+        ObjectNode root = jacksonMapper.createObjectNode();
+        ObjectNode fault = root.putObject("Fault");
+        ObjectNode code = fault.putObject("Code");
+        ObjectNode subCode = code.putObject("SubCode");
+        subCode.put("Value", "_" + response.getStatusCode().getCode());
+        subCode.put("ValueNs", ETSI_NS);
+        code.put("Value", "Sender");
+        code.put("ValueNs", SOAP_ENVELOPE_NS);
+        fault.put("Detail", response.getFaultDetail());
+        fault.put("Reason", response.getStatusCode().name());
+        return toJson(root);
+    }
+
+    @Override
+    String getContentType() {
+        return CONTENT_TYPE;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private static ObjectNode createResponseHeader(ObjectNode mssResponse,
+                                                  SimulatedResponse response,
+                                                  String majorVersion,
+                                                  String minorVersion) {
+        ObjectNode apInfo = mssResponse.putObject("AP_Info");
+        apInfo.put("AP_ID", response.getRequest().getApId());
+        apInfo.put("AP_TransID", response.getRequest().getApTransId());
+        apInfo.put("Instant", now());
+        ObjectNode msspInfo = mssResponse.putObject("MSSP_Info");
+        msspInfo.put("Instant", now());
+        msspInfo.putObject("MSSP_ID").put("URI", MSSP_ID_URI);
+        mssResponse.put("MajorVersion", majorVersion);
+        mssResponse.put("MinorVersion", minorVersion);
+        mssResponse.putObject("MobileUser").put("MSISDN", response.getMsisdn());
+        return mssResponse;
+    }
+
+    private static void addSignature(ObjectNode mssResponse, SimulatedResponse response) {
+        if (response.getSignature() != null) {
+            mssResponse.putObject("MSS_Signature")
+                .put("Base64Signature", Base64.getEncoder().encodeToString(response.getSignature()));
+        }
+    }
+
+    private static ObjectNode addStatus(ObjectNode mssResponse, StatusCode statusCode) {
+        ObjectNode status = mssResponse.putObject("Status");
+        status.putObject("StatusCode").put("Value", String.valueOf(statusCode.getCode()));
+        status.put("StatusMessage", statusCode.name());
+        return status;
+    }
+
+    private String toJson(ObjectNode root) {
+        try {
+            return jacksonMapper.writeValueAsString(root);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize the simulated REST response", e);
+        }
+    }
+
+}
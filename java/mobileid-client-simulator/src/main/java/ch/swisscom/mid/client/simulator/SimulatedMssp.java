@@ -0,0 +1,229 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.simulator;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import ch.swisscom.mid.client.model.StatusCode;
+
+/**
+ * The protocol-neutral behaviour of the simulated MSSP: the lifecycle of the signature transactions, the think time
+ * of the simulated users and the fault behaviours of the trial numbers (see
+ * {@link ch.swisscom.mid.client.model.TrialNumbers}).
+ * <p>
+ * A trial number is an MSISDN made of the {@link #TRIAL_NUMBER_PREFIX} followed by a 3-digit status code. Request
+ * level faults (1xx) are returned right away, for any operation. User level faults (2xx, 4xx and 9xx) are returned
+ * once the user has "answered", that is after the think time: in the response of a synchronous signature or in the
+ * first status query that follows the think time of an asynchronous one. Any other MSISDN signs successfully, unless
+ * the think time exceeds the TimeOut of the request, in which case the transaction expires (status 208).
+ */
+class SimulatedMssp {
+
+    static final String TRIAL_NUMBER_PREFIX = "41000092";
+
+    private final SimulatorConfiguration config;
+    private final Random random;
+    private final Map<String, Transaction> transactions = new ConcurrentHashMap<>();
+
+    SimulatedMssp(SimulatorConfiguration config) {
+        this.config = config;
+        this.random = new Random(config.getRandomSeed());
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    SimulatedResponse handle(SimulatedRequest request) {
+        switch (request.getKind()) {
+            case SIGNATURE:
+                return signature(request);
+            case STATUS_QUERY:
+                return statusQuery(request);
+            case RECEIPT:
+                return receipt(request);
+            case PROFILE_QUERY:
+                return profileQuery(request);
+            default:
+                return new SimulatedResponse(request, StatusCode.INTERNAL_ERROR);
+        }
+    }
+
+    long sampleNetworkLatencyInMs() {
+        long latency = config.getNetworkLatencyInMs();
+        if (config.getNetworkLatencyJitterInMs() > 0) {
+            latency += (long) (random.nextDouble() * config.getNetworkLatencyJitterInMs());
+        }
+        return latency;
+    }
+
+    int getTransactionCount() {
+        return transactions.size();
+    }
+
+    int getOutstandingTransactionCount() {
+        long now = System.nanoTime();
+        int count = 0;
+        for (Transaction transaction : transactions.values()) {
+            if (now < transaction.decidedAtNanos) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Forgets the transactions that have been decided for longer than the configured retention.
+     */
+    void purgeTransactions() {
+        long threshold = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(config.getTransactionRetentionInMs());
+        Iterator<Transaction> iterator = transactions.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().decidedAtNanos - threshold < 0) {
+                iterator.remove();
+            }
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private SimulatedResponse signature(SimulatedRequest request) {
+        StatusCode trialStatus = getTrialStatusCode(request.getMsisdn());
+        if (isRequestLevelFault(trialStatus)) {
+            return new SimulatedResponse(request, trialStatus);
+        }
+        Transaction transaction = new Transaction(request, trialStatus);
+        // sync transactions are kept as well, so that they can be followed by a receipt
+        transactions.put(transaction.msspTransId, transaction);
+        if (request.isAsync()) {
+            SimulatedResponse response = new SimulatedResponse(request, StatusCode.REQUEST_OK);
+            response.setMsspTransId(transaction.msspTransId);
+            return response;
+        }
+        long waitInNanos = transaction.decidedAtNanos - System.nanoTime();
+        if (waitInNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitInNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new SimulatedResponse(request, StatusCode.INTERNAL_ERROR);
+            }
+        }
+        return transaction.createFinalResponse(request);
+    }
+
+    private SimulatedResponse statusQuery(SimulatedRequest request) {
+        Transaction transaction = request.getMsspTransId() == null ? null : transactions.get(request.getMsspTransId());
+        if (transaction == null) {
+            return new SimulatedResponse(request, StatusCode.WRONG_PARAM);
+        }
+        if (System.nanoTime() - transaction.decidedAtNanos < 0) {
+            SimulatedResponse response = new SimulatedResponse(request, StatusCode.OUTSTANDING_TRANSACTION);
+            response.setMsisdn(transaction.msisdn);
+            return response;
+        }
+        return transaction.createFinalResponse(request);
+    }
+
+    private SimulatedResponse receipt(SimulatedRequest request) {
+        Transaction transaction = request.getMsspTransId() == null ? null : transactions.get(request.getMsspTransId());
+        if (transaction == null) {
+            return new SimulatedResponse(request, StatusCode.WRONG_PARAM);
+        }
+        SimulatedResponse response = new SimulatedResponse(request, StatusCode.REQUEST_OK);
+        response.setMsisdn(transaction.msisdn);
+        return response;
+    }
+
+    private SimulatedResponse profileQuery(SimulatedRequest request) {
+        StatusCode trialStatus = getTrialStatusCode(request.getMsisdn());
+        if (isRequestLevelFault(trialStatus)) {
+            return new SimulatedResponse(request, trialStatus);
+        }
+        SimulatedResponse response = new SimulatedResponse(request, StatusCode.REQUEST_OK);
+        response.setPinBlocked(trialStatus == StatusCode.PIN_NR_BLOCKED);
+        return response;
+    }
+
+    private long sampleThinkTimeInMs() {
+        return config.getThinkTimeDistribution().sample(random,
+                                                        config.getThinkTimeMeanInMs(),
+                                                        config.getThinkTimeStdDevInMs());
+    }
+
+    private static StatusCode getTrialStatusCode(String msisdn) {
+        if (msisdn == null || msisdn.length() != TRIAL_NUMBER_PREFIX.length() + 3 || !msisdn.startsWith(TRIAL_NUMBER_PREFIX)) {
+            return null;
+        }
+        String suffix = msisdn.substring(TRIAL_NUMBER_PREFIX.length());
+        for (StatusCode statusCode : StatusCode.values()) {
+            if (statusCode.isFault() && String.valueOf(statusCode.getCode()).equals(suffix)) {
+                return statusCode;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isRequestLevelFault(StatusCode statusCode) {
+        return statusCode != null && statusCode.getCode() < 200;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private final class Transaction {
+
+        private final String msspTransId = "SIM_" + UUID.randomUUID().toString().replace("-", "").substring(0, 16);
+        private final String msisdn;
+        private final String signatureProfile;
+        private final StatusCode userOutcome;
+        private final long decidedAtNanos;
+
+        private Transaction(SimulatedRequest request, StatusCode trialStatus) {
+            this.msisdn = request.getMsisdn();
+            this.signatureProfile = request.getSignatureProfile();
+            long thinkTimeInMs = sampleThinkTimeInMs();
+            long timeoutInMs = TimeUnit.SECONDS.toMillis(request.getTimeoutInSeconds() > 0 ?
+                                                             request.getTimeoutInSeconds() :
+                                                             config.getDefaultUserTimeoutInSeconds());
+            if (config.getMaxTransactionTimeoutInMs() > 0) {
+                timeoutInMs = Math.min(timeoutInMs, config.getMaxTransactionTimeoutInMs());
+            }
+            if (thinkTimeInMs > timeoutInMs) {
+                this.userOutcome = StatusCode.EXPIRED_TRANSACTION;
+                this.decidedAtNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutInMs);
+            } else {
+                this.userOutcome = trialStatus == null ? StatusCode.SIGNATURE : trialStatus;
+                this.decidedAtNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(thinkTimeInMs);
+            }
+        }
+
+        private SimulatedResponse createFinalResponse(SimulatedRequest request) {
+            SimulatedResponse response = new SimulatedResponse(request, userOutcome);
+            response.setMsisdn(msisdn);
+            response.setMsspTransId(msspTransId);
+            response.setSignatureProfile(signatureProfile);
+            if (userOutcome == StatusCode.SIGNATURE) {
+                response.setSignature(("Simulated signature for transaction " + msspTransId).getBytes(StandardCharsets.UTF_8));
+            }
+            return response;
+        }
+    }
+
+}
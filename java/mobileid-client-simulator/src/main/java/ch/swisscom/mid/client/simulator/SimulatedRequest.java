@@ -0,0 +1,106 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.simulator;
+
+/**
+ * The protocol-neutral content of an MSS request received by the simulator, as extracted by the REST and SOAP dialect
+ * handlers. Only the fields that drive the simulated behaviour are kept.
+ */
+class SimulatedRequest {
+
+    enum Kind {
+        SIGNATURE,
+        STATUS_QUERY,
+        RECEIPT,
+        PROFILE_QUERY
+    }
+
+    private final Kind kind;
+    private String apId;
+    private String apTransId;
+    private String msisdn;
+    private String msspTransId;
+    private String signatureProfile;
+    private boolean async;
+    private int timeoutInSeconds;
+
+    SimulatedRequest(Kind kind) {
+        this.kind = kind;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    Kind getKind() {
+        return kind;
+    }
+
+    String getApId() {
+        return apId;
+    }
+
+    void setApId(String apId) {
+        this.apId = apId;
+    }
+
+    String getApTransId() {
+        return apTransId;
+    }
+
+    void setApTransId(String apTransId) {
+        this.apTransId = apTransId;
+    }
+
+    String getMsisdn() {
+        return msisdn;
+    }
+
+    void setMsisdn(String msisdn) {
+        this.msisdn = msisdn;
+    }
+
+    String getMsspTransId() {
+        return msspTransId;
+    }
+
+    void setMsspTransId(String msspTransId) {
+        this.msspTransId = msspTransId;
+    }
+
+    String getSignatureProfile() {
+        return signatureProfile;
+    }
+
+    void setSignatureProfile(String signatureProfile) {
+        this.signatureProfile = signatureProfile;
+    }
+
+    boolean isAsync() {
+        return async;
+    }
+
+    void setAsync(boolean async) {
+        this.async = async;
+    }
+
+    int getTimeoutInSeconds() {
+        return timeoutInSeconds;
+    }
+
+    void setTimeoutInSeconds(int timeoutInSeconds) {
+        this.timeoutInSeconds = timeoutInSeconds;
+    }
+
+}
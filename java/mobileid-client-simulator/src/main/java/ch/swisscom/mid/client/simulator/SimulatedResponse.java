@@ -0,0 +1,100 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.simulator;
+
+import ch.swisscom.mid.client.model.StatusCode;
+
+/**
+ * The protocol-neutral outcome of a simulated MSS request, rendered by the REST and SOAP dialect handlers either as a
+ * regular response or, when the status code is a fault, as a fault message.
+ */
+class SimulatedResponse {
+
+    private final SimulatedRequest request;
+    private final StatusCode statusCode;
+    private String msisdn;
+    private String msspTransId;
+    private String signatureProfile;
+    private byte[] signature;
+    private boolean pinBlocked;
+
+    SimulatedResponse(SimulatedRequest request, StatusCode statusCode) {
+        this.request = request;
+        this.statusCode = statusCode;
+        this.msisdn = request.getMsisdn();
+        this.msspTransId = request.getMsspTransId();
+        this.signatureProfile = request.getSignatureProfile();
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    SimulatedRequest getRequest() {
+        return request;
+    }
+
+    StatusCode getStatusCode() {
+        return statusCode;
+    }
+
+    boolean isFault() {
+        return statusCode.isFault();
+    }
+
+    String getFaultDetail() {
+        return statusCode.getDescription();
+    }
+
+    String getMsisdn() {
+        return msisdn;
+    }
+
+    void setMsisdn(String msisdn) {
+        this.msisdn = msisdn;
+    }
+
+    String getMsspTransId() {
+        return msspTransId;
+    }
+
+    void setMsspTransId(String msspTransId) {
+        this.msspTransId = msspTransId;
+    }
+
+    String getSignatureProfile() {
+        return signatureProfile;
+    }
+
+    void setSignatureProfile(String signatureProfile) {
+        this.signatureProfile = signatureProfile;
+    }
+
+    byte[] getSignature() {
+        return signature;
+    }
+
+    void setSignature(byte[] signature) {
+        this.signature = signature;
+    }
+
+    boolean isPinBlocked() {
+        return pinBlocked;
+    }
+
+    void setPinBlocked(boolean pinBlocked) {
+        this.pinBlocked = pinBlocked;
+    }
+
+}
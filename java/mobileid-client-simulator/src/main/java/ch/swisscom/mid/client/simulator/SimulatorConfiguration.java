@@ -0,0 +1,239 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.simulator;
+
+import static ch.swisscom.mid.client.utils.Utils.configNotNull;
+import static ch.swisscom.mid.client.utils.Utils.configTrue;
+
+/**
+ * Configuration for the {@link MssSimulator}. The defaults give an HTTPS server on a random free port, with users that
+ * answer after about 3 seconds and no additional network latency.
+ */
+public class SimulatorConfiguration {
+
+    public static final String DEFAULT_KEY_STORE_CLASSPATH_FILE = "/mid-simulator.jks";
+    public static final String DEFAULT_KEY_STORE_PASSWORD = "simulator";
+    public static final String DEFAULT_KEY_STORE_CERTIFICATE_ALIAS = "simulator";
+
+    private String host = "localhost";
+    private int port = 0;
+    private boolean tlsEnabled = true;
+    private String keyStoreClasspathFile = DEFAULT_KEY_STORE_CLASSPATH_FILE;
+    private String keyStorePassword = DEFAULT_KEY_STORE_PASSWORD;
+    private int workerThreads = 32;
+
+    private ThinkTimeDistribution thinkTimeDistribution = ThinkTimeDistribution.LOG_NORMAL;
+    private long thinkTimeMeanInMs = 3000;
+    private long thinkTimeStdDevInMs = 1500;
+    private int defaultUserTimeoutInSeconds = 80;
+    private long maxTransactionTimeoutInMs = 0;
+    private long transactionRetentionInMs = 5 * 60 * 1000;
+
+    private long networkLatencyInMs = 0;
+    private long networkLatencyJitterInMs = 0;
+
+    private long randomSeed = System.nanoTime();
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public String getHost() {
+        return host;
+    }
+
+    public void setHost(String host) {
+        this.host = host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Sets the port to listen on. Leave it to 0 to get any free port; the actual one is then given by
+     * {@link MssSimulator#getPort()}.
+     */
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public boolean isTlsEnabled() {
+        return tlsEnabled;
+    }
+
+    public void setTlsEnabled(boolean tlsEnabled) {
+        this.tlsEnabled = tlsEnabled;
+    }
+
+    public String getKeyStoreClasspathFile() {
+        return keyStoreClasspathFile;
+    }
+
+    public void setKeyStoreClasspathFile(String keyStoreClasspathFile) {
+        this.keyStoreClasspathFile = keyStoreClasspathFile;
+    }
+
+    public String getKeyStorePassword() {
+        return keyStorePassword;
+    }
+
+    public void setKeyStorePassword(String keyStorePassword) {
+        this.keyStorePassword = keyStorePassword;
+    }
+
+    public int getWorkerThreads() {
+        return workerThreads;
+    }
+
+    public void setWorkerThreads(int workerThreads) {
+        this.workerThreads = workerThreads;
+    }
+
+    public ThinkTimeDistribution getThinkTimeDistribution() {
+        return thinkTimeDistribution;
+    }
+
+    public void setThinkTimeDistribution(ThinkTimeDistribution thinkTimeDistribution) {
+        this.thinkTimeDistribution = thinkTimeDistribution;
+    }
+
+    public long getThinkTimeMeanInMs() {
+        return thinkTimeMeanInMs;
+    }
+
+    public void setThinkTimeMeanInMs(long thinkTimeMeanInMs) {
+        this.thinkTimeMeanInMs = thinkTimeMeanInMs;
+    }
+
+    public long getThinkTimeStdDevInMs() {
+        return thinkTimeStdDevInMs;
+    }
+
+    public void setThinkTimeStdDevInMs(long thinkTimeStdDevInMs) {
+        this.thinkTimeStdDevInMs = thinkTimeStdDevInMs;
+    }
+
+    public int getDefaultUserTimeoutInSeconds() {
+        return defaultUserTimeoutInSeconds;
+    }
+
+    /**
+     * Sets the time after which a signature transaction expires (status 208) when the request does not carry its own
+     * TimeOut value.
+     */
+    public void setDefaultUserTimeoutInSeconds(int defaultUserTimeoutInSeconds) {
+        this.defaultUserTimeoutInSeconds = defaultUserTimeoutInSeconds;
+    }
+
+    public long getMaxTransactionTimeoutInMs() {
+        return maxTransactionTimeoutInMs;
+    }
+
+    /**
+     * Caps the TimeOut requested by the client, to emulate an MSSP that expires its transactions earlier than asked.
+     * Leave it to 0 to always honour the requested TimeOut.
+     */
+    public void setMaxTransactionTimeoutInMs(long maxTransactionTimeoutInMs) {
+        this.maxTransactionTimeoutInMs = maxTransactionTimeoutInMs;
+    }
+
+    public long getTransactionRetentionInMs() {
+        return transactionRetentionInMs;
+    }
+
+    /**
+     * Sets how long a finished signature transaction can still be polled, before the simulator forgets it and
+     * answers further status queries with WRONG_PARAM (as the real MSSP does for unknown transaction IDs).
+     */
+    public void setTransactionRetentionInMs(long transactionRetentionInMs) {
+        this.transactionRetentionInMs = transactionRetentionInMs;
+    }
+
+    public long getNetworkLatencyInMs() {
+        return networkLatencyInMs;
+    }
+
+    /**
+     * Sets the latency added before each response is sent, to emulate the round trip to a remote MSSP.
+     */
+    public void setNetworkLatencyInMs(long networkLatencyInMs) {
+        this.networkLatencyInMs = networkLatencyInMs;
+    }
+
+    public long getNetworkLatencyJitterInMs() {
+        return networkLatencyJitterInMs;
+    }
+
+    /**
+     * Sets the maximum random amount added on top of the network latency, for each response.
+     */
+    public void setNetworkLatencyJitterInMs(long networkLatencyJitterInMs) {
+        this.networkLatencyJitterInMs = networkLatencyJitterInMs;
+    }
+
+    public long getRandomSeed() {
+        return randomSeed;
+    }
+
+    /**
+     * Sets the seed for the think times and latency jitter, to make a simulation run reproducible.
+     */
+    public void setRandomSeed(long randomSeed) {
+        this.randomSeed = randomSeed;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public void validateYourself() {
+        configNotNull(host, "The simulator host cannot be NULL");
+        configTrue(port >= 0 && port <= 65535, "The simulator port must be between 0 and 65535");
+        if (tlsEnabled) {
+            configNotNull(keyStoreClasspathFile, "The simulator key store classpath file cannot be NULL when TLS is enabled");
+            configNotNull(keyStorePassword, "The simulator key store password cannot be NULL when TLS is enabled");
+        }
+        configTrue(workerThreads > 0, "The simulator workerThreads must be greater than 0");
+        configNotNull(thinkTimeDistribution, "The simulator thinkTimeDistribution cannot be NULL");
+        configTrue(thinkTimeMeanInMs >= 0, "The simulator thinkTimeMeanInMs cannot be negative");
+        configTrue(thinkTimeStdDevInMs >= 0, "The simulator thinkTimeStdDevInMs cannot be negative");
+        configTrue(defaultUserTimeoutInSeconds > 0, "The simulator defaultUserTimeoutInSeconds must be greater than 0");
+        configTrue(maxTransactionTimeoutInMs >= 0, "The simulator maxTransactionTimeoutInMs cannot be negative");
+        configTrue(transactionRetentionInMs >= 0, "The simulator transactionRetentionInMs cannot be negative");
+        configTrue(networkLatencyInMs >= 0, "The simulator networkLatencyInMs cannot be negative");
+        configTrue(networkLatencyJitterInMs >= 0, "The simulator networkLatencyJitterInMs cannot be negative");
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    @Override
+    public String toString() {
+        return "SimulatorConfiguration{" +
+               "host='" + host + '\'' +
+               ", port=" + port +
+               ", tlsEnabled=" + tlsEnabled +
+               ", keyStoreClasspathFile='" + keyStoreClasspathFile + '\'' +
+               ", workerThreads=" + workerThreads +
+               ", thinkTimeDistribution=" + thinkTimeDistribution +
+               ", thinkTimeMeanInMs=" + thinkTimeMeanInMs +
+               ", thinkTimeStdDevInMs=" + thinkTimeStdDevInMs +
+               ", defaultUserTimeoutInSeconds=" + defaultUserTimeoutInSeconds +
+               ", maxTransactionTimeoutInMs=" + maxTransactionTimeoutInMs +
+               ", transactionRetentionInMs=" + transactionRetentionInMs +
+               ", networkLatencyInMs=" + networkLatencyInMs +
+               ", networkLatencyJitterInMs=" + networkLatencyJitterInMs +
+               ", randomSeed=" + randomSeed +
+               '}';
+    }
+
+}
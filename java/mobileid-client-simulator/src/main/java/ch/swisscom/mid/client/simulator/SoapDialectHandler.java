@@ -0,0 +1,260 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.simulator;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Base64;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import ch.swisscom.mid.client.config.DefaultConfiguration;
+import ch.swisscom.mid.client.model.StatusCode;
+
+/**
+ * Speaks the SOAP (ETSI TS 102 204, SOAP 1.2) dialect of the MSS interface, on the <code>/soap/services/</code> ports
+ * (see {@link DefaultConfiguration#SOAP_SIGNATURE_PORT_SUB_URL} and its siblings). The operation is told apart by the
+ * request element found in the SOAP body, so the port the request was sent to does not matter.
+ */
+class SoapDialectHandler extends DialectHandler {
+
+    private static final String CONTENT_TYPE = "application/soap+xml;charset=utf-8";
+    private static final String SOAP_ENVELOPE_NS = "http://www.w3.org/2003/05/soap-envelope";
+    private static final String ETSI_NS = "http://uri.etsi.org/TS102204/v1.1.2#";
+    private static final String KIURU_NS = "http://uri.etsi.org/TS102204/etsi204-kiuru.wsdl";
+    private static final String METHICS_EXT_NS = "http://www.methics.fi/TS102204/ext/v1.0.0";
+
+    private final ThreadLocal<DocumentBuilder> documentBuilder = ThreadLocal.withInitial(SoapDialectHandler::createDocumentBuilder);
+
+    SoapDialectHandler(SimulatedMssp mssp) {
+        super(mssp);
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    @Override
+    SimulatedRequest parseRequest(String requestBody) {
+        Document document;
+        try {
+            DocumentBuilder builder = documentBuilder.get();
+            builder.reset();
+            document = builder.parse(new InputSource(new StringReader(requestBody)));
+        } catch (SAXException | IOException e) {
+            return null;
+        }
+        SimulatedRequest request;
+        Element mssRequest;
+        if ((mssRequest = findElement(document.getDocumentElement(), "MSS_SignatureReq")) != null) {
+            request = new SimulatedRequest(SimulatedRequest.Kind.SIGNATURE);
+            Element signatureProfile = findElement(mssRequest, "SignatureProfile");
+            request.setSignatureProfile(signatureProfile == null ? null : textOf(findElement(signatureProfile, "mssURI")));
+            request.setAsync(!DefaultConfiguration.SIGNATURE_MODE_SYNC.equals(mssRequest.getAttribute("MessagingMode")));
+            request.setTimeoutInSeconds(parseTimeout(mssRequest.getAttribute("TimeOut")));
+        } else if ((mssRequest = findElement(document.getDocumentElement(), "MSS_StatusReq")) != null) {
+            request = new SimulatedRequest(SimulatedRequest.Kind.STATUS_QUERY);
+        } else if ((mssRequest = findElement(document.getDocumentElement(), "MSS_ReceiptReq")) != null) {
+            request = new SimulatedRequest(SimulatedRequest.Kind.RECEIPT);
+        } else if ((mssRequest = findElement(document.getDocumentElement(), "MSS_ProfileReq")) != null) {
+            request = new SimulatedRequest(SimulatedRequest.Kind.PROFILE_QUERY);
+        } else {
+            return null;
+        }
+        Element apInfo = findElement(mssRequest, "AP_Info");
+        if (apInfo != null) {
+            request.setApId(apInfo.getAttribute("AP_ID"));
+            request.setApTransId(apInfo.getAttribute("AP_TransID"));
+        }
+        Element mobileUser = findElement(mssRequest, "MobileUser");
+        request.setMsisdn(mobileUser == null ? null : textOf(findElement(mobileUser, "MSISDN")));
+        String msspTransId = mssRequest.getAttribute("MSSP_TransID");
+        request.setMsspTransId(msspTransId.isEmpty() ? null : msspTransId);
+        return request;
+    }
+
+    @Override
+    String renderResponse(SimulatedResponse response) {
+        StringBuilder sb = new StringBuilder(1024);
+        switch (response.getRequest().getKind()) {
+            case SIGNATURE:
+                openResponse(sb, "MSS_SignatureResponse", "MSS_SignatureResp", response, "1", "1");
+                appendMobileUser(sb, response);
+                appendSignature(sb, response);
+                if (response.getSignatureProfile() != null) {
+                    sb.append("<mss:SignatureProfile xmlns:mss=\"").append(ETSI_NS).append("\"><mss:mssURI>")
+                        .append(escape(response.getSignatureProfile())).append("</mss:mssURI></mss:SignatureProfile>");
+                }
+                appendStatus(sb, response.getStatusCode(), null);
+                closeResponse(sb, "MSS_SignatureResponse", "MSS_SignatureResp");
+                break;
+            case STATUS_QUERY:
+                openResponse(sb, "MSS_StatusQueryResponse", "MSS_StatusResp", response, "1", "1");
+                appendMobileUser(sb, response);
+                appendSignature(sb, response);
+                appendStatus(sb, response.getStatusCode(), null);
+                closeResponse(sb, "MSS_StatusQueryResponse", "MSS_StatusResp");
+                break;
+            case RECEIPT:
+                openResponse(sb, "MSS_ReceiptResponse", "MSS_ReceiptResp", response, "1", "1");
+                appendStatus(sb, response.getStatusCode(), null);
+                closeResponse(sb, "MSS_ReceiptResponse", "MSS_ReceiptResp");
+                break;
+            case PROFILE_QUERY:
+            default:
+                openResponse(sb, "MSS_ProfileQueryResponse", "MSS_ProfileResp", response, "2", "0");
+                for (String profile : new String[]{"http://mid.swisscom.ch/Any-LoA4",
+                                                   "http://mid.swisscom.ch/MID/v1/AuthProfile1",
+                                                   "http://mid.swisscom.ch/STK-LoA4"}) {
+                    sb.append("<mss:SignatureProfile xmlns:mss=\"").append(ETSI_NS).append("\"><mss:mssURI>")
+                        .append(profile).append("</mss:mssURI></mss:SignatureProfile>");
+                }
+                appendStatus(sb, response.getStatusCode(),
+                             "<mcs:ProfileQueryExtension xmlns:mcs=\"" + METHICS_EXT_NS + "\">" +
+                             "<mcs:MobileUser AutoActivation=\"false\" RecoveryCodeCreated=\"true\"/>" +
+                             "<mcs:Sscds><mcs:Sim><mcs:State>ACTIVE</mcs:State>" +
+                             "<mcs:PinStatus blocked=\"" + response.isPinBlocked() + "\"/>" +
+                             "</mcs:Sim></mcs:Sscds></mcs:ProfileQueryExtension>");
+                closeResponse(sb, "MSS_ProfileQueryResponse", "MSS_ProfileResp");
+                break;
+        }
+        return sb.toString();
+    }
+
+    @Override
+    String renderFault(SimulatedResponse response) {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+               "<soapenv:Envelope xmlns:soapenv=\"" + SOAP_ENVELOPE_NS + "\"><soapenv:Body><soapenv:Fault>" +
+               "<soapenv:Code><soapenv:Value>soapenv:Sender</soapenv:Value>" +
+               "<soapenv:Subcode><soapenv:Value xmlns:mss=\"" + ETSI_NS + "\">mss:_" + response.getStatusCode().getCode() +
+               "</soapenv:Value></soapenv:Subcode></soapenv:Code>" +
+               "<soapenv:Reason><soapenv:Text xml:lang=\"en\">" + response.getStatusCode().name() + "</soapenv:Text></soapenv:Reason>" +
+               "<soapenv:Detail><ns1:detail xmlns:ns1=\"" + KIURU_NS + "\">" + escape(response.getFaultDetail()) +
+               "</ns1:detail></soapenv:Detail>" +
+               "</soapenv:Fault></soapenv:Body></soapenv:Envelope>";
+    }
+
+    @Override
+    String getContentType() {
+        return CONTENT_TYPE;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private static void openResponse(StringBuilder sb,
+                                     String wrapperName,
+                                     String responseName,
+                                     SimulatedResponse response,
+                                     String majorVersion,
+                                     String minorVersion) {
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>")
+            .append("<soapenv:Envelope xmlns:soapenv=\"").append(SOAP_ENVELOPE_NS).append("\"><soapenv:Body>")
+            .append('<').append(wrapperName).append(" xmlns=\"").append(KIURU_NS).append("\">")
+            .append('<').append(responseName).append(" xmlns=\"\"");
+        if (response.getRequest().getKind() == SimulatedRequest.Kind.SIGNATURE && response.getMsspTransId() != null) {
+            sb.append(" MSSP_TransID=\"").append(escape(response.getMsspTransId())).append('"');
+        }
+        sb.append(" MajorVersion=\"").append(majorVersion).append("\" MinorVersion=\"").append(minorVersion).append("\">")
+            .append("<mss:AP_Info xmlns:mss=\"").append(ETSI_NS).append("\" AP_ID=\"").append(escape(response.getRequest().getApId()))
+            .append("\" AP_TransID=\"").append(escape(response.getRequest().getApTransId()))
+            .append("\" Instant=\"").append(now()).append("\"/>")
+            .append("<mss:MSSP_Info xmlns:mss=\"").append(ETSI_NS).append("\" Instant=\"").append(now()).append("\">")
+            .append("<mss:MSSP_ID><mss:URI>").append(MSSP_ID_URI).append("</mss:URI></mss:MSSP_ID></mss:MSSP_Info>");
+    }
+
+    private static void closeResponse(StringBuilder sb, String wrapperName, String responseName) {
+        sb.append("</").append(responseName).append("></").append(wrapperName).append("></soapenv:Body></soapenv:Envelope>");
+    }
+
+    private static void appendMobileUser(StringBuilder sb, SimulatedResponse response) {
+        sb.append("<mss:MobileUser xmlns:mss=\"").append(ETSI_NS).append("\"><mss:MSISDN>")
+            .append(escape(response.getMsisdn())).append("</mss:MSISDN></mss:MobileUser>");
+    }
+
+    private static void appendSignature(StringBuilder sb, SimulatedResponse response) {
+        if (response.getSignature() != null) {
+            sb.append("<mss:MSS_Signature xmlns:mss=\"").append(ETSI_NS).append("\"><mss:Base64Signature>")
+                .append(Base64.getEncoder().encodeToString(response.getSignature()))
+                .append("</mss:Base64Signature></mss:MSS_Signature>");
+        }
+    }
+
+    private static void appendStatus(StringBuilder sb, StatusCode statusCode, String statusDetail) {
+        sb.append("<mss:Status xmlns:mss=\"").append(ETSI_NS).append("\">")
+            .append("<mss:StatusCode Value=\"").append(statusCode.getCode()).append("\"/>")
+            .append("<mss:StatusMessage>").append(statusCode.name()).append("</mss:StatusMessage>");
+        if (statusDetail != null) {
+            sb.append("<mss:StatusDetail>").append(statusDetail).append("</mss:StatusDetail>");
+        }
+        sb.append("</mss:Status>");
+    }
+
+    private static Element findElement(Element parent, String localName) {
+        NodeList nodes = parent.getElementsByTagNameNS("*", localName);
+        return nodes.getLength() == 0 ? null : (Element) nodes.item(0);
+    }
+
+    private static String textOf(Element element) {
+        return element == null ? null : element.getTextContent().trim();
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int index = 0; index < value.length(); index++) {
+            char c = value.charAt(index);
+            switch (c) {
+                case '<':
+                    sb.append("&lt;");
+                    break;
+                case '>':
+                    sb.append("&gt;");
+                    break;
+                case '&':
+                    sb.append("&amp;");
+                    break;
+                case '"':
+                    sb.append("&quot;");
+                    break;
+                default:
+                    sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static DocumentBuilder createDocumentBuilder() {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            return factory.newDocumentBuilder();
+        } catch (ParserConfigurationException e) {
+            throw new IllegalStateException("Failed to create the XML parser of the MSSP simulator", e);
+        }
+    }
+
+}
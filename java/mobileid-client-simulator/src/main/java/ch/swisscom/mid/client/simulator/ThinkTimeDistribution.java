@@ -0,0 +1,66 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.simulator;
+
+import java.util.Random;
+
+/**
+ * Shape of the time a simulated mobile user needs to answer a signature request (read the message, type the PIN, press
+ * OK). All distributions are parameterized by a mean and a standard deviation, so that switching between them keeps
+ * the average load on the client unchanged.
+ */
+public enum ThinkTimeDistribution {
+
+    /**
+     * Every user answers after exactly the mean think time.
+     */
+    FIXED {
+        @Override
+        long sample(Random random, long meanInMs, long stdDevInMs) {
+            return meanInMs;
+        }
+    },
+
+    /**
+     * Think times spread evenly around the mean, with the given standard deviation.
+     */
+    UNIFORM {
+        @Override
+        long sample(Random random, long meanInMs, long stdDevInMs) {
+            double halfWidth = Math.sqrt(3) * stdDevInMs;
+            return Math.max(0, Math.round(meanInMs - halfWidth + random.nextDouble() * 2 * halfWidth));
+        }
+    },
+
+    /**
+     * Most users answer a bit faster than the mean, while a long tail of users takes much longer. This is the shape
+     * usually observed for human response times.
+     */
+    LOG_NORMAL {
+        @Override
+        long sample(Random random, long meanInMs, long stdDevInMs) {
+            if (meanInMs <= 0) {
+                return 0;
+            }
+            double variance = Math.log(1 + ((double) stdDevInMs * stdDevInMs) / ((double) meanInMs * meanInMs));
+            double mu = Math.log(meanInMs) - variance / 2;
+            return Math.round(Math.exp(mu + Math.sqrt(variance) * random.nextGaussian()));
+        }
+    };
+
+    abstract long sample(Random random, long meanInMs, long stdDevInMs);
+
+}
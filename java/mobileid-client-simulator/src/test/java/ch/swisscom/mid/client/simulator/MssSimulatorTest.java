@@ -0,0 +1,207 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.simulator;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import ch.swisscom.mid.client.MIDFlowException;
+import ch.swisscom.mid.client.config.ClientConfiguration;
+import ch.swisscom.mid.client.config.ComProtocol;
+import ch.swisscom.mid.client.impl.MIDClientImpl;
+import ch.swisscom.mid.client.model.ProfileDevicePinState;
+import ch.swisscom.mid.client.model.ProfileRequest;
+import ch.swisscom.mid.client.model.ProfileResponse;
+import ch.swisscom.mid.client.model.SignatureProfiles;
+import ch.swisscom.mid.client.model.SignatureRequest;
+import ch.swisscom.mid.client.model.SignatureResponse;
+import ch.swisscom.mid.client.model.StatusCode;
+import ch.swisscom.mid.client.model.TrialNumbers;
+import ch.swisscom.mid.client.model.UserLanguage;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+public class MssSimulatorTest {
+
+    private static final long THINK_TIME_IN_MS = 1000;
+
+    private static MssSimulator simulator;
+    private static MIDClientImpl restClient;
+    private static MIDClientImpl soapClient;
+
+    @BeforeAll
+    public static void setUpThisClass() {
+        SimulatorConfiguration config = new SimulatorConfiguration();
+        config.setThinkTimeDistribution(ThinkTimeDistribution.FIXED);
+        config.setThinkTimeMeanInMs(THINK_TIME_IN_MS);
+        simulator = new MssSimulator(config);
+        simulator.start();
+        restClient = new MIDClientImpl(buildClientConfig(ComProtocol.REST));
+        soapClient = new MIDClientImpl(buildClientConfig(ComProtocol.SOAP));
+    }
+
+    @AfterAll
+    public static void tearDownThisClass() {
+        restClient.close();
+        soapClient.close();
+        simulator.close();
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    @Test
+    public void testAsyncSignature_outstandingThenSignature() {
+        for (MIDClientImpl client : new MIDClientImpl[]{restClient, soapClient}) {
+            SignatureResponse response = client.requestAsyncSignature(buildSignatureRequest("41798765432"));
+            assertThat(response.getStatus().getStatusCode(), is(StatusCode.REQUEST_OK));
+            assertThat(response.getTracking().getTransactionId(), is(notNullValue()));
+
+            response = client.pollForSignatureStatus(response.getTracking());
+            assertThat(response.getStatus().getStatusCode(), is(StatusCode.OUTSTANDING_TRANSACTION));
+
+            sleep(THINK_TIME_IN_MS + 100);
+            response = client.pollForSignatureStatus(response.getTracking());
+            assertThat(response.getStatus().getStatusCode(), is(StatusCode.SIGNATURE));
+            assertThat(response.getBase64Signature(), is(notNullValue()));
+        }
+    }
+
+    @Test
+    public void testSyncSignature_waitsForTheThinkTime() {
+        for (MIDClientImpl client : new MIDClientImpl[]{restClient, soapClient}) {
+            long startTime = System.currentTimeMillis();
+            SignatureResponse response = client.requestSyncSignature(buildSignatureRequest("41798765432"));
+            assertThat(response.getStatus().getStatusCode(), is(StatusCode.SIGNATURE));
+            assertThat(System.currentTimeMillis() - startTime, is(greaterThanOrEqualTo(THINK_TIME_IN_MS)));
+        }
+    }
+
+    @Test
+    public void testTrialNumbers_requestAndUserLevelFaults() {
+        for (MIDClientImpl client : new MIDClientImpl[]{restClient, soapClient}) {
+            assertFault(() -> client.requestAsyncSignature(buildSignatureRequest(TrialNumbers.ONE_THAT_GIVES_UNKNOWN_CLIENT)),
+                        StatusCode.UNKNOWN_CLIENT);
+
+            SignatureResponse response = client.requestAsyncSignature(buildSignatureRequest(TrialNumbers.ONE_THAT_GIVES_USER_CANCEL));
+            assertThat(response.getStatus().getStatusCode(), is(StatusCode.REQUEST_OK));
+            sleep(THINK_TIME_IN_MS + 100);
+            assertFault(() -> client.pollForSignatureStatus(response.getTracking()), StatusCode.USER_CANCEL);
+        }
+    }
+
+    @Test
+    public void testSignature_expiresWhenTheUserIsTooSlow() {
+        SimulatorConfiguration config = new SimulatorConfiguration();
+        config.setThinkTimeDistribution(ThinkTimeDistribution.FIXED);
+        config.setThinkTimeMeanInMs(5000);
+        config.setMaxTransactionTimeoutInMs(500);
+        try (MssSimulator slowSimulator = new MssSimulator(config)) {
+            slowSimulator.start();
+            ClientConfiguration clientConfig = buildClientConfig(ComProtocol.REST);
+            slowSimulator.configureClient(clientConfig);
+            try (MIDClientImpl client = new MIDClientImpl(clientConfig)) {
+                SignatureResponse response = client.requestAsyncSignature(buildSignatureRequest("41798765432"));
+                assertThat(slowSimulator.getOutstandingTransactionCount(), is(1));
+                sleep(600);
+                assertFault(() -> client.pollForSignatureStatus(response.getTracking()), StatusCode.EXPIRED_TRANSACTION);
+            }
+        }
+    }
+
+    @Test
+    public void testProfileQuery_reportsTheBlockedPin() {
+        for (MIDClientImpl client : new MIDClientImpl[]{restClient, soapClient}) {
+            ProfileResponse response = client.requestProfile(buildProfileRequest("41798765432"));
+            assertThat(response.getSignatureProfiles().size(), is(3));
+            assertThat(response.getSimDevices().get(0).getPinState(), is(ProfileDevicePinState.ACTIVE));
+
+            response = client.requestProfile(buildProfileRequest(TrialNumbers.ONE_THAT_GIVES_PIN_NR_BLOCKED));
+            assertThat(response.getSimDevices().get(0).getPinState(), is(ProfileDevicePinState.BLOCKED));
+        }
+    }
+
+    @Test
+    public void testNetworkLatency_isAddedToEachResponse() {
+        SimulatorConfiguration config = new SimulatorConfiguration();
+        config.setTlsEnabled(false);
+        config.setNetworkLatencyInMs(200);
+        config.setNetworkLatencyJitterInMs(50);
+        try (MssSimulator slowSimulator = new MssSimulator(config)) {
+            slowSimulator.start();
+            ClientConfiguration clientConfig = buildClientConfig(ComProtocol.SOAP);
+            slowSimulator.configureClient(clientConfig);
+            try (MIDClientImpl client = new MIDClientImpl(clientConfig)) {
+                long startTime = System.currentTimeMillis();
+                client.requestProfile(buildProfileRequest("41798765432"));
+                assertThat(System.currentTimeMillis() - startTime, is(greaterThanOrEqualTo(200L)));
+            }
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private static ClientConfiguration buildClientConfig(ComProtocol protocol) {
+        ClientConfiguration config = new ClientConfiguration();
+        config.setProtocol(protocol);
+        config.setApId("mid://test.swisscom.ch");
+        config.setApPassword("TEST_ID");
+        config.getHttp().setConnectionTimeoutInMs(2 * 1000);
+        config.getHttp().setResponseTimeoutInMs(10 * 1000);
+        simulator.configureClient(config);
+        return config;
+    }
+
+    private static SignatureRequest buildSignatureRequest(String msisdn) {
+        SignatureRequest request = new SignatureRequest();
+        request.setUserLanguage(UserLanguage.ENGLISH);
+        request.getDataToBeSigned().setData("test.com: Please sign this document");
+        request.getDataToBeSigned().setEncodingToUtf8();
+        request.getDataToBeSigned().setMimeTypeToTextPlain();
+        request.getMobileUser().setMsisdn(msisdn);
+        request.setSignatureProfile(SignatureProfiles.DEFAULT_PROFILE);
+        return request;
+    }
+
+    private static ProfileRequest buildProfileRequest(String msisdn) {
+        ProfileRequest request = new ProfileRequest();
+        request.getMobileUser().setMsisdn(msisdn);
+        request.setExtensionParamsToAllValues();
+        return request;
+    }
+
+    private static void assertFault(Runnable call, StatusCode expectedStatusCode) {
+        try {
+            call.run();
+            fail("A MIDFlowException was expected at this point");
+        } catch (MIDFlowException e) {
+            assertThat(e.getFault().getStatusCode(), is(expectedStatusCode));
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
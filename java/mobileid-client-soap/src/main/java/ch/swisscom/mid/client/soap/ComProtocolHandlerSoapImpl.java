@@ -15,7 +15,6 @@
  */
 package ch.swisscom.mid.client.soap;
 
-import org.apache.commons.pool2.ObjectPool;
 import org.apache.commons.pool2.impl.GenericObjectPool;
 import org.etsi.uri.ts102204.etsi204_kiuru.MSSProfileQueryType;
 import org.etsi.uri.ts102204.etsi204_kiuru.MSSReceiptType;
@@ -25,6 +24,9 @@ import org.etsi.uri.ts102204.v1_1.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import javax.xml.ws.soap.SOAPFaultException;
 
 import ch.swisscom.mid.client.MIDFlowException;
@@ -33,6 +35,9 @@ import ch.swisscom.mid.client.config.ComProtocol;
 import ch.swisscom.mid.client.config.TrafficObserver;
 import ch.swisscom.mid.client.impl.ComProtocolHandler;
 import ch.swisscom.mid.client.impl.Loggers;
+import ch.swisscom.mid.client.metrics.ConnectionPoolStats;
+import ch.swisscom.mid.client.metrics.MIDClientMetrics;
+import ch.swisscom.mid.client.metrics.MIDOperation;
 import ch.swisscom.mid.client.model.*;
 import ch.swisscom.mid.client.soap.adapter.MssFaultProcessor;
 import ch.swisscom.mid.client.soap.adapter.MssRequestBuilder;
@@ -45,10 +50,11 @@ public class ComProtocolHandlerSoapImpl implements ComProtocolHandler {
     private static final Logger logProtocol = LoggerFactory.getLogger(Loggers.LOGGER_CLIENT_PROTOCOL);
 
     private ClientConfiguration config;
-    private ObjectPool<MssService<MSSSignaturePortType>> mssSignatureServicePool;
-    private ObjectPool<MssService<MSSStatusQueryType>> mssStatusQueryServicePool;
-    private ObjectPool<MssService<MSSReceiptType>> mssReceiptServicePool;
-    private ObjectPool<MssService<MSSProfileQueryType>> mssProfileQueryServicePool;
+    private MIDClientMetrics metrics;
+    private GenericObjectPool<MssService<MSSSignaturePortType>> mssSignatureServicePool;
+    private GenericObjectPool<MssService<MSSStatusQueryType>> mssStatusQueryServicePool;
+    private GenericObjectPool<MssService<MSSReceiptType>> mssReceiptServicePool;
+    private GenericObjectPool<MssService<MSSProfileQueryType>> mssProfileQueryServicePool;
 
     @Override
     public ComProtocol getImplementedComProtocol() {
@@ -57,7 +63,13 @@ public class ComProtocolHandlerSoapImpl implements ComProtocolHandler {
 
     @Override
     public void initialize(ClientConfiguration config) {
+        initialize(config, new MIDClientMetrics());
+    }
+
+    @Override
+    public void initialize(ClientConfiguration config, MIDClientMetrics metrics) {
         this.config = config;
+        this.metrics = metrics;
         mssSignatureServicePool = new GenericObjectPool<>(new MssServiceFactory<>(config,
                                                                                   MSSSignaturePortType.class,
                                                                                   config.getUrls()::getSignatureServiceUrl));
@@ -82,164 +94,243 @@ public class ComProtocolHandlerSoapImpl implements ComProtocolHandler {
 
     @Override
     public SignatureResponse requestSyncSignature(SignatureRequest request) {
-        logProtocol.info("MSS Signature (sync): Sending request: [{}]", request);
-        MSSSignatureReqType mssSignatureReq = MssRequestBuilder.createSignatureReq(config, request, true);
-        notifyTrafficObserverForApTransId(request.getTrafficObserver(), mssSignatureReq.getAPInfo().getAPTransID());
-        MSSSignatureRespType mssSignatureResp;
-        MssService<MSSSignaturePortType> mssSignatureService = null;
-        try {
-            mssSignatureService = mssSignatureServicePool.borrowObject();
-            mssSignatureService.registerTrafficObserverForThisRequest(request.getTrafficObserver());
-            mssSignatureResp = mssSignatureService.getPort().mssSignature(mssSignatureReq);
-            logClient.info("Received MSS (sync) signature response: [{}]", mssSignatureResp == null ? "null" : "not-null, looks OK");
-        } catch (SOAPFaultException e) {
-            throw new MIDFlowException("SOAP Fault received", e,
-                                       MssFaultProcessor.processSoapFaultException(e));
-        } catch (Exception e) {
-            throw new MIDFlowException("Error in (sync) Signature operation.", e,
-                                       MssFaultProcessor.processException(e, FailureReason.MID_SERVICE_FAILURE));
-        } finally {
-            if (mssSignatureService != null) {
-                try {
-                    mssSignatureService.clearTrafficObserver();
-                    mssSignatureServicePool.returnObject(mssSignatureService);
-                } catch (Exception e) {
-                    logClient.error("Failed to return MSS Signature Port object back to the pool", e);
+        return metrics.measure(MIDOperation.SYNC_SIGNATURE, ComProtocol.SOAP, exchange -> {
+            logProtocol.info("MSS Signature (sync): Sending request: [{}]", request);
+            long requestBuildingStartTime = System.nanoTime();
+            MSSSignatureReqType mssSignatureReq = MssRequestBuilder.createSignatureReq(config, request, true);
+            exchange.addRequestBuildingTime(System.nanoTime() - requestBuildingStartTime);
+            exchange.setApTransId(mssSignatureReq.getAPInfo().getAPTransID());
+            exchange.setMobileUserMsisdn(request.getMobileUser().getMsisdn());
+            notifyTrafficObserverForApTransId(request.getTrafficObserver(), exchange.getApTransId());
+            MSSSignatureRespType mssSignatureResp;
+            MssService<MSSSignaturePortType> mssSignatureService = null;
+            try {
+                long phaseStartTime = System.nanoTime();
+                mssSignatureService = mssSignatureServicePool.borrowObject();
+                exchange.addPoolLeaseTime(System.nanoTime() - phaseStartTime);
+                phaseStartTime = System.nanoTime();
+                mssSignatureService.registerTrafficObserverForThisRequest(request.getTrafficObserver(), exchange);
+                mssSignatureResp = mssSignatureService.getPort().mssSignature(mssSignatureReq);
+                exchange.addCallTime(phaseStartTime);
+                logClient.info("Received MSS (sync) signature response: [{}]", mssSignatureResp == null ? "null" : "not-null, looks OK");
+            } catch (SOAPFaultException e) {
+                throw new MIDFlowException("SOAP Fault received", e,
+                                           MssFaultProcessor.processSoapFaultException(e));
+            } catch (Exception e) {
+                throw new MIDFlowException("Error in (sync) Signature operation.", e,
+                                           MssFaultProcessor.processException(e, FailureReason.MID_SERVICE_FAILURE));
+            } finally {
+                if (mssSignatureService != null) {
+                    try {
+                        mssSignatureService.clearTrafficObserver();
+                        mssSignatureServicePool.returnObject(mssSignatureService);
+                    } catch (Exception e) {
+                        logClient.error("Failed to return MSS Signature Port object back to the pool", e);
+                    }
                 }
             }
-        }
-        SignatureResponse signatureResponse = MssResponseProcessor.processMssSignatureResponse(mssSignatureResp);
-        signatureResponse.setTracking(MssResponseProcessor.createSignatureTracking(mssSignatureResp, request.getTrafficObserver()));
-        return signatureResponse;
+            long responseMappingStartTime = System.nanoTime();
+            SignatureResponse signatureResponse = MssResponseProcessor.processMssSignatureResponse(mssSignatureResp);
+            signatureResponse.setTracking(MssResponseProcessor.createSignatureTracking(mssSignatureResp, request.getTrafficObserver()));
+            exchange.addResponseMappingTime(System.nanoTime() - responseMappingStartTime);
+            return signatureResponse;
+        }, SignatureResponse::getStatus);
     }
 
     @Override
     public SignatureResponse requestAsyncSignature(SignatureRequest request) {
-        logProtocol.info("MSS Signature (async): Sending request: [{}]", request);
-        MSSSignatureReqType mssSignatureReq = MssRequestBuilder.createSignatureReq(config, request, false);
-        notifyTrafficObserverForApTransId(request.getTrafficObserver(), mssSignatureReq.getAPInfo().getAPTransID());
-        MSSSignatureRespType mssSignatureResp;
-        MssService<MSSSignaturePortType> mssSignatureService = null;
-        try {
-            mssSignatureService = mssSignatureServicePool.borrowObject();
-            mssSignatureService.registerTrafficObserverForThisRequest(request.getTrafficObserver());
-            mssSignatureResp = mssSignatureService.getPort().mssSignature(mssSignatureReq);
-            logClient.info("Received MSS (async) signature response: [{}]", mssSignatureResp == null ? "null" : "not-null, looks OK");
-        } catch (SOAPFaultException e) {
-            throw new MIDFlowException("SOAP Fault received", e,
-                                       MssFaultProcessor.processSoapFaultException(e));
-        } catch (Exception e) {
-            throw new MIDFlowException("Error in (async) Signature operation.", e,
-                                       MssFaultProcessor.processException(e, FailureReason.MID_SERVICE_FAILURE));
-        } finally {
-            if (mssSignatureService != null) {
-                try {
-                    mssSignatureService.clearTrafficObserver();
-                    mssSignatureServicePool.returnObject(mssSignatureService);
-                } catch (Exception e) {
-                    logClient.error("Failed to return MSS Signature Port object back to the pool", e);
+        return metrics.measure(MIDOperation.ASYNC_SIGNATURE, ComProtocol.SOAP, exchange -> {
+            logProtocol.info("MSS Signature (async): Sending request: [{}]", request);
+            long requestBuildingStartTime = System.nanoTime();
+            MSSSignatureReqType mssSignatureReq = MssRequestBuilder.createSignatureReq(config, request, false);
+            exchange.addRequestBuildingTime(System.nanoTime() - requestBuildingStartTime);
+            exchange.setApTransId(mssSignatureReq.getAPInfo().getAPTransID());
+            exchange.setMobileUserMsisdn(request.getMobileUser().getMsisdn());
+            notifyTrafficObserverForApTransId(request.getTrafficObserver(), exchange.getApTransId());
+            MSSSignatureRespType mssSignatureResp;
+            MssService<MSSSignaturePortType> mssSignatureService = null;
+            try {
+                long phaseStartTime = System.nanoTime();
+                mssSignatureService = mssSignatureServicePool.borrowObject();
+                exchange.addPoolLeaseTime(System.nanoTime() - phaseStartTime);
+                phaseStartTime = System.nanoTime();
+                mssSignatureService.registerTrafficObserverForThisRequest(request.getTrafficObserver(), exchange);
+                mssSignatureResp = mssSignatureService.getPort().mssSignature(mssSignatureReq);
+                exchange.addCallTime(phaseStartTime);
+                logClient.info("Received MSS (async) signature response: [{}]", mssSignatureResp == null ? "null" : "not-null, looks OK");
+            } catch (SOAPFaultException e) {
+                throw new MIDFlowException("SOAP Fault received", e,
+                                           MssFaultProcessor.processSoapFaultException(e));
+            } catch (Exception e) {
+                throw new MIDFlowException("Error in (async) Signature operation.", e,
+                                           MssFaultProcessor.processException(e, FailureReason.MID_SERVICE_FAILURE));
+            } finally {
+                if (mssSignatureService != null) {
+                    try {
+                        mssSignatureService.clearTrafficObserver();
+                        mssSignatureServicePool.returnObject(mssSignatureService);
+                    } catch (Exception e) {
+                        logClient.error("Failed to return MSS Signature Port object back to the pool", e);
+                    }
                 }
             }
-        }
-        SignatureResponse signatureResponse = MssResponseProcessor.processMssSignatureResponse(mssSignatureResp);
-        signatureResponse.setTracking(MssResponseProcessor.createSignatureTracking(mssSignatureResp, request.getTrafficObserver()));
-        return signatureResponse;
+            long responseMappingStartTime = System.nanoTime();
+            SignatureResponse signatureResponse = MssResponseProcessor.processMssSignatureResponse(mssSignatureResp);
+            signatureResponse.setTracking(MssResponseProcessor.createSignatureTracking(mssSignatureResp, request.getTrafficObserver()));
+            exchange.addResponseMappingTime(System.nanoTime() - responseMappingStartTime);
+            return signatureResponse;
+        }, SignatureResponse::getStatus);
     }
 
     @Override
     public SignatureResponse pollForSignatureStatus(SignatureTracking signatureTracking) {
-        logProtocol.info("MSS Status Query: Sending request for signature tracking object: [{}]", signatureTracking);
-        MSSStatusReqType mssStatusReqType = MssRequestBuilder.createStatusQueryReq(config, signatureTracking);
-        notifyTrafficObserverForApTransId(signatureTracking.getTrafficObserver(), mssStatusReqType.getAPInfo().getAPTransID());
-        MSSStatusRespType mssStatusRespType;
-        MssService<MSSStatusQueryType> mssStatusQueryService = null;
-        try {
-            mssStatusQueryService = mssStatusQueryServicePool.borrowObject();
-            mssStatusQueryService.registerTrafficObserverForThisRequest(signatureTracking.getTrafficObserver());
-            mssStatusRespType = mssStatusQueryService.getPort().mssStatusQuery(mssStatusReqType);
-            logClient.info("Received MSS Status Query response: [{}]", mssStatusRespType == null ? "null" : "not-null, looks OK");
-        } catch (SOAPFaultException e) {
-            throw new MIDFlowException("SOAP Fault received", e,
-                                       MssFaultProcessor.processSoapFaultException(e));
-        } catch (Exception e) {
-            throw new MIDFlowException("Error in Status Query operation.", e,
-                                       MssFaultProcessor.processException(e, FailureReason.MID_SERVICE_FAILURE));
-        } finally {
-            if (mssStatusQueryService != null) {
-                try {
-                    mssStatusQueryService.clearTrafficObserver();
-                    mssStatusQueryServicePool.returnObject(mssStatusQueryService);
-                } catch (Exception e) {
-                    logClient.error("Failed to return MSS Status Query object back to the pool", e);
+        return metrics.measure(MIDOperation.STATUS_QUERY, ComProtocol.SOAP, exchange -> {
+            logProtocol.info("MSS Status Query: Sending request for signature tracking object: [{}]", signatureTracking);
+            long requestBuildingStartTime = System.nanoTime();
+            MSSStatusReqType mssStatusReqType = MssRequestBuilder.createStatusQueryReq(config, signatureTracking);
+            exchange.addRequestBuildingTime(System.nanoTime() - requestBuildingStartTime);
+            exchange.setApTransId(mssStatusReqType.getAPInfo().getAPTransID());
+            exchange.setMobileUserMsisdn(signatureTracking.getMobileUserMsisdn());
+            notifyTrafficObserverForApTransId(signatureTracking.getTrafficObserver(), exchange.getApTransId());
+            MSSStatusRespType mssStatusRespType;
+            MssService<MSSStatusQueryType> mssStatusQueryService = null;
+            try {
+                long phaseStartTime = System.nanoTime();
+                mssStatusQueryService = mssStatusQueryServicePool.borrowObject();
+                exchange.addPoolLeaseTime(System.nanoTime() - phaseStartTime);
+                phaseStartTime = System.nanoTime();
+                mssStatusQueryService.registerTrafficObserverForThisRequest(signatureTracking.getTrafficObserver(), exchange);
+                mssStatusRespType = mssStatusQueryService.getPort().mssStatusQuery(mssStatusReqType);
+                exchange.addCallTime(phaseStartTime);
+                logClient.info("Received MSS Status Query response: [{}]", mssStatusRespType == null ? "null" : "not-null, looks OK");
+            } catch (SOAPFaultException e) {
+                throw new MIDFlowException("SOAP Fault received", e,
+                                           MssFaultProcessor.processSoapFaultException(e));
+            } catch (Exception e) {
+                throw new MIDFlowException("Error in Status Query operation.", e,
+                                           MssFaultProcessor.processException(e, FailureReason.MID_SERVICE_FAILURE));
+            } finally {
+                if (mssStatusQueryService != null) {
+                    try {
+                        mssStatusQueryService.clearTrafficObserver();
+                        mssStatusQueryServicePool.returnObject(mssStatusQueryService);
+                    } catch (Exception e) {
+                        logClient.error("Failed to return MSS Status Query object back to the pool", e);
+                    }
                 }
             }
-        }
-        return MssResponseProcessor.processStatusQueryResponse(mssStatusRespType, signatureTracking);
+            long responseMappingStartTime = System.nanoTime();
+            SignatureResponse response = MssResponseProcessor.processStatusQueryResponse(mssStatusRespType, signatureTracking);
+            exchange.addResponseMappingTime(System.nanoTime() - responseMappingStartTime);
+            return response;
+        }, SignatureResponse::getStatus);
     }
 
     @Override
     public ReceiptResponse requestSyncReceipt(SignatureTracking signatureTracking, ReceiptRequest request) {
-        logProtocol.info("MSS Receipt (sync): Sending request: [{}]", request);
-        MSSReceiptReqType mssReceiptReq = MssRequestBuilder.createReceiptReq(config, signatureTracking, request);
-        notifyTrafficObserverForApTransId(request.getTrafficObserver(), mssReceiptReq.getAPInfo().getAPTransID());
-        MSSReceiptRespType mssReceiptResp;
-        MssService<MSSReceiptType> mssReceiptService = null;
-        try {
-            mssReceiptService = mssReceiptServicePool.borrowObject();
-            mssReceiptService.registerTrafficObserverForThisRequest(request.getTrafficObserver());
-            mssReceiptResp = mssReceiptService.getPort().mssReceipt(mssReceiptReq);
-            logClient.info("Received MSS Receipt response: [{}]", mssReceiptResp == null ? "null" : "not-null, looks OK");
-        } catch (SOAPFaultException e) {
-            throw new MIDFlowException("SOAP Fault received", e,
-                                       MssFaultProcessor.processSoapFaultException(e));
-        } catch (Exception e) {
-            throw new MIDFlowException("Error in MSS Receipt operation.", e,
-                                       MssFaultProcessor.processException(e, FailureReason.MID_SERVICE_FAILURE));
-        } finally {
-            if (mssReceiptService != null) {
-                try {
-                    mssReceiptService.clearTrafficObserver();
-                    mssReceiptServicePool.returnObject(mssReceiptService);
-                } catch (Exception e) {
-                    logClient.error("Failed to return MSS Receipt Port object back to the pool", e);
+        return metrics.measure(MIDOperation.RECEIPT, ComProtocol.SOAP, exchange -> {
+            logProtocol.info("MSS Receipt (sync): Sending request: [{}]", request);
+            long requestBuildingStartTime = System.nanoTime();
+            MSSReceiptReqType mssReceiptReq = MssRequestBuilder.createReceiptReq(config, signatureTracking, request);
+            exchange.addRequestBuildingTime(System.nanoTime() - requestBuildingStartTime);
+            exchange.setApTransId(mssReceiptReq.getAPInfo().getAPTransID());
+            exchange.setMobileUserMsisdn(signatureTracking.getMobileUserMsisdn());
+            notifyTrafficObserverForApTransId(request.getTrafficObserver(), exchange.getApTransId());
+            MSSReceiptRespType mssReceiptResp;
+            MssService<MSSReceiptType> mssReceiptService = null;
+            try {
+                long phaseStartTime = System.nanoTime();
+                mssReceiptService = mssReceiptServicePool.borrowObject();
+                exchange.addPoolLeaseTime(System.nanoTime() - phaseStartTime);
+                phaseStartTime = System.nanoTime();
+                mssReceiptService.registerTrafficObserverForThisRequest(request.getTrafficObserver(), exchange);
+                mssReceiptResp = mssReceiptService.getPort().mssReceipt(mssReceiptReq);
+                exchange.addCallTime(phaseStartTime);
+                logClient.info("Received MSS Receipt response: [{}]", mssReceiptResp == null ? "null" : "not-null, looks OK");
+            } catch (SOAPFaultException e) {
+                throw new MIDFlowException("SOAP Fault received", e,
+                                           MssFaultProcessor.processSoapFaultException(e));
+            } catch (Exception e) {
+                throw new MIDFlowException("Error in MSS Receipt operation.", e,
+                                           MssFaultProcessor.processException(e, FailureReason.MID_SERVICE_FAILURE));
+            } finally {
+                if (mssReceiptService != null) {
+                    try {
+                        mssReceiptService.clearTrafficObserver();
+                        mssReceiptServicePool.returnObject(mssReceiptService);
+                    } catch (Exception e) {
+                        logClient.error("Failed to return MSS Receipt Port object back to the pool", e);
+                    }
                 }
             }
-        }
-        return MssResponseProcessor.processReceiptResponse(mssReceiptResp);
+            long responseMappingStartTime = System.nanoTime();
+            ReceiptResponse response = MssResponseProcessor.processReceiptResponse(mssReceiptResp);
+            exchange.addResponseMappingTime(System.nanoTime() - responseMappingStartTime);
+            return response;
+        }, ReceiptResponse::getStatus);
     }
 
     @Override
     public ProfileResponse requestProfile(ProfileRequest request) {
-        logProtocol.info("MSS Profile Query: Sending request: [{}]", request);
-        MSSProfileReqType mssProfileReq = MssRequestBuilder.createProfileReq(config, request);
-        notifyTrafficObserverForApTransId(request.getTrafficObserver(), mssProfileReq.getAPInfo().getAPTransID());
-        MSSProfileRespType mssProfileResp;
-        MssService<MSSProfileQueryType> mssProfileQueryService = null;
-        try {
-            mssProfileQueryService = mssProfileQueryServicePool.borrowObject();
-            mssProfileQueryService.registerTrafficObserverForThisRequest(request.getTrafficObserver());
-            mssProfileResp = mssProfileQueryService.getPort().mssProfileQuery(mssProfileReq);
-            logClient.info("Received MSS Profile Query response: [{}]", mssProfileResp == null ? "null" : "not-null, looks OK");
-        } catch (SOAPFaultException e) {
-            throw new MIDFlowException("SOAP Fault received", e, MssFaultProcessor.processSoapFaultException(e));
-        } catch (Exception e) {
-            throw new MIDFlowException("Error in Profile Query operation.", e,
-                                       MssFaultProcessor.processException(e, FailureReason.MID_SERVICE_FAILURE));
-        } finally {
-            if (mssProfileQueryService != null) {
-                try {
-                    mssProfileQueryService.clearTrafficObserver();
-                    mssProfileQueryServicePool.returnObject(mssProfileQueryService);
-                } catch (Exception e) {
-                    logClient.error("Failed to return MSS Profile Query Port object back to the pool", e);
+        return metrics.measure(MIDOperation.PROFILE_QUERY, ComProtocol.SOAP, exchange -> {
+            logProtocol.info("MSS Profile Query: Sending request: [{}]", request);
+            long requestBuildingStartTime = System.nanoTime();
+            MSSProfileReqType mssProfileReq = MssRequestBuilder.createProfileReq(config, request);
+            exchange.addRequestBuildingTime(System.nanoTime() - requestBuildingStartTime);
+            exchange.setApTransId(mssProfileReq.getAPInfo().getAPTransID());
+            exchange.setMobileUserMsisdn(request.getMobileUser().getMsisdn());
+            notifyTrafficObserverForApTransId(request.getTrafficObserver(), exchange.getApTransId());
+            MSSProfileRespType mssProfileResp;
+            MssService<MSSProfileQueryType> mssProfileQueryService = null;
+            try {
+                long phaseStartTime = System.nanoTime();
+                mssProfileQueryService = mssProfileQueryServicePool.borrowObject();
+                exchange.addPoolLeaseTime(System.nanoTime() - phaseStartTime);
+                phaseStartTime = System.nanoTime();
+                mssProfileQueryService.registerTrafficObserverForThisRequest(request.getTrafficObserver(), exchange);
+                mssProfileResp = mssProfileQueryService.getPort().mssProfileQuery(mssProfileReq);
+                exchange.addCallTime(phaseStartTime);
+                logClient.info("Received MSS Profile Query response: [{}]", mssProfileResp == null ? "null" : "not-null, looks OK");
+            } catch (SOAPFaultException e) {
+                throw new MIDFlowException("SOAP Fault received", e, MssFaultProcessor.processSoapFaultException(e));
+            } catch (Exception e) {
+                throw new MIDFlowException("Error in Profile Query operation.", e,
+                                           MssFaultProcessor.processException(e, FailureReason.MID_SERVICE_FAILURE));
+            } finally {
+                if (mssProfileQueryService != null) {
+                    try {
+                        mssProfileQueryService.clearTrafficObserver();
+                        mssProfileQueryServicePool.returnObject(mssProfileQueryService);
+                    } catch (Exception e) {
+                        logClient.error("Failed to return MSS Profile Query Port object back to the pool", e);
+                    }
                 }
             }
+            long responseMappingStartTime = System.nanoTime();
+            ProfileResponse response = MssResponseProcessor.processMssProfileQueryResponse(mssProfileResp, request.getProjection());
+            exchange.addResponseMappingTime(System.nanoTime() - responseMappingStartTime);
+            return response;
+        }, response -> null);
+    }
+
+    @Override
+    public List<ConnectionPoolStats> getConnectionPoolStats() {
+        List<ConnectionPoolStats> result = new ArrayList<>();
+        if (mssSignatureServicePool != null) {
+            result.add(createPoolStats("SOAP MSS Signature ports", mssSignatureServicePool));
+            result.add(createPoolStats("SOAP MSS Status Query ports", mssStatusQueryServicePool));
+            result.add(createPoolStats("SOAP MSS Receipt ports", mssReceiptServicePool));
+            result.add(createPoolStats("SOAP MSS Profile Query ports", mssProfileQueryServicePool));
         }
-        return MssResponseProcessor.processMssProfileQueryResponse(mssProfileResp);
+        return result;
     }
 
     // ----------------------------------------------------------------------------------------------------
 
+    private ConnectionPoolStats createPoolStats(String poolName, GenericObjectPool<?> pool) {
+        return new ConnectionPoolStats(poolName, pool.getNumActive(), pool.getNumIdle(), pool.getNumWaiters(), pool.getMaxTotal());
+    }
+
     private void notifyTrafficObserverForApTransId(TrafficObserver trafficObserver, String apTransId) {
         if (trafficObserver == null) {
             return;
@@ -16,6 +16,7 @@
 package ch.swisscom.mid.client.soap;
 
 import ch.swisscom.mid.client.config.TrafficObserver;
+import ch.swisscom.mid.client.metrics.MssExchange;
 
 public class MssService<PortType> {
 
@@ -34,12 +35,14 @@ public class MssService<PortType> {
         return port;
     }
 
-    public void registerTrafficObserverForThisRequest(TrafficObserver trafficObserver) {
+    public void registerTrafficObserverForThisRequest(TrafficObserver trafficObserver, MssExchange exchange) {
         trafficHandler.setTrafficObserver(trafficObserver);
+        trafficHandler.setExchange(exchange);
     }
 
     public void clearTrafficObserver() {
         trafficHandler.setTrafficObserver(null);
+        trafficHandler.setExchange(null);
     }
 
 }
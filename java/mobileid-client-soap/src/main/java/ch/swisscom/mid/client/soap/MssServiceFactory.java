@@ -41,9 +41,12 @@ import javax.xml.ws.handler.Handler;
 
 import ch.swisscom.mid.client.MIDClientException;
 import ch.swisscom.mid.client.config.ClientConfiguration;
+import ch.swisscom.mid.client.config.ComProtocol;
 import ch.swisscom.mid.client.config.ConfigurationException;
 import ch.swisscom.mid.client.config.TlsConfiguration;
 import ch.swisscom.mid.client.impl.Loggers;
+import ch.swisscom.mid.client.jfr.FlightRecorderSupport;
+import ch.swisscom.mid.client.jfr.OperationRecording;
 
 public class MssServiceFactory<PortType> extends BasePooledObjectFactory<MssService<PortType>> {
 
@@ -94,7 +97,10 @@ public class MssServiceFactory<PortType> extends BasePooledObjectFactory<MssServ
 
     @Override
     public MssService<PortType> create() {
-        return createMssService();
+        try (OperationRecording ignored = FlightRecorderSupport.beginSoapPortCreation(portTypeClass.getSimpleName(),
+                                                                                      serviceUrlSupplier.get())) {
+            return createMssService();
+        }
     }
 
     @Override
@@ -173,8 +179,8 @@ public class MssServiceFactory<PortType> extends BasePooledObjectFactory<MssServ
         TlsConfiguration tlsConfig = config.getTls();
         logTlsConfiguration(tlsConfig);
 
-        try {
-            SSLContext sslContext = SSLContext.getInstance("SSLv3");
+        try (OperationRecording ignored = FlightRecorderSupport.beginTlsContextCreation(ComProtocol.SOAP)) {
+            SSLContext sslContext = SSLContext.getInstance("TLS");
             KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
 
             keyManagerFactory.init(produceAKeyStore(tlsConfig), tlsConfig.getKeyStoreKeyPassword().toCharArray());
@@ -37,10 +37,13 @@ import ch.swisscom.mid.client.config.RequestTrace;
 import ch.swisscom.mid.client.config.ResponseTrace;
 import ch.swisscom.mid.client.config.TrafficObserver;
 import ch.swisscom.mid.client.impl.Loggers;
+import ch.swisscom.mid.client.metrics.MssExchange;
 import ch.swisscom.mid.client.utils.Utils;
 
 /**
- * SOAPHandler used to log the contents of incoming and outgoing messages.
+ * SOAPHandler used to log the contents of incoming and outgoing messages. It also marks, on the exchange of the current
+ * request, the moments the request leaves and the response arrives, so that the port call can be split into the
+ * serialization, network and parsing phases (see {@link MssExchange#addCallTime(long)}).
  */
 public class SoapTrafficHandler implements SOAPHandler<SOAPMessageContext> {
 
@@ -49,6 +52,7 @@ public class SoapTrafficHandler implements SOAPHandler<SOAPMessageContext> {
     private static final Logger logFullRequestResponse = LoggerFactory.getLogger(Loggers.LOGGER_FULL_REQUEST_RESPONSE);
 
     private TrafficObserver trafficObserver;
+    private MssExchange exchange;
 
     // ----------------------------------------------------------------------------------------------------
 
@@ -56,6 +60,14 @@ public class SoapTrafficHandler implements SOAPHandler<SOAPMessageContext> {
         this.trafficObserver = trafficObserver;
     }
 
+    /**
+     * Sets the exchange that receives the request and response messages of the current request (e.g. for the traffic
+     * recorder).
+     */
+    public void setExchange(MssExchange exchange) {
+        this.exchange = exchange;
+    }
+
     // ----------------------------------------------------------------------------------------------------
 
     public Set<QName> getHeaders() {
@@ -64,6 +76,9 @@ public class SoapTrafficHandler implements SOAPHandler<SOAPMessageContext> {
 
     public boolean handleMessage(SOAPMessageContext smc) {
         boolean isRequestMessage = (Boolean) smc.get(MessageContext.MESSAGE_OUTBOUND_PROPERTY);
+        if (!isRequestMessage && exchange != null) {
+            exchange.markResponseReceived();
+        }
         String soapMessageString = serializeSoapMessageToString(smc);
         if (isRequestMessage) {
             if (logRequestResponse.isInfoEnabled()) {
@@ -82,6 +97,13 @@ public class SoapTrafficHandler implements SOAPHandler<SOAPMessageContext> {
             }
         }
 
+        if (exchange != null) {
+            if (isRequestMessage) {
+                exchange.setRequestBody(soapMessageString);
+            } else {
+                exchange.setResponseBody(soapMessageString);
+            }
+        }
         if (trafficObserver != null) {
             if (isRequestMessage) {
                 trafficObserver.notifyOfOutgoingRequest(new RequestTrace(soapMessageString), ComProtocol.SOAP);
@@ -90,12 +112,22 @@ public class SoapTrafficHandler implements SOAPHandler<SOAPMessageContext> {
                 trafficObserver.notifyOfIncomingResponse(new ResponseTrace(httpCode, "-", soapMessageString), ComProtocol.SOAP);
             }
         }
+        if (isRequestMessage && exchange != null) {
+            // the request is serialized (and logged); from here on, the time goes to the network
+            exchange.markRequestSent();
+        }
         return true;
     }
 
     public boolean handleFault(SOAPMessageContext smc) {
+        if (exchange != null) {
+            exchange.markResponseReceived();
+        }
         String soapMessageString = serializeSoapMessageToString(smc);
         logRequestResponse.info("Received SOAP fault:\n{}", soapMessageString);
+        if (exchange != null) {
+            exchange.setResponseBody(soapMessageString);
+        }
 
         if (trafficObserver != null) {
             int httpCode = (Integer) smc.get(MessageContext.HTTP_RESPONSE_CODE);
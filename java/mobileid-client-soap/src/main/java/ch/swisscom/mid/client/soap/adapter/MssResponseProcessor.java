@@ -24,6 +24,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
@@ -71,8 +72,17 @@ public class MssResponseProcessor {
 
 
     public static ProfileResponse processMssProfileQueryResponse(MSSProfileRespType mssResponse) {
+        return processMssProfileQueryResponse(mssResponse, null);
+    }
+
+    /**
+     * Maps the given profile query response, skipping the parts that are not in the given projection (NULL for
+     * mapping everything; see {@link ch.swisscom.mid.client.model.ProfileRequest#setProjection(ProfileField...)}).
+     */
+    public static ProfileResponse processMssProfileQueryResponse(MSSProfileRespType mssResponse,
+                                                                 Set<ProfileField> projection) {
         ProfileResponse response = new ProfileResponse();
-        if (mssResponse.getSignatureProfile() != null) {
+        if (mssResponse.getSignatureProfile() != null && ProfileField.SIGNATURE_PROFILES.isIncludedIn(projection)) {
             response.setSignatureProfiles(
                 mssResponse.getSignatureProfile().stream().map(MssURIType::getMssURI).collect(Collectors.toList()));
         }
@@ -85,7 +95,7 @@ public class MssResponseProcessor {
                 .getRegistrationOutputOrEncryptedRegistrationOutputOrEncryptionCertificates();
             if (profileQueryExtensions.size() == 1) {
                 ProfileQueryExtension mssPQExt = (ProfileQueryExtension) profileQueryExtensions.get(0);
-                if (mssPQExt.getMobileUser() != null) {
+                if (mssPQExt.getMobileUser() != null && ProfileField.MOBILE_USER.isIncludedIn(projection)) {
                     ProfileMobileUserInfo mobileUserInfo = new ProfileMobileUserInfo();
                     MobileUserType mssPQMobileUser = mssPQExt.getMobileUser();
                     if (mssPQMobileUser != null) {
@@ -95,7 +105,7 @@ public class MssResponseProcessor {
                     }
                     response.setMobileUser(mobileUserInfo);
                 }
-                if (mssPQExt.getSscds() != null) {
+                if (mssPQExt.getSscds() != null && isAnyDeviceFieldIncludedIn(projection)) {
                     response.setSimDevices(new ArrayList<>());
                     response.setAppDevices(new ArrayList<>());
                     SscdListType mssSscds = mssPQExt.getSscds();
@@ -103,14 +113,16 @@ public class MssResponseProcessor {
                         SscdType mssSim = mssSscds.getSim();
                         response.getSimDevices().add(processDeviceInfo(mssSim::getState,
                                                                        mssSim::getPinStatus,
-                                                                       mssSim::getMobileUserCertificate));
+                                                                       mssSim::getMobileUserCertificate,
+                                                                       projection));
                     }
                     if (mssSscds.getApp() != null && mssSscds.getApp().size() > 0) {
                         List<SscdType> mssAppList = mssSscds.getApp();
                         for (SscdType mssApp : mssAppList) {
                             response.getAppDevices().add(processDeviceInfo(mssApp::getState,
                                                                            mssApp::getPinStatus,
-                                                                           mssApp::getMobileUserCertificate));
+                                                                           mssApp::getMobileUserCertificate,
+                                                                           projection));
                         }
                     }
                 }
@@ -259,16 +271,24 @@ public class MssResponseProcessor {
         return status;
     }
 
+    private static boolean isAnyDeviceFieldIncludedIn(Set<ProfileField> projection) {
+        return ProfileField.DEVICE_STATE.isIncludedIn(projection) ||
+               ProfileField.PIN_STATE.isIncludedIn(projection) ||
+               ProfileField.CERTIFICATES.isIncludedIn(projection);
+    }
+
     @SuppressWarnings("unchecked")
     private static ProfileDeviceInfo processDeviceInfo(Supplier<String> stateSupplier,
                                                        Supplier<PinStatusType> pinStatusSupplier,
-                                                       Supplier<List<CertificateType>> certificateListSupplier) {
+                                                       Supplier<List<CertificateType>> certificateListSupplier,
+                                                       Set<ProfileField> projection) {
         ProfileDeviceInfo deviceInfo = new ProfileDeviceInfo();
         deviceInfo.setState(ProfileDeviceState.getByStateString(stateSupplier.get()));
-        if (pinStatusSupplier.get() != null) {
+        if (pinStatusSupplier.get() != null && ProfileField.PIN_STATE.isIncludedIn(projection)) {
             deviceInfo.setPinState(ProfileDevicePinState.getByPinBlockedBooleanValue(pinStatusSupplier.get().isBlocked()));
         }
-        if (certificateListSupplier.get() != null && certificateListSupplier.get().size() > 0) {
+        if (certificateListSupplier.get() != null && certificateListSupplier.get().size() > 0 &&
+            ProfileField.CERTIFICATES.isIncludedIn(projection)) {
             deviceInfo.setCertificates(new ArrayList<>());
             for (CertificateType mssCert : certificateListSupplier.get()) {
                 ProfileMobileUserCertificate cert = new ProfileMobileUserCertificate();
@@ -286,14 +306,15 @@ public class MssResponseProcessor {
                     cert.setUserCertificate(certificateData);
                     List<CertificateData> caCertificates = new ArrayList<>();
                     if (mssCertElementList.size() > 2) {
+                        // the CA certificates are the same for all the users, so they are shared between all the responses
                         for (int index = 2; index < mssCertElementList.size(); index += 2) {
-                            certificateData = new CertificateData();
-                            certificateData.setCertificateAsBase64(
-                                Base64.getEncoder().encodeToString(((JAXBElement<byte[]>) mssCertElementList.get(0)).getValue()));
+                            String subjectName = null;
                             if (index + 1 < mssCertElementList.size()) {
-                                certificateData.setSubjectName(((JAXBElement<String>) mssCertElementList.get(index + 1)).getValue());
+                                subjectName = ((JAXBElement<String>) mssCertElementList.get(index + 1)).getValue();
                             }
-                            caCertificates.add(certificateData);
+                            caCertificates.add(CertificateData.internCaCertificate(
+                                subjectName,
+                                Base64.getEncoder().encodeToString(((JAXBElement<byte[]>) mssCertElementList.get(index)).getValue())));
                         }
                     }
                     cert.setCaCertificates(caCertificates);
@@ -22,9 +22,13 @@ import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
-import ch.swisscom.mid.client.MIDClient;
+import java.util.ArrayList;
+import java.util.List;
+
 import ch.swisscom.mid.client.config.DefaultConfiguration;
 import ch.swisscom.mid.client.impl.MIDClientImpl;
+import ch.swisscom.mid.client.metrics.MetricsRegistry;
+import ch.swisscom.mid.client.metrics.MssExchange;
 import ch.swisscom.mid.client.model.ProfileRequest;
 import ch.swisscom.mid.client.model.ProfileResponse;
 import ch.swisscom.mid.client.model.SignatureProfiles;
@@ -38,11 +42,13 @@ import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
 
 public class ProfileQueryTest {
 
     private static WireMockServer server;
-    private static MIDClient client;
+    private static MIDClientImpl client;
 
     @BeforeAll
     public static void setUpThisClass() {
@@ -79,4 +85,33 @@ public class ProfileQueryTest {
         assertResponseTo(response, "/samples/soap-response-profile-query-expected.json");
     }
 
+    @Test
+    public void testProfileQuery_phaseTimings() {
+        server.stubFor(
+            post(urlEqualTo(DefaultConfiguration.SOAP_PROFILE_QUERY_PORT_SUB_URL))
+                .willReturn(
+                    aResponse()
+                        .withHeader("Content-Type", TestData.CONTENT_TYPE_SOAP_XML)
+                        .withBody(fileToString("/samples/soap-response-profile-query.xml"))));
+
+        ProfileRequest request = new ProfileRequest();
+        request.getMobileUser().setMsisdn(TestData.MSISDN);
+        request.setExtensionParamsToAllValues();
+
+        List<MssExchange> exchanges = new ArrayList<>();
+        MetricsRegistry registry = exchanges::add;
+        client.getMetrics().addRegistry(registry);
+        try {
+            client.requestProfile(request);
+        } finally {
+            client.getMetrics().removeRegistry(registry);
+        }
+
+        // the port call is split at the moments the SOAP handler saw the request leave and the response arrive
+        assertThat(exchanges.size(), is(1));
+        assertThat(exchanges.get(0).getSerializationTimeInNanos(), is(greaterThan(0L)));
+        assertThat(exchanges.get(0).getNetworkTimeInNanos(), is(greaterThan(0L)));
+        assertThat(exchanges.get(0).getParsingTimeInNanos(), is(greaterThan(0L)));
+    }
+
 }
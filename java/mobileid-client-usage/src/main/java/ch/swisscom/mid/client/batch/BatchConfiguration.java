@@ -0,0 +1,137 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.batch;
+
+import static ch.swisscom.mid.client.utils.Utils.configNotNull;
+import static ch.swisscom.mid.client.utils.Utils.configTrue;
+
+/**
+ * Configuration for a run of the {@link BatchRunner}.
+ */
+public class BatchConfiguration {
+
+    private BatchOperation operation = BatchOperation.PROFILE_QUERY;
+    private int parallelism = 16;
+    private double ratePerSecond = 0;
+    private boolean sendReceipts = false;
+    private int pollIntervalInMs = 5000;
+    private String language = "en";
+    private String defaultDtbs = "Test: Please sign this document";
+    private String receiptMessage = "Document was signed successfully";
+
+    public BatchOperation getOperation() {
+        return operation;
+    }
+
+    public void setOperation(BatchOperation operation) {
+        this.operation = operation;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets the maximum number of items that are processed at the same time. The input is read only as fast as the items
+     * complete, so a large input file is never loaded in memory.
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public double getRatePerSecond() {
+        return ratePerSecond;
+    }
+
+    /**
+     * Sets the maximum number of items started per second. Use 0 (the default) for no limit other than the parallelism.
+     */
+    public void setRatePerSecond(double ratePerSecond) {
+        this.ratePerSecond = ratePerSecond;
+    }
+
+    public boolean isSendReceipts() {
+        return sendReceipts;
+    }
+
+    public void setSendReceipts(boolean sendReceipts) {
+        this.sendReceipts = sendReceipts;
+    }
+
+    public int getPollIntervalInMs() {
+        return pollIntervalInMs;
+    }
+
+    public void setPollIntervalInMs(int pollIntervalInMs) {
+        this.pollIntervalInMs = pollIntervalInMs;
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    public void setLanguage(String language) {
+        this.language = language;
+    }
+
+    public String getDefaultDtbs() {
+        return defaultDtbs;
+    }
+
+    /**
+     * Sets the data to be signed for the input lines that do not carry their own.
+     */
+    public void setDefaultDtbs(String defaultDtbs) {
+        this.defaultDtbs = defaultDtbs;
+    }
+
+    public String getReceiptMessage() {
+        return receiptMessage;
+    }
+
+    public void setReceiptMessage(String receiptMessage) {
+        this.receiptMessage = receiptMessage;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public void validateYourself() {
+        configNotNull(operation, "The batch operation cannot be NULL");
+        configTrue(parallelism > 0, "The batch parallelism must be greater than 0");
+        configTrue(ratePerSecond >= 0, "The batch ratePerSecond cannot be negative");
+        configTrue(pollIntervalInMs > 0, "The batch pollIntervalInMs must be greater than 0");
+        configNotNull(language, "The batch language cannot be NULL");
+        configNotNull(defaultDtbs, "The batch defaultDtbs cannot be NULL");
+        configNotNull(receiptMessage, "The batch receiptMessage cannot be NULL");
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    @Override
+    public String toString() {
+        return "BatchConfiguration{" +
+               "operation=" + operation +
+               ", parallelism=" + parallelism +
+               ", ratePerSecond=" + ratePerSecond +
+               ", sendReceipts=" + sendReceipts +
+               ", pollIntervalInMs=" + pollIntervalInMs +
+               ", language='" + language + '\'' +
+               ", defaultDtbs='" + defaultDtbs + '\'' +
+               ", receiptMessage='" + receiptMessage + '\'' +
+               '}';
+    }
+
+}
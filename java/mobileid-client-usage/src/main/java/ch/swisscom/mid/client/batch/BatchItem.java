@@ -0,0 +1,74 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.batch;
+
+/**
+ * One line of the batch input: a MSISDN, optionally followed by a comma and the data to be signed (for the signature
+ * operations). Everything after the first comma is the DTBS, so the DTBS can contain commas itself.
+ */
+public class BatchItem {
+
+    private final int lineNumber;
+    private final String msisdn;
+    private final String dtbs;
+
+    public BatchItem(int lineNumber, String msisdn, String dtbs) {
+        this.lineNumber = lineNumber;
+        this.msisdn = msisdn;
+        this.dtbs = dtbs;
+    }
+
+    /**
+     * Parses one input line. Returns null for the lines that do not carry an item: empty lines and comments (lines
+     * starting with #).
+     */
+    public static BatchItem parse(int lineNumber, String line) {
+        String trimmedLine = line.trim();
+        if (trimmedLine.isEmpty() || trimmedLine.startsWith("#")) {
+            return null;
+        }
+        int commaPos = trimmedLine.indexOf(',');
+        if (commaPos < 0) {
+            return new BatchItem(lineNumber, trimmedLine, null);
+        }
+        String dtbs = trimmedLine.substring(commaPos + 1).trim();
+        return new BatchItem(lineNumber, trimmedLine.substring(0, commaPos).trim(), dtbs.isEmpty() ? null : dtbs);
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    public String getMsisdn() {
+        return msisdn;
+    }
+
+    public String getDtbs() {
+        return dtbs;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchItem{" +
+               "lineNumber=" + lineNumber +
+               ", msisdn='" + msisdn + '\'' +
+               ", dtbs='" + dtbs + '\'' +
+               '}';
+    }
+
+}
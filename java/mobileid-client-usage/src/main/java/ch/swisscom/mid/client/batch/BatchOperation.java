@@ -0,0 +1,39 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.batch;
+
+/**
+ * The operation that the batch runner performs for each MSISDN of its input.
+ */
+public enum BatchOperation {
+
+    /**
+     * A profile query (with all the extension parameters).
+     */
+    PROFILE_QUERY,
+
+    /**
+     * A synchronous signature, followed by a receipt if receipts are enabled and the signature succeeded.
+     */
+    SYNC_SIGNATURE,
+
+    /**
+     * An asynchronous signature, polled until it is no longer outstanding, followed by a receipt if receipts are
+     * enabled and the signature succeeded.
+     */
+    ASYNC_SIGNATURE
+
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.batch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import ch.swisscom.mid.client.MIDClient;
+import ch.swisscom.mid.client.MIDClientException;
+import ch.swisscom.mid.client.MIDFlowException;
+import ch.swisscom.mid.client.model.FailureReason;
+import ch.swisscom.mid.client.model.Fault;
+import ch.swisscom.mid.client.model.ProfileRequest;
+import ch.swisscom.mid.client.model.ReceiptRequest;
+import ch.swisscom.mid.client.model.ReceiptResponse;
+import ch.swisscom.mid.client.model.SignatureProfiles;
+import ch.swisscom.mid.client.model.SignatureRequest;
+import ch.swisscom.mid.client.model.SignatureResponse;
+import ch.swisscom.mid.client.model.StatusCode;
+import ch.swisscom.mid.client.model.SubscriberInfoAdditionalService;
+import ch.swisscom.mid.client.model.UserLanguage;
+
+/**
+ * Runs one operation for each MSISDN of an input (see {@link BatchItem} for the line format), concurrently and over a
+ * single {@link MIDClient}, and writes one JSON object per item to the output (JSON Lines). The results are written in
+ * the order in which the items complete; the <code>line</code> field of each result gives the input line it belongs to.
+ * <p>
+ * Each result is flushed as soon as it is written, so that an interrupted run leaves a complete result for every item
+ * that was processed.
+ */
+public class BatchRunner {
+
+    /**
+     * How long to wait, after the end of the input, for the items that are still in flight.
+     */
+    private static final long DRAIN_TIMEOUT_IN_MINUTES = 10;
+
+    private final MIDClient client;
+    private final BatchConfiguration config;
+    private final ObjectMapper jacksonMapper;
+
+    private final AtomicLong succeededCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+
+    public BatchRunner(MIDClient client, BatchConfiguration config) {
+        config.validateYourself();
+        this.client = client;
+        this.config = config;
+        this.jacksonMapper = new ObjectMapper();
+        this.jacksonMapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public void run(BufferedReader input, Writer output) {
+        AtomicInteger threadCounter = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(config.getParallelism(), runnable -> {
+            Thread thread = new Thread(runnable, "mid-batch-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // one permit per item in flight, so that the input is read only as fast as the items complete
+        Semaphore inFlight = new Semaphore(config.getParallelism());
+        double intervalInNanos = config.getRatePerSecond() > 0 ? TimeUnit.SECONDS.toNanos(1) / config.getRatePerSecond() : 0;
+        long startTime = System.nanoTime();
+        try {
+            String line;
+            int lineNumber = 0;
+            long itemIndex = 0;
+            while ((line = input.readLine()) != null) {
+                lineNumber++;
+                BatchItem item = BatchItem.parse(lineNumber, line);
+                if (item == null) {
+                    continue;
+                }
+                if (intervalInNanos > 0) {
+                    waitUntil(startTime + (long) (itemIndex * intervalInNanos));
+                }
+                itemIndex++;
+                inFlight.acquire();
+                workers.execute(() -> {
+                    try {
+                        writeResult(process(item), output);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+            workers.shutdown();
+            if (!workers.awaitTermination(DRAIN_TIMEOUT_IN_MINUTES, TimeUnit.MINUTES)) {
+                workers.shutdownNow();
+            }
+        } catch (IOException e) {
+            workers.shutdownNow();
+            throw new MIDClientException("Failed to read the batch input", e);
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long getSucceededCount() {
+        return succeededCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private ObjectNode process(BatchItem item) {
+        ObjectNode result = jacksonMapper.createObjectNode();
+        result.put("line", item.getLineNumber());
+        result.put("msisdn", item.getMsisdn());
+        long startTime = System.nanoTime();
+        try {
+            if (config.getOperation() == BatchOperation.PROFILE_QUERY) {
+                ProfileRequest request = new ProfileRequest();
+                request.getMobileUser().setMsisdn(item.getMsisdn());
+                request.setExtensionParamsToAllValues();
+                result.set("response", jacksonMapper.valueToTree(client.requestProfile(request)));
+            } else {
+                SignatureResponse response = requestSignature(item);
+                result.set("response", jacksonMapper.valueToTree(response));
+                if (config.isSendReceipts() && response.getStatus().getStatusCode() == StatusCode.SIGNATURE) {
+                    result.set("receipt", jacksonMapper.valueToTree(requestReceipt(response)));
+                }
+            }
+            result.put("result", "OK");
+            succeededCount.incrementAndGet();
+        } catch (InterruptedException e) {
+            // the run is being shut down; the item is reported as failed and the worker keeps its interrupt status
+            Thread.currentThread().interrupt();
+            putFailure(result, e);
+        } catch (Exception e) {
+            putFailure(result, e);
+        }
+        result.put("durationMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+        return result;
+    }
+
+    private void putFailure(ObjectNode result, Exception e) {
+        result.put("result", "FAILED");
+        Fault fault = e instanceof MIDFlowException ? ((MIDFlowException) e).getFault() : null;
+        if (fault != null) {
+            result.put("failureReason", String.valueOf(fault.getFailureReason()));
+            if (fault.getStatusCode() != null) {
+                result.put("statusCode", fault.getStatusCode().name());
+            }
+            result.put("failureDetail", fault.getFailureDetail());
+        } else {
+            result.put("failureReason", FailureReason.UNKNOWN_FAILURE.name());
+            result.put("failureDetail", e.toString());
+        }
+        failedCount.incrementAndGet();
+    }
+
+    private SignatureResponse requestSignature(BatchItem item) throws InterruptedException {
+        SignatureRequest request = new SignatureRequest();
+        request.setUserLanguage(UserLanguage.getByValue(config.getLanguage()));
+        request.getDataToBeSigned().setData(item.getDtbs() != null ? item.getDtbs() : config.getDefaultDtbs());
+        request.getMobileUser().setMsisdn(item.getMsisdn());
+        request.setSignatureProfile(SignatureProfiles.ANY_LOA4);
+        request.addAdditionalService(new SubscriberInfoAdditionalService());
+
+        if (config.getOperation() == BatchOperation.SYNC_SIGNATURE) {
+            return client.requestSyncSignature(request);
+        }
+        SignatureResponse response = client.requestAsyncSignature(request);
+        while (response.getStatus().getStatusCode() == StatusCode.REQUEST_OK ||
+               response.getStatus().getStatusCode() == StatusCode.OUTSTANDING_TRANSACTION) {
+            //noinspection BusyWait
+            Thread.sleep(config.getPollIntervalInMs());
+            response = client.pollForSignatureStatus(response.getTracking());
+        }
+        return response;
+    }
+
+    private ReceiptResponse requestReceipt(SignatureResponse signatureResponse) {
+        ReceiptRequest request = new ReceiptRequest();
+        request.setStatusCode(StatusCode.REQUEST_OK);
+        request.getMessageToBeDisplayed().setData(config.getReceiptMessage());
+        request.getRequestExtension().getReceiptProfile().setLanguage(config.getLanguage());
+        return client.requestSyncReceipt(signatureResponse.getTracking(), request);
+    }
+
+    private void writeResult(ObjectNode result, Writer output) {
+        try {
+            String json = jacksonMapper.writeValueAsString(result);
+            synchronized (output) {
+                output.write(json);
+                output.write('\n');
+                output.flush();
+            }
+        } catch (IOException e) {
+            throw new MIDClientException("Failed to write the batch result for line " + result.get("line"), e);
+        }
+    }
+
+    private static void waitUntil(long time) throws InterruptedException {
+        long waitTime;
+        while ((waitTime = time - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(waitTime);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+}
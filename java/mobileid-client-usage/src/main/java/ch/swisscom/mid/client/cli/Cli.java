@@ -15,13 +15,25 @@ import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.LoggerContext;
 import ch.swisscom.mid.client.MIDClient;
 import ch.swisscom.mid.client.MIDClientException;
+import ch.swisscom.mid.client.batch.BatchConfiguration;
+import ch.swisscom.mid.client.batch.BatchOperation;
+import ch.swisscom.mid.client.batch.BatchRunner;
 import ch.swisscom.mid.client.config.ClientConfiguration;
+import ch.swisscom.mid.client.config.ComProtocol;
+import ch.swisscom.mid.client.config.ConfigurationException;
 import ch.swisscom.mid.client.config.HttpConfiguration;
 import ch.swisscom.mid.client.config.TlsConfiguration;
 import ch.swisscom.mid.client.config.UrlsConfiguration;
+import ch.swisscom.mid.client.daemon.GatewayConfiguration;
+import ch.swisscom.mid.client.daemon.GatewayDaemon;
 import ch.swisscom.mid.client.impl.Loggers;
 import ch.swisscom.mid.client.impl.MIDClientImpl;
+import ch.swisscom.mid.client.load.LoadConfiguration;
+import ch.swisscom.mid.client.load.LoadGenerator;
+import ch.swisscom.mid.client.load.LoadMode;
 import ch.swisscom.mid.client.model.*;
+import ch.swisscom.mid.client.simulator.MssSimulator;
+import ch.swisscom.mid.client.simulator.SimulatorConfiguration;
 
 import static ch.swisscom.mid.client.samples.Utils.prettyPrintTheException;
 
@@ -35,6 +47,9 @@ import static ch.swisscom.mid.client.samples.Utils.prettyPrintTheException;
  * ./mid-client.sh -sign -sync -msisdn=4071111111111 -lang=en "-dtbs=Please sign this document" -receipt
  * ./mid-client.sh -sign -async -msisdn=4071111111111 -lang=en "-dtbs=Please sign this document" -receipt
  * ./mid-client.sh -sign -async -msisdn 4071111111111 -lang en -dtbs "Please sign this document" -receipt
+ * ./mid-client.sh -profile-query -batch=msisdns.txt -output=results.jsonl -concurrency=32 -rate=100
+ * ./mid-client.sh -daemon -listen=127.0.0.1:8765
+ * ./mid-client.sh -load -simulator -mode=open -rate=50 -duration=60 -mix=sync:20,async:60,profile:20 -compare
  */
 public class Cli {
 
@@ -54,6 +69,21 @@ public class Cli {
     private static final String PARAM_REST = "rest";
     private static final String PARAM_SOAP = "soap";
     private static final String PARAM_HELP = "help";
+    private static final String PARAM_LOAD = "load";
+    private static final String PARAM_MODE = "mode";
+    private static final String PARAM_RATE = "rate";
+    private static final String PARAM_CONCURRENCY = "concurrency";
+    private static final String PARAM_DURATION = "duration";
+    private static final String PARAM_WARMUP = "warmup";
+    private static final String PARAM_MIX = "mix";
+    private static final String PARAM_POLL_INTERVAL = "poll-interval";
+    private static final String PARAM_SIMULATOR = "simulator";
+    private static final String PARAM_THINK_TIME = "think-time";
+    private static final String PARAM_COMPARE = "compare";
+    private static final String PARAM_BATCH = "batch";
+    private static final String PARAM_OUTPUT = "output";
+    private static final String PARAM_DAEMON = "daemon";
+    private static final String PARAM_LISTEN = "listen";
 
     private static final String PARAM_VERBOSE1 = "v";
     private static final String PARAM_VERBOSE2 = "vv";
@@ -62,10 +92,14 @@ public class Cli {
 
     private static final String OPERATION_SIGN = "sign";
     private static final String OPERATION_PROFILE_QUERY = "profile-query";
+    private static final String OPERATION_LOAD = "load";
+    private static final String OPERATION_DAEMON = "daemon";
 
     private static final String INTERFACE_REST = "rest";
     private static final String INTERFACE_SOAP = "soap";
 
+    private static final String ENV_GATEWAY_TOKEN = "MID_GATEWAY_TOKEN";
+
     // ----------------------------------------------------------------------------------------------------
 
     private static ClientVersionProvider versionProvider;
@@ -83,6 +117,17 @@ public class Cli {
     private static String interfaceType;
     private static int verboseLevel;
 
+    private static final LoadConfiguration loadConfig = new LoadConfiguration();
+    private static boolean useSimulator = false;
+    private static long simulatorThinkTimeInMs = -1;
+    private static boolean compareInterfaces = false;
+
+    private static final BatchConfiguration batchConfig = new BatchConfiguration();
+    private static String batchInputFile;
+    private static String batchOutputFile;
+
+    private static final GatewayConfiguration gatewayConfig = new GatewayConfiguration();
+
     public static void main(String[] args) {
         versionProvider = new ClientVersionProvider();
         versionProvider.init();
@@ -94,41 +139,28 @@ public class Cli {
         }
 
         configureLogback();
+        if (batchInputFile != null) {
+            if (batchOutputFile != null) {
+                printStartupParameters();
+            }
+            runBatch();
+            return;
+        }
         printStartupParameters();
+        if (operation.equals(OPERATION_LOAD)) {
+            runLoad();
+            return;
+        }
+        if (operation.equals(OPERATION_DAEMON)) {
+            runDaemon();
+            return;
+        }
         Properties properties = loadConfigProperties();
         PrettyPrintingTrafficObserver prettyPrinterTrafficObserver = new PrettyPrintingTrafficObserver();
         ObjectMapper jacksonMapper = new ObjectMapper();
         jacksonMapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
 
-        ClientConfiguration clientConfig = new ClientConfiguration();
-        clientConfig.setApId(properties.getProperty("client.msspApId"));
-        clientConfig.setApPassword(properties.getProperty("client.msspApPassword"));
-        if (interfaceType.equals(INTERFACE_REST)) {
-            clientConfig.setProtocolToRest();
-            UrlsConfiguration urls = clientConfig.getUrls();
-            urls.setAllServiceUrlsTo(properties.getProperty("server.rest.url"));
-        } else {
-            clientConfig.setProtocolToSoap();
-            UrlsConfiguration urls = clientConfig.getUrls();
-            urls.setSignatureServiceUrl(properties.getProperty("server.soap.signatureUrl"));
-            urls.setStatusQueryServiceUrl(properties.getProperty("server.soap.statusQueryUrl"));
-            urls.setReceiptServiceUrl(properties.getProperty("server.soap.receiptUrl"));
-            urls.setProfileQueryServiceUrl(properties.getProperty("server.soap.profileQueryUrl"));
-        }
-
-        TlsConfiguration tls = clientConfig.getTls();
-        tls.setKeyStoreFile(properties.getProperty("client.keyStore.file"));
-        tls.setKeyStorePassword(properties.getProperty("client.keyStore.password"));
-        tls.setKeyStoreKeyPassword(properties.getProperty("client.keyStore.keyPassword"));
-        tls.setKeyStoreCertificateAlias(properties.getProperty("client.keyStore.certAlias"));
-        tls.setTrustStoreFile(properties.getProperty("server.trustStore.file"));
-        tls.setTrustStorePassword(properties.getProperty("server.trustStore.password"));
-        tls.setHostnameVerification(Boolean.parseBoolean(properties.getProperty("server.hostnameVerification")));
-
-        HttpConfiguration http = clientConfig.getHttp();
-        http.setConnectionTimeoutInMs(Integer.parseInt(properties.getProperty("client.http.connectionTimeoutInSeconds")) * 1000);
-        http.setResponseTimeoutInMs(Integer.parseInt(properties.getProperty("client.http.responseTimeoutInSeconds")) * 1000);
-
+        ClientConfiguration clientConfig = buildClientConfiguration(properties, interfaceType);
         String finalResult = null;
 
         try (MIDClient midClient = new MIDClientImpl(clientConfig)) {
@@ -191,6 +223,177 @@ public class Cli {
 
     // ----------------------------------------------------------------------------------------------------
 
+    private static ClientConfiguration buildClientConfiguration(Properties properties, String interfaceType) {
+        ClientConfiguration clientConfig = new ClientConfiguration();
+        clientConfig.setApId(properties.getProperty("client.msspApId"));
+        clientConfig.setApPassword(properties.getProperty("client.msspApPassword"));
+        if (interfaceType.equals(INTERFACE_REST)) {
+            clientConfig.setProtocolToRest();
+            UrlsConfiguration urls = clientConfig.getUrls();
+            urls.setAllServiceUrlsTo(properties.getProperty("server.rest.url"));
+        } else {
+            clientConfig.setProtocolToSoap();
+            UrlsConfiguration urls = clientConfig.getUrls();
+            urls.setSignatureServiceUrl(properties.getProperty("server.soap.signatureUrl"));
+            urls.setStatusQueryServiceUrl(properties.getProperty("server.soap.statusQueryUrl"));
+            urls.setReceiptServiceUrl(properties.getProperty("server.soap.receiptUrl"));
+            urls.setProfileQueryServiceUrl(properties.getProperty("server.soap.profileQueryUrl"));
+        }
+
+        TlsConfiguration tls = clientConfig.getTls();
+        tls.setKeyStoreFile(properties.getProperty("client.keyStore.file"));
+        tls.setKeyStorePassword(properties.getProperty("client.keyStore.password"));
+        tls.setKeyStoreKeyPassword(properties.getProperty("client.keyStore.keyPassword"));
+        tls.setKeyStoreCertificateAlias(properties.getProperty("client.keyStore.certAlias"));
+        tls.setTrustStoreFile(properties.getProperty("server.trustStore.file"));
+        tls.setTrustStorePassword(properties.getProperty("server.trustStore.password"));
+        tls.setHostnameVerification(Boolean.parseBoolean(properties.getProperty("server.hostnameVerification")));
+
+        HttpConfiguration http = clientConfig.getHttp();
+        http.setConnectionTimeoutInMs(Integer.parseInt(properties.getProperty("client.http.connectionTimeoutInSeconds")) * 1000);
+        http.setResponseTimeoutInMs(Integer.parseInt(properties.getProperty("client.http.responseTimeoutInSeconds")) * 1000);
+        return clientConfig;
+    }
+
+    private static void runLoad() {
+        String[] interfaceTypes = compareInterfaces ? new String[]{INTERFACE_REST, INTERFACE_SOAP} : new String[]{interfaceType};
+        Properties properties = useSimulator ? null : loadConfigProperties();
+        MssSimulator simulator = null;
+        try {
+            if (useSimulator) {
+                simulator = startSimulator(loadConfig.getConcurrency());
+                System.out.println("MSSP simulator started at " + simulator.getBaseUrl());
+            }
+            for (String currentInterfaceType : interfaceTypes) {
+                ClientConfiguration clientConfig = simulator != null ?
+                                                   buildSimulatorClientConfiguration(simulator, currentInterfaceType) :
+                                                   buildClientConfiguration(properties, currentInterfaceType);
+                ensureHttpConnections(clientConfig, loadConfig.getConcurrency());
+
+                System.out.println("Running the load test against the " + currentInterfaceType + " interface...");
+                try (MIDClient midClient = new MIDClientImpl(clientConfig)) {
+                    LoadGenerator generator = new LoadGenerator(midClient, clientConfig.getProtocol(), loadConfig);
+                    System.out.println(SEPARATOR);
+                    System.out.print(generator.run().format());
+                    System.out.println(SEPARATOR);
+                }
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.out.println(SEPARATOR);
+            System.out.println(prettyPrintTheException(e));
+        } finally {
+            if (simulator != null) {
+                simulator.close();
+            }
+        }
+    }
+
+    private static void runDaemon() {
+        Properties properties = useSimulator ? null : loadConfigProperties();
+        MssSimulator simulator = null;
+        if (useSimulator) {
+            simulator = startSimulator(gatewayConfig.getWorkerThreads());
+            System.out.println("MSSP simulator started at " + simulator.getBaseUrl());
+        }
+        ClientConfiguration clientConfig = simulator != null ?
+                                           buildSimulatorClientConfiguration(simulator, interfaceType) :
+                                           buildClientConfiguration(properties, interfaceType);
+        // scripts that poll the same transaction share a single MSS status query
+        clientConfig.setCoalesceDuplicateRequests(true);
+        ensureHttpConnections(clientConfig, gatewayConfig.getWorkerThreads());
+
+        // from the environment rather than from an argument, so that the token does not show up in the process list
+        String authToken = System.getenv(ENV_GATEWAY_TOKEN);
+        if (authToken != null && !authToken.isEmpty()) {
+            gatewayConfig.setAuthToken(authToken);
+        }
+
+        MIDClientImpl midClient = new MIDClientImpl(clientConfig);
+        GatewayDaemon daemon = new GatewayDaemon(midClient, gatewayConfig);
+        MssSimulator finalSimulator = simulator;
+        // the HTTP server thread keeps the JVM running after main() returns; stop everything on Ctrl+C / SIGTERM
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            daemon.close();
+            midClient.close();
+            if (finalSimulator != null) {
+                finalSimulator.close();
+            }
+        }, "mid-gateway-shutdown"));
+        daemon.start();
+        System.out.println("Mobile ID gateway daemon listening on http://" + gatewayConfig.getHost() + ":" + daemon.getPort()
+                           + " (press Ctrl+C to stop)");
+    }
+
+    private static void runBatch() {
+        Properties properties = useSimulator ? null : loadConfigProperties();
+        MssSimulator simulator = null;
+        // the results may go to stdout, so everything else goes to stderr
+        try (BufferedReader input = openBatchInput(); Writer output = openBatchOutput()) {
+            if (useSimulator) {
+                simulator = startSimulator(batchConfig.getParallelism());
+                System.err.println("MSSP simulator started at " + simulator.getBaseUrl());
+            }
+            ClientConfiguration clientConfig = simulator != null ?
+                                               buildSimulatorClientConfiguration(simulator, interfaceType) :
+                                               buildClientConfiguration(properties, interfaceType);
+            ensureHttpConnections(clientConfig, batchConfig.getParallelism());
+
+            long startTime = System.currentTimeMillis();
+            try (MIDClient midClient = new MIDClientImpl(clientConfig)) {
+                BatchRunner runner = new BatchRunner(midClient, batchConfig);
+                runner.run(input, output);
+                System.err.println("Batch done in " + (System.currentTimeMillis() - startTime) / 1000 + " s: "
+                                   + runner.getSucceededCount() + " succeeded, " + runner.getFailedCount() + " failed");
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.err.println(SEPARATOR);
+            System.err.println(prettyPrintTheException(e));
+        } finally {
+            if (simulator != null) {
+                simulator.close();
+            }
+        }
+    }
+
+    private static BufferedReader openBatchInput() throws IOException {
+        InputStream is = batchInputFile.equals("-") ? System.in : new FileInputStream(batchInputFile);
+        return new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
+    }
+
+    private static Writer openBatchOutput() throws IOException {
+        OutputStream os = batchOutputFile == null ? System.out : new FileOutputStream(batchOutputFile);
+        return new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8));
+    }
+
+    private static MssSimulator startSimulator(int concurrency) {
+        SimulatorConfiguration simulatorConfig = new SimulatorConfiguration();
+        simulatorConfig.setWorkerThreads(Math.max(simulatorConfig.getWorkerThreads(), concurrency));
+        if (simulatorThinkTimeInMs >= 0) {
+            simulatorConfig.setThinkTimeMeanInMs(simulatorThinkTimeInMs);
+            simulatorConfig.setThinkTimeStdDevInMs(simulatorThinkTimeInMs / 2);
+        }
+        MssSimulator simulator = new MssSimulator(simulatorConfig);
+        simulator.start();
+        return simulator;
+    }
+
+    private static ClientConfiguration buildSimulatorClientConfiguration(MssSimulator simulator, String interfaceType) {
+        ClientConfiguration clientConfig = new ClientConfiguration();
+        clientConfig.setApId("mid://load.test.swisscom.ch");
+        clientConfig.setApPassword("LOAD_TEST");
+        clientConfig.setProtocol(interfaceType.equals(INTERFACE_REST) ? ComProtocol.REST : ComProtocol.SOAP);
+        simulator.configureClient(clientConfig);
+        return clientConfig;
+    }
+
+    private static void ensureHttpConnections(ClientConfiguration clientConfig, int concurrency) {
+        HttpConfiguration http = clientConfig.getHttp();
+        http.setMaxTotalConnections(Math.max(http.getMaxTotalConnections(), concurrency));
+        http.setMaxConnectionsPerRoute(Math.max(http.getMaxConnectionsPerRoute(), concurrency));
+    }
+
     private static void parseArguments(String[] args) {
         if (args.length == 0) {
             showHelp(null);
@@ -254,7 +457,7 @@ public class Cli {
                 case PARAM_SIGN: {
                     if (operation != null) {
                         showHelp("More than one operation selector was found in the calling arguments. "
-                                 + "Use either -" + PARAM_SIGN + " or -" + PARAM_PROFILE_QUERY);
+                                 + "Use either -" + PARAM_SIGN + ", -" + PARAM_PROFILE_QUERY + ", -" + PARAM_LOAD + " or -" + PARAM_DAEMON);
                         return;
                     }
                     operation = OPERATION_SIGN;
@@ -263,12 +466,237 @@ public class Cli {
                 case PARAM_PROFILE_QUERY: {
                     if (operation != null) {
                         showHelp("More than one operation selector was found in the calling arguments. "
-                                 + "Use either -" + PARAM_SIGN + " or -" + PARAM_PROFILE_QUERY);
+                                 + "Use either -" + PARAM_SIGN + ", -" + PARAM_PROFILE_QUERY + ", -" + PARAM_LOAD + " or -" + PARAM_DAEMON);
                         return;
                     }
                     operation = OPERATION_PROFILE_QUERY;
                     break;
                 }
+                case PARAM_LOAD: {
+                    if (operation != null) {
+                        showHelp("More than one operation selector was found in the calling arguments. "
+                                 + "Use either -" + PARAM_SIGN + ", -" + PARAM_PROFILE_QUERY + ", -" + PARAM_LOAD + " or -" + PARAM_DAEMON);
+                        return;
+                    }
+                    operation = OPERATION_LOAD;
+                    break;
+                }
+                case PARAM_DAEMON: {
+                    if (operation != null) {
+                        showHelp("More than one operation selector was found in the calling arguments. "
+                                 + "Use either -" + PARAM_SIGN + ", -" + PARAM_PROFILE_QUERY + ", -" + PARAM_LOAD + " or -" + PARAM_DAEMON);
+                        return;
+                    }
+                    operation = OPERATION_DAEMON;
+                    break;
+                }
+                case PARAM_LISTEN: {
+                    if (argValue == null) {
+                        if (argIndex + 1 < args.length) {
+                            argValue = args[argIndex + 1];
+                            argIndex++;
+                        } else {
+                            showHelp("Listen address is missing (the listen parameter)");
+                            return;
+                        }
+                    }
+                    int colonPos = argValue.lastIndexOf(':');
+                    try {
+                        if (colonPos >= 0) {
+                            gatewayConfig.setHost(argValue.substring(0, colonPos));
+                        }
+                        gatewayConfig.setPort(Integer.parseInt(argValue.substring(colonPos + 1)));
+                    } catch (NumberFormatException e) {
+                        showHelp("Invalid listen address: " + argValue + ". Use host:port or port");
+                        return;
+                    }
+                    break;
+                }
+                case PARAM_SIMULATOR: {
+                    useSimulator = true;
+                    break;
+                }
+                case PARAM_COMPARE: {
+                    compareInterfaces = true;
+                    break;
+                }
+                case PARAM_MODE: {
+                    if (argValue == null) {
+                        if (argIndex + 1 < args.length) {
+                            argValue = args[argIndex + 1];
+                            argIndex++;
+                        } else {
+                            showHelp("Load mode is missing (the mode parameter)");
+                            return;
+                        }
+                    }
+                    if (argValue.equals("open")) {
+                        loadConfig.setMode(LoadMode.OPEN_LOOP);
+                    } else if (argValue.equals("closed")) {
+                        loadConfig.setMode(LoadMode.CLOSED_LOOP);
+                    } else {
+                        showHelp("Invalid load mode: " + argValue + ". Use either open or closed");
+                        return;
+                    }
+                    break;
+                }
+                case PARAM_RATE: {
+                    if (argValue == null) {
+                        if (argIndex + 1 < args.length) {
+                            argValue = args[argIndex + 1];
+                            argIndex++;
+                        } else {
+                            showHelp("Arrival rate is missing (the rate parameter)");
+                            return;
+                        }
+                    }
+                    try {
+                        loadConfig.setArrivalRatePerSecond(Double.parseDouble(argValue));
+                        batchConfig.setRatePerSecond(loadConfig.getArrivalRatePerSecond());
+                    } catch (NumberFormatException e) {
+                        showHelp("Invalid arrival rate: " + argValue);
+                        return;
+                    }
+                    break;
+                }
+                case PARAM_CONCURRENCY: {
+                    if (argValue == null) {
+                        if (argIndex + 1 < args.length) {
+                            argValue = args[argIndex + 1];
+                            argIndex++;
+                        } else {
+                            showHelp("Concurrency is missing (the concurrency parameter)");
+                            return;
+                        }
+                    }
+                    try {
+                        loadConfig.setConcurrency(Integer.parseInt(argValue));
+                        batchConfig.setParallelism(loadConfig.getConcurrency());
+                        gatewayConfig.setWorkerThreads(loadConfig.getConcurrency());
+                    } catch (NumberFormatException e) {
+                        showHelp("Invalid concurrency: " + argValue);
+                        return;
+                    }
+                    break;
+                }
+                case PARAM_DURATION: {
+                    if (argValue == null) {
+                        if (argIndex + 1 < args.length) {
+                            argValue = args[argIndex + 1];
+                            argIndex++;
+                        } else {
+                            showHelp("Duration is missing (the duration parameter)");
+                            return;
+                        }
+                    }
+                    try {
+                        loadConfig.setDurationInSeconds(Integer.parseInt(argValue));
+                    } catch (NumberFormatException e) {
+                        showHelp("Invalid duration: " + argValue);
+                        return;
+                    }
+                    break;
+                }
+                case PARAM_WARMUP: {
+                    if (argValue == null) {
+                        if (argIndex + 1 < args.length) {
+                            argValue = args[argIndex + 1];
+                            argIndex++;
+                        } else {
+                            showHelp("Warm-up duration is missing (the warmup parameter)");
+                            return;
+                        }
+                    }
+                    try {
+                        loadConfig.setWarmupInSeconds(Integer.parseInt(argValue));
+                    } catch (NumberFormatException e) {
+                        showHelp("Invalid warm-up duration: " + argValue);
+                        return;
+                    }
+                    break;
+                }
+                case PARAM_MIX: {
+                    if (argValue == null) {
+                        if (argIndex + 1 < args.length) {
+                            argValue = args[argIndex + 1];
+                            argIndex++;
+                        } else {
+                            showHelp("Scenario mix is missing (the mix parameter)");
+                            return;
+                        }
+                    }
+                    try {
+                        loadConfig.setScenarioMix(argValue);
+                    } catch (ConfigurationException e) {
+                        showHelp(e.getMessage());
+                        return;
+                    }
+                    break;
+                }
+                case PARAM_POLL_INTERVAL: {
+                    if (argValue == null) {
+                        if (argIndex + 1 < args.length) {
+                            argValue = args[argIndex + 1];
+                            argIndex++;
+                        } else {
+                            showHelp("Poll interval is missing (the poll-interval parameter)");
+                            return;
+                        }
+                    }
+                    try {
+                        loadConfig.setPollIntervalInMs(Integer.parseInt(argValue));
+                        batchConfig.setPollIntervalInMs(loadConfig.getPollIntervalInMs());
+                        gatewayConfig.setPollIntervalInMs(loadConfig.getPollIntervalInMs());
+                    } catch (NumberFormatException e) {
+                        showHelp("Invalid poll interval: " + argValue);
+                        return;
+                    }
+                    break;
+                }
+                case PARAM_THINK_TIME: {
+                    if (argValue == null) {
+                        if (argIndex + 1 < args.length) {
+                            argValue = args[argIndex + 1];
+                            argIndex++;
+                        } else {
+                            showHelp("Simulator think time is missing (the think-time parameter)");
+                            return;
+                        }
+                    }
+                    try {
+                        simulatorThinkTimeInMs = Long.parseLong(argValue);
+                    } catch (NumberFormatException e) {
+                        showHelp("Invalid simulator think time: " + argValue);
+                        return;
+                    }
+                    break;
+                }
+                case PARAM_BATCH: {
+                    if (argValue == null) {
+                        if (argIndex + 1 < args.length) {
+                            argValue = args[argIndex + 1];
+                            argIndex++;
+                        } else {
+                            showHelp("Batch input file is missing (the batch parameter)");
+                            return;
+                        }
+                    }
+                    batchInputFile = argValue;
+                    break;
+                }
+                case PARAM_OUTPUT: {
+                    if (argValue == null) {
+                        if (argIndex + 1 < args.length) {
+                            argValue = args[argIndex + 1];
+                            argIndex++;
+                        } else {
+                            showHelp("Batch output file is missing (the output parameter)");
+                            return;
+                        }
+                    }
+                    batchOutputFile = argValue;
+                    break;
+                }
                 case PARAM_SYNC: {
                     syncSignature = true;
                     break;
@@ -342,10 +770,57 @@ public class Cli {
             argIndex++;
         }
         if (operation == null) {
-            showHelp("Operation selection is missing. Use either -" + PARAM_SIGN + " or -" + PARAM_PROFILE_QUERY);
+            showHelp("Operation selection is missing. Use either -" + PARAM_SIGN + ", -" + PARAM_PROFILE_QUERY + ", -" + PARAM_LOAD + " or -" + PARAM_DAEMON);
             return;
         }
-        if (msisdn == null) {
+        if (operation.equals(OPERATION_LOAD)) {
+            loadConfig.setSendReceipts(sendReceipt);
+            if (msisdn != null) {
+                loadConfig.setMsisdn(msisdn);
+            } else {
+                msisdn = loadConfig.getMsisdn();
+            }
+            loadConfig.setDtbs(dtbs);
+            try {
+                loadConfig.validateYourself();
+            } catch (ConfigurationException e) {
+                showHelp(e.getMessage());
+                return;
+            }
+        }
+        if (operation.equals(OPERATION_DAEMON)) {
+            if (batchInputFile != null) {
+                showHelp("The -" + PARAM_BATCH + " argument cannot be used with -" + PARAM_DAEMON);
+                return;
+            }
+            try {
+                gatewayConfig.validateYourself();
+            } catch (ConfigurationException e) {
+                showHelp(e.getMessage());
+                return;
+            }
+        }
+        if (batchInputFile != null) {
+            if (operation.equals(OPERATION_LOAD)) {
+                showHelp("The -" + PARAM_BATCH + " argument can only be used with -" + PARAM_SIGN + " or -" + PARAM_PROFILE_QUERY);
+                return;
+            }
+            if (operation.equals(OPERATION_PROFILE_QUERY)) {
+                batchConfig.setOperation(BatchOperation.PROFILE_QUERY);
+            } else {
+                batchConfig.setOperation(syncSignature ? BatchOperation.SYNC_SIGNATURE : BatchOperation.ASYNC_SIGNATURE);
+            }
+            batchConfig.setSendReceipts(sendReceipt);
+            batchConfig.setLanguage(lang);
+            batchConfig.setDefaultDtbs(dtbs);
+            batchConfig.setReceiptMessage(receiptDtbd);
+            try {
+                batchConfig.validateYourself();
+            } catch (ConfigurationException e) {
+                showHelp(e.getMessage());
+                return;
+            }
+        } else if (msisdn == null && !operation.equals(OPERATION_DAEMON)) {
             showHelp("MSISDN is missing");
             return;
         }
@@ -430,6 +905,12 @@ public class Cli {
                 throw new IllegalStateException("Invalid verboseLevel: " + verboseLevel);
             }
         }
+        if (verboseLevel == 0 && (operation.equals(OPERATION_LOAD) || operation.equals(OPERATION_DAEMON) || batchInputFile != null)) {
+            // one log line per MSS request would both flood the console and skew the measured latencies
+            setLoggerToLevel(Loggers.LOGGER_CLIENT, "warn", loggerContext);
+            setLoggerToLevel(Loggers.LOGGER_CONFIG, "warn", loggerContext);
+            setLoggerToLevel(Loggers.LOGGER_CLIENT_PROTOCOL, "warn", loggerContext);
+        }
     }
 
     private static void setLoggerToLevel(String loggerName, String level, LoggerContext loggerContext) {
@@ -509,6 +990,21 @@ public class Cli {
             System.out.println("DTBS                  : " + dtbs);
             System.out.println("Send receipt          : " + sendReceipt);
         }
+        if (operation.equals(OPERATION_LOAD)) {
+            System.out.println("Load                  : " + loadConfig);
+            System.out.println("Simulator             : " + useSimulator);
+            System.out.println("Compare REST and SOAP : " + compareInterfaces);
+        }
+        if (operation.equals(OPERATION_DAEMON)) {
+            System.out.println("Gateway               : " + gatewayConfig);
+            System.out.println("Simulator             : " + useSimulator);
+        }
+        if (batchInputFile != null) {
+            System.out.println("Batch                 : " + batchConfig);
+            System.out.println("Batch input           : " + batchInputFile);
+            System.out.println("Batch output          : " + batchOutputFile);
+            System.out.println("Simulator             : " + useSimulator);
+        }
         System.out.println("Verbose level         : " + verboseLevel);
         System.out.println(SEPARATOR);
     }
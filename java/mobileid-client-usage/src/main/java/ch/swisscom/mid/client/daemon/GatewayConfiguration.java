@@ -0,0 +1,125 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.daemon;
+
+import static ch.swisscom.mid.client.utils.Utils.configNotNull;
+import static ch.swisscom.mid.client.utils.Utils.configTrue;
+
+/**
+ * Configuration for the {@link GatewayDaemon}.
+ */
+public class GatewayConfiguration {
+
+    private String host = "127.0.0.1";
+    private int port = 8765;
+    private int workerThreads = 32;
+    private int pollIntervalInMs = 1000;
+    private int maxRequestSizeInBytes = 64 * 1024;
+    private String authToken;
+
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * Sets the address to listen on. Unless an {@link #setAuthToken(String) auth token} is set, the API has no
+     * authentication of its own, so keep the default loopback address unless the host is protected otherwise.
+     */
+    public void setHost(String host) {
+        this.host = host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Sets the port to listen on. Use 0 for any free port (see {@link GatewayDaemon#getPort()}).
+     */
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public int getWorkerThreads() {
+        return workerThreads;
+    }
+
+    /**
+     * Sets the number of threads serving the API. A signature requested with <code>"mode": "wait"</code> keeps its
+     * thread until the signature completes, so this is also the maximum number of such signatures in flight.
+     */
+    public void setWorkerThreads(int workerThreads) {
+        this.workerThreads = workerThreads;
+    }
+
+    public int getPollIntervalInMs() {
+        return pollIntervalInMs;
+    }
+
+    /**
+     * Sets the delay between two status polls done by the daemon for the signatures requested with
+     * <code>"mode": "wait"</code>.
+     */
+    public void setPollIntervalInMs(int pollIntervalInMs) {
+        this.pollIntervalInMs = pollIntervalInMs;
+    }
+
+    public int getMaxRequestSizeInBytes() {
+        return maxRequestSizeInBytes;
+    }
+
+    public void setMaxRequestSizeInBytes(int maxRequestSizeInBytes) {
+        this.maxRequestSizeInBytes = maxRequestSizeInBytes;
+    }
+
+    public String getAuthToken() {
+        return authToken;
+    }
+
+    /**
+     * Sets the shared token that the callers must send as <code>Authorization: Bearer &lt;token&gt;</code> (all the
+     * endpoints but <code>/health</code>). NULL (the default) leaves the API open to any local process.
+     */
+    public void setAuthToken(String authToken) {
+        this.authToken = authToken;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public void validateYourself() {
+        configNotNull(host, "The gateway host cannot be NULL");
+        configTrue(port >= 0 && port <= 65535, "The gateway port must be between 0 and 65535");
+        configTrue(workerThreads > 0, "The gateway workerThreads must be greater than 0");
+        configTrue(pollIntervalInMs > 0, "The gateway pollIntervalInMs must be greater than 0");
+        configTrue(maxRequestSizeInBytes > 0, "The gateway maxRequestSizeInBytes must be greater than 0");
+        configTrue(authToken == null || !authToken.isEmpty(), "The gateway authToken cannot be empty");
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    @Override
+    public String toString() {
+        return "GatewayConfiguration{" +
+               "host='" + host + '\'' +
+               ", port=" + port +
+               ", workerThreads=" + workerThreads +
+               ", pollIntervalInMs=" + pollIntervalInMs +
+               ", maxRequestSizeInBytes=" + maxRequestSizeInBytes +
+               ", authToken=" + (authToken == null ? "none" : "***") +
+               '}';
+    }
+
+}
@@ -0,0 +1,407 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.daemon;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ch.swisscom.mid.client.MIDFlowException;
+import ch.swisscom.mid.client.config.ConfigurationException;
+import ch.swisscom.mid.client.impl.Loggers;
+import ch.swisscom.mid.client.impl.MIDClientImpl;
+import ch.swisscom.mid.client.metrics.exporter.PrometheusTextFormat;
+import ch.swisscom.mid.client.model.Fault;
+import ch.swisscom.mid.client.model.ProfileRequest;
+import ch.swisscom.mid.client.model.ReceiptRequest;
+import ch.swisscom.mid.client.model.SignatureProfiles;
+import ch.swisscom.mid.client.model.SignatureRequest;
+import ch.swisscom.mid.client.model.SignatureResponse;
+import ch.swisscom.mid.client.model.SignatureTracking;
+import ch.swisscom.mid.client.model.StatusCode;
+import ch.swisscom.mid.client.model.SubscriberInfoAdditionalService;
+import ch.swisscom.mid.client.model.UserLanguage;
+
+/**
+ * Long-running local gateway that keeps one warm {@link MIDClientImpl} (with its pooled TLS connections) and exposes
+ * the Mobile ID operations as a small JSON over HTTP API, so that script based integrations (shell, PowerShell) pay one
+ * loopback call per request instead of a full TLS handshake with the Mobile ID service.
+ * <p>
+ * API (all the request and response bodies are JSON):
+ * <ul>
+ * <li><code>POST /v1/profile-query</code> with <code>{"msisdn"}</code>: returns the profile response</li>
+ * <li><code>POST /v1/signature</code> with <code>{"msisdn", "dtbs", "lang", "signatureProfile", "mode", "receipt"}</code>:
+ * requests a signature. The mode is <code>wait</code> (default; async signature polled by the daemon until it
+ * completes), <code>sync</code> or <code>async</code> (returns the first response; poll with
+ * <code>/v1/signature/status</code>). With <code>wait</code> and <code>sync</code>, an optional receipt message is sent
+ * after a successful signature</li>
+ * <li><code>POST /v1/signature/status</code> with <code>{"msisdn", "transactionId"}</code>: polls once</li>
+ * <li><code>POST /v1/receipt</code> with <code>{"msisdn", "transactionId", "message", "lang"}</code>: sends a receipt</li>
+ * <li><code>GET /metrics</code>: the client metrics, in the Prometheus text format</li>
+ * <li><code>GET /health</code>: <code>{"status": "UP"}</code></li>
+ * </ul>
+ * A failed Mobile ID operation is answered with a JSON body carrying the failure reason, the status code and the
+ * failure detail, and with HTTP status 422 for a fault reported by the Mobile ID service (e.g. the user cancelled), 400
+ * for an invalid request and 502 for the other failures.
+ * <p>
+ * The POST requests must have the <code>application/json</code> content type (415 otherwise). The requests that carry
+ * an <code>Origin</code> header are rejected with 403, so that a web page open in a local browser cannot drive the
+ * daemon. When an auth token is configured, the requests must also carry it as a bearer token (401 otherwise).
+ */
+public class GatewayDaemon implements Closeable {
+
+    public static final String PROFILE_QUERY_PATH = "/v1/profile-query";
+    public static final String SIGNATURE_PATH = "/v1/signature";
+    public static final String SIGNATURE_STATUS_PATH = "/v1/signature/status";
+    public static final String RECEIPT_PATH = "/v1/receipt";
+    public static final String METRICS_PATH = "/metrics";
+    public static final String HEALTH_PATH = "/health";
+
+    private static final Logger logClient = LoggerFactory.getLogger(Loggers.LOGGER_CLIENT);
+
+    private static final String JSON_CONTENT_TYPE = "application/json; charset=utf-8";
+    private static final String JSON_MEDIA_TYPE = "application/json";
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final String CLIENT_NAME = "gateway";
+
+    private final MIDClientImpl client;
+    private final GatewayConfiguration config;
+    private final ObjectMapper jacksonMapper;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public GatewayDaemon(MIDClientImpl client, GatewayConfiguration config) {
+        config.validateYourself();
+        this.client = client;
+        this.config = config;
+        this.jacksonMapper = new ObjectMapper();
+        this.jacksonMapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public synchronized void start() {
+        if (server != null) {
+            return;
+        }
+        InetSocketAddress address = new InetSocketAddress(config.getHost(), config.getPort());
+        try {
+            server = HttpServer.create(address, 0);
+        } catch (IOException e) {
+            throw new ConfigurationException("Failed to start the MID gateway daemon on " + address, e);
+        }
+        AtomicInteger threadCounter = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(config.getWorkerThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "mid-gateway-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        if (!server.getAddress().getAddress().isLoopbackAddress() && config.getAuthToken() == null) {
+            logClient.warn("The MID gateway daemon listens on the non-loopback address {}. "
+                           + "Its API has no authentication, make sure that only trusted clients can reach it",
+                           server.getAddress());
+        }
+        logClient.info("MID gateway daemon listening on {}", server.getAddress());
+    }
+
+    /**
+     * Returns the port the daemon listens on; useful when the daemon was configured with port 0 (any free port).
+     */
+    public synchronized int getPort() {
+        return server == null ? config.getPort() : server.getAddress().getPort();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            server = null;
+            executor = null;
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+            if (exchange.getRequestHeaders().containsKey("Origin")) {
+                throw new RequestRejectedException(403, "Cross-origin requests are not allowed");
+            }
+            if (!HEALTH_PATH.equals(path)) {
+                requireAuthToken(exchange);
+            }
+            switch (path) {
+                case HEALTH_PATH:
+                    requireMethod(method, "GET");
+                    sendJson(exchange, 200, jacksonMapper.createObjectNode().put("status", "UP"));
+                    break;
+                case METRICS_PATH:
+                    requireMethod(method, "GET");
+                    sendText(exchange, PrometheusTextFormat.format(Collections.singletonMap(CLIENT_NAME, client)));
+                    break;
+                case PROFILE_QUERY_PATH:
+                    requireMethod(method, "POST");
+                    sendJson(exchange, 200, profileQuery(readJson(exchange)));
+                    break;
+                case SIGNATURE_PATH:
+                    requireMethod(method, "POST");
+                    sendJson(exchange, 200, signature(readJson(exchange)));
+                    break;
+                case SIGNATURE_STATUS_PATH:
+                    requireMethod(method, "POST");
+                    sendJson(exchange, 200, signatureStatus(readJson(exchange)));
+                    break;
+                case RECEIPT_PATH:
+                    requireMethod(method, "POST");
+                    sendJson(exchange, 200, receipt(readJson(exchange)));
+                    break;
+                default:
+                    sendError(exchange, 404, "No such endpoint: " + path);
+            }
+        } catch (RequestRejectedException e) {
+            sendError(exchange, e.httpStatus, e.getMessage());
+        } catch (MIDFlowException e) {
+            sendFault(exchange, e);
+        } catch (IllegalArgumentException | JsonProcessingException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            sendError(exchange, 503, "The MID gateway daemon is shutting down");
+        } catch (RuntimeException e) {
+            logClient.warn("MID gateway daemon request failed", e);
+            sendError(exchange, 500, e.toString());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private Object profileQuery(JsonNode body) {
+        ProfileRequest request = new ProfileRequest();
+        request.getMobileUser().setMsisdn(requireText(body, "msisdn"));
+        request.setExtensionParamsToAllValues();
+        return client.requestProfile(request);
+    }
+
+    private Object signature(JsonNode body) throws InterruptedException {
+        SignatureRequest request = new SignatureRequest();
+        request.getMobileUser().setMsisdn(requireText(body, "msisdn"));
+        request.getDataToBeSigned().setData(requireText(body, "dtbs"));
+        String language = optionalText(body, "lang", "en");
+        request.setUserLanguage(UserLanguage.getByValue(language));
+        request.setSignatureProfile(optionalText(body, "signatureProfile", SignatureProfiles.DEFAULT_PROFILE));
+        request.addAdditionalService(new SubscriberInfoAdditionalService());
+        String mode = optionalText(body, "mode", "wait");
+        String receiptMessage = optionalText(body, "receipt", null);
+
+        SignatureResponse response;
+        switch (mode) {
+            case "sync":
+                response = client.requestSyncSignature(request);
+                break;
+            case "async":
+                return client.requestAsyncSignature(request);
+            case "wait":
+                response = client.requestAsyncSignature(request);
+                while (response.getStatus().getStatusCode() == StatusCode.REQUEST_OK ||
+                       response.getStatus().getStatusCode() == StatusCode.OUTSTANDING_TRANSACTION) {
+                    //noinspection BusyWait
+                    Thread.sleep(config.getPollIntervalInMs());
+                    response = client.pollForSignatureStatus(response.getTracking());
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid signature mode [" + mode + "]. Use wait, sync or async");
+        }
+        if (receiptMessage == null || response.getStatus().getStatusCode() != StatusCode.SIGNATURE) {
+            return response;
+        }
+        ObjectNode result = jacksonMapper.createObjectNode();
+        result.set("signature", jacksonMapper.valueToTree(response));
+        result.set("receipt", jacksonMapper.valueToTree(
+            client.requestSyncReceipt(response.getTracking(), buildReceiptRequest(receiptMessage, language))));
+        return result;
+    }
+
+    private Object signatureStatus(JsonNode body) {
+        return client.pollForSignatureStatus(buildTracking(body));
+    }
+
+    private Object receipt(JsonNode body) {
+        ReceiptRequest request = buildReceiptRequest(requireText(body, "message"), optionalText(body, "lang", "en"));
+        return client.requestSyncReceipt(buildTracking(body), request);
+    }
+
+    private static SignatureTracking buildTracking(JsonNode body) {
+        SignatureTracking tracking = new SignatureTracking();
+        tracking.setTransactionId(requireText(body, "transactionId"));
+        tracking.setMobileUserMsisdn(requireText(body, "msisdn"));
+        return tracking;
+    }
+
+    private static ReceiptRequest buildReceiptRequest(String message, String language) {
+        ReceiptRequest request = new ReceiptRequest();
+        request.setStatusCode(StatusCode.REQUEST_OK);
+        request.getMessageToBeDisplayed().setData(message);
+        request.getRequestExtension().getReceiptProfile().setLanguage(UserLanguage.getByValue(language).getValue());
+        return request;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private JsonNode readJson(HttpExchange exchange) throws IOException {
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        if (contentType == null ||
+            !contentType.split(";", 2)[0].trim().toLowerCase(Locale.ROOT).equals(JSON_MEDIA_TYPE)) {
+            throw new RequestRejectedException(415, "The request body must be sent as " + JSON_MEDIA_TYPE);
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (InputStream is = exchange.getRequestBody()) {
+            byte[] buffer = new byte[4096];
+            int bytesRead;
+            while ((bytesRead = is.read(buffer)) > 0) {
+                body.write(buffer, 0, bytesRead);
+                if (body.size() > config.getMaxRequestSizeInBytes()) {
+                    throw new IllegalArgumentException("The request body is larger than "
+                                                       + config.getMaxRequestSizeInBytes() + " bytes");
+                }
+            }
+        }
+        JsonNode node = jacksonMapper.readTree(body.toByteArray());
+        if (node == null || !node.isObject()) {
+            throw new IllegalArgumentException("The request body must be a JSON object");
+        }
+        return node;
+    }
+
+    private static String requireText(JsonNode body, String field) {
+        String value = optionalText(body, field, null);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("The field [" + field + "] is missing from the request");
+        }
+        return value;
+    }
+
+    private static String optionalText(JsonNode body, String field, String defaultValue) {
+        JsonNode value = body.get(field);
+        return value == null || value.isNull() ? defaultValue : value.asText();
+    }
+
+    private void requireAuthToken(HttpExchange exchange) {
+        if (config.getAuthToken() == null) {
+            return;
+        }
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        byte[] expected = (BEARER_PREFIX + config.getAuthToken()).getBytes(StandardCharsets.UTF_8);
+        // constant-time comparison, so that the token cannot be guessed from the response times
+        if (authorization == null || !MessageDigest.isEqual(expected, authorization.getBytes(StandardCharsets.UTF_8))) {
+            throw new RequestRejectedException(401, "Missing or invalid auth token");
+        }
+    }
+
+    private static void requireMethod(String method, String expectedMethod) {
+        if (!expectedMethod.equals(method)) {
+            throw new RequestRejectedException(405, "Use " + expectedMethod + " for this endpoint");
+        }
+    }
+
+    private void sendFault(HttpExchange exchange, MIDFlowException e) throws IOException {
+        Fault fault = e.getFault();
+        ObjectNode body = jacksonMapper.createObjectNode();
+        int httpStatus = 502;
+        if (fault != null) {
+            body.put("failureReason", String.valueOf(fault.getFailureReason()));
+            if (fault.getStatusCode() != null) {
+                body.put("statusCode", fault.getStatusCode().name());
+                body.put("statusCodeString", fault.getStatusCodeString());
+            }
+            body.put("failureDetail", fault.getFailureDetail());
+            if (fault.getFailureReason() != null) {
+                switch (fault.getFailureReason()) {
+                    case MID_SERVICE_FAILURE:
+                        httpStatus = 422;
+                        break;
+                    case REQUEST_PREPARATION_FAILURE:
+                        httpStatus = 400;
+                        break;
+                    default:
+                        break;
+                }
+            }
+        } else {
+            body.put("failureDetail", e.getMessage());
+        }
+        sendJson(exchange, httpStatus, body);
+    }
+
+    private void sendError(HttpExchange exchange, int httpStatus, String message) throws IOException {
+        sendJson(exchange, httpStatus, jacksonMapper.createObjectNode().put("error", message));
+    }
+
+    private void sendJson(HttpExchange exchange, int httpStatus, Object body) throws IOException {
+        send(exchange, httpStatus, JSON_CONTENT_TYPE, jacksonMapper.writeValueAsBytes(body));
+    }
+
+    private static void sendText(HttpExchange exchange, String body) throws IOException {
+        send(exchange, 200, PrometheusTextFormat.CONTENT_TYPE, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void send(HttpExchange exchange, int httpStatus, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(httpStatus, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    private static final class RequestRejectedException extends RuntimeException {
+
+        private final int httpStatus;
+
+        private RequestRejectedException(int httpStatus, String message) {
+            super(message);
+            this.httpStatus = httpStatus;
+        }
+
+    }
+
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.load;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import ch.swisscom.mid.client.config.ConfigurationException;
+
+import static ch.swisscom.mid.client.utils.Utils.configNotNull;
+import static ch.swisscom.mid.client.utils.Utils.configTrue;
+
+/**
+ * Configuration for a run of the {@link LoadGenerator}.
+ */
+public class LoadConfiguration {
+
+    private LoadMode mode = LoadMode.OPEN_LOOP;
+    private double arrivalRatePerSecond = 10;
+    private int concurrency = 64;
+    private int durationInSeconds = 30;
+    private int warmupInSeconds = 0;
+    private final Map<LoadScenario, Integer> scenarioWeights = new EnumMap<>(LoadScenario.class);
+    private boolean sendReceipts = false;
+    private int pollIntervalInMs = 1000;
+    private String msisdn = "41798765432";
+    private String dtbs = "Test: Please sign this document";
+
+    public LoadConfiguration() {
+        scenarioWeights.put(LoadScenario.SYNC_SIGNATURE, 20);
+        scenarioWeights.put(LoadScenario.ASYNC_SIGNATURE, 60);
+        scenarioWeights.put(LoadScenario.PROFILE_QUERY, 20);
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public LoadMode getMode() {
+        return mode;
+    }
+
+    public void setMode(LoadMode mode) {
+        this.mode = mode;
+    }
+
+    public double getArrivalRatePerSecond() {
+        return arrivalRatePerSecond;
+    }
+
+    /**
+     * Sets the number of scenarios started each second, for the open loop mode.
+     */
+    public void setArrivalRatePerSecond(double arrivalRatePerSecond) {
+        this.arrivalRatePerSecond = arrivalRatePerSecond;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * Sets the number of workers for the closed loop mode, or the maximum number of scenarios in flight for the open
+     * loop mode (scenarios that arrive when all of them are busy wait for a free one, and that wait is part of their
+     * latency).
+     */
+    public void setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    public int getDurationInSeconds() {
+        return durationInSeconds;
+    }
+
+    public void setDurationInSeconds(int durationInSeconds) {
+        this.durationInSeconds = durationInSeconds;
+    }
+
+    public int getWarmupInSeconds() {
+        return warmupInSeconds;
+    }
+
+    /**
+     * Sets how long to generate load before the measurement starts. The scenarios started during the warm-up run with the
+     * same arrival rate (or concurrency) as the measured ones, but are left out of the report, so that the class loading,
+     * JIT compilation and the opening of the TLS connections do not end up in the latency percentiles.
+     */
+    public void setWarmupInSeconds(int warmupInSeconds) {
+        this.warmupInSeconds = warmupInSeconds;
+    }
+
+    public Map<LoadScenario, Integer> getScenarioWeights() {
+        return scenarioWeights;
+    }
+
+    public void setScenarioWeight(LoadScenario scenario, int weight) {
+        scenarioWeights.put(scenario, weight);
+    }
+
+    /**
+     * Sets the scenario mix from its text form, e.g. <code>sync:20,async:60,profile:20</code>. The scenarios that are
+     * not listed get a weight of 0.
+     */
+    public void setScenarioMix(String mix) {
+        scenarioWeights.clear();
+        for (String item : mix.split(",")) {
+            String[] pair = item.trim().split(":");
+            LoadScenario scenario = pair.length == 2 ? LoadScenario.getByShortName(pair[0].trim()) : null;
+            if (scenario == null) {
+                throw new ConfigurationException("Invalid scenario mix item [" + item + "]. "
+                                                 + "Use items such as sync:20, async:60 or profile:20");
+            }
+            try {
+                scenarioWeights.put(scenario, Integer.parseInt(pair[1].trim()));
+            } catch (NumberFormatException e) {
+                throw new ConfigurationException("Invalid weight in the scenario mix item [" + item + "]", e);
+            }
+        }
+    }
+
+    public boolean isSendReceipts() {
+        return sendReceipts;
+    }
+
+    public void setSendReceipts(boolean sendReceipts) {
+        this.sendReceipts = sendReceipts;
+    }
+
+    public int getPollIntervalInMs() {
+        return pollIntervalInMs;
+    }
+
+    public void setPollIntervalInMs(int pollIntervalInMs) {
+        this.pollIntervalInMs = pollIntervalInMs;
+    }
+
+    public String getMsisdn() {
+        return msisdn;
+    }
+
+    public void setMsisdn(String msisdn) {
+        this.msisdn = msisdn;
+    }
+
+    public String getDtbs() {
+        return dtbs;
+    }
+
+    public void setDtbs(String dtbs) {
+        this.dtbs = dtbs;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public void validateYourself() {
+        configNotNull(mode, "The load mode cannot be NULL");
+        if (mode == LoadMode.OPEN_LOOP) {
+            configTrue(arrivalRatePerSecond > 0, "The load arrivalRatePerSecond must be greater than 0");
+        }
+        configTrue(concurrency > 0, "The load concurrency must be greater than 0");
+        configTrue(durationInSeconds > 0, "The load durationInSeconds must be greater than 0");
+        configTrue(warmupInSeconds >= 0, "The load warmupInSeconds cannot be negative");
+        int totalWeight = 0;
+        for (int weight : scenarioWeights.values()) {
+            configTrue(weight >= 0, "The load scenario weights cannot be negative");
+            totalWeight += weight;
+        }
+        configTrue(totalWeight > 0, "At least one load scenario must have a weight greater than 0");
+        configTrue(pollIntervalInMs > 0, "The load pollIntervalInMs must be greater than 0");
+        configNotNull(msisdn, "The load MSISDN cannot be NULL");
+        configNotNull(dtbs, "The load DTBS cannot be NULL");
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    @Override
+    public String toString() {
+        return "LoadConfiguration{" +
+               "mode=" + mode +
+               ", arrivalRatePerSecond=" + arrivalRatePerSecond +
+               ", concurrency=" + concurrency +
+               ", durationInSeconds=" + durationInSeconds +
+               ", warmupInSeconds=" + warmupInSeconds +
+               ", scenarioWeights=" + scenarioWeights +
+               ", sendReceipts=" + sendReceipts +
+               ", pollIntervalInMs=" + pollIntervalInMs +
+               ", msisdn='" + msisdn + '\'' +
+               ", dtbs='" + dtbs + '\'' +
+               '}';
+    }
+
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.load;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+import ch.swisscom.mid.client.MIDClient;
+import ch.swisscom.mid.client.MIDFlowException;
+import ch.swisscom.mid.client.config.ComProtocol;
+import ch.swisscom.mid.client.metrics.MIDOperation;
+import ch.swisscom.mid.client.model.FailureReason;
+import ch.swisscom.mid.client.model.Fault;
+import ch.swisscom.mid.client.model.ProfileRequest;
+import ch.swisscom.mid.client.model.ReceiptRequest;
+import ch.swisscom.mid.client.model.SignatureProfiles;
+import ch.swisscom.mid.client.model.SignatureRequest;
+import ch.swisscom.mid.client.model.SignatureResponse;
+import ch.swisscom.mid.client.model.StatusCode;
+import ch.swisscom.mid.client.model.UserLanguage;
+
+/**
+ * Drives a configurable mix of Mobile ID scenarios against a {@link MIDClient} and collects the results in a
+ * {@link LoadReport}. See {@link LoadMode} for the difference between the open and the closed loop runs.
+ * <p>
+ * In open loop mode the latencies of a scenario (and of its first operation) are measured from the moment the scenario
+ * was scheduled to start, not from the moment a worker thread picked it up. When the client falls behind, the time the
+ * scenarios spend waiting for a free worker therefore shows up in the percentiles, instead of being silently omitted.
+ */
+public class LoadGenerator {
+
+    /**
+     * How long to wait, after the end of the run, for the scenarios that are still in flight.
+     */
+    private static final long DRAIN_TIMEOUT_IN_SECONDS = 120;
+
+    private final MIDClient client;
+    private final ComProtocol protocol;
+    private final LoadConfiguration config;
+    private final LoadScenario[] scenarioTable;
+
+    public LoadGenerator(MIDClient client, ComProtocol protocol, LoadConfiguration config) {
+        config.validateYourself();
+        this.client = client;
+        this.protocol = protocol;
+        this.config = config;
+        this.scenarioTable = buildScenarioTable(config.getScenarioWeights());
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public LoadReport run() {
+        LoadReport report = new LoadReport(protocol, config);
+        // the scenarios started during the warm-up are recorded here and then dropped
+        LoadReport warmupReport = new LoadReport(protocol, config);
+        AtomicInteger threadCounter = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(config.getConcurrency(), runnable -> {
+            Thread thread = new Thread(runnable, "mid-load-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long startTime = System.nanoTime();
+        long measurementStartTime = startTime + TimeUnit.SECONDS.toNanos(config.getWarmupInSeconds());
+        long endTime = measurementStartTime + TimeUnit.SECONDS.toNanos(config.getDurationInSeconds());
+        Reports reports = new Reports(report, warmupReport, measurementStartTime);
+        // the measurement window ends when the last scenario may start, not when the scenarios in flight are drained
+        long measurementEndTime = endTime;
+        try {
+            if (config.getMode() == LoadMode.OPEN_LOOP) {
+                runOpenLoop(workers, reports, startTime, endTime);
+            } else {
+                runClosedLoop(workers, reports, endTime);
+            }
+            workers.shutdown();
+            if (!workers.awaitTermination(DRAIN_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            // the run was stopped early; no scenario was started after this point
+            measurementEndTime = Math.min(System.nanoTime(), endTime);
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        report.setElapsedTimeInNanos(Math.max(0, measurementEndTime - measurementStartTime));
+        return report;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private void runOpenLoop(ExecutorService workers, Reports reports, long startTime, long endTime) {
+        double intervalInNanos = TimeUnit.SECONDS.toNanos(1) / config.getArrivalRatePerSecond();
+        for (long index = 0; ; index++) {
+            long intendedStartTime = startTime + (long) (index * intervalInNanos);
+            if (intendedStartTime >= endTime) {
+                return;
+            }
+            long waitTime;
+            while ((waitTime = intendedStartTime - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(waitTime);
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+            }
+            LoadScenario scenario = pickScenario();
+            workers.execute(() -> runScenario(scenario, intendedStartTime, reports.forStartTime(intendedStartTime)));
+        }
+    }
+
+    private void runClosedLoop(ExecutorService workers, Reports reports, long endTime) {
+        for (int worker = 0; worker < config.getConcurrency(); worker++) {
+            workers.execute(() -> {
+                while (System.nanoTime() < endTime && !Thread.currentThread().isInterrupted()) {
+                    long scenarioStartTime = System.nanoTime();
+                    runScenario(pickScenario(), scenarioStartTime, reports.forStartTime(scenarioStartTime));
+                }
+            });
+        }
+    }
+
+    private LoadScenario pickScenario() {
+        return scenarioTable[ThreadLocalRandom.current().nextInt(scenarioTable.length)];
+    }
+
+    private void runScenario(LoadScenario scenario, long startTime, LoadReport report) {
+        boolean succeeded;
+        switch (scenario) {
+            case SYNC_SIGNATURE:
+                succeeded = runSyncSignature(startTime, report);
+                break;
+            case ASYNC_SIGNATURE:
+                succeeded = runAsyncSignature(startTime, report);
+                break;
+            case PROFILE_QUERY:
+                succeeded = runProfileQuery(startTime, report);
+                break;
+            default:
+                throw new IllegalStateException("Unknown load scenario: " + scenario);
+        }
+        report.recordScenario(scenario, System.nanoTime() - startTime, !succeeded);
+    }
+
+    private boolean runSyncSignature(long startTime, LoadReport report) {
+        SignatureResponse response = execute(MIDOperation.SYNC_SIGNATURE, startTime, report,
+                                             () -> client.requestSyncSignature(buildSignatureRequest()));
+        return response != null && (!config.isSendReceipts() || sendReceipt(response, report));
+    }
+
+    private boolean runAsyncSignature(long startTime, LoadReport report) {
+        SignatureResponse response = execute(MIDOperation.ASYNC_SIGNATURE, startTime, report,
+                                             () -> client.requestAsyncSignature(buildSignatureRequest()));
+        while (response != null && isPending(response.getStatus().getStatusCode())) {
+            try {
+                Thread.sleep(config.getPollIntervalInMs());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            SignatureResponse pendingResponse = response;
+            response = execute(MIDOperation.STATUS_QUERY, System.nanoTime(), report,
+                               () -> client.pollForSignatureStatus(pendingResponse.getTracking()));
+        }
+        return response != null && (!config.isSendReceipts() || sendReceipt(response, report));
+    }
+
+    private boolean runProfileQuery(long startTime, LoadReport report) {
+        ProfileRequest request = new ProfileRequest();
+        request.getMobileUser().setMsisdn(config.getMsisdn());
+        request.setExtensionParamsToAllValues();
+        return execute(MIDOperation.PROFILE_QUERY, startTime, report, () -> client.requestProfile(request)) != null;
+    }
+
+    private boolean sendReceipt(SignatureResponse signatureResponse, LoadReport report) {
+        ReceiptRequest request = new ReceiptRequest();
+        request.getMessageToBeDisplayed().setData("Test: signature received");
+        request.setStatusCode(StatusCode.REQUEST_OK);
+        return execute(MIDOperation.RECEIPT, System.nanoTime(), report,
+                       () -> client.requestSyncReceipt(signatureResponse.getTracking(), request)) != null;
+    }
+
+    /**
+     * Runs one MSS operation and records its outcome. Returns null if the operation failed.
+     */
+    private <T> T execute(MIDOperation operation, long startTime, LoadReport report, Supplier<T> call) {
+        try {
+            T result = call.get();
+            report.recordOperation(operation, System.nanoTime() - startTime);
+            return result;
+        } catch (MIDFlowException e) {
+            Fault fault = e.getFault();
+            report.recordOperationFailure(operation, System.nanoTime() - startTime,
+                                          fault == null ? null : fault.getFailureReason(),
+                                          fault == null ? null : fault.getStatusCode());
+        } catch (RuntimeException e) {
+            report.recordOperationFailure(operation, System.nanoTime() - startTime, FailureReason.UNKNOWN_FAILURE, null);
+        }
+        return null;
+    }
+
+    private SignatureRequest buildSignatureRequest() {
+        SignatureRequest request = new SignatureRequest();
+        request.setUserLanguage(UserLanguage.ENGLISH);
+        request.getDataToBeSigned().setData(config.getDtbs());
+        request.getMobileUser().setMsisdn(config.getMsisdn());
+        request.setSignatureProfile(SignatureProfiles.DEFAULT_PROFILE);
+        return request;
+    }
+
+    private static boolean isPending(StatusCode statusCode) {
+        return statusCode == StatusCode.REQUEST_OK || statusCode == StatusCode.OUTSTANDING_TRANSACTION;
+    }
+
+    /**
+     * Expands the scenario weights into a lookup table, so that a scenario can be picked with a single random index.
+     */
+    private static LoadScenario[] buildScenarioTable(Map<LoadScenario, Integer> weights) {
+        List<LoadScenario> table = new ArrayList<>();
+        for (Map.Entry<LoadScenario, Integer> entry : weights.entrySet()) {
+            for (int index = 0; index < entry.getValue(); index++) {
+                table.add(entry.getKey());
+            }
+        }
+        return table.toArray(new LoadScenario[0]);
+    }
+
+    private static final class Reports {
+
+        private final LoadReport report;
+        private final LoadReport warmupReport;
+        private final long measurementStartTime;
+
+        private Reports(LoadReport report, LoadReport warmupReport, long measurementStartTime) {
+            this.report = report;
+            this.warmupReport = warmupReport;
+            this.measurementStartTime = measurementStartTime;
+        }
+
+        private LoadReport forStartTime(long scenarioStartTime) {
+            return scenarioStartTime - measurementStartTime < 0 ? warmupReport : report;
+        }
+
+    }
+
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.load;
+
+public enum LoadMode {
+
+    /**
+     * Scenarios start at a constant arrival rate, whatever the latency of the server. The latency of a scenario (and
+     * of its first operation) is measured from the time it was scheduled to start, so that any queueing caused by a
+     * slow server is part of the reported latency (no coordinated omission).
+     */
+    OPEN_LOOP,
+
+    /**
+     * A fixed number of workers run scenarios back to back, each starting its next scenario as soon as the previous
+     * one is done. The arrival rate then follows the latency of the server.
+     */
+    CLOSED_LOOP
+
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.load;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ch.swisscom.mid.client.config.ComProtocol;
+import ch.swisscom.mid.client.metrics.LatencyHistogram;
+import ch.swisscom.mid.client.metrics.MIDOperation;
+import ch.swisscom.mid.client.model.FailureReason;
+import ch.swisscom.mid.client.model.StatusCode;
+
+/**
+ * The results of a run of the {@link LoadGenerator}: throughput, latency percentiles per MSS operation and per scenario,
+ * and the failures broken down by {@link FailureReason} (and by status code, for the failures reported by the Mobile ID
+ * service).
+ */
+public class LoadReport {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final ComProtocol protocol;
+    private final LoadConfiguration config;
+    private final Map<MIDOperation, Stats> operationStats = new EnumMap<>(MIDOperation.class);
+    private final Map<LoadScenario, Stats> scenarioStats = new EnumMap<>(LoadScenario.class);
+    private final Map<FailureReason, AtomicLong> failuresByReason = new EnumMap<>(FailureReason.class);
+    private final Map<StatusCode, AtomicLong> serviceFailuresByStatus = new EnumMap<>(StatusCode.class);
+    private volatile long elapsedTimeInNanos;
+
+    LoadReport(ComProtocol protocol, LoadConfiguration config) {
+        this.protocol = protocol;
+        this.config = config;
+        for (MIDOperation operation : MIDOperation.values()) {
+            operationStats.put(operation, new Stats());
+        }
+        for (LoadScenario scenario : LoadScenario.values()) {
+            scenarioStats.put(scenario, new Stats());
+        }
+        for (FailureReason reason : FailureReason.values()) {
+            failuresByReason.put(reason, new AtomicLong());
+        }
+        for (StatusCode statusCode : StatusCode.values()) {
+            serviceFailuresByStatus.put(statusCode, new AtomicLong());
+        }
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    public ComProtocol getProtocol() {
+        return protocol;
+    }
+
+    public long getElapsedTimeInNanos() {
+        return elapsedTimeInNanos;
+    }
+
+    public LatencyHistogram getOperationLatencies(MIDOperation operation) {
+        return operationStats.get(operation).latencies;
+    }
+
+    public long getOperationFailures(MIDOperation operation) {
+        return operationStats.get(operation).failures.get();
+    }
+
+    public LatencyHistogram getScenarioLatencies(LoadScenario scenario) {
+        return scenarioStats.get(scenario).latencies;
+    }
+
+    public long getFailures(FailureReason reason) {
+        return failuresByReason.get(reason).get();
+    }
+
+    public long getCompletedScenarios() {
+        long count = 0;
+        for (Stats stats : scenarioStats.values()) {
+            count += stats.latencies.getCount();
+        }
+        return count;
+    }
+
+    public long getCompletedOperations() {
+        long count = 0;
+        for (Stats stats : operationStats.values()) {
+            count += stats.latencies.getCount();
+        }
+        return count;
+    }
+
+    /**
+     * Renders the report as a text table, with the latencies in milliseconds.
+     */
+    public String format() {
+        double elapsedSeconds = elapsedTimeInNanos / 1e9;
+        StringBuilder sb = new StringBuilder(2048);
+        sb.append(String.format(Locale.ROOT, "Load test against the %s interface: %s", protocol, describeLoad())).append('\n');
+        sb.append(String.format(Locale.ROOT, "Elapsed: %.1f s, throughput: %.2f scenarios/s, %.2f operations/s",
+                                elapsedSeconds,
+                                elapsedSeconds == 0 ? 0 : getCompletedScenarios() / elapsedSeconds,
+                                elapsedSeconds == 0 ? 0 : getCompletedOperations() / elapsedSeconds)).append('\n');
+        sb.append('\n');
+        appendHeader(sb, "Operation");
+        for (Map.Entry<MIDOperation, Stats> entry : operationStats.entrySet()) {
+            appendRow(sb, entry.getKey().name(), entry.getValue());
+        }
+        sb.append('\n');
+        appendHeader(sb, "Scenario (end to end)");
+        for (Map.Entry<LoadScenario, Stats> entry : scenarioStats.entrySet()) {
+            appendRow(sb, entry.getKey().name(), entry.getValue());
+        }
+        sb.append('\n');
+        sb.append("Failures by reason:").append('\n');
+        boolean anyFailure = false;
+        for (Map.Entry<FailureReason, AtomicLong> entry : failuresByReason.entrySet()) {
+            if (entry.getValue().get() > 0) {
+                anyFailure = true;
+                sb.append(String.format(Locale.ROOT, "  %-30s %10d", entry.getKey().name(), entry.getValue().get()));
+                if (entry.getKey() == FailureReason.MID_SERVICE_FAILURE) {
+                    sb.append("  (");
+                    String separator = "";
+                    for (Map.Entry<StatusCode, AtomicLong> statusEntry : serviceFailuresByStatus.entrySet()) {
+                        if (statusEntry.getValue().get() > 0) {
+                            sb.append(separator).append(statusEntry.getKey().name()).append(": ").append(statusEntry.getValue().get());
+                            separator = ", ";
+                        }
+                    }
+                    sb.append(')');
+                }
+                sb.append('\n');
+            }
+        }
+        if (!anyFailure) {
+            sb.append("  none").append('\n');
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return format();
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    void recordOperation(MIDOperation operation, long latencyInNanos) {
+        operationStats.get(operation).latencies.recordNanos(latencyInNanos);
+    }
+
+    void recordOperationFailure(MIDOperation operation, long latencyInNanos, FailureReason reason, StatusCode statusCode) {
+        Stats stats = operationStats.get(operation);
+        stats.latencies.recordNanos(latencyInNanos);
+        stats.failures.incrementAndGet();
+        failuresByReason.get(reason == null ? FailureReason.UNKNOWN_FAILURE : reason).incrementAndGet();
+        if (reason == FailureReason.MID_SERVICE_FAILURE && statusCode != null) {
+            serviceFailuresByStatus.get(statusCode).incrementAndGet();
+        }
+    }
+
+    void recordScenario(LoadScenario scenario, long latencyInNanos, boolean failed) {
+        Stats stats = scenarioStats.get(scenario);
+        stats.latencies.recordNanos(latencyInNanos);
+        if (failed) {
+            stats.failures.incrementAndGet();
+        }
+    }
+
+    void setElapsedTimeInNanos(long elapsedTimeInNanos) {
+        this.elapsedTimeInNanos = elapsedTimeInNanos;
+    }
+
+    private String describeLoad() {
+        if (config.getMode() == LoadMode.OPEN_LOOP) {
+            return String.format(Locale.ROOT, "open loop, %.2f scenarios/s for %d s (max %d in flight), mix %s",
+                                 config.getArrivalRatePerSecond(), config.getDurationInSeconds(),
+                                 config.getConcurrency(), config.getScenarioWeights());
+        }
+        return String.format(Locale.ROOT, "closed loop, %d workers for %d s, mix %s",
+                             config.getConcurrency(), config.getDurationInSeconds(), config.getScenarioWeights());
+    }
+
+    private static void appendHeader(StringBuilder sb, String title) {
+        sb.append(String.format(Locale.ROOT, "%-22s %8s %8s %10s", title, "count", "errors", "mean ms"));
+        for (double percentile : PERCENTILES) {
+            sb.append(String.format(Locale.ROOT, " %10s", "p" + formatPercentile(percentile)));
+        }
+        sb.append(String.format(Locale.ROOT, " %10s", "max")).append('\n');
+    }
+
+    private static void appendRow(StringBuilder sb, String name, Stats stats) {
+        LatencyHistogram latencies = stats.latencies;
+        if (latencies.getCount() == 0) {
+            return;
+        }
+        sb.append(String.format(Locale.ROOT, "%-22s %8d %8d %10.1f",
+                                name, latencies.getCount(), stats.failures.get(), latencies.getMeanInMicros() / 1000));
+        for (double percentile : PERCENTILES) {
+            sb.append(String.format(Locale.ROOT, " %10.1f", latencies.getValueAtPercentile(percentile) / 1000.0));
+        }
+        sb.append(String.format(Locale.ROOT, " %10.1f", latencies.getMaxInMicros() / 1000.0)).append('\n');
+    }
+
+    private static String formatPercentile(double percentile) {
+        return percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile);
+    }
+
+    private static final class Stats {
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private final AtomicLong failures = new AtomicLong();
+    }
+
+}
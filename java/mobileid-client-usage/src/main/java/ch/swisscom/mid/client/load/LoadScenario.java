@@ -0,0 +1,58 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.load;
+
+/**
+ * The flows that the load generator runs. Each one is made of one or more MSS operations.
+ */
+public enum LoadScenario {
+
+    /**
+     * A synchronous signature, followed by a receipt if receipts are enabled and the signature succeeded.
+     */
+    SYNC_SIGNATURE("sync"),
+
+    /**
+     * An asynchronous signature, polled until it is no longer outstanding, followed by a receipt if receipts are
+     * enabled and the signature succeeded.
+     */
+    ASYNC_SIGNATURE("async"),
+
+    /**
+     * A single profile query.
+     */
+    PROFILE_QUERY("profile");
+
+    private final String shortName;
+
+    LoadScenario(String shortName) {
+        this.shortName = shortName;
+    }
+
+    public String getShortName() {
+        return shortName;
+    }
+
+    public static LoadScenario getByShortName(String shortName) {
+        for (LoadScenario scenario : values()) {
+            if (scenario.shortName.equalsIgnoreCase(shortName)) {
+                return scenario;
+            }
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.batch;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class BatchItemTest {
+
+    @Test
+    public void testParse_msisdnOnly() {
+        BatchItem item = BatchItem.parse(3, "  41790000001  ");
+        assertThat(item.getLineNumber(), is(3));
+        assertThat(item.getMsisdn(), is("41790000001"));
+        assertThat(item.getDtbs(), is(nullValue()));
+    }
+
+    @Test
+    public void testParse_msisdnAndDtbs() {
+        BatchItem item = BatchItem.parse(1, "41790000001 , Please sign, this contract ");
+        assertThat(item.getMsisdn(), is("41790000001"));
+        // everything after the first comma is the DTBS
+        assertThat(item.getDtbs(), is("Please sign, this contract"));
+    }
+
+    @Test
+    public void testParse_emptyDtbs() {
+        BatchItem item = BatchItem.parse(1, "41790000001,  ");
+        assertThat(item.getMsisdn(), is("41790000001"));
+        assertThat(item.getDtbs(), is(nullValue()));
+    }
+
+    @Test
+    public void testParse_blankLinesAndComments() {
+        assertThat(BatchItem.parse(1, ""), is(nullValue()));
+        assertThat(BatchItem.parse(2, "   "), is(nullValue()));
+        assertThat(BatchItem.parse(3, "# 41790000001"), is(nullValue()));
+        assertThat(BatchItem.parse(4, "  #comment"), is(nullValue()));
+    }
+
+}
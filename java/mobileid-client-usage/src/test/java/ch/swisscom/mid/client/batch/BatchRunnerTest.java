@@ -0,0 +1,263 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.batch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ch.swisscom.mid.client.MIDClient;
+import ch.swisscom.mid.client.model.ProfileRequest;
+import ch.swisscom.mid.client.model.ProfileResponse;
+import ch.swisscom.mid.client.model.ReceiptRequest;
+import ch.swisscom.mid.client.model.ReceiptResponse;
+import ch.swisscom.mid.client.model.SignatureRequest;
+import ch.swisscom.mid.client.model.SignatureResponse;
+import ch.swisscom.mid.client.model.SignatureTracking;
+import ch.swisscom.mid.client.model.Status;
+import ch.swisscom.mid.client.model.StatusCode;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class BatchRunnerTest {
+
+    private static final String SLOW_MSISDN = "41790000001";
+
+    private final ObjectMapper jacksonMapper = new ObjectMapper();
+
+    @Test
+    public void testResultsAreWrittenInCompletionOrder() throws Exception {
+        // the first item completes only once another result was written, so the results must come out of order
+        CountDownLatch firstResultWritten = new CountDownLatch(1);
+        FakeClient client = new FakeClient() {
+            @Override
+            public ProfileResponse requestProfile(ProfileRequest request) {
+                if (request.getMobileUser().getMsisdn().equals(SLOW_MSISDN)) {
+                    await(firstResultWritten);
+                }
+                return super.requestProfile(request);
+            }
+        };
+        ObservingWriter output = new ObservingWriter(firstResultWritten);
+        BatchConfiguration config = new BatchConfiguration();
+        config.setParallelism(2);
+
+        BatchRunner runner = new BatchRunner(client, config);
+        runner.run(input("# header", SLOW_MSISDN, "", "41790000002"), output);
+
+        List<JsonNode> results = readResults(output);
+        assertThat(results.size(), is(2));
+        assertThat(results.get(0).get("line").asInt(), is(4));
+        assertThat(results.get(0).get("msisdn").asText(), is("41790000002"));
+        assertThat(results.get(1).get("line").asInt(), is(2));
+        assertThat(results.get(1).get("msisdn").asText(), is(SLOW_MSISDN));
+        assertThat(results.get(1).get("result").asText(), is("OK"));
+        assertThat(runner.getSucceededCount(), is(2L));
+        assertThat(runner.getFailedCount(), is(0L));
+    }
+
+    @Test
+    public void testParallelism() throws Exception {
+        int parallelism = 3;
+        // each call waits for the other calls of its round, so the batch only completes if it runs 3 items at a time
+        CyclicBarrier round = new CyclicBarrier(parallelism);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        FakeClient client = new FakeClient() {
+            @Override
+            public ProfileResponse requestProfile(ProfileRequest request) {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    round.await(5, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw new IllegalStateException("The items of a round did not run in parallel", e);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+                return super.requestProfile(request);
+            }
+        };
+        BatchConfiguration config = new BatchConfiguration();
+        config.setParallelism(parallelism);
+        StringWriter output = new StringWriter();
+
+        BatchRunner runner = new BatchRunner(client, config);
+        List<String> lines = new ArrayList<>();
+        for (int index = 1; index <= 9; index++) {
+            lines.add("4179000000" + index);
+        }
+        runner.run(input(lines.toArray(new String[0])), output);
+
+        assertThat(readResults(output).size(), is(9));
+        assertThat(runner.getSucceededCount(), is(9L));
+        assertThat(maxInFlight.get(), is(lessThanOrEqualTo(parallelism)));
+    }
+
+    @Test
+    public void testInterruptedItemIsReportedAsFailed() throws Exception {
+        CountDownLatch polling = new CountDownLatch(1);
+        FakeClient client = new FakeClient() {
+            @Override
+            public SignatureResponse requestAsyncSignature(SignatureRequest request) {
+                polling.countDown();
+                return createSignatureResponse(StatusCode.REQUEST_OK);
+            }
+        };
+        AtomicBoolean interruptedWhileWriting = new AtomicBoolean();
+        ObservingWriter output = new ObservingWriter(null) {
+            @Override
+            public void write(String str) {
+                interruptedWhileWriting.set(Thread.currentThread().isInterrupted());
+                super.write(str);
+            }
+        };
+        BatchConfiguration config = new BatchConfiguration();
+        config.setOperation(BatchOperation.ASYNC_SIGNATURE);
+        config.setPollIntervalInMs((int) TimeUnit.MINUTES.toMillis(10));
+
+        BatchRunner runner = new BatchRunner(client, config);
+        Thread runnerThread = new Thread(() -> runner.run(input(SLOW_MSISDN), output));
+        runnerThread.start();
+        assertThat(polling.await(5, TimeUnit.SECONDS), is(true));
+        runnerThread.interrupt();
+        runnerThread.join(5000);
+        assertThat(output.awaitWrites(1), is(true));
+
+        List<JsonNode> results = readResults(output);
+        assertThat(results.size(), is(1));
+        assertThat(results.get(0).get("result").asText(), is("FAILED"));
+        assertThat(results.get(0).get("failureDetail").asText(), containsString("InterruptedException"));
+        assertThat(interruptedWhileWriting.get(), is(true));
+        assertThat(runner.getFailedCount(), is(1L));
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private static BufferedReader input(String... lines) {
+        return new BufferedReader(new StringReader(String.join("\n", lines)));
+    }
+
+    private List<JsonNode> readResults(StringWriter output) throws IOException {
+        List<JsonNode> result = new ArrayList<>();
+        for (String line : output.toString().split("\n")) {
+            if (!line.isEmpty()) {
+                result.add(jacksonMapper.readTree(line));
+            }
+        }
+        return result;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Timed out waiting for another item");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static SignatureResponse createSignatureResponse(StatusCode statusCode) {
+        Status status = new Status();
+        status.setStatusCode(statusCode);
+        SignatureResponse response = new SignatureResponse();
+        response.setStatus(status);
+        response.setTracking(new SignatureTracking());
+        return response;
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    /**
+     * Output that counts the flushed results (the runner flushes each result) and optionally signals the first one.
+     */
+    private static class ObservingWriter extends StringWriter {
+
+        private final CountDownLatch firstWrite;
+        private final AtomicInteger flushCount = new AtomicInteger();
+
+        ObservingWriter(CountDownLatch firstWrite) {
+            this.firstWrite = firstWrite;
+        }
+
+        @Override
+        public void flush() {
+            super.flush();
+            flushCount.incrementAndGet();
+            if (firstWrite != null) {
+                firstWrite.countDown();
+            }
+        }
+
+        boolean awaitWrites(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (flushCount.get() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            return flushCount.get() >= count;
+        }
+    }
+
+    private static class FakeClient implements MIDClient {
+
+        @Override
+        public ProfileResponse requestProfile(ProfileRequest request) {
+            return new ProfileResponse();
+        }
+
+        @Override
+        public SignatureResponse requestSyncSignature(SignatureRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SignatureResponse requestAsyncSignature(SignatureRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SignatureResponse pollForSignatureStatus(SignatureTracking signatureTracking) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ReceiptResponse requestSyncReceipt(SignatureTracking signatureTracking, ReceiptRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.daemon;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import ch.swisscom.mid.client.config.ClientConfiguration;
+import ch.swisscom.mid.client.config.ComProtocol;
+import ch.swisscom.mid.client.impl.MIDClientImpl;
+import ch.swisscom.mid.client.simulator.MssSimulator;
+import ch.swisscom.mid.client.simulator.SimulatorConfiguration;
+import ch.swisscom.mid.client.simulator.ThinkTimeDistribution;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+
+public class GatewayDaemonTest {
+
+    private static final String JSON = "application/json";
+    private static final String AUTH_TOKEN = "test-token";
+
+    private static MssSimulator simulator;
+    private static MIDClientImpl client;
+    private static GatewayDaemon daemon;
+    private static GatewayDaemon protectedDaemon;
+
+    private final ObjectMapper jacksonMapper = new ObjectMapper();
+
+    @BeforeAll
+    public static void setUpThisClass() {
+        SimulatorConfiguration simulatorConfig = new SimulatorConfiguration();
+        simulatorConfig.setThinkTimeDistribution(ThinkTimeDistribution.FIXED);
+        simulatorConfig.setThinkTimeMeanInMs(300);
+        simulator = new MssSimulator(simulatorConfig);
+        simulator.start();
+
+        ClientConfiguration clientConfig = new ClientConfiguration();
+        clientConfig.setProtocol(ComProtocol.REST);
+        clientConfig.setApId("mid://test.swisscom.ch");
+        clientConfig.setApPassword("TEST_ID");
+        clientConfig.getHttp().setConnectionTimeoutInMs(2 * 1000);
+        clientConfig.getHttp().setResponseTimeoutInMs(10 * 1000);
+        simulator.configureClient(clientConfig);
+        client = new MIDClientImpl(clientConfig);
+
+        daemon = new GatewayDaemon(client, buildConfig(null));
+        daemon.start();
+        protectedDaemon = new GatewayDaemon(client, buildConfig(AUTH_TOKEN));
+        protectedDaemon.start();
+    }
+
+    @AfterAll
+    public static void tearDownThisClass() {
+        daemon.close();
+        protectedDaemon.close();
+        client.close();
+        simulator.close();
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    @Test
+    public void testProfileQuery() throws IOException {
+        Response response = send(daemon, "POST", GatewayDaemon.PROFILE_QUERY_PATH, JSON, null, "{\"msisdn\":\"41798765432\"}");
+        assertThat(response.status, is(200));
+        assertThat(response.body.get("signatureProfiles").size(), is(3));
+    }
+
+    @Test
+    public void testSignatureInWaitMode() throws IOException {
+        Response response = send(daemon, "POST", GatewayDaemon.SIGNATURE_PATH, JSON + "; charset=utf-8", null,
+                                 "{\"msisdn\":\"41798765432\",\"dtbs\":\"test.com: Please sign this document\"}");
+        assertThat(response.status, is(200));
+        assertThat(response.body.get("status").get("statusCode").asText(), is("SIGNATURE"));
+        assertThat(response.body.get("base64Signature"), is(notNullValue()));
+    }
+
+    @Test
+    public void testRejectedRequests() throws IOException {
+        assertThat(send(daemon, "GET", GatewayDaemon.SIGNATURE_PATH, null, null, null).status, is(405));
+        assertThat(send(daemon, "POST", GatewayDaemon.HEALTH_PATH, JSON, null, "{}").status, is(405));
+        assertThat(send(daemon, "GET", "/v1/unknown", null, null, null).status, is(404));
+
+        Response response = send(daemon, "POST", GatewayDaemon.PROFILE_QUERY_PATH, "application/x-www-form-urlencoded", null,
+                                 "{\"msisdn\":\"41798765432\"}");
+        assertThat(response.status, is(415));
+        response = send(daemon, "POST", GatewayDaemon.PROFILE_QUERY_PATH, null, null, "{\"msisdn\":\"41798765432\"}");
+        assertThat(response.status, is(415));
+
+        response = send(daemon, "POST", GatewayDaemon.PROFILE_QUERY_PATH, JSON, "Origin: http://evil.example.com",
+                        "{\"msisdn\":\"41798765432\"}");
+        assertThat(response.status, is(403));
+
+        response = send(daemon, "POST", GatewayDaemon.PROFILE_QUERY_PATH, JSON, null, "{}");
+        assertThat(response.status, is(400));
+        assertThat(response.body.get("error").asText(), containsString("msisdn"));
+        assertThat(send(daemon, "POST", GatewayDaemon.PROFILE_QUERY_PATH, JSON, null, "[1, 2]").status, is(400));
+        assertThat(send(daemon, "POST", GatewayDaemon.SIGNATURE_PATH, JSON, null,
+                        "{\"msisdn\":\"41798765432\",\"dtbs\":\"test\",\"mode\":\"later\"}").status, is(400));
+    }
+
+    @Test
+    public void testAuthToken() throws IOException {
+        String body = "{\"msisdn\":\"41798765432\"}";
+        assertThat(send(protectedDaemon, "POST", GatewayDaemon.PROFILE_QUERY_PATH, JSON, null, body).status, is(401));
+        assertThat(send(protectedDaemon, "POST", GatewayDaemon.PROFILE_QUERY_PATH, JSON,
+                        "Authorization: Bearer wrong-token", body).status, is(401));
+        assertThat(send(protectedDaemon, "GET", GatewayDaemon.METRICS_PATH, null, null, null).status, is(401));
+        assertThat(send(protectedDaemon, "POST", GatewayDaemon.PROFILE_QUERY_PATH, JSON,
+                        "Authorization: Bearer " + AUTH_TOKEN, body).status, is(200));
+        // left open for the liveness probes
+        assertThat(send(protectedDaemon, "GET", GatewayDaemon.HEALTH_PATH, null, null, null).status, is(200));
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    private static GatewayConfiguration buildConfig(String authToken) {
+        GatewayConfiguration config = new GatewayConfiguration();
+        config.setPort(0);
+        config.setWorkerThreads(4);
+        config.setPollIntervalInMs(100);
+        config.setAuthToken(authToken);
+        return config;
+    }
+
+    /**
+     * Sends a raw HTTP request, as HttpURLConnection silently drops some headers (e.g. Origin) and always adds a
+     * content type to the requests with a body.
+     */
+    private Response send(GatewayDaemon target, String method, String path, String contentType, String extraHeader,
+                          String body) throws IOException {
+        byte[] bodyBytes = body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+        StringBuilder request = new StringBuilder();
+        request.append(method).append(' ').append(path).append(" HTTP/1.1\r\n");
+        request.append("Host: 127.0.0.1\r\n");
+        request.append("Connection: close\r\n");
+        if (contentType != null) {
+            request.append("Content-Type: ").append(contentType).append("\r\n");
+        }
+        if (extraHeader != null) {
+            request.append(extraHeader).append("\r\n");
+        }
+        request.append("Content-Length: ").append(bodyBytes.length).append("\r\n\r\n");
+
+        try (Socket socket = new Socket("127.0.0.1", target.getPort())) {
+            socket.setSoTimeout(10 * 1000);
+            OutputStream os = socket.getOutputStream();
+            os.write(request.toString().getBytes(StandardCharsets.US_ASCII));
+            os.write(bodyBytes);
+            os.flush();
+
+            ByteArrayOutputStream responseBytes = new ByteArrayOutputStream();
+            InputStream is = socket.getInputStream();
+            byte[] buffer = new byte[4096];
+            int bytesRead;
+            while ((bytesRead = is.read(buffer)) > 0) {
+                responseBytes.write(buffer, 0, bytesRead);
+            }
+            String response = new String(responseBytes.toByteArray(), StandardCharsets.UTF_8);
+            int status = Integer.parseInt(response.substring(response.indexOf(' ') + 1, response.indexOf(' ') + 4));
+            String responseBody = response.substring(response.indexOf("\r\n\r\n") + 4);
+            return new Response(status, responseBody.startsWith("{") ? jacksonMapper.readTree(responseBody) : null);
+        }
+    }
+
+    private static class Response {
+
+        private final int status;
+        private final JsonNode body;
+
+        private Response(int status, JsonNode body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+}
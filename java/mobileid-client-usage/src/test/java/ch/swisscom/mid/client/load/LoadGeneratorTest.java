@@ -0,0 +1,88 @@
+/*
+ * Copyright 2021 Swisscom (Schweiz) AG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.swisscom.mid.client.load;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import ch.swisscom.mid.client.config.ClientConfiguration;
+import ch.swisscom.mid.client.config.ComProtocol;
+import ch.swisscom.mid.client.impl.MIDClientImpl;
+import ch.swisscom.mid.client.metrics.MIDOperation;
+import ch.swisscom.mid.client.simulator.MssSimulator;
+import ch.swisscom.mid.client.simulator.SimulatorConfiguration;
+import ch.swisscom.mid.client.simulator.ThinkTimeDistribution;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class LoadGeneratorTest {
+
+    private static MssSimulator simulator;
+    private static MIDClientImpl client;
+
+    @BeforeAll
+    public static void setUpThisClass() {
+        SimulatorConfiguration simulatorConfig = new SimulatorConfiguration();
+        simulatorConfig.setThinkTimeDistribution(ThinkTimeDistribution.FIXED);
+        simulatorConfig.setThinkTimeMeanInMs(300);
+        simulator = new MssSimulator(simulatorConfig);
+        simulator.start();
+
+        ClientConfiguration clientConfig = new ClientConfiguration();
+        clientConfig.setProtocol(ComProtocol.REST);
+        clientConfig.setApId("mid://test.swisscom.ch");
+        clientConfig.setApPassword("TEST_ID");
+        clientConfig.getHttp().setConnectionTimeoutInMs(2 * 1000);
+        clientConfig.getHttp().setResponseTimeoutInMs(10 * 1000);
+        simulator.configureClient(clientConfig);
+        client = new MIDClientImpl(clientConfig);
+    }
+
+    @AfterAll
+    public static void tearDownThisClass() {
+        client.close();
+        simulator.close();
+    }
+
+    // ----------------------------------------------------------------------------------------------------
+
+    @Test
+    public void testOpenLoopRun() {
+        LoadConfiguration config = new LoadConfiguration();
+        config.setMode(LoadMode.OPEN_LOOP);
+        config.setArrivalRatePerSecond(20);
+        config.setDurationInSeconds(1);
+        config.setConcurrency(8);
+        config.setScenarioWeight(LoadScenario.SYNC_SIGNATURE, 1);
+        config.setScenarioWeight(LoadScenario.ASYNC_SIGNATURE, 0);
+        config.setScenarioWeight(LoadScenario.PROFILE_QUERY, 0);
+
+        LoadReport report = new LoadGenerator(client, ComProtocol.REST, config).run();
+
+        // one scenario every 50 ms during one second, each one a single sync signature
+        assertThat(report.getCompletedScenarios(), is(20L));
+        assertThat(report.getScenarioLatencies(LoadScenario.SYNC_SIGNATURE).getCount(), is(20L));
+        assertThat(report.getCompletedOperations(), is(20L));
+        assertThat(report.getOperationFailures(MIDOperation.SYNC_SIGNATURE), is(0L));
+        // the signatures started near the end of the run complete after it; their drain time is not part of the run
+        assertThat(report.getElapsedTimeInNanos(), is(TimeUnit.SECONDS.toNanos(1)));
+    }
+
+}